@@ -0,0 +1,53 @@
+package com.gotree.API.benchmarks;
+
+import com.gotree.API.modules.agenda.domain.entities.AgendaEvent;
+import com.gotree.API.modules.agenda.presentation.dto.AgendaResponseDTO;
+import com.gotree.API.modules.agenda.presentation.mappers.AgendaMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AgendaMapper#mapToDto} sobre um mês de eventos variados (visitas, eventos manuais, reagendados,
+ * sem empresa). O resultado é por evento.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AgendaMapperBenchmark {
+
+    private static final int EVENTS = 1_000;
+
+    private final AgendaMapper mapper = new AgendaMapper();
+    private List<AgendaEvent> events;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        events = BenchmarkFixtures.agendaEvents(EVENTS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void mapToDto(Blackhole blackhole) {
+        for (AgendaEvent event : events) {
+            AgendaResponseDTO dto = mapper.mapToDto(event);
+            blackhole.consume(dto);
+        }
+    }
+}
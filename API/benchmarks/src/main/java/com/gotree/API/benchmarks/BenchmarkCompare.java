@@ -0,0 +1,113 @@
+package com.gotree.API.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compara dois resultados JSON do JMH (por exemplo, de dois commits) benchmark a benchmark.
+ * <p>
+ * {@code java -cp benchmarks.jar com.gotree.API.benchmarks.BenchmarkCompare base.json novo.json [limite%]}
+ * <p>
+ * Mostra o tempo e a memória alocada por operação de cada um e a variação. Termina com código 1 se algum
+ * benchmark ficou mais lento que o limite (padrão 10%) além da margem de erro das duas medições,
+ * para poder ser usado como verificação.
+ */
+public final class BenchmarkCompare {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private BenchmarkCompare() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: BenchmarkCompare <base.json> <novo.json> [limite% (padrão 10)]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+
+        Map<String, Result> base = read(new File(args[0]));
+        Map<String, Result> current = read(new File(args[1]));
+
+        System.out.printf("%-90s %14s %14s %9s %12s %12s %9s%n",
+                "Benchmark", "Base", "Novo", "Tempo", "Base B/op", "Novo B/op", "Memória");
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result before = base.get(entry.getKey());
+            Result after = entry.getValue();
+            if (before == null) {
+                System.out.printf("%-90s %14s %14s %9s%n", entry.getKey(), "-", after.formatScore(), "novo");
+                continue;
+            }
+
+            double change = percent(after.score, before.score);
+            // Só conta como regressão o que não cabe na soma das margens de erro
+            boolean regression = change > threshold && after.score - after.error > before.score + before.error;
+            if (regression) regressions++;
+
+            System.out.printf("%-90s %14s %14s %8.1f%% %12s %12s %8s%s%n",
+                    entry.getKey(), before.formatScore(), after.formatScore(), change,
+                    formatBytes(before.allocated), formatBytes(after.allocated),
+                    before.allocated >= 0 && after.allocated >= 0
+                            ? String.format("%.1f%%", percent(after.allocated, before.allocated)) : "-",
+                    regression ? "  << REGRESSÃO" : "");
+        }
+        base.keySet().stream()
+                .filter(name -> !current.containsKey(name))
+                .forEach(name -> System.out.printf("%-90s %14s %14s %9s%n", name, base.get(name).formatScore(), "-", "removido"));
+
+        if (regressions > 0) {
+            System.out.printf("%n%d benchmark(s) mais lento(s) que o limite de %.0f%%.%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Lê o JSON do JMH; a chave é o nome do benchmark com os parâmetros (ex: {@code ...generatePdfFromHtml[size=SMALL,template=aep-template]}).
+     */
+    private static Map<String, Result> read(File file) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(file);
+        Map<String, Result> results = new TreeMap<>();
+        for (JsonNode benchmark : root) {
+            StringBuilder name = new StringBuilder(benchmark.path("benchmark").asText());
+            JsonNode params = benchmark.path("params");
+            if (params.isObject() && !params.isEmpty()) {
+                Map<String, String> sorted = new TreeMap<>();
+                params.fields().forEachRemaining(field -> sorted.put(field.getKey(), field.getValue().asText()));
+                name.append(sorted.toString().replace('{', '[').replace('}', ']').replace(" ", ""));
+            }
+
+            JsonNode primary = benchmark.path("primaryMetric");
+            JsonNode allocation = benchmark.path("secondaryMetrics").path(ALLOCATION_METRIC);
+            results.put(name.toString().replace("com.gotree.API.benchmarks.", ""), new Result(
+                    primary.path("score").asDouble(),
+                    primary.path("scoreError").isNumber() ? primary.path("scoreError").asDouble() : 0,
+                    primary.path("scoreUnit").asText(),
+                    allocation.isMissingNode() ? -1 : allocation.path("score").asDouble()));
+        }
+        return results;
+    }
+
+    private static double percent(double value, double reference) {
+        return reference != 0 ? (value - reference) * 100 / reference : 0;
+    }
+
+    private static String formatBytes(double bytes) {
+        if (bytes < 0) return "-";
+        if (bytes >= 1024 * 1024) return String.format("%.1f MB", bytes / (1024 * 1024));
+        if (bytes >= 1024) return String.format("%.1f KB", bytes / 1024);
+        return String.format("%.0f B", bytes);
+    }
+
+    private record Result(double score, double error, String unit, double allocated) {
+
+        String formatScore() {
+            return String.format("%.3f %s", score, unit);
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package com.gotree.API.benchmarks;
+
+import com.gotree.API.modules.administration.domain.entities.Company;
+import com.gotree.API.modules.administration.domain.entities.Sector;
+import com.gotree.API.modules.administration.domain.entities.Unit;
+import com.gotree.API.modules.administration.infrastructure.repositories.SystemInfoRepository;
+import com.gotree.API.modules.agenda.domain.entities.AgendaEvent;
+import com.gotree.API.modules.agenda.domain.enums.AgendaEventType;
+import com.gotree.API.modules.agenda.domain.enums.AgendaStatus;
+import com.gotree.API.modules.agenda.domain.enums.Shift;
+import com.gotree.API.modules.agenda.presentation.mappers.AgendaMapper;
+import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.operations.application.services.AepFormPdfRenderer;
+import com.gotree.API.modules.operations.domain.entities.AepReport;
+import com.gotree.API.modules.operations.domain.entities.EvaluatedFunction;
+import com.gotree.API.modules.operations.domain.entities.OccupationalRiskReport;
+import com.gotree.API.modules.operations.domain.entities.TechnicalVisit;
+import com.gotree.API.modules.operations.domain.entities.VisitFinding;
+import com.gotree.API.modules.operations.infrastructure.utils.RiskCatalog;
+import com.gotree.API.modules.shared.application.services.PdfRenderExecutor;
+import com.gotree.API.modules.shared.application.services.ReportRenderResources;
+import com.gotree.API.modules.shared.application.services.ReportService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Dados sintéticos e montagem dos serviços fora do Spring, compartilhados pelos benchmarks.
+ * <p>
+ * Os serviços são os de produção; só o que depende de banco ou de armazenamento é substituído
+ * por implementações em memória. Os dados são determinísticos, para que execuções em commits
+ * diferentes meçam exatamente o mesmo trabalho.
+ */
+public final class BenchmarkFixtures {
+
+    /**
+     * Templates ligados ao motor de formulário, como em {@code report.render.form-templates} (vazio por padrão:
+     * todos os templates passam pelo HTML). Com {@code -jvmArgsAppend -Dreport.render.form-templates=aep-template}
+     * a AEP usa o motor de formulário.
+     */
+    static final String FORM_TEMPLATES = System.getProperty("report.render.form-templates", "");
+
+    private static final String[] COMPANIES = {
+            "Metalúrgica Santa Rita Ltda.", "Indústria de Alimentos Boa Safra S.A.", "Transportadora Rota Sul Ltda.",
+            "Hospital São Lucas", "Construtora Horizonte Engenharia Ltda.", "Cooperativa Agroindustrial Vale Verde"
+    };
+    private static final String[] FUNCTIONS = {
+            "Operador de empilhadeira", "Auxiliar de produção", "Soldador", "Técnico de manutenção elétrica",
+            "Motorista de caminhão", "Auxiliar de limpeza", "Eletricista de força e controle", "Pintor industrial"
+    };
+    private static final String LOREM = "Foi constatada a ausência de proteção fixa nas partes móveis do equipamento, "
+            + "expondo o trabalhador a risco de prensamento e amputação durante a operação e a limpeza da máquina. ";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Tamanho dos documentos: quantidade de achados, funções, eventos ou riscos marcados.
+     */
+    public enum DataSize {
+        SMALL(1, 2, 20, 5),
+        MEDIUM(5, 10, 200, 20),
+        LARGE(20, 40, 1000, 1000);
+
+        final int findings;
+        final int functions;
+        final int agendaEvents;
+        final int aepRisks;
+
+        DataSize(int findings, int functions, int agendaEvents, int aepRisks) {
+            this.findings = findings;
+            this.functions = functions;
+            this.agendaEvents = agendaEvents;
+            this.aepRisks = aepRisks;
+        }
+    }
+
+    // ===================================================================================
+    // 1. SERVIÇOS
+    // ===================================================================================
+
+    /**
+     * Recursos de renderização sem banco: sem SystemInfo, usa a logo estática, como na primeira execução.
+     */
+    static ReportRenderResources renderResources() {
+        SystemInfoRepository systemInfo = repository(SystemInfoRepository.class, Map.of("findFirst", args -> null));
+        return new ReportRenderResources(systemInfo, null, 10);
+    }
+
+    static PdfRenderExecutor renderExecutor(MeterRegistry meterRegistry) {
+        return new PdfRenderExecutor(meterRegistry, 0, 50, 20, 120);
+    }
+
+    /**
+     * {@link ReportService} com a mesma engine de templates do Spring Boot e os motores de formulário
+     * de {@link #FORM_TEMPLATES}. Memoização e armazenamento não são usados por {@code generatePdfFromHtml}.
+     */
+    static ReportService reportService(ReportRenderResources resources, PdfRenderExecutor executor,
+                                       MeterRegistry meterRegistry) {
+        Set<String> formTemplates = Arrays.stream(FORM_TEMPLATES.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toSet());
+        return reportService(resources, executor, meterRegistry, formTemplates);
+    }
+
+    /**
+     * Mesmo {@link ReportService}, com os templates do motor de formulário informados.
+     */
+    static ReportService reportService(ReportRenderResources resources, PdfRenderExecutor executor,
+                                       MeterRegistry meterRegistry, Set<String> formTemplates) {
+        return new ReportService(templateEngine(), resources, executor, meterRegistry, null, null,
+                List.of(new AepFormPdfRenderer(resources)), formTemplates);
+    }
+
+    static MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    private static SpringTemplateEngine templateEngine() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(true);
+
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        return engine;
+    }
+
+    /**
+     * Repositório em memória: só os métodos informados respondem; os demais falham, para que uma mudança
+     * no caminho medido (uma consulta nova, por exemplo) apareça logo em vez de medir algo diferente.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> handler = methods.get(method.getName());
+            if (handler != null) {
+                return handler.apply(args);
+            }
+            return switch (method.getName()) {
+                case "toString" -> type.getSimpleName() + " (benchmark)";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName()
+                        + " não é usado pelo benchmark.");
+            };
+        });
+    }
+
+    // ===================================================================================
+    // 2. DADOS DOS TEMPLATES
+    // ===================================================================================
+
+    /**
+     * Modelo do template, como montado pelo serviço de cada documento.
+     */
+    static Map<String, Object> templateData(String template, DataSize size, String photoUri, String signatureBase64) {
+        return switch (template) {
+            case "visit-report-template" -> visitReportData(size, photoUri, signatureBase64);
+            case "risk-checklist-template" -> riskChecklistData(size, signatureBase64);
+            case "relatorio-agenda" -> agendaReportData(size);
+            case "aep-template" -> aepData(size);
+            default -> throw new IllegalArgumentException("Template sem dados de benchmark: " + template);
+        };
+    }
+
+    private static Map<String, Object> visitReportData(DataSize size, String photoUri, String signatureBase64) {
+        TechnicalVisit visit = new TechnicalVisit();
+        visit.setId(1L);
+        visit.setTitle("Relatório de Visita Técnica");
+        visit.setClientCompany(company(0));
+        visit.setUnit(unit(0));
+        visit.setSector(sector(0));
+        visit.setTechnician(technician());
+        visit.setVisitDate(LocalDate.of(2024, 3, 15));
+        visit.setStartTime(LocalTime.of(8, 30));
+        visit.setEndTime(LocalTime.of(11, 45));
+        visit.setLocation("Galpão de produção 2");
+        visit.setSummary(LOREM.repeat(3));
+        visit.setTechnicianSignatureImageBase64(signatureBase64);
+        visit.setTechnicianSignedAt(LocalDateTime.of(2024, 3, 15, 11, 50));
+        visit.setClientSignerName("Responsável da Empresa");
+        visit.setClientSignatureImageBase64(signatureBase64);
+        visit.setClientSignedAt(LocalDateTime.of(2024, 3, 15, 11, 55));
+        visit.setClientSignatureLatitude(-23.5505);
+        visit.setClientSignatureLongitude(-46.6333);
+        visit.setNextVisitDate(LocalDate.of(2024, 4, 15));
+        visit.setNextVisitShift("MANHA");
+
+        Map<String, String> photoUrls = new HashMap<>();
+        VisitFinding.Priority[] priorities = VisitFinding.Priority.values();
+        for (int i = 0; i < size.findings; i++) {
+            VisitFinding finding = new VisitFinding();
+            finding.setId((long) i + 1);
+            finding.setTechnicalVisit(visit);
+            finding.setDescription(LOREM);
+            finding.setConsequences("Risco de acidente grave com afastamento. " + LOREM);
+            finding.setLegalGuidance("NR-12, itens 12.38 a 12.55: sistemas de segurança em máquinas e equipamentos.");
+            finding.setPenalties("Multa conforme NR-28, infração de grau 4.");
+            finding.setResponsible("Supervisor de produção");
+            finding.setPriority(priorities[i % priorities.length]);
+            finding.setDeadline(LocalDate.of(2024, 4, 1).plusDays(i));
+            finding.setRecurrence(i % 3 == 0);
+            // Uma foto em todos os achados, duas em metade deles
+            finding.setPhotoPath1("cas/photo-" + i + "-1.jpg");
+            photoUrls.put(finding.getPhotoPath1(), photoUri);
+            if (i % 2 == 0) {
+                finding.setPhotoPath2("cas/photo-" + i + "-2.jpg");
+                photoUrls.put(finding.getPhotoPath2(), photoUri);
+            }
+            visit.getFindings().add(finding);
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("visit", visit);
+        data.put("photoUrls", photoUrls);
+        data.put("nextVisitDateFormatted", "15/04/2024");
+        data.put("nextVisitShiftLabel", "MANHA");
+        return data;
+    }
+
+    private static Map<String, Object> riskChecklistData(DataSize size, String signatureBase64) {
+        OccupationalRiskReport report = new OccupationalRiskReport();
+        report.setId(1L);
+        report.setInspectionDate(LocalDate.of(2024, 3, 15));
+        report.setCompany(company(1));
+        report.setUnit(unit(1));
+        report.setSector(sector(1));
+        report.setTechnician(technician());
+        report.setTechnicianSignatureImageBase64(signatureBase64);
+        report.setTechnicianSignedAt(LocalDateTime.of(2024, 3, 15, 16, 0));
+
+        // Mesma conversão de códigos em itens do catálogo feita pelo RiskChecklistService
+        List<Map<String, Object>> functionsData = new ArrayList<>();
+        for (int i = 0; i < size.functions; i++) {
+            EvaluatedFunction function = new EvaluatedFunction();
+            function.setFunctionName(FUNCTIONS[i % FUNCTIONS.length]);
+            function.setSelectedRiskCodes(riskCodes(i, 8));
+            function.setReport(report);
+            report.getEvaluatedFunctions().add(function);
+
+            List<RiskCatalog.RiskItem> risks = new ArrayList<>();
+            for (Integer code : function.getSelectedRiskCodes()) {
+                RiskCatalog.RiskItem item = RiskCatalog.getByCode(code);
+                if (item != null) risks.add(item);
+            }
+            Map<String, Object> functionData = new HashMap<>();
+            functionData.put("name", function.getFunctionName());
+            functionData.put("risks", risks);
+            functionsData.add(functionData);
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("report", report);
+        data.put("functionsData", functionsData);
+        return data;
+    }
+
+    private static Map<String, Object> agendaReportData(DataSize size) {
+        AgendaMapper mapper = new AgendaMapper();
+        Map<String, Object> data = new HashMap<>();
+        data.put("itens", agendaEvents(size.agendaEvents).stream().map(mapper::mapToDto).toList());
+        data.put("periodo", "01/03/2024 a 31/03/2024");
+        data.put("filtroTipo", "TODOS");
+        data.put("filtroEmpresa", "TODAS");
+        data.put("filtroColaborador", "TODOS");
+        return data;
+    }
+
+    /**
+     * Parte do modelo de exemplo do próprio motor de formulário, com a quantidade de riscos marcados do tamanho.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> aepData(DataSize size) {
+        Map<String, Object> data = new AepFormPdfRenderer(renderResources()).sampleData();
+        List<String> allRisks = (List<String>) data.get("allRisks");
+        List<String> selected = new ArrayList<>(allRisks.subList(0, Math.min(size.aepRisks, allRisks.size())));
+        ((AepReport) data.get("aep")).setSelectedRisks(selected);
+        data.put("selectedRisks", selected);
+        return data;
+    }
+
+    // ===================================================================================
+    // 3. AGENDA E CATÁLOGO DE RISCOS
+    // ===================================================================================
+
+    /**
+     * Eventos de agenda variados: metade ligada a visitas, metade manual; alguns reagendados ou sem empresa.
+     */
+    static List<AgendaEvent> agendaEvents(int count) {
+        User technician = technician();
+        AgendaEventType[] types = AgendaEventType.values();
+        AgendaStatus[] statuses = AgendaStatus.values();
+        List<AgendaEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            AgendaEvent event = new AgendaEvent();
+            event.setId((long) i + 1);
+            event.setTitle("Evento " + (i + 1));
+            event.setDescription("Acompanhamento mensal do programa de gerenciamento de riscos.");
+            event.setEventDate(LocalDate.of(2024, 3, 1).plusDays(i % 31));
+            event.setEventHour(LocalTime.of(8 + i % 9, 0));
+            event.setShift(i % 2 == 0 ? Shift.MANHA : Shift.TARDE);
+            event.setEventType(types[i % types.length]);
+            event.setStatus(statuses[i % statuses.length]);
+            if (event.getStatus() == AgendaStatus.REAGENDADO) {
+                event.setRescheduledToDate(event.getEventDate().plusDays(7));
+            }
+            event.setIsRealized(i % 3 == 0 ? Boolean.TRUE : i % 3 == 1 ? Boolean.FALSE : null);
+            event.setUser(technician);
+
+            if (i % 2 == 0) {
+                TechnicalVisit visit = new TechnicalVisit();
+                visit.setId((long) i + 1);
+                visit.setClientCompany(company(i));
+                visit.setUnit(unit(i));
+                visit.setSector(sector(i));
+                event.setTechnicalVisit(visit);
+                event.setOriginalVisitDate(event.getEventDate());
+            } else if (i % 5 != 1) {
+                event.setCompany(company(i));
+                event.setUnit(unit(i));
+                event.setSector(sector(i));
+            }
+            events.add(event);
+        }
+        return events;
+    }
+
+    /**
+     * Códigos de risco espalhados pelo catálogo inteiro (1 a 103), incluindo o fim da lista.
+     */
+    static List<Integer> riskCodes(int seed, int count) {
+        int catalogSize = RiskCatalog.ALL_RISKS.size();
+        List<Integer> codes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            codes.add(1 + (seed * 7 + i * 13) % catalogSize);
+        }
+        return codes;
+    }
+
+    // ===================================================================================
+    // 4. ENTIDADES E IMAGENS
+    // ===================================================================================
+
+    static Company company(int index) {
+        Company company = new Company();
+        company.setId((long) (index % COMPANIES.length) + 1);
+        company.setName(COMPANIES[index % COMPANIES.length]);
+        company.setCnpj(String.format("%02d.345.678/0001-%02d", index % COMPANIES.length + 10, index % 90 + 10));
+        return company;
+    }
+
+    private static Unit unit(int index) {
+        Unit unit = new Unit();
+        unit.setId((long) (index % COMPANIES.length) + 1);
+        unit.setName("Unidade " + (index % 3 + 1));
+        unit.setCnpj(String.format("%02d.345.678/0002-%02d", index % COMPANIES.length + 10, index % 90 + 10));
+        return unit;
+    }
+
+    private static Sector sector(int index) {
+        Sector sector = new Sector();
+        sector.setId((long) (index % 4) + 1);
+        sector.setName(new String[]{"Produção", "Manutenção", "Expedição", "Administrativo"}[index % 4]);
+        return sector;
+    }
+
+    static User technician() {
+        User technician = new User();
+        technician.setId(1L);
+        technician.setName("Técnico de Segurança de Exemplo");
+        technician.setConselhoClasse("SP-123456");
+        technician.setEspecialidade("Técnico em Segurança do Trabalho");
+        technician.setSiglaConselhoClasse("MTE");
+        return technician;
+    }
+
+    /**
+     * JPEG do tamanho de uma foto já normalizada (ver {@code visit.photos.max-width-px}).
+     */
+    static byte[] photoJpeg() {
+        BufferedImage image = new BufferedImage(670, 790, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setPaint(new GradientPaint(0, 0, new Color(30, 90, 160), 670, 790, new Color(220, 180, 60)));
+            g.fillRect(0, 0, 670, 790);
+            g.setColor(Color.WHITE);
+            for (int i = 0; i < 40; i++) {
+                g.drawLine(i * 17, 0, 670 - i * 11, 790);
+            }
+        } finally {
+            g.dispose();
+        }
+        return encode(image, "jpg");
+    }
+
+    /**
+     * Assinatura desenhada (PNG em Base64), como as coletadas na tela do celular.
+     */
+    static String signatureBase64() {
+        BufferedImage image = new BufferedImage(400, 150, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.BLACK);
+            for (int x = 20; x < 380; x += 4) {
+                g.drawLine(x, 75 + (int) (30 * Math.sin(x / 20.0)), x + 4, 75 + (int) (30 * Math.sin((x + 4) / 20.0)));
+            }
+        } finally {
+            g.dispose();
+        }
+        return Base64.getEncoder().encodeToString(encode(image, "png"));
+    }
+
+    private static byte[] encode(BufferedImage image, String format) {
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            ImageIO.write(image, format, out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Falha ao gerar imagem de benchmark.", e);
+        }
+    }
+}
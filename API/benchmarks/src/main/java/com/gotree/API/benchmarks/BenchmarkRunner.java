@@ -0,0 +1,54 @@
+package com.gotree.API.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Ponto de entrada do {@code benchmarks.jar}.
+ * <p>
+ * {@code java -jar benchmarks.jar [rótulo] [opções do JMH]}: roda os benchmarks (todos, ou os que casarem
+ * com o filtro do JMH) e grava o resultado em JSON em {@code jmh-results/<rótulo>.json}, com a memória
+ * alocada por operação ({@code gc.alloc.rate.norm}). Use o hash do commit como rótulo e compare dois
+ * arquivos com {@link BenchmarkCompare}.
+ */
+public final class BenchmarkRunner {
+
+    private static final Path RESULTS_DIR = Path.of("jmh-results");
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String label = args.length > 0 && !args[0].startsWith("-")
+                ? args[0]
+                : LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        String[] jmhArgs = args.length > 0 && !args[0].startsWith("-") ? Arrays.copyOfRange(args, 1, args.length) : args;
+
+        CommandLineOptions commandLine = new CommandLineOptions(jmhArgs);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+
+        // Opções -rf/-rff explícitas prevalecem sobre o padrão
+        if (!commandLine.getResult().hasValue()) {
+            Files.createDirectories(RESULTS_DIR);
+            options.result(RESULTS_DIR.resolve(label + ".json").toString());
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (commandLine.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+
+        new Runner(options.build()).run();
+    }
+}
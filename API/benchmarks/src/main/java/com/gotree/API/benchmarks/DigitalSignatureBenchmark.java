@@ -0,0 +1,135 @@
+package com.gotree.API.benchmarks;
+
+import com.gotree.API.modules.iam.application.services.SymmetricCryptoService;
+import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.operations.application.services.AepFormPdfRenderer;
+import com.gotree.API.modules.shared.application.services.DigitalSignatureService;
+import com.gotree.API.modules.shared.application.services.SigningMaterialCache;
+import com.gotree.API.modules.shared.infrastructure.storage.LocalFileSystemStorageBackend;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DigitalSignatureService#signPdf} com um certificado A1 (PKCS#12) de teste, gerado na preparação:
+ * assina (PKCS#7 destacado) e desenha o carimbo visível, de arquivo para arquivo como atualização incremental,
+ * como nos endpoints. {@code signPdfColdMaterial} descarta antes o {@link SigningMaterialCache}, medindo também a
+ * leitura do .pfx (decifrar a senha, abrir o arquivo no armazenamento local e interpretar o PKCS#12), como na
+ * primeira assinatura de cada técnico.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class DigitalSignatureBenchmark {
+
+    private static final String CERTIFICATE_KEY = "certificates/benchmark.pfx";
+    private static final String CERTIFICATE_PASSWORD = "senha-do-certificado";
+
+    private Path storageRoot;
+    private SigningMaterialCache signingMaterialCache;
+    private DigitalSignatureService signatureService;
+    private User signer;
+    private Path pdfFile;
+    private Path signedFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        storageRoot = Files.createTempDirectory("benchmark-storage");
+        Path certificate = storageRoot.resolve(CERTIFICATE_KEY);
+        Files.createDirectories(certificate.getParent());
+        try (OutputStream out = Files.newOutputStream(certificate)) {
+            selfSignedKeyStore().store(out, CERTIFICATE_PASSWORD.toCharArray());
+        }
+
+        // crypto.secret.key (AES-128: 16 caracteres), sem chaves anteriores
+        SymmetricCryptoService cryptoService = new SymmetricCryptoService("chave-benchmark!", "", "");
+        StorageService storageService = new StorageService(
+                new LocalFileSystemStorageBackend(storageRoot), storageRoot.toString(), null, null, 60);
+        signingMaterialCache = new SigningMaterialCache(cryptoService, storageService, 30);
+        signatureService = new DigitalSignatureService(signingMaterialCache);
+
+        signer = BenchmarkFixtures.technician();
+        signer.setCertificatePath(CERTIFICATE_KEY);
+        signer.setCertificatePassword(cryptoService.encrypt(CERTIFICATE_PASSWORD));
+
+        // PDF real de um relatório (AEP de exemplo), sem depender do motor HTML
+        AepFormPdfRenderer renderer = new AepFormPdfRenderer(BenchmarkFixtures.renderResources());
+        byte[] pdf = renderer.render(renderer.prepare(renderer.sampleData()));
+        pdfFile = Files.write(storageRoot.resolve("original.pdf"), pdf);
+        signedFile = storageRoot.resolve("signed.pdf");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        FileSystemUtils.deleteRecursively(storageRoot);
+    }
+
+    @Benchmark
+    public long signPdf() throws IOException {
+        signatureService.signPdf(pdfFile, signedFile, signer);
+        return Files.size(signedFile);
+    }
+
+    @Benchmark
+    public long signPdfColdMaterial() throws IOException {
+        signingMaterialCache.invalidate(signer.getId());
+        signatureService.signPdf(pdfFile, signedFile, signer);
+        return Files.size(signedFile);
+    }
+
+    /**
+     * Certificado RSA 2048 autoassinado, com o CN no formato ICP-Brasil (nome:CPF).
+     */
+    private static KeyStore selfSignedKeyStore() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        X500Name subject = new X500Name("CN=TECNICO DE EXEMPLO:12345678900, O=ICP-Brasil, C=BR");
+        Instant now = Instant.now();
+        X509Certificate certificate = new JcaX509CertificateConverter().getCertificate(
+                new JcaX509v3CertificateBuilder(subject, BigInteger.valueOf(now.toEpochMilli()),
+                        Date.from(now.minus(1, ChronoUnit.DAYS)), Date.from(now.plus(365, ChronoUnit.DAYS)),
+                        subject, keyPair.getPublic())
+                        .build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate())));
+
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        keyStore.setKeyEntry("benchmark", keyPair.getPrivate(), CERTIFICATE_PASSWORD.toCharArray(),
+                new Certificate[]{certificate});
+        return keyStore;
+    }
+}
@@ -0,0 +1,139 @@
+package com.gotree.API.benchmarks;
+
+import com.gotree.API.modules.customer.infrastructure.repositories.ClientRepository;
+import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.shared.application.services.DocumentAggregationService;
+import com.gotree.API.modules.shared.domain.enums.PdfStatus;
+import com.gotree.API.modules.shared.infrastructure.repositories.DocumentIndexRepository;
+import com.gotree.API.modules.shared.presentation.dto.DocumentSummaryDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Montagem da listagem de documentos ({@link DocumentAggregationService#findAllDocumentsForUser}) a partir
+ * de uma página do índice com 10 mil, 100 mil e 1 milhão de resumos: agrupamento das empresas, busca dos
+ * e-mails dos clientes e conversão em DTOs. As consultas respondem da memória (linhas já filtradas e
+ * ordenadas), então só o trabalho feito na JVM é medido.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class DocumentAggregationBenchmark {
+
+    private static final int COMPANIES = 5_000;
+    private static final String[] TYPES = {"visit", "aep", "risk"};
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private DocumentAggregationService service;
+    private User technician;
+    private Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<DocumentIndexRepository.DocumentSummaryRow> summaries = summaries(rows);
+        DocumentIndexRepository documentIndexRepository = BenchmarkFixtures.repository(DocumentIndexRepository.class,
+                Map.of("searchSummaries", args -> new PageImpl<>(summaries, (Pageable) args[5], summaries.size())));
+
+        // De um a três clientes por empresa
+        List<ClientRepository.CompanyClientEmail> emails = new ArrayList<>();
+        for (long companyId = 1; companyId <= COMPANIES; companyId++) {
+            for (int client = 0; client <= companyId % 3; client++) {
+                emails.add(new ClientEmail(companyId, "cliente" + client + "@empresa" + companyId + ".com.br"));
+            }
+        }
+        ClientRepository clientRepository = BenchmarkFixtures.repository(ClientRepository.class,
+                Map.of("findEmailsByCompanyIds", args -> emails));
+
+        // Só o índice e os clientes participam da listagem
+        service = new DocumentAggregationService(null, null, null, null, null, null, null,
+                documentIndexRepository, clientRepository, null, null, "");
+        technician = BenchmarkFixtures.technician();
+        pageable = PageRequest.of(0, rows);
+    }
+
+    @Benchmark
+    public Page<DocumentSummaryDTO> findAllDocumentsForUser() {
+        return service.findAllDocumentsForUser(technician, null, null, null, null, pageable);
+    }
+
+    /**
+     * Resumos variados: os três tipos, 10% sem empresa, parte já enviada, assinada ou com PDF pendente.
+     */
+    private static List<DocumentIndexRepository.DocumentSummaryRow> summaries(int count) {
+        PdfStatus[] statuses = PdfStatus.values();
+        LocalDate newest = LocalDate.of(2024, 12, 31);
+        List<DocumentIndexRepository.DocumentSummaryRow> summaries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDate date = newest.minusDays(i / 50);
+            Long companyId = i % 10 == 9 ? null : (long) (i % COMPANIES) + 1;
+            summaries.add(new Summary(TYPES[i % TYPES.length], (long) i + 1, "Documento " + (i + 1), date, date,
+                    i % 7 != 0, companyId, companyId != null ? BenchmarkFixtures.company(i % COMPANIES).getName() : null,
+                    "Técnico " + (i % 25 + 1),
+                    i % 4 == 0 ? date.atTime(17, 30) : null,
+                    i % 6 == 0 ? date.atTime(18, 0) : null,
+                    i % 2 == 0,
+                    statuses[i % statuses.length]));
+        }
+        return summaries;
+    }
+
+    private record Summary(String docType, Long id, String title, LocalDate creationDate, LocalDate sortDate,
+                           boolean pdfGenerated, Long companyId, String companyName, String technicianName,
+                           LocalDateTime sentToClientAt, LocalDateTime icpSignedAt, boolean signed,
+                           PdfStatus pdfStatus) implements DocumentIndexRepository.DocumentSummaryRow {
+
+        @Override public String getDocType() { return docType; }
+        @Override public Long getId() { return id; }
+        @Override public String getTitle() { return title; }
+        @Override public LocalDate getCreationDate() { return creationDate; }
+        @Override public LocalDate getSortDate() { return sortDate; }
+        @Override public String getPdfPath() { return pdfGenerated ? "documents/" + docType + "/" + id + ".pdf" : null; }
+        @Override public boolean getPdfGenerated() { return pdfGenerated; }
+        @Override public Long getCompanyId() { return companyId; }
+        @Override public String getCompanyName() { return companyName; }
+        @Override public String getTechnicianName() { return technicianName; }
+        @Override public LocalDateTime getSentToClientAt() { return sentToClientAt; }
+        @Override public LocalDateTime getIcpSignedAt() { return icpSignedAt; }
+        @Override public boolean getSigned() { return signed; }
+        @Override public PdfStatus getPdfStatus() { return pdfStatus; }
+    }
+
+    private record ClientEmail(Long companyId, String email) implements ClientRepository.CompanyClientEmail {
+
+        @Override
+        public Long getCompanyId() {
+            return companyId;
+        }
+
+        @Override
+        public String getEmail() {
+            return email;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.gotree.API.benchmarks;
+
+import com.gotree.API.modules.operations.application.services.AepFormPdfRenderer;
+import com.gotree.API.modules.shared.application.services.PdfRenderExecutor;
+import com.gotree.API.modules.shared.application.services.ReportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Motores de PDF lado a lado (HTML x formulário) para a AEP, com o modelo de exemplo do
+ * {@link AepFormPdfRenderer}: serve para medir antes de ativar o template em {@code report.render.form-templates}.
+ * Com {@code -prof gc} o resultado também traz a memória alocada por documento.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ReportEngineBenchmark {
+
+    private static final String TEMPLATE = "aep-template";
+
+    @Param({"html", "form"})
+    public String engine;
+
+    private PdfRenderExecutor renderExecutor;
+    private ReportService reportService;
+    private Map<String, Object> data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var meterRegistry = BenchmarkFixtures.meterRegistry();
+        var resources = BenchmarkFixtures.renderResources();
+        renderExecutor = BenchmarkFixtures.renderExecutor(meterRegistry);
+        reportService = BenchmarkFixtures.reportService(resources, renderExecutor, meterRegistry,
+                "form".equals(engine) ? Set.of(TEMPLATE) : Set.of());
+        data = new AepFormPdfRenderer(resources).sampleData();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        renderExecutor.shutdown();
+    }
+
+    @Benchmark
+    public byte[] generatePdfFromHtml() {
+        return reportService.generatePdfFromHtml(TEMPLATE, data);
+    }
+}
@@ -0,0 +1,73 @@
+package com.gotree.API.benchmarks;
+
+import com.gotree.API.benchmarks.BenchmarkFixtures.DataSize;
+import com.gotree.API.modules.shared.application.services.PdfRenderExecutor;
+import com.gotree.API.modules.shared.application.services.ReportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ReportService#generatePdfFromHtml} para cada template, do modelo já montado ao PDF pronto:
+ * Thymeleaf, fila do {@link PdfRenderExecutor} e OpenHTMLToPDF (ou o motor de formulário, nos templates
+ * de {@code report.render.form-templates}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ReportRenderingBenchmark {
+
+    @Param({"visit-report-template", "risk-checklist-template", "relatorio-agenda", "aep-template"})
+    public String template;
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public DataSize size;
+
+    private PdfRenderExecutor renderExecutor;
+    private ReportService reportService;
+    private Path photo;
+    private Map<String, Object> data;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        var meterRegistry = BenchmarkFixtures.meterRegistry();
+        var resources = BenchmarkFixtures.renderResources();
+        renderExecutor = BenchmarkFixtures.renderExecutor(meterRegistry);
+        reportService = BenchmarkFixtures.reportService(resources, renderExecutor, meterRegistry);
+
+        // As fotos chegam ao template como URI de arquivo, como no armazenamento local
+        photo = Files.createTempFile("benchmark-photo", ".jpg");
+        Files.write(photo, BenchmarkFixtures.photoJpeg());
+        data = BenchmarkFixtures.templateData(template, size, photo.toUri().toString(), BenchmarkFixtures.signatureBase64());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        renderExecutor.shutdown();
+        Files.deleteIfExists(photo);
+    }
+
+    @Benchmark
+    public byte[] generatePdfFromHtml() {
+        return reportService.generatePdfFromHtml(template, data);
+    }
+}
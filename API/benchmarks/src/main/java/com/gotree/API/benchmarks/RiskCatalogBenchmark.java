@@ -0,0 +1,50 @@
+package com.gotree.API.benchmarks;
+
+import com.gotree.API.modules.operations.infrastructure.utils.RiskCatalog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RiskCatalog#getByCode} com os códigos espalhados pelo catálogo inteiro, como na montagem do
+ * checklist de riscos (uma chamada por risco marcado em cada função). O resultado é por consulta.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RiskCatalogBenchmark {
+
+    private static final int LOOKUPS = 1_024;
+
+    private int[] codes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Integer> sample = BenchmarkFixtures.riskCodes(1, LOOKUPS);
+        codes = sample.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void getByCode(Blackhole blackhole) {
+        for (int code : codes) {
+            blackhole.consume(RiskCatalog.getByCode(code));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.gotree.API.modules.administration.domain.entities;
 
+import com.gotree.API.modules.administration.infrastructure.listeners.SystemInfoChangeListener;
 import com.gotree.API.modules.operations.domain.entities.OccupationalRiskReport;
 import jakarta.persistence.*;
 import lombok.Data;
@@ -8,11 +9,13 @@ import lombok.Data;
  * Entidade que armazena informações do sistema e da empresa consultora.
  * Esta classe mantém dados básicos como nome da empresa, CNPJ e logotipo
  * que são utilizados em relatórios e documentos gerados pelo sistema.
+ * Alterações invalidam o cache usado na geração dos PDFs ({@link SystemInfoChangeListener}).
  *
  * @see OccupationalRiskReport
  */
 @Entity
 @Table(name = "tb_system_info")
+@EntityListeners(SystemInfoChangeListener.class)
 @Data
 public class SystemInfo {
 
@@ -35,9 +38,9 @@ public class SystemInfo {
     private String cnpj;
 
     /**
-     * Logotipo da empresa em formato Base64.
-     * A imagem é convertida em texto para armazenamento no banco de dados.
+     * Referência ao logotipo da empresa em tb_binary_asset.
+     * A imagem só é lida quando um relatório é gerado.
      */
-    @Column(columnDefinition = "TEXT")
-    private String logoBase64;
+    @Column(name = "logo_asset_id")
+    private Long logoAssetId;
 }
\ No newline at end of file
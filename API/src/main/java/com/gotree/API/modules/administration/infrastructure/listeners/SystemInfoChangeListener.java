@@ -0,0 +1,44 @@
+package com.gotree.API.modules.administration.infrastructure.listeners;
+
+import com.gotree.API.modules.administration.domain.entities.SystemInfo;
+import com.gotree.API.modules.shared.application.services.ReportRenderResources;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Invalida o cache de dados da empresa usado nos relatórios sempre que o {@link SystemInfo} é gravado.
+ * A invalidação acontece após o commit, para que a próxima leitura já veja o valor novo.
+ */
+@Component
+public class SystemInfoChangeListener {
+
+    // Provider: o Hibernate cria o listener antes de boa parte dos beans de serviço
+    private final ObjectProvider<ReportRenderResources> renderResources;
+
+    public SystemInfoChangeListener(ObjectProvider<ReportRenderResources> renderResources) {
+        this.renderResources = renderResources;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(SystemInfo info) {
+        Runnable invalidate = () -> renderResources.ifAvailable(ReportRenderResources::invalidate);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate.run();
+                }
+            });
+        } else {
+            invalidate.run();
+        }
+    }
+}
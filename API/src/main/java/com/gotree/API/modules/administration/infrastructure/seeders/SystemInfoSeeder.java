@@ -2,20 +2,22 @@ package com.gotree.API.modules.administration.infrastructure.seeders;
 
 import com.gotree.API.modules.administration.domain.entities.SystemInfo;
 import com.gotree.API.modules.administration.infrastructure.repositories.SystemInfoRepository;
+import com.gotree.API.modules.shared.application.services.BinaryAssetService;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StreamUtils;
 
-import java.util.Base64;
 
 @Component
 public class SystemInfoSeeder implements CommandLineRunner {
 
     private final SystemInfoRepository systemInfoRepository;
+    private final BinaryAssetService binaryAssetService;
 
-    public SystemInfoSeeder(SystemInfoRepository systemInfoRepository) {
+    public SystemInfoSeeder(SystemInfoRepository systemInfoRepository, BinaryAssetService binaryAssetService) {
         this.systemInfoRepository = systemInfoRepository;
+        this.binaryAssetService = binaryAssetService;
     }
 
     @Override
@@ -32,21 +34,20 @@ public class SystemInfoSeeder implements CommandLineRunner {
         info.setCompanyName("Go-Tree Consultoria LTDA"); // Seu Nome Padrão
         info.setCnpj("47.885.556/0001-76");              // Seu CNPJ Padrão
 
-        // 2. Tenta carregar a logo do arquivo estático para salvar no banco como Base64
+        // 2. Tenta carregar a logo do arquivo estático para salvar no banco (tb_binary_asset)
         try {
             ClassPathResource imageResource = new ClassPathResource("static/img/logo.png");
             if (imageResource.exists()) {
                 byte[] imageBytes = StreamUtils.copyToByteArray(imageResource.getInputStream());
-                String base64Logo = Base64.getEncoder().encodeToString(imageBytes);
 
-                // Salva no formato puro (sem o prefixo data:image, pois o template adiciona)
-                info.setLogoBase64(base64Logo);
+                // Salva os bytes puros; o base64 é montado apenas na hora de gerar o PDF
+                info.setLogoAssetId(binaryAssetService.store(imageBytes, "image/png"));
                 System.out.println(">> Logo carregada de static/img/logo.png e salva no banco.");
             } else {
                 System.err.println(">> AVISO: Logo não encontrada em static/img/logo.png. Salvando sem logo.");
             }
         } catch (Exception e) {
-            System.err.println(">> Erro ao converter logo para base64: " + e.getMessage());
+            System.err.println(">> Erro ao salvar a logo: " + e.getMessage());
         }
 
         // 3. Salva no Banco
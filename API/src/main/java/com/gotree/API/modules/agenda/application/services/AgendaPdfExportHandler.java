@@ -0,0 +1,59 @@
+package com.gotree.API.modules.agenda.application.services;
+
+import com.gotree.API.modules.shared.application.services.ExportJobHandler;
+import com.gotree.API.modules.shared.application.services.ExportProgress;
+import com.gotree.API.modules.shared.domain.enums.ExportJobType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Relatório da agenda em PDF (mesmo conteúdo de GET /api/agenda/export/pdf).
+ * Parâmetros: "startDate" e "endDate" (obrigatórios, ISO), "userId", "eventType" e "companyName" (opcionais).
+ */
+@Component
+public class AgendaPdfExportHandler implements ExportJobHandler {
+
+    private final AgendaService agendaService;
+
+    public AgendaPdfExportHandler(AgendaService agendaService) {
+        this.agendaService = agendaService;
+    }
+
+    @Override
+    public ExportJobType type() {
+        return ExportJobType.AGENDA_PDF;
+    }
+
+    @Override
+    public String filename(Map<String, String> parameters) {
+        return "relatorio_agendamentos.pdf";
+    }
+
+    @Override
+    public String contentType() {
+        return "application/pdf";
+    }
+
+    @Override
+    public String extension() {
+        return "pdf";
+    }
+
+    @Override
+    public void write(Map<String, String> parameters, OutputStream out, ExportProgress progress) throws IOException {
+        progress.update(0, 1);
+        String userId = parameters.get("userId");
+        byte[] pdf = agendaService.generateAgendaReport(
+                LocalDate.parse(parameters.get("startDate")),
+                LocalDate.parse(parameters.get("endDate")),
+                userId == null || userId.isBlank() ? null : Long.valueOf(userId),
+                parameters.get("eventType"),
+                parameters.get("companyName"));
+        out.write(pdf);
+        progress.update(1, 1);
+    }
+}
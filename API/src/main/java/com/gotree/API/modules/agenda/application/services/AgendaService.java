@@ -1,7 +1,5 @@
 package com.gotree.API.modules.agenda.application.services;
 
-import com.gotree.API.modules.administration.domain.entities.SystemInfo;
-import com.gotree.API.modules.administration.infrastructure.repositories.SystemInfoRepository;
 import com.gotree.API.modules.agenda.presentation.dto.AgendaResponseDTO;
 import com.gotree.API.modules.agenda.presentation.dto.CancelEventDTO;
 import com.gotree.API.modules.agenda.presentation.dto.CreateEventDTO;
@@ -40,20 +38,18 @@ public class AgendaService {
     private final CompanyRepository companyRepository;
     private final UnitRepository unitRepository;
     private final SectorRepository sectorRepository;
-    private final SystemInfoRepository systemInfoRepository;
     private final AgendaMapper agendaMapper;
     private final ReportService reportService;
 
     public AgendaService(AgendaEventRepository agendaEventRepository, CompanyRepository companyRepository,
                          UnitRepository unitRepository, SectorRepository sectorRepository, AgendaMapper agendaMapper,
-                         ReportService reportService, SystemInfoRepository systemInfoRepository) {
+                         ReportService reportService) {
         this.agendaEventRepository = agendaEventRepository;
         this.companyRepository = companyRepository;
         this.unitRepository = unitRepository;
         this.sectorRepository = sectorRepository;
         this.agendaMapper = agendaMapper;
         this.reportService = reportService;
-        this.systemInfoRepository = systemInfoRepository;
     }
 
     public String validateReportSubmission(Long visitId, User technician, LocalDate date, String shiftStr, Company targetCompany) {
@@ -329,14 +325,9 @@ public class AgendaService {
         // 1. Busca os dados dos eventos
         List<AgendaResponseDTO> events = getReportData(start, end, userId, type, company);
 
-        // 2. Busca os dados globais do sistema (Sua marca/logo)
-        // Pega o primeiro registro (já que só existe 1 SystemInfo no banco)
-        SystemInfo systemInfo = systemInfoRepository.findAll().stream().findFirst().orElse(null);
-
-        // 3. Prepara o contexto do relatório
+        // 2. Prepara o contexto do relatório (logo e dados da empresa são incluídos pelo ReportService)
         Map<String, Object> data = new HashMap<>();
         data.put("itens", events);
-        data.put("systemInfo", systemInfo); // <- ENVIANDO A LOGO PARA O PDF AQUI!
 
         // Formata o período
         String periodText = start.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) +
@@ -347,7 +338,7 @@ public class AgendaService {
         data.put("filtroEmpresa", (company != null && !company.isBlank()) ? company.toUpperCase() : "TODAS");
         data.put("filtroColaborador", resolveCollaboratorLabel(userId, events));
 
-        // 4. Chama o serviço compartilhado de PDF
+        // 3. Chama o serviço compartilhado de PDF
         return reportService.generatePdfFromHtml("relatorio-agenda", data);
     }
 
@@ -2,8 +2,13 @@ package com.gotree.API.modules.customer.infrastructure.repositories;
 
 import com.gotree.API.modules.customer.domain.entities.Client;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +19,29 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
 
     // Metodo útil para buscar por e-mail (caso precise no futuro)
     Optional<Client> findByEmail(String email);
-}
\ No newline at end of file
+
+    /**
+     * Busca em uma única consulta os e-mails dos clientes vinculados a um lote de empresas.
+     * Usado nas listagens de documentos para evitar o carregamento de company.clients linha a linha.
+     */
+    @Query("SELECT comp.id AS companyId, c.email AS email FROM Client c JOIN c.companies comp " +
+            "WHERE comp.id IN :companyIds ORDER BY c.id")
+    List<CompanyClientEmail> findEmailsByCompanyIds(@Param("companyIds") Collection<Long> companyIds);
+
+    /**
+     * Regrava o hash da senha com outro custo, se ele ainda for o verificado no login.
+     *
+     * @return 1 se o hash foi regravado
+     */
+    @Modifying
+    @Query("UPDATE Client c SET c.password = :newHash WHERE c.id = :id AND c.password = :oldHash")
+    int upgradePassword(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
+    /**
+     * Projeção (empresa, e-mail do cliente).
+     */
+    interface CompanyClientEmail {
+        Long getCompanyId();
+        String getEmail();
+    }
+}
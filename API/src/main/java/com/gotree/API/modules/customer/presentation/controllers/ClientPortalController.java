@@ -9,14 +9,14 @@ import com.gotree.API.modules.agenda.domain.entities.AgendaEvent;
 import com.gotree.API.modules.shared.exceptions.ResourceNotFoundException;
 import com.gotree.API.modules.customer.infrastructure.repositories.ClientRepository;
 import com.gotree.API.modules.customer.application.services.ClientPortalService;
-import com.gotree.API.modules.iam.application.services.JwtService;
+import com.gotree.API.modules.iam.application.services.LoginService;
+import com.gotree.API.modules.iam.application.services.RefreshTokenService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
@@ -35,15 +35,15 @@ import java.util.List;
 public class ClientPortalController {
 
     private final ClientPortalService clientPortalService;
-    private final AuthenticationManager authenticationManager;
-    private final JwtService jwtService;
+    private final LoginService loginService;
+    private final RefreshTokenService refreshTokenService;
     private final ClientRepository clientRepository;
 
-    public ClientPortalController(ClientPortalService clientPortalService, AuthenticationManager authenticationManager,
-                                  JwtService jwtService, ClientRepository clientRepository) {
+    public ClientPortalController(ClientPortalService clientPortalService, LoginService loginService,
+                                  RefreshTokenService refreshTokenService, ClientRepository clientRepository) {
         this.clientPortalService = clientPortalService;
-        this.authenticationManager = authenticationManager;
-        this.jwtService = jwtService;
+        this.loginService = loginService;
+        this.refreshTokenService = refreshTokenService;
         this.clientRepository = clientRepository;
     }
 
@@ -105,26 +105,30 @@ public class ClientPortalController {
      * os endpoints protegidos do portal.
      *
      * @param dto objeto contendo e-mail e senha do cliente
+     * @param httpRequest requisição HTTP, para o limite de tentativas por IP
      * @return ResponseEntity contendo o token JWT de autenticação
      * @throws ResourceNotFoundException se o cliente não for encontrado após autenticação bem-sucedida
      */
     @Operation(summary = "Realiza login do cliente", description = "Autentica o cliente com e-mail e senha, retornando o token JWT.")
     @PostMapping("/login")
-    public ResponseEntity<AuthenticationResponseDTO> login(@RequestBody @Valid ClientLoginDTO dto) {
-        // 1. O AuthenticationManager usa o UserService.loadUserByUsername()
+    public ResponseEntity<AuthenticationResponseDTO> login(@RequestBody @Valid ClientLoginDTO dto, HttpServletRequest httpRequest) {
+        // 1. O LoginService (limite de tentativas + pool do BCrypt) usa o UserService.loadUserByUsername()
         // Como atualizamos o UserService, ele vai encontrar o cliente e validar a senha
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(dto.getEmail(), dto.getPassword())
-        );
+        loginService.authenticate(dto.getEmail(), dto.getPassword(), httpRequest.getRemoteAddr());
 
         // 2. Busca o cliente para passar para o gerador de token
         var client = clientRepository.findByEmail(dto.getEmail())
                 .orElseThrow(() -> new ResourceNotFoundException("Cliente não encontrado."));
 
-        // 3. Gera o token
+        // 3. Gera o token de acesso e o refresh token (renovação em /auth/refresh)
         // O ClientUserDetails implementa UserDetails, então o JwtService deve aceitá-lo
-        var jwtToken = jwtService.generateToken(new ClientUserDetails(client));
+        var tokens = refreshTokenService.issue(new ClientUserDetails(client));
 
-        return ResponseEntity.ok(new AuthenticationResponseDTO(jwtToken, client.getId()));
+        return ResponseEntity.ok(AuthenticationResponseDTO.builder()
+                .token(tokens.accessToken())
+                .userId(client.getId())
+                .refreshToken(tokens.refreshToken())
+                .expiresIn(tokens.expiresIn())
+                .build());
     }
 }
\ No newline at end of file
@@ -4,18 +4,17 @@ import com.gotree.API.modules.dashboard.presentation.dto.AdminStatsDTO;
 import com.gotree.API.modules.dashboard.presentation.dto.CompanyCountDTO;
 import com.gotree.API.modules.dashboard.presentation.dto.MyStatsDTO;
 import com.gotree.API.modules.dashboard.presentation.dto.UserDocumentStatsDTO;
-import com.gotree.API.modules.shared.application.services.DocumentAggregationService;
-import com.gotree.API.modules.shared.presentation.dto.DocumentSummaryDTO;
+import com.gotree.API.modules.shared.infrastructure.repositories.DocumentIndexRepository;
 import com.gotree.API.modules.iam.domain.entities.User;
 import com.gotree.API.modules.iam.application.services.UserService;
-import com.gotree.API.modules.operations.infrastructure.repositories.AepReportRepository;
 import com.gotree.API.modules.administration.infrastructure.repositories.CompanyRepository;
-import com.gotree.API.modules.operations.infrastructure.repositories.OccupationalRiskReportRepository;
 import com.gotree.API.modules.operations.infrastructure.repositories.TechnicalVisitRepository;
 import com.gotree.API.modules.iam.infrastructure.repositories.UserRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -26,22 +25,17 @@ public class DashboardService {
     private final UserRepository userRepository;
     private final CompanyRepository companyRepository;
     private final TechnicalVisitRepository technicalVisitRepository;
-    private final AepReportRepository aepReportRepository;
-    private final OccupationalRiskReportRepository occupationalRiskReportRepository;
-    private final DocumentAggregationService documentAggregationService;
+    private final DocumentIndexRepository documentIndexRepository;
     private final UserService userService;
 
     public DashboardService(UserRepository userRepository, CompanyRepository companyRepository,
-                            TechnicalVisitRepository technicalVisitRepository, AepReportRepository aepReportRepository,
-                            DocumentAggregationService documentAggregationService, UserService userService,
-                            OccupationalRiskReportRepository occupationalRiskReportRepository) {
+                            TechnicalVisitRepository technicalVisitRepository,
+                            DocumentIndexRepository documentIndexRepository, UserService userService) {
         this.userRepository = userRepository;
         this.companyRepository = companyRepository;
         this.technicalVisitRepository = technicalVisitRepository;
-        this.aepReportRepository = aepReportRepository;
-        this.documentAggregationService = documentAggregationService;
+        this.documentIndexRepository = documentIndexRepository;
         this.userService = userService;
-        this.occupationalRiskReportRepository = occupationalRiskReportRepository;
     }
 
     /**
@@ -49,11 +43,11 @@ public class DashboardService {
      */
     @Transactional(readOnly = true)
     public MyStatsDTO getMyStats(User user) {
-        long totalVisits = technicalVisitRepository.countByTechnician(user);
-        long totalAeps = aepReportRepository.countByEvaluator(user);
-
-        // (CORREÇÃO 2: Adicionado contagem de Riscos para o usuário)
-        long totalRisks = occupationalRiskReportRepository.countByTechnician(user);
+        // Visitas, AEPs e Riscos do usuário em uma única consulta agrupada no índice de documentos
+        Map<String, Long> totals = countByType(documentIndexRepository.countByTechnicianAndType(user.getId(), null, null));
+        long totalVisits = totals.getOrDefault("visit", 0L);
+        long totalAeps = totals.getOrDefault("aep", 0L);
+        long totalRisks = totals.getOrDefault("risk", 0L);
 
         // Calcula o tempo (Lógica de horas/minutos)
         long totalSeconds = technicalVisitRepository.findTotalVisitDurationInSeconds(user.getId());
@@ -61,17 +55,10 @@ public class DashboardService {
         long hours = totalMinutes / 60;
         long remainingMinutes = totalMinutes % 60;
 
-        // Calcula o Top 5 de Empresas
-        List<DocumentSummaryDTO> myDocuments = documentAggregationService.findAllDocumentsListForUser(user);
-
-        Map<String, Long> companyCounts = myDocuments.stream()
-                .filter(doc -> doc.getClientName() != null && !doc.getClientName().equals("N/A"))
-                .collect(Collectors.groupingBy(DocumentSummaryDTO::getClientName, Collectors.counting()));
-
-        List<CompanyCountDTO> topCompanies = companyCounts.entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .limit(5)
-                .map(entry -> new CompanyCountDTO(entry.getKey(), entry.getValue()))
+        // Calcula o Top 5 de Empresas (agrupado no banco, sem carregar os documentos)
+        List<CompanyCountDTO> topCompanies = documentIndexRepository
+                .countByCompanyForTechnician(user.getId(), PageRequest.of(0, 5)).stream()
+                .map(row -> new CompanyCountDTO(row.getCompanyName(), row.getTotal()))
                 .collect(Collectors.toList());
 
         MyStatsDTO stats = new MyStatsDTO();
@@ -94,11 +81,7 @@ public class DashboardService {
         long totalUsers = userRepository.count();
         long totalCompanies = companyRepository.count();
 
-        long totalVisits = technicalVisitRepository.count();
-        long totalAeps = aepReportRepository.count();
-        long totalRisks = occupationalRiskReportRepository.count();
-
-        long totalDocuments = totalVisits + totalAeps + totalRisks;
+        long totalDocuments = documentIndexRepository.count();
 
         long totalSeconds = technicalVisitRepository.findTotalVisitDurationInSeconds();
         long totalMinutes = totalSeconds / 60;
@@ -125,39 +108,35 @@ public class DashboardService {
                 ? List.of(userService.findById(userId))
                 : userService.findAll();
 
-        boolean checkVisits = (type == null || "VISIT".equalsIgnoreCase(type));
-        boolean checkAeps = (type == null || "AEP".equalsIgnoreCase(type));
-        boolean checkRisks = (type == null || "RISK".equalsIgnoreCase(type));
+        String docType = type == null ? null : switch (type.toUpperCase()) {
+            case "VISIT" -> "visit";
+            case "AEP" -> "aep";
+            case "RISK" -> "risk";
+            default -> "";
+        };
+        boolean checkVisits = docType == null || "visit".equals(docType);
+
+        // Contagens de todos os usuários em uma única consulta agrupada no índice de documentos
+        Map<Long, Map<String, Long>> totalsByUser = new HashMap<>();
+        if (docType == null || !docType.isEmpty()) {
+            for (DocumentIndexRepository.TechnicianDocumentCount row
+                    : documentIndexRepository.countByTechnicianAndType(userId, docType, companyId)) {
+                if (row.getTechnicianId() == null) continue;
+                totalsByUser.computeIfAbsent(row.getTechnicianId(), id -> new HashMap<>()).put(row.getDocType(), row.getTotal());
+            }
+        }
 
         return usersToProcess.stream().map(user -> {
             UserDocumentStatsDTO stats = new UserDocumentStatsDTO(user.getId(), user.getName());
+            Map<String, Long> totals = totalsByUser.getOrDefault(user.getId(), Map.of());
 
-            long visitCount = 0;
-            long aepCount = 0;
-            long riskCount = 0;
-            long totalSeconds = 0; // Variável para o tempo
-
-            if (checkVisits) {
-                if (companyId != null) {
-                    visitCount = technicalVisitRepository.countByTechnicianAndClientCompanyId(user, companyId);
-
-                } else {
-                    visitCount = technicalVisitRepository.countByTechnician(user);
-                    totalSeconds = technicalVisitRepository.findTotalVisitDurationInSeconds(user.getId());
-                }
-            }
-
-            if (checkAeps) {
-                aepCount = (companyId != null)
-                        ? aepReportRepository.countByEvaluatorAndCompanyId(user, companyId)
-                        : aepReportRepository.countByEvaluator(user);
-            }
-
-            if (checkRisks) {
-                riskCount = (companyId != null)
-                        ? occupationalRiskReportRepository.countByTechnicianAndCompanyId(user, companyId)
-                        : occupationalRiskReportRepository.countByTechnician(user);
-            }
+            long visitCount = totals.getOrDefault("visit", 0L);
+            long aepCount = totals.getOrDefault("aep", 0L);
+            long riskCount = totals.getOrDefault("risk", 0L);
+            // O tempo só é somado sem o filtro de empresa, como antes
+            long totalSeconds = checkVisits && companyId == null
+                    ? technicalVisitRepository.findTotalVisitDurationInSeconds(user.getId())
+                    : 0;
 
             // Matemática do tempo para este usuário específico
             long totalMinutes = totalSeconds / 60;
@@ -176,4 +155,12 @@ public class DashboardService {
             return stats;
         }).collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    private static Map<String, Long> countByType(List<DocumentIndexRepository.TechnicianDocumentCount> rows) {
+        Map<String, Long> totals = new HashMap<>();
+        for (DocumentIndexRepository.TechnicianDocumentCount row : rows) {
+            totals.merge(row.getDocType(), row.getTotal(), Long::sum);
+        }
+        return totals;
+    }
+}
@@ -5,11 +5,13 @@ import com.gotree.API.modules.iam.presentation.dto.AccessProfileResponseDTO;
 import com.gotree.API.modules.iam.domain.entities.AccessProfile;
 import com.gotree.API.modules.iam.infrastructure.repositories.AccessProfileRepository;
 import com.gotree.API.modules.iam.infrastructure.repositories.UserRepository;
+import com.gotree.API.modules.iam.infrastructure.security.AuthenticatedPrincipalCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,6 +20,7 @@ public class AccessProfileService {
 
     private final AccessProfileRepository profileRepository;
     private final UserRepository userRepository;
+    private final AuthenticatedPrincipalCache principalCache;
 
     @Transactional(readOnly = true)
     public List<AccessProfileResponseDTO> getAllProfiles() {
@@ -58,9 +61,15 @@ public class AccessProfileService {
         }
 
         profile.setName(dto.getName());
+        if (!Objects.equals(profile.getPermissions(), dto.getPermissions())) {
+            // Tokens emitidos com as permissões antigas deixam de ser aceitos
+            profile.setPermissionsVersion(profile.getPermissionsVersion() + 1);
+        }
         profile.setPermissions(dto.getPermissions());
 
         profile = profileRepository.save(profile);
+        // Usuários do perfil em cache passam a ver as novas permissões
+        principalCache.invalidateProfile(id);
         return mapToResponseDTO(profile);
     }
 
@@ -0,0 +1,111 @@
+package com.gotree.API.modules.iam.application.services;
+
+import com.gotree.API.modules.iam.infrastructure.repositories.UserRepository;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Regrava as senhas de certificado ({@code tb_user.certificate_password}) no formato atual do
+ * {@link SymmetricCryptoService}: valores do formato antigo (AES/ECB) ou cifrados com uma chave anterior.
+ * <p>
+ * Percorre os usuários em blocos, por id. Cada bloco é decifrado e cifrado fora de transação e gravado numa
+ * transação curta, com atualizações condicionais linha a linha: nenhuma trava de tabela, e uma senha trocada
+ * pelo usuário enquanto o bloco era processado não é sobrescrita. Quando não há nada a migrar, o ciclo é só a
+ * leitura dos blocos.
+ * <p>
+ * Valores do formato antigo não são autenticados: antes de regravar, a senha decifrada precisa abrir o certificado
+ * (PKCS#12) do usuário. Se não abrir, ou se o usuário não tiver certificado, o valor é mantido como está e contado
+ * como falha, em vez de cifrar lixo no formato novo e perder a senha.
+ * <p>
+ * Depois de uma rotação, a chave antiga só pode sair de {@code crypto.secret.previous-keys} depois de um ciclo
+ * completo sem falhas (o log de cada ciclo informa quantos valores foram regravados e quantos falharam).
+ */
+@Component
+public class CertificatePasswordReencryptionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(CertificatePasswordReencryptionJob.class);
+
+    private final UserRepository userRepository;
+    private final SymmetricCryptoService cryptoService;
+    private final StorageService storageService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public CertificatePasswordReencryptionJob(UserRepository userRepository, SymmetricCryptoService cryptoService,
+                                              StorageService storageService, TransactionTemplate transactionTemplate,
+                                              @Value("${crypto.reencryption.chunk-size:200}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.cryptoService = cryptoService;
+        this.storageService = storageService;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    @Scheduled(initialDelayString = "${crypto.reencryption.initial-delay-ms:60000}",
+            fixedDelayString = "${crypto.reencryption.interval-ms:21600000}")
+    public void reencryptPending() {
+        long lastId = 0;
+        int migrated = 0;
+        int failed = 0;
+        List<UserRepository.EncryptedCertificatePassword> chunk;
+        do {
+            chunk = userRepository.findCertificatePasswordsAfter(lastId, PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) break;
+            lastId = chunk.get(chunk.size() - 1).getId();
+
+            List<Replacement> replacements = new ArrayList<>();
+            for (UserRepository.EncryptedCertificatePassword row : chunk) {
+                if (!cryptoService.needsReencryption(row.getCertificatePassword())) continue;
+                try {
+                    String plain = cryptoService.decrypt(row.getCertificatePassword());
+                    if (cryptoService.isLegacyFormat(row.getCertificatePassword())) {
+                        verifyOpensCertificate(row.getCertificatePath(), plain);
+                    }
+                    replacements.add(new Replacement(row.getId(), row.getCertificatePassword(), cryptoService.encrypt(plain)));
+                } catch (RuntimeException e) {
+                    failed++;
+                    log.error("Senha do certificado do usuário {} não pôde ser decifrada; mantida como está: {}",
+                            row.getId(), e.getMessage());
+                }
+            }
+            if (replacements.isEmpty()) continue;
+
+            Integer updated = transactionTemplate.execute(status -> replacements.stream()
+                    .mapToInt(r -> userRepository.replaceCertificatePassword(r.userId(), r.oldValue(), r.newValue()))
+                    .sum());
+            migrated += updated != null ? updated : 0;
+        } while (chunk.size() == chunkSize);
+
+        if (migrated > 0 || failed > 0) {
+            log.info("Senhas de certificado regravadas no formato atual: {} (falhas: {}).", migrated, failed);
+        }
+    }
+
+    /**
+     * Confirma que a senha decifrada abre o certificado do usuário (uma chave errada gera lixo, não erro).
+     */
+    private void verifyOpensCertificate(String certificatePath, String password) {
+        if (certificatePath == null || certificatePath.isBlank()) {
+            throw new IllegalStateException("usuário sem certificado para validar a senha do formato antigo");
+        }
+        try (InputStream in = storageService.open(certificatePath)) {
+            KeyStore.getInstance("PKCS12").load(in, password.toCharArray());
+        } catch (Exception e) {
+            throw new IllegalStateException("a senha decifrada não abre o certificado: " + e.getMessage(), e);
+        }
+    }
+
+    private record Replacement(Long userId, String oldValue, String newValue) {
+    }
+}
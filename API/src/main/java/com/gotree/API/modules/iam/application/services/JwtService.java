@@ -1,12 +1,11 @@
 package com.gotree.API.modules.iam.application.services;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -14,26 +13,65 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import com.gotree.API.modules.iam.domain.entities.AccessProfile;
+import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.iam.infrastructure.security.CustomUserDetails;
+import com.gotree.API.modules.iam.infrastructure.security.PermissionMask;
+import com.gotree.API.modules.iam.infrastructure.security.jwt.JwtKeyRing;
+
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
-
-import javax.crypto.SecretKey;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.SignatureException;
 
 
 /**
  * Serviço responsável por gerenciar operações relacionadas a JSON Web Tokens (JWT).
  * Fornece funcionalidades para geração, validação e extração de informações de tokens.
  * Classe dedicada apenas ao VPS
+ * <p>
+ * As chaves vêm do {@link JwtKeyRing} (carregadas uma vez) e o parser é montado uma única vez e compartilhado
+ * entre as threads. Quem precisa de mais de uma informação do token deve chamar {@link #parseClaims} uma vez
+ * e reaproveitar o resultado, em vez de usar os métodos {@code extract*} (cada um valida o token de novo).
  */
 @Service
 public class JwtService {
 
-
-    @Value("${jwt.secret_path}")
-    private String secretKeyPath;
-
-    private static final long EXPIRATION_TIME = 86_400_000L; // 1 dia
+    /**
+     * Atributo da requisição onde o filtro JWT guarda as claims já validadas.
+     */
+    public static final String CLAIMS_ATTRIBUTE = JwtService.class.getName() + ".claims";
+
+    private static final String TOKEN_VERSION_CLAIM = "ver";
+    private static final String PERMISSION_MASK_CLAIM = "perm";
+    private static final String PROFILE_ID_CLAIM = "pid";
+    private static final String PROFILE_VERSION_CLAIM = "pv";
+
+    private final JwtKeyRing keyRing;
+    private final JwtParser parser;
+    private final long expirationMillis;
+
+    public JwtService(JwtKeyRing keyRing,
+                      @Value("${jwt.access-token-ttl-minutes:15}") long accessTokenTtlMinutes) {
+        this.keyRing = keyRing;
+        // Curto: a sessão continua pelo refresh token (RefreshTokenService)
+        this.expirationMillis = accessTokenTtlMinutes * 60_000L;
+        // Imutável e thread-safe; a chave de cada token é escolhida pelo "kid" do cabeçalho
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        Key key = keyRing.verificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new SignatureException("Chave de assinatura do token desconhecida.");
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
 
     /**
      * Gera um token JWT para um usuário específico.
@@ -42,6 +80,13 @@ public class JwtService {
      * @return String contendo o token JWT gerado
      */
     public String generateToken(UserDetails userDetails) {
+        return issueAccessToken(userDetails).token();
+    }
+
+    /**
+     * Gera um token de acesso com um identificador único ("jti"), usado para revogá-lo antes de expirar.
+     */
+    public AccessToken issueAccessToken(UserDetails userDetails) {
         Map<String, Object> extraClaims = new HashMap<>();
 
         List<String> roles = userDetails.getAuthorities()
@@ -50,95 +95,127 @@ public class JwtService {
                 .toList();
 
         extraClaims.put("roles", roles);
+        if (userDetails instanceof CustomUserDetails customUserDetails) {
+            User user = customUserDetails.user();
+            extraClaims.put(TOKEN_VERSION_CLAIM, user.getTokenVersion());
+            // Permissões assinadas no token: a autorização dos endpoints é um teste de bits
+            extraClaims.put(PERMISSION_MASK_CLAIM, PermissionMask.of(user));
+            if (user.getProfile() != null) {
+                extraClaims.put(PROFILE_ID_CLAIM, user.getProfile().getId());
+                extraClaims.put(PROFILE_VERSION_CLAIM, user.getProfile().getPermissionsVersion());
+            }
+        }
 
-        return Jwts.builder()
+        JwtKeyRing.SigningKey signingKey = keyRing.signingKey();
+        String jti = UUID.randomUUID().toString();
+        Date issuedAt = new Date();
+        Date expiresAt = new Date(issuedAt.getTime() + expirationMillis);
+        String token = Jwts.builder()
                 .claims(extraClaims)
+                .id(jti)
                 .subject(userDetails.getUsername())
-                .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(getSignInKey()) // O algoritmo (HS256) agora é deduzido automaticamente da chave
+                .issuedAt(issuedAt)
+                .expiration(expiresAt)
+                .header().keyId(signingKey.kid()).and()
+                .signWith(signingKey.key()) // O algoritmo (HS256) agora é deduzido automaticamente da chave
                 .compact();
+        return new AccessToken(token, jti, expiresAt);
     }
 
     /**
-     * Verifica se um token JWT é válido para um determinado usuário.
+     * Validade dos tokens de acesso, em segundos.
      */
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExperired(token);
+    public long accessTokenTtlSeconds() {
+        return expirationMillis / 1000;
     }
 
     /**
-     * Extrai o nome do usuário do token JWT.
+     * Valida a assinatura e a expiração do token e devolve as suas claims.
+     *
+     * @throws io.jsonwebtoken.JwtException se o token for inválido, expirado ou assinado por uma chave desconhecida
      */
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    public Claims parseClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     /**
-     * Verifica se um token JWT está expirado.
+     * Versão das credenciais do usuário quando o token foi emitido (0 para tokens sem a claim).
      */
-    private boolean isTokenExperired(String token) {
-        return extractExpiration(token).before(new Date());
+    public int extractTokenVersion(Claims claims) {
+        Integer version = claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+        return version != null ? version : 0;
     }
 
     /**
-     * Extrai a data de expiração do token JWT.
+     * Máscara de permissões do token (ver {@link PermissionMask}).
+     *
+     * @return null para tokens emitidos antes da claim
      */
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public Long extractPermissionMask(Claims claims) {
+        return claims.get(PERMISSION_MASK_CLAIM, Long.class);
     }
 
     /**
-     * Extrai uma informação específica do token JWT.
+     * Verifica se as permissões assinadas no token ainda são as do usuário: mesma role ADMIN, mesmo perfil e mesma
+     * versão das permissões do perfil. Tokens sem a máscara não carregam permissões e são sempre aceitos.
      */
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    public boolean hasCurrentPermissions(Claims claims, User user) {
+        Long mask = extractPermissionMask(claims);
+        if (mask == null) {
+            return true;
+        }
+        if (PermissionMask.isAdmin(mask) != PermissionMask.isAdmin(PermissionMask.of(user))) {
+            return false;
+        }
+
+        AccessProfile profile = user.getProfile();
+        Long profileId = claims.get(PROFILE_ID_CLAIM, Long.class);
+        if (profile == null) {
+            return profileId == null;
+        }
+        Integer profileVersion = claims.get(PROFILE_VERSION_CLAIM, Integer.class);
+        return profile.getId().equals(profileId)
+                && profileVersion != null && profileVersion == profile.getPermissionsVersion();
     }
 
     /**
-     * Extrai todas as claims (informações) do token JWT.
+     * Verifica se as claims de um token já validado pertencem ao usuário e ainda não expiraram.
      */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return userDetails.getUsername().equals(claims.getSubject()) && !claims.getExpiration().before(new Date());
     }
 
     /**
-     * Gera uma chave de assinatura a partir da chave secreta.
-     *
-     * @return SecretKey objeto contendo a chave de assinatura simétrica
+     * Verifica se um token JWT é válido para um determinado usuário.
      */
-    private SecretKey getSignInKey() {
-        try {
-            String content;
-
-            // Se for caminho de arquivo (Docker Secrets)
-            if (secretKeyPath != null && secretKeyPath.startsWith("/")) {
-                content = Files.readString(Paths.get(secretKeyPath)).trim();
-                System.out.println("DEBUG JWT: Chave lida do arquivo. Tamanho: " + content.length());
-            } else {
-                content = secretKeyPath;
-            }
-
-            if (content == null || content.isBlank()) {
-                throw new RuntimeException("A chave JWT lida está vazia! Verifique o caminho: " + secretKeyPath);
-            }
+    public boolean isTokenValid(String token, UserDetails userDetails) {
+        return isTokenValid(parseClaims(token), userDetails);
+    }
 
-            byte[] keyBytes = io.jsonwebtoken.io.Decoders.BASE64.decode(content);
+    /**
+     * Extrai o nome do usuário do token JWT.
+     */
+    public String extractUsername(String token) {
+        return extractClaim(token, Claims::getSubject);
+    }
 
-            if (keyBytes.length < 32) {
-                throw new RuntimeException("A chave JWT precisa ter pelo menos 256 bits (32 caracteres).");
-            }
+    /**
+     * Extrai a data de expiração do token JWT.
+     */
+    public Date extractExpiration(String token) {
+        return extractClaim(token, Claims::getExpiration);
+    }
 
-            return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Extrai uma informação específica do token JWT.
+     */
+    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+        return claimsResolver.apply(parseClaims(token));
+    }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Falha ao ler o arquivo do segredo em: " + secretKeyPath, e);
-        }
+    /**
+     * Token de acesso emitido, com o "jti" e a expiração.
+     */
+    public record AccessToken(String token, String jti, Date expiresAt) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,123 @@
+package com.gotree.API.modules.iam.application.services;
+
+import com.gotree.API.modules.iam.infrastructure.security.LoginThrottle;
+import com.gotree.API.modules.shared.exceptions.ServiceBusyException;
+import com.gotree.API.modules.shared.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Login por e-mail e senha ({@code /auth/login} e {@code /client-portal/login}), protegido contra rajadas.
+ *
+ * <ul>
+ *     <li>Antes do BCrypt, o {@link LoginThrottle} limita as tentativas por IP e por e-mail (429 + Retry-After).</li>
+ *     <li>A verificação da senha (BCrypt, caro de propósito) roda num pool pequeno e limitado, e não nas threads do
+ *     Tomcat: uma rajada de tentativas ocupa no máximo esse pool, e o restante da API continua com CPU disponível.
+ *     Com a fila do pool cheia, o login falha na hora com 503 + Retry-After.</li>
+ *     <li>Em um login bem-sucedido com um hash de custo menor que o configurado, o Spring Security regrava a senha
+ *     com o custo atual ({@code UserService.updatePassword}).</li>
+ * </ul>
+ * Métricas: {@code security.login.queue.depth} e {@code security.login.active}.
+ */
+@Service
+public class LoginService {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginService.class);
+
+    private final AuthenticationManager authenticationManager;
+    private final LoginThrottle loginThrottle;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    public LoginService(AuthenticationManager authenticationManager, LoginThrottle loginThrottle, MeterRegistry meterRegistry,
+                        @Value("${security.login.threads:0}") int configuredThreads,
+                        @Value("${security.login.queue-capacity:32}") int queueCapacity,
+                        @Value("${security.login.timeout-ms:10000}") long timeoutMillis) {
+        this.authenticationManager = authenticationManager;
+        this.loginThrottle = loginThrottle;
+        this.timeoutMillis = timeoutMillis;
+
+        // Metade dos núcleos por padrão: a outra metade fica para o resto da API durante uma rajada
+        int threads = configuredThreads > 0 ? configuredThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "auth-hash-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("security.login.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Logins aguardando a verificação da senha")
+                .register(meterRegistry);
+        Gauge.builder("security.login.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Senhas em verificação")
+                .register(meterRegistry);
+        log.info("Pool de verificação de senhas iniciado com {} thread(s).", threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Autentica o e-mail e a senha.
+     *
+     * @param clientAddress IP de origem da requisição, para o limite por IP
+     * @throws TooManyRequestsException se o limite de tentativas do IP ou do e-mail foi atingido
+     * @throws ServiceBusyException     se o pool de verificação estiver saturado
+     * @throws org.springframework.security.core.AuthenticationException se as credenciais forem inválidas
+     */
+    public Authentication authenticate(String email, String password, String clientAddress) {
+        long retryAfter = loginThrottle.tryAcquire(email, clientAddress);
+        if (retryAfter > 0) {
+            throw new TooManyRequestsException("Muitas tentativas de login. Tente novamente em instantes.", retryAfter);
+        }
+
+        UsernamePasswordAuthenticationToken credentials = new UsernamePasswordAuthenticationToken(email, password);
+        Future<Authentication> result;
+        try {
+            result = executor.submit(() -> authenticationManager.authenticate(credentials));
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException("Muitos logins em andamento. Tente novamente em instantes.", 1);
+        }
+
+        Authentication authentication;
+        try {
+            authentication = result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new RuntimeException("Erro ao autenticar.", e.getCause());
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new ServiceBusyException("Muitos logins em andamento. Tente novamente em instantes.", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            throw new RuntimeException("Login interrompido.", e);
+        }
+
+        loginThrottle.reset(email);
+        return authentication;
+    }
+}
@@ -0,0 +1,203 @@
+package com.gotree.API.modules.iam.application.services;
+
+import com.gotree.API.modules.iam.domain.entities.RefreshToken;
+import com.gotree.API.modules.iam.infrastructure.repositories.RefreshTokenRepository;
+import com.gotree.API.modules.iam.infrastructure.security.CustomUserDetails;
+import com.gotree.API.modules.iam.infrastructure.security.jwt.TokenRevocationList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Sessões de login: token de acesso curto (JWT) + refresh token com rotação.
+ *
+ * <ul>
+ *     <li>O refresh token é um valor aleatório de 256 bits; no banco fica só o seu SHA-256.</li>
+ *     <li>Cada uso troca o refresh token por um novo, na mesma família. Reapresentar um token já trocado indica que
+ *     ele vazou: a família inteira é revogada, junto com os tokens de acesso que ela emitiu.</li>
+ *     <li>Troca de senha ou de e-mail (versão do token do usuário) invalida os refresh tokens emitidos antes.</li>
+ *     <li>Logout revoga o token de acesso atual ({@link TokenRevocationList}) e a família do refresh token, se ele for
+ *     do próprio usuário.</li>
+ * </ul>
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenRevocationList revocationList;
+    private final JwtService jwtService;
+    private final UserDetailsService userDetailsService;
+    private final Duration refreshTokenTtl;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, TokenRevocationList revocationList,
+                               JwtService jwtService, UserDetailsService userDetailsService,
+                               @Value("${jwt.refresh-token-ttl-days:7}") long refreshTokenTtlDays) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.revocationList = revocationList;
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.refreshTokenTtl = Duration.ofDays(refreshTokenTtlDays);
+    }
+
+    /**
+     * Abre uma sessão (login): token de acesso e o primeiro refresh token de uma família nova.
+     */
+    @Transactional
+    public TokenPair issue(UserDetails userDetails) {
+        return issueInFamily(userDetails, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Troca o refresh token por um par novo.
+     *
+     * @throws BadCredentialsException se o token for desconhecido, expirado, revogado ou já usado
+     */
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public TokenPair refresh(String rawRefreshToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHash(hash(rawRefreshToken))
+                .orElseThrow(() -> new BadCredentialsException("Refresh token inválido."));
+        LocalDateTime now = LocalDateTime.now();
+
+        if (current.getRevokedAt() != null || !current.getExpiresAt().isAfter(now)) {
+            throw new BadCredentialsException("Refresh token expirado ou revogado.");
+        }
+        // Já trocado (ou trocado agora por outra requisição): o token foi copiado
+        if (current.getUsedAt() != null || refreshTokenRepository.markUsed(current.getId(), now) == 0) {
+            log.warn("Reuso de refresh token detectado para {}; sessão revogada.", current.getSubject());
+            revokeFamily(current.getFamilyId());
+            throw new BadCredentialsException("Refresh token já utilizado. Faça login novamente.");
+        }
+
+        UserDetails userDetails;
+        try {
+            userDetails = userDetailsService.loadUserByUsername(current.getSubject());
+        } catch (UsernameNotFoundException e) {
+            revokeFamily(current.getFamilyId());
+            throw new BadCredentialsException("Refresh token inválido.");
+        }
+        if (!userDetails.isEnabled() || tokenVersionOf(userDetails) != current.getTokenVersion()) {
+            revokeFamily(current.getFamilyId());
+            throw new BadCredentialsException("Credenciais alteradas. Faça login novamente.");
+        }
+
+        return issueInFamily(userDetails, current.getFamilyId());
+    }
+
+    /**
+     * Encerra a sessão: revoga o token de acesso e a família do refresh token (informado ou a que emitiu o acesso).
+     * Um refresh token de outro usuário é ignorado: sem isso, quem tivesse o valor de um token alheio poderia
+     * encerrar a sessão de outra pessoa com o próprio login.
+     *
+     * @param username usuário autenticado que pediu o logout
+     */
+    @Transactional
+    public void logout(String username, String accessJti, Date accessExpiresAt, String rawRefreshToken) {
+        if (accessJti != null && accessExpiresAt != null) {
+            revocationList.revoke(accessJti, LocalDateTime.ofInstant(accessExpiresAt.toInstant(), ZoneId.systemDefault()));
+        }
+
+        String familyId = null;
+        if (rawRefreshToken != null && !rawRefreshToken.isBlank()) {
+            RefreshToken presented = refreshTokenRepository.findByTokenHash(hash(rawRefreshToken)).orElse(null);
+            if (presented != null && presented.getSubject().equals(username)) {
+                familyId = presented.getFamilyId();
+            } else if (presented != null) {
+                log.warn("Logout de {} com refresh token de outro usuário; token ignorado.", username);
+            }
+        }
+        if (familyId == null && accessJti != null) {
+            familyId = refreshTokenRepository.findFirstByAccessJti(accessJti)
+                    .map(RefreshToken::getFamilyId).orElse(null);
+        }
+        if (familyId != null) {
+            revokeFamily(familyId);
+        }
+    }
+
+    /**
+     * Remove os refresh tokens expirados.
+     */
+    @Scheduled(cron = "${jwt.refresh-token-cleanup-cron:0 15 4 * * *}")
+    @Transactional
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Refresh tokens expirados removidos: {}.", deleted);
+        }
+    }
+
+    private TokenPair issueInFamily(UserDetails userDetails, String familyId) {
+        JwtService.AccessToken accessToken = jwtService.issueAccessToken(userDetails);
+
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String rawRefreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime now = LocalDateTime.now();
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(rawRefreshToken));
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setSubject(userDetails.getUsername());
+        refreshToken.setTokenVersion(tokenVersionOf(userDetails));
+        refreshToken.setAccessJti(accessToken.jti());
+        refreshToken.setCreatedAt(now);
+        refreshToken.setExpiresAt(now.plus(refreshTokenTtl));
+        refreshTokenRepository.save(refreshToken);
+
+        return new TokenPair(accessToken.token(), rawRefreshToken, jwtService.accessTokenTtlSeconds());
+    }
+
+    /**
+     * Revoga a família e os tokens de acesso dela que ainda podem estar válidos.
+     */
+    private void revokeFamily(String familyId) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime accessExpiresAt = now.plusSeconds(jwtService.accessTokenTtlSeconds());
+        for (String jti : refreshTokenRepository.findAccessJtis(familyId, now.minusSeconds(jwtService.accessTokenTtlSeconds()))) {
+            revocationList.revoke(jti, accessExpiresAt);
+        }
+        refreshTokenRepository.revokeFamily(familyId, now);
+    }
+
+    private static int tokenVersionOf(UserDetails userDetails) {
+        return userDetails instanceof CustomUserDetails customUserDetails ? customUserDetails.user().getTokenVersion() : 0;
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível na JVM.", e);
+        }
+    }
+
+    /**
+     * Token de acesso, refresh token e validade do token de acesso em segundos.
+     */
+    public record TokenPair(String accessToken, String refreshToken, long expiresIn) {
+    }
+}
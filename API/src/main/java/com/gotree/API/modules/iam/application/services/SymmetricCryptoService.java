@@ -3,32 +3,96 @@ package com.gotree.API.modules.iam.application.services;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Serviço para criptografia simétrica (AES).
  * Usado para criptografar a senha do certificado digital antes de salvar no banco,
  * permitindo que ela seja recuperada (descriptografada) no momento da assinatura.
+ * <p>
+ * Os valores novos são cifrados com AES-GCM (nonce aleatório de 96 bits, autenticado) num envelope versionado:
+ * {@code v2:<kid>:<Base64(nonce + texto cifrado)>}, onde o "kid" identifica a chave usada. Valores sem o prefixo
+ * são do formato antigo (AES/ECB, sem IV) e continuam legíveis até o {@code CertificatePasswordReencryptionJob}
+ * regravá-los.
+ * <p>
+ * Rotação: a nova chave vai em {@code crypto.secret.key} e a anterior em {@code crypto.secret.previous-keys}
+ * (separadas por vírgula) até o job terminar de regravar os valores; depois ela pode ser removida.
+ * <p>
+ * O formato antigo não identifica a chave nem autentica o conteúdo: com a chave errada, o padding confere em
+ * cerca de 1 a cada 256 valores e o resultado é lixo. Por isso esses valores são decifrados só com a chave de
+ * {@code crypto.secret.legacy-key}; sem ela, cada chave é tentada e o valor é recusado se mais de uma o decifrar.
+ * <p>
+ * As instâncias de {@link Cipher} são reaproveitadas por thread ({@code Cipher} não é thread-safe) e as chaves
+ * são montadas uma única vez.
  */
 @Service
 public class SymmetricCryptoService {
 
-    // O Spring injeta o valor lido do application.properties automaticamente aqui
-    @Value("${crypto.secret.key}")
-    private String secretKey;
-
     private static final String ALGORITHM = "AES";
+    private static final String GCM_TRANSFORMATION = "AES/GCM/NoPadding";
+    // O mesmo que o Cipher.getInstance("AES") usado antes do formato v2
+    private static final String LEGACY_TRANSFORMATION = "AES/ECB/PKCS5Padding";
+    private static final String ENVELOPE_PREFIX = "v2:";
+    private static final int NONCE_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    private static final ThreadLocal<Cipher> GCM_CIPHER = ThreadLocal.withInitial(() -> cipher(GCM_TRANSFORMATION));
+    private static final ThreadLocal<Cipher> LEGACY_CIPHER = ThreadLocal.withInitial(() -> cipher(LEGACY_TRANSFORMATION));
+
+    private final SecureRandom random = new SecureRandom();
+    private final String activeKid;
+    // Chave ativa primeiro; as anteriores só decifram
+    private final Map<String, SecretKey> keys;
+    // Única chave aceita para o formato antigo; null = tenta todas, exigindo um único resultado
+    private final SecretKey legacyKey;
+
+    public SymmetricCryptoService(@Value("${crypto.secret.key}") String secretKey,
+                                  @Value("${crypto.secret.previous-keys:}") String previousKeys,
+                                  @Value("${crypto.secret.legacy-key:}") String legacyKey) {
+        Map<String, SecretKey> loaded = new LinkedHashMap<>();
+        addKey(loaded, secretKey);
+        if (previousKeys != null) {
+            for (String previous : previousKeys.split(",")) {
+                if (!previous.isBlank()) {
+                    addKey(loaded, previous.trim());
+                }
+            }
+        }
+        this.keys = Collections.unmodifiableMap(loaded);
+        this.activeKid = loaded.keySet().iterator().next();
+        this.legacyKey = legacyKey == null || legacyKey.isBlank() ? null : keySpec(legacyKey.trim());
+    }
 
     public String encrypt(String data) {
         try {
-            SecretKeySpec keySpec = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, keySpec);
-            byte[] encryptedBytes = cipher.doFinal(data.getBytes());
-            return Base64.getEncoder().encodeToString(encryptedBytes);
+            byte[] nonce = new byte[NONCE_BYTES];
+            random.nextBytes(nonce);
+
+            Cipher cipher = GCM_CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, keys.get(activeKid), new GCMParameterSpec(TAG_BITS, nonce));
+            byte[] encryptedBytes = cipher.doFinal(data.getBytes(StandardCharsets.UTF_8));
+
+            byte[] payload = new byte[NONCE_BYTES + encryptedBytes.length];
+            System.arraycopy(nonce, 0, payload, 0, NONCE_BYTES);
+            System.arraycopy(encryptedBytes, 0, payload, NONCE_BYTES, encryptedBytes.length);
+            return ENVELOPE_PREFIX + activeKid + ':' + Base64.getEncoder().encodeToString(payload);
         } catch (Exception e) {
             throw new RuntimeException("Erro ao criptografar dados sensíveis.", e);
         }
@@ -36,13 +100,120 @@ public class SymmetricCryptoService {
 
     public String decrypt(String encryptedData) {
         try {
-            SecretKeySpec keySpec = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, keySpec);
-            byte[] decodedBytes = Base64.getDecoder().decode(encryptedData);
-            return new String(cipher.doFinal(decodedBytes));
+            if (!encryptedData.startsWith(ENVELOPE_PREFIX)) {
+                return decryptLegacy(encryptedData);
+            }
+
+            int separator = encryptedData.indexOf(':', ENVELOPE_PREFIX.length());
+            if (separator < 0) {
+                throw new IllegalArgumentException("Envelope cifrado malformado.");
+            }
+            SecretKey key = keys.get(encryptedData.substring(ENVELOPE_PREFIX.length(), separator));
+            if (key == null) {
+                throw new IllegalStateException("Chave de criptografia desconhecida: verifique crypto.secret.previous-keys.");
+            }
+
+            byte[] payload = Base64.getDecoder().decode(encryptedData.substring(separator + 1));
+            Cipher cipher = GCM_CIPHER.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, payload, 0, NONCE_BYTES));
+            return new String(cipher.doFinal(payload, NONCE_BYTES, payload.length - NONCE_BYTES), StandardCharsets.UTF_8);
         } catch (Exception e) {
             throw new RuntimeException("Erro ao descriptografar dados sensíveis.", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * O valor está no formato antigo ou foi cifrado com uma chave que não é mais a ativa.
+     */
+    public boolean needsReencryption(String encryptedData) {
+        return encryptedData != null && !encryptedData.startsWith(ENVELOPE_PREFIX + activeKid + ':');
+    }
+
+    /**
+     * O valor está no formato antigo (AES/ECB, sem "kid" nem autenticação).
+     */
+    public boolean isLegacyFormat(String encryptedData) {
+        return encryptedData != null && !encryptedData.startsWith(ENVELOPE_PREFIX);
+    }
+
+    /**
+     * Decifra o valor antigo (AES/ECB) com a chave de {@code crypto.secret.legacy-key}. Sem ela, tenta cada chave
+     * e só aceita o resultado se exatamente uma decifrar o valor (padding válido e UTF-8 bem formado).
+     */
+    private String decryptLegacy(String encryptedData) throws GeneralSecurityException {
+        byte[] decodedBytes = Base64.getDecoder().decode(encryptedData);
+        Cipher cipher = LEGACY_CIPHER.get();
+        if (legacyKey != null) {
+            cipher.init(Cipher.DECRYPT_MODE, legacyKey);
+            return decodeUtf8(cipher.doFinal(decodedBytes));
+        }
+
+        String result = null;
+        GeneralSecurityException lastError = null;
+        for (SecretKey key : keys.values()) {
+            try {
+                cipher.init(Cipher.DECRYPT_MODE, key);
+                String candidate = decodeUtf8(cipher.doFinal(decodedBytes));
+                if (result != null) {
+                    throw new IllegalStateException("Valor no formato antigo decifrado por mais de uma chave: "
+                            + "configure crypto.secret.legacy-key.");
+                }
+                result = candidate;
+            } catch (GeneralSecurityException e) {
+                lastError = e;
+            }
+        }
+        if (result == null) {
+            throw lastError;
+        }
+        return result;
+    }
+
+    /**
+     * UTF-8 estrito: bytes inválidos indicam chave errada, não uma senha com caracteres trocados.
+     */
+    private static String decodeUtf8(byte[] bytes) throws GeneralSecurityException {
+        try {
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(bytes))
+                    .toString();
+        } catch (CharacterCodingException e) {
+            throw new BadPaddingException("Conteúdo decifrado não é UTF-8 válido.");
+        }
+    }
+
+    private static void addKey(Map<String, SecretKey> keys, String secret) {
+        SecretKeySpec key = keySpec(secret);
+        keys.putIfAbsent(kidOf(key.getEncoded()), key);
+    }
+
+    private static SecretKeySpec keySpec(String secret) {
+        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length != 16 && keyBytes.length != 24 && keyBytes.length != 32) {
+            throw new IllegalStateException("A chave de criptografia precisa ter 16, 24 ou 32 bytes.");
+        }
+        return new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    /**
+     * Identificador estável da chave: prefixo do SHA-256, sem revelar a chave.
+     */
+    private static String kidOf(byte[] keyBytes) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(keyBytes);
+            return HexFormat.of().formatHex(hash, 0, 4);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível na JVM.", e);
+        }
+    }
+
+    private static Cipher cipher(String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Algoritmo de criptografia indisponível na JVM: " + transformation, e);
+        }
+    }
+}
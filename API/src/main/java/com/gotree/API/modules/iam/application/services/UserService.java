@@ -1,12 +1,10 @@
 package com.gotree.API.modules.iam.application.services;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import com.gotree.API.modules.iam.infrastructure.security.AuthenticatedPrincipalCache;
 import com.gotree.API.modules.iam.infrastructure.security.ClientUserDetails;
 import com.gotree.API.modules.iam.infrastructure.security.CustomUserDetails;
 import com.gotree.API.modules.customer.infrastructure.repositories.ClientRepository;
@@ -24,11 +22,13 @@ import com.gotree.API.modules.operations.infrastructure.repositories.AepReportRe
 import com.gotree.API.modules.operations.infrastructure.repositories.OccupationalRiskReportRepository;
 import com.gotree.API.modules.operations.infrastructure.repositories.TechnicalVisitRepository;
 import com.gotree.API.modules.shared.infrastructure.providers.EmailService;
-import org.springframework.beans.factory.annotation.Value;
+import com.gotree.API.modules.shared.application.services.SigningMaterialCache;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -37,7 +37,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 
 @Service
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
@@ -50,15 +50,17 @@ public class UserService implements UserDetailsService {
     private final EmailService emailService;
     private final AccessProfileRepository accessProfileRepository;
     private final CpfValidatorService cpfValidatorService;
-
-    @Value("${file.storage.path}")
-    private String fileStoragePath;
+    private final StorageService storageService;
+    private final SigningMaterialCache signingMaterialCache;
+    private final AuthenticatedPrincipalCache principalCache;
 
     public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserMapper userMapper,
                        AepReportRepository aepReportRepository, OccupationalRiskReportRepository riskReportRepository,
                        TechnicalVisitRepository technicalVisitRepository, ClientRepository clientRepository,
                        SymmetricCryptoService cryptoService, AccessProfileRepository accessProfileRepository,
-                       CpfValidatorService cpfValidatorService, EmailService emailService) {
+                       CpfValidatorService cpfValidatorService, EmailService emailService,
+                       StorageService storageService, SigningMaterialCache signingMaterialCache,
+                       AuthenticatedPrincipalCache principalCache) {
         this.passwordEncoder = passwordEncoder;
         this.userRepository = userRepository;
         this.userMapper = userMapper;
@@ -70,6 +72,9 @@ public class UserService implements UserDetailsService {
         this.accessProfileRepository = accessProfileRepository;
         this.cpfValidatorService = cpfValidatorService;
         this.emailService = emailService;
+        this.storageService = storageService;
+        this.signingMaterialCache = signingMaterialCache;
+        this.principalCache = principalCache;
     }
 
     public List<User> findAll() { return userRepository.findAll(); }
@@ -114,6 +119,7 @@ public class UserService implements UserDetailsService {
                 throw new DataIntegrityViolationException("Email já cadastrado: " + u.getEmail());
             });
             user.setEmail(dto.getEmail());
+            revokeIssuedTokens(user);
         }
 
         if (dto.getCpf() != null) {
@@ -134,7 +140,9 @@ public class UserService implements UserDetailsService {
             user.setProfile(null); // Caso queira permitir remover o perfil
         }
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        principalCache.invalidateUser(id);
+        return saved;
     }
 
     @Transactional
@@ -146,16 +154,17 @@ public class UserService implements UserDetailsService {
             throw new IllegalStateException("Usuário não pode ser excluído pois possui relatórios vinculados.");
         }
         // Remove certificado físico se existir
-        if (user.getCertificatePath() != null) {
-            try { Files.deleteIfExists(Paths.get(user.getCertificatePath())); } catch (IOException ignored) {}
-        }
+        storageService.release(user.getCertificatePath());
+        signingMaterialCache.invalidate(id);
         userRepository.deleteById(id);
+        principalCache.invalidateUser(id);
     }
 
     public void resetPassword(Long userId) {
         User user = findById(userId);
         user.setPassword(passwordEncoder.encode(user.getEmail()));
         user.setPasswordResetRequired(true);
+        revokeIssuedTokens(user);
         userRepository.save(user);
     }
 
@@ -177,6 +186,7 @@ public class UserService implements UserDetailsService {
         // Codifica a nova senha, aplica no usuário e desativa a flag de reset
         user.setPassword(passwordEncoder.encode(newPassword));
         user.setPasswordResetRequired(false); // Libera o usuário para usar o sistema
+        revokeIssuedTokens(user);
 
         userRepository.save(user);
     }
@@ -207,6 +217,7 @@ public class UserService implements UserDetailsService {
 
         user.setPassword(passwordEncoder.encode(newPassword));
         user.setPasswordResetRequired(false);
+        revokeIssuedTokens(user);
         userRepository.save(user);
     }
 
@@ -224,6 +235,7 @@ public class UserService implements UserDetailsService {
            throw new DataIntegrityViolationException("Este e-mail já está em uso");
        }
        user.setEmail(newEmail);
+       revokeIssuedTokens(user);
        userRepository.save(user);
     }
 
@@ -271,10 +283,20 @@ public class UserService implements UserDetailsService {
         user.setResetToken(null);
         user.setResetTokenExpiry(null);
         user.setPasswordResetRequired(false); // Garante que o utilizador possa logar direto
+        revokeIssuedTokens(user);
 
         userRepository.save(user);
     }
 
+    /**
+     * Senha ou e-mail alterados: os tokens já emitidos deixam de ser aceitos (a versão vai no token)
+     * e o usuário sai do cache de autenticados.
+     */
+    private void revokeIssuedTokens(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        principalCache.invalidateUser(user.getId());
+    }
+
     /**
      * Gera o template HTML inline injetando o nome e o token.
      */
@@ -350,22 +372,14 @@ public class UserService implements UserDetailsService {
             throw new IllegalArgumentException("Senha incorreta ou arquivo PFX inválido.");
         }
 
-        // 3. Limpeza: Remove arquivo antigo se já existir
-        if (user.getCertificatePath() != null) {
-            try { java.nio.file.Files.deleteIfExists(java.nio.file.Paths.get(user.getCertificatePath())); } catch (java.io.IOException ignored) {}
-        }
-
-        // 4. Salva novo arquivo e atualiza dados no banco
-        try {
+        // 3. Salva novo arquivo e atualiza dados no banco
+        try (java.io.InputStream certificateStream = dto.getFile().getInputStream()) {
             String safeExt = getSafeExtension(dto.getFile().getOriginalFilename());
 
-            String fileName = "CERT_" + user.getId() + "_" + java.util.UUID.randomUUID() + safeExt;
-            java.nio.file.Path targetPath = java.nio.file.Paths.get(fileStoragePath, "certificates", fileName);
-
-            java.nio.file.Files.createDirectories(targetPath.getParent());
-            java.nio.file.Files.write(targetPath, dto.getFile().getBytes());
-
-            user.setCertificatePath(targetPath.toString());
+            // 4. Limpeza: o arquivo antigo é liberado (e apagado após o commit)
+            String previousPath = user.getCertificatePath();
+            user.setCertificatePath(storageService.store(certificateStream, safeExt));
+            storageService.release(previousPath);
 
             // SEGURO: A variável 'rawPassword' já passou pelo IF de validação de tamanho.
             // A IDE agora sabe que o input está "Controlado".
@@ -376,8 +390,11 @@ public class UserService implements UserDetailsService {
             }
 
             userRepository.save(user);
+            // A chave e a cadeia antigas deixam de valer para as próximas assinaturas
+            signingMaterialCache.invalidate(user.getId());
+            principalCache.invalidateUser(user.getId());
         } catch (java.io.IOException e) {
-            throw new RuntimeException("Erro ao salvar arquivo no disco.", e);
+            throw new RuntimeException("Erro ao salvar arquivo no armazenamento.", e);
         }
     }
 
@@ -405,15 +422,15 @@ public class UserService implements UserDetailsService {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado."));
 
-        if (user.getCertificatePath() != null) {
-            try { Files.deleteIfExists(Paths.get(user.getCertificatePath())); } catch (IOException ignored) {}
-        }
+        storageService.release(user.getCertificatePath());
 
         // Limpa campos
         user.setCertificatePath(null);
         user.setCertificatePassword(null);
         user.setCertificateValidity(null);
         userRepository.save(user);
+        signingMaterialCache.invalidate(user.getId());
+        principalCache.invalidateUser(user.getId());
     }
 
     @Override
@@ -426,4 +443,30 @@ public class UserService implements UserDetailsService {
 
         throw new UsernameNotFoundException("Usuário não encontrado: " + email);
     }
-}
\ No newline at end of file
+
+    /**
+     * Chamado pelo Spring Security após um login bem-sucedido com um hash de custo menor que o do
+     * {@link PasswordEncoder} atual: regrava o hash com o custo atual. A senha é a mesma, então os tokens
+     * emitidos continuam válidos. A troca só vale se o hash no banco ainda for o verificado no login.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails details, String newPassword) {
+        if (details instanceof CustomUserDetails customUserDetails) {
+            User user = customUserDetails.user();
+            if (userRepository.upgradePassword(user.getId(), user.getPassword(), newPassword) > 0) {
+                user.setPassword(newPassword);
+                principalCache.invalidateUser(user.getId());
+            }
+            return new CustomUserDetails(user);
+        }
+        if (details instanceof ClientUserDetails clientUserDetails) {
+            Client client = clientUserDetails.getClient();
+            if (clientRepository.upgradePassword(client.getId(), client.getPassword(), newPassword) > 0) {
+                client.setPassword(newPassword);
+            }
+            return new ClientUserDetails(client);
+        }
+        return details;
+    }
+}
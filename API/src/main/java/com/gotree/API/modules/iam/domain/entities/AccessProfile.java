@@ -36,4 +36,8 @@ public class AccessProfile {
     @Enumerated(EnumType.STRING)
     @Column(name = "permission")
     private Set<SystemPermission> permissions;
+
+    // Incrementada quando as permissões mudam: tokens emitidos antes (claim "pv") exigem novo login
+    @Column(name = "permissions_version", nullable = false)
+    private int permissionsVersion = 0;
 }
@@ -0,0 +1,68 @@
+package com.gotree.API.modules.iam.domain.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Refresh token emitido no login. O valor entregue ao cliente nunca é guardado, só o seu SHA-256.
+ * Tokens gerados a partir do mesmo login formam uma família (rotação a cada uso).
+ *
+ * @see com.gotree.API.modules.iam.application.services.RefreshTokenService
+ */
+@Entity
+@Table(name = "tb_refresh_token")
+@Getter
+@Setter
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    /**
+     * E-mail do usuário ou do cliente do portal.
+     */
+    @Column(nullable = false)
+    private String subject;
+
+    /**
+     * Versão das credenciais do usuário na emissão: senha ou e-mail trocados invalidam o token.
+     */
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion;
+
+    /**
+     * Último token de acesso emitido com este refresh token.
+     */
+    @Column(name = "access_jti", length = 36)
+    private String accessJti;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * Quando foi trocado por um token novo; um segundo uso indica vazamento.
+     */
+    @Column(name = "used_at")
+    private LocalDateTime usedAt;
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+}
@@ -0,0 +1,30 @@
+package com.gotree.API.modules.iam.domain.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Token de acesso revogado antes de expirar, pelo "jti". Mantido em memória pelo {@code TokenRevocationList}.
+ */
+@Entity
+@Table(name = "tb_revoked_token")
+@Getter
+@Setter
+public class RevokedToken {
+
+    @Id
+    @Column(length = 36)
+    private String jti;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
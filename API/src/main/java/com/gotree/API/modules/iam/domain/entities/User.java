@@ -71,6 +71,10 @@ public class User implements Serializable, UserDetails {
     @Column(name = "certificate_validity")
     private LocalDate certificateValidity;
 
+    // Incrementada quando a senha ou o e-mail mudam: tokens emitidos antes deixam de valer
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion = 0;
+
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
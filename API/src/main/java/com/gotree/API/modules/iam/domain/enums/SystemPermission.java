@@ -3,10 +3,14 @@ package com.gotree.API.modules.iam.domain.enums;
 import lombok.Getter;
 import com.fasterxml.jackson.annotation.JsonFormat;
 
+import java.util.Collection;
+
 @Getter
 @JsonFormat(shape = JsonFormat.Shape.OBJECT)
 public enum SystemPermission {
 
+    // A posição de cada permissão é o seu bit no token (claim "perm"): novas permissões sempre no final.
+
     // --- MÓDULO AGENDA ---
     VIEW_AGENDA("Agenda", "Visualizar eventos na agenda"),
     CREATE_AGENDA("Agenda", "Criar novos eventos"),
@@ -53,4 +57,21 @@ public enum SystemPermission {
         this.description = description;
         this.name = this.name();
     }
+
+    /**
+     * Bit da permissão na máscara gravada no token.
+     */
+    public long bit() {
+        return 1L << ordinal();
+    }
+
+    public static long toMask(Collection<SystemPermission> permissions) {
+        long mask = 0;
+        if (permissions != null) {
+            for (SystemPermission permission : permissions) {
+                mask |= permission.bit();
+            }
+        }
+        return mask;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.gotree.API.modules.iam.infrastructure.repositories;
+
+import com.gotree.API.modules.iam.domain.entities.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    Optional<RefreshToken> findFirstByAccessJti(String accessJti);
+
+    /**
+     * Marca o token como usado, se ninguém o usou antes (duas trocas simultâneas: só uma vence).
+     *
+     * @return 1 se esta chamada marcou o token
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.usedAt = :now WHERE t.id = :id AND t.usedAt IS NULL AND t.revokedAt IS NULL")
+    int markUsed(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Tokens de acesso ainda não expirados emitidos pela família, para revogação.
+     */
+    @Query("SELECT t.accessJti FROM RefreshToken t WHERE t.familyId = :familyId AND t.accessJti IS NOT NULL" +
+            " AND t.createdAt > :issuedAfter")
+    List<String> findAccessJtis(@Param("familyId") String familyId, @Param("issuedAfter") LocalDateTime issuedAfter);
+
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now WHERE t.familyId = :familyId AND t.revokedAt IS NULL")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < :before")
+    int deleteExpired(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,28 @@
+package com.gotree.API.modules.iam.infrastructure.repositories;
+
+import com.gotree.API.modules.iam.domain.entities.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    @Query("SELECT t FROM RevokedToken t WHERE t.expiresAt > :now")
+    List<RevokedToken> findActive(@Param("now") LocalDateTime now);
+
+    /**
+     * Revoga o "jti"; se já estava revogado, nada muda.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tb_revoked_token (jti, expires_at, created_at) VALUES (:jti, :expiresAt, NOW())" +
+            " ON CONFLICT (jti) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("jti") String jti, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken t WHERE t.expiresAt < :before")
+    int deleteExpired(@Param("before") LocalDateTime before);
+}
@@ -1,8 +1,13 @@
 package com.gotree.API.modules.iam.infrastructure.repositories;
 
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.gotree.API.modules.iam.domain.entities.User;
 
@@ -12,4 +17,36 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
    boolean existsByProfileId(Long profileId);
 
+    /**
+     * Próximo bloco de senhas de certificado, por id (paginação por chave, sem OFFSET).
+     */
+    @Query("SELECT u.id AS id, u.certificatePassword AS certificatePassword, u.certificatePath AS certificatePath FROM User u" +
+            " WHERE u.certificatePassword IS NOT NULL AND u.id > :afterId ORDER BY u.id")
+    List<EncryptedCertificatePassword> findCertificatePasswordsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Regrava a senha cifrada só se ela ainda for a lida (o usuário pode ter trocado o certificado nesse meio tempo).
+     *
+     * @return 1 se a senha foi regravada
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.certificatePassword = :newValue WHERE u.id = :id AND u.certificatePassword = :oldValue")
+    int replaceCertificatePassword(@Param("id") Long id, @Param("oldValue") String oldValue, @Param("newValue") String newValue);
+
+    /**
+     * Regrava o hash da senha com outro custo, se ele ainda for o verificado no login.
+     *
+     * @return 1 se o hash foi regravado
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int upgradePassword(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
+    interface EncryptedCertificatePassword {
+        Long getId();
+
+        String getCertificatePassword();
+
+        String getCertificatePath();
+    }
 }
@@ -0,0 +1,229 @@
+package com.gotree.API.modules.iam.infrastructure.security;
+
+import com.gotree.API.modules.iam.domain.entities.AccessProfile;
+import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.iam.infrastructure.repositories.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Usuários autenticados já carregados, pela chave "e-mail do token + versão do token".
+ * <p>
+ * Sem o cache, toda requisição autenticada buscava o usuário no banco (com o perfil e as permissões, que são EAGER).
+ * A entrada guarda as autoridades já calculadas (imutáveis) e uma cópia desligada do usuário; cada requisição recebe
+ * a sua própria cópia, então alterações feitas por um controller não vazam para as outras.
+ * <p>
+ * A entrada vale pelo tempo configurado e é descartada quando o {@code UserService} ou o {@code AccessProfileService}
+ * alteram o usuário ou o perfil (também após o commit, para que uma leitura concorrente não guarde o estado antigo).
+ * Em outra instância, a alteração aparece em no máximo o tempo de validade; troca de senha ou de e-mail muda a versão
+ * do token e vale na hora em todas.
+ * <p>
+ * Como no {@code LoginThrottle}, a tabela é dividida em faixas, cada uma um LinkedHashMap em ordem de acesso com o seu
+ * lock: ao passar do limite sai a entrada menos usada da faixa, em O(1), sem percorrer o cache.
+ * <p>
+ * Métricas: {@code security.principal.cache} (result=hit|miss), {@code security.principal.cache.size}
+ * e {@code security.principal.cache.hit.ratio}.
+ */
+@Component
+public class AuthenticatedPrincipalCache {
+
+    private static final int STRIPES = 16;
+
+    private final UserRepository userRepository;
+    private final long ttlNanos;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    // Incrementado a cada invalidação: uma leitura do banco que começou antes não é guardada
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+
+    public AuthenticatedPrincipalCache(UserRepository userRepository, MeterRegistry meterRegistry,
+                                       @Value("${security.principal-cache.max-entries:10000}") int maxEntries,
+                                       @Value("${security.principal-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        int perStripe = Math.max(1, (maxEntries + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+
+        this.hits = Counter.builder("security.principal.cache")
+                .description("Usuários autenticados resolvidos pelo cache ou pelo banco")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("security.principal.cache")
+                .description("Usuários autenticados resolvidos pelo cache ou pelo banco")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("security.principal.cache.size", this, AuthenticatedPrincipalCache::size)
+                .description("Usuários autenticados em cache")
+                .register(meterRegistry);
+        Gauge.builder("security.principal.cache.hit.ratio", this, AuthenticatedPrincipalCache::hitRatio)
+                .description("Fração das requisições autenticadas atendidas sem ir ao banco")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Usuário do token, sem consultar o banco se já estiver em cache.
+     *
+     * @return vazio se o usuário não existir mais ou se o token for de uma versão anterior das credenciais
+     */
+    public Optional<CustomUserDetails> resolve(String subject, int tokenVersion) {
+        String key = subject + '#' + tokenVersion;
+        long now = System.nanoTime();
+
+        Stripe stripe = stripeFor(key);
+        Snapshot cached;
+        synchronized (stripe) {
+            cached = stripe.get(key);
+        }
+        if (cached != null && now - cached.loadedAt() < ttlNanos) {
+            hits.increment();
+            return Optional.of(cached.toPrincipal());
+        }
+        misses.increment();
+
+        long generationAtLoad = generation.get();
+        User user = userRepository.findByEmail(subject).orElse(null);
+        if (user == null || user.getTokenVersion() != tokenVersion) {
+            synchronized (stripe) {
+                stripe.remove(key);
+            }
+            return Optional.empty();
+        }
+
+        Snapshot loaded = Snapshot.of(user, now);
+        synchronized (stripe) {
+            // Conferido sob o lock: uma invalidação concorrente limpa esta faixa depois ou já mudou a geração
+            if (generation.get() == generationAtLoad) {
+                stripe.put(key, loaded);
+            }
+        }
+        return Optional.of(loaded.toPrincipal());
+    }
+
+    /**
+     * Descarta o usuário (dados, role, perfil, certificado ou credenciais alterados, ou usuário excluído).
+     */
+    public void invalidateUser(Long userId) {
+        if (userId != null) {
+            evictWhere(snapshot -> userId.equals(snapshot.userId()));
+        }
+    }
+
+    /**
+     * Descarta todos os usuários de um perfil (permissões alteradas ou perfil excluído).
+     */
+    public void invalidateProfile(Long profileId) {
+        if (profileId != null) {
+            evictWhere(snapshot -> profileId.equals(snapshot.profileId()));
+        }
+    }
+
+    private void evictWhere(Predicate<Snapshot> condition) {
+        Runnable evict = () -> {
+            generation.incrementAndGet();
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    stripe.values().removeIf(condition);
+                }
+            }
+        };
+        evict.run();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+    }
+
+    private int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total > 0 ? hits.count() / total : 0;
+    }
+
+    /**
+     * Cópia desligada do usuário e do perfil: o conjunto de permissões do Hibernate não é compartilhado.
+     */
+    private static User copyOf(User source) {
+        User copy = new User();
+        BeanUtils.copyProperties(source, copy);
+        AccessProfile profile = source.getProfile();
+        if (profile != null) {
+            AccessProfile profileCopy = new AccessProfile();
+            profileCopy.setId(profile.getId());
+            profileCopy.setName(profile.getName());
+            profileCopy.setPermissionsVersion(profile.getPermissionsVersion());
+            profileCopy.setPermissions(profile.getPermissions() != null ? new HashSet<>(profile.getPermissions()) : null);
+            copy.setProfile(profileCopy);
+        }
+        return copy;
+    }
+
+    /**
+     * Faixa do cache: LinkedHashMap em ordem de acesso, descartando a entrada menos usada ao passar do limite.
+     * Entradas vencidas que não são mais consultadas acabam saindo por aqui também.
+     */
+    private static final class Stripe extends LinkedHashMap<String, Snapshot> {
+
+        private final int maxEntries;
+
+        Stripe(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+            return size() > maxEntries;
+        }
+    }
+
+    private record Snapshot(User template, Long userId, Long profileId, List<GrantedAuthority> authorities, long loadedAt) {
+
+        static Snapshot of(User user, long loadedAt) {
+            User template = copyOf(user);
+            Long profileId = template.getProfile() != null ? template.getProfile().getId() : null;
+            return new Snapshot(template, template.getId(), profileId, CustomUserDetails.authoritiesOf(template), loadedAt);
+        }
+
+        CustomUserDetails toPrincipal() {
+            return new CustomUserDetails(copyOf(template), authorities);
+        }
+    }
+}
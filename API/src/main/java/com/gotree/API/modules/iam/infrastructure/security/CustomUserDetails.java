@@ -11,13 +11,24 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
-public record CustomUserDetails(User user) implements UserDetails {
+/**
+ * Usuário autenticado. As autoridades (role e permissões do perfil) são calculadas uma vez, na criação.
+ */
+public record CustomUserDetails(User user, List<GrantedAuthority> authorities) implements UserDetails {
 
 	@Serial
 	private static final long serialVersionUID = 1L;
 
+	public CustomUserDetails(User user) {
+		this(user, authoritiesOf(user));
+	}
+
 	@Override
 	public Collection<? extends GrantedAuthority> getAuthorities() {
+		return authorities;
+	}
+
+	public static List<GrantedAuthority> authoritiesOf(User user) {
 		List<GrantedAuthority> authorities = new ArrayList<>();
 
 		// 1. Adiciona o Role base do utilizador (ex: "ROLE_ADMIN" ou "ROLE_USER")
@@ -33,7 +44,7 @@ public record CustomUserDetails(User user) implements UserDetails {
 			}
 		}
 
-		return authorities;
+		return List.copyOf(authorities);
 	}
 
 	@Override
@@ -0,0 +1,173 @@
+package com.gotree.API.modules.iam.infrastructure.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Limite de tentativas de login por e-mail e por IP, em memória (token bucket).
+ * <p>
+ * Cada chave tem um balde com {@code capacity} tentativas que se recompõe continuamente em {@code refill-per-minute}
+ * por minuto; uma tentativa sem ficha disponível é recusada antes de chegar ao BCrypt. O limite por IP segura uma
+ * rajada de uma mesma origem contra vários e-mails; o limite por e-mail segura tentativas distribuídas contra uma
+ * mesma conta. Um login bem-sucedido recompõe o balde do e-mail.
+ * <p>
+ * As tabelas são divididas em faixas (stripes), cada uma com o seu lock e o seu limite de entradas (as menos usadas
+ * saem primeiro): logins simultâneos de chaves diferentes quase nunca disputam o mesmo lock, e uma rajada de chaves
+ * novas não cresce a memória sem limite. O estado é por instância.
+ * <p>
+ * Métrica: {@code security.login.throttled} (key=email|ip).
+ */
+@Component
+public class LoginThrottle {
+
+    private final BucketTable byEmail;
+    private final BucketTable byAddress;
+    private final Counter emailThrottled;
+    private final Counter addressThrottled;
+
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${security.login.email.capacity:5}") int emailCapacity,
+                         @Value("${security.login.email.refill-per-minute:5}") double emailRefillPerMinute,
+                         @Value("${security.login.ip.capacity:30}") int addressCapacity,
+                         @Value("${security.login.ip.refill-per-minute:30}") double addressRefillPerMinute,
+                         @Value("${security.login.throttle.stripes:64}") int stripes,
+                         @Value("${security.login.throttle.max-entries:100000}") int maxEntries) {
+        this.byEmail = new BucketTable(emailCapacity, emailRefillPerMinute, stripes, maxEntries);
+        this.byAddress = new BucketTable(addressCapacity, addressRefillPerMinute, stripes, maxEntries);
+
+        this.emailThrottled = Counter.builder("security.login.throttled")
+                .description("Tentativas de login recusadas pelo limite de tentativas")
+                .tag("key", "email")
+                .register(meterRegistry);
+        this.addressThrottled = Counter.builder("security.login.throttled")
+                .description("Tentativas de login recusadas pelo limite de tentativas")
+                .tag("key", "ip")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Consome uma tentativa do IP e do e-mail.
+     *
+     * @return 0 se a tentativa pode seguir; senão, os segundos até a próxima tentativa ser aceita
+     */
+    public long tryAcquire(String email, String address) {
+        return tryAcquire(email, address, System.nanoTime());
+    }
+
+    long tryAcquire(String email, String address, long now) {
+        long addressWait = byAddress.tryTake(address != null ? address : "", now);
+        if (addressWait > 0) {
+            addressThrottled.increment();
+            return toSeconds(addressWait);
+        }
+        long emailWait = byEmail.tryTake(normalize(email), now);
+        if (emailWait > 0) {
+            emailThrottled.increment();
+            return toSeconds(emailWait);
+        }
+        return 0;
+    }
+
+    /**
+     * Recompõe o balde do e-mail (login bem-sucedido): erros de digitação anteriores não contam mais.
+     */
+    public void reset(String email) {
+        byEmail.remove(normalize(email));
+    }
+
+    private static String normalize(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static long toSeconds(long nanos) {
+        return Math.max(1, (nanos + 999_999_999L) / 1_000_000_000L);
+    }
+
+    private static final class BucketTable {
+
+        private final double capacity;
+        private final double tokensPerNano;
+        private final Stripe[] stripes;
+
+        BucketTable(int capacity, double refillPerMinute, int stripeCount, int maxEntries) {
+            this.capacity = Math.max(1, capacity);
+            this.tokensPerNano = Math.max(refillPerMinute, 0.001) / Duration.ofMinutes(1).toNanos();
+            int count = Math.max(1, stripeCount);
+            int perStripe = Math.max(1, maxEntries / count);
+            this.stripes = new Stripe[count];
+            for (int i = 0; i < count; i++) {
+                stripes[i] = new Stripe(perStripe);
+            }
+        }
+
+        /**
+         * @return 0 se havia ficha; senão, os nanossegundos até a próxima
+         */
+        long tryTake(String key, long now) {
+            Stripe stripe = stripeFor(key);
+            synchronized (stripe) {
+                Bucket bucket = stripe.get(key);
+                if (bucket == null) {
+                    bucket = new Bucket(capacity, now);
+                    stripe.put(key, bucket);
+                }
+
+                bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.updatedAt) * tokensPerNano);
+                bucket.updatedAt = now;
+                if (bucket.tokens >= 1) {
+                    bucket.tokens -= 1;
+                    return 0;
+                }
+                return (long) Math.ceil((1 - bucket.tokens) / tokensPerNano);
+            }
+        }
+
+        void remove(String key) {
+            Stripe stripe = stripeFor(key);
+            synchronized (stripe) {
+                stripe.remove(key);
+            }
+        }
+
+        private Stripe stripeFor(String key) {
+            int hash = key.hashCode();
+            return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+        }
+    }
+
+    /**
+     * Faixa da tabela: LinkedHashMap em ordem de acesso, descartando a entrada menos usada ao passar do limite.
+     */
+    private static final class Stripe extends LinkedHashMap<String, Bucket> {
+
+        private final int maxEntries;
+
+        Stripe(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            return size() > maxEntries;
+        }
+    }
+
+    private static final class Bucket {
+
+        double tokens;
+        long updatedAt;
+
+        Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+    }
+}
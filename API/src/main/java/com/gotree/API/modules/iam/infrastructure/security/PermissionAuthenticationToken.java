@@ -0,0 +1,29 @@
+package com.gotree.API.modules.iam.infrastructure.security;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.io.Serial;
+import java.util.Collection;
+
+/**
+ * Autenticação criada a partir do token JWT, com a máscara de permissões assinada no token ({@link PermissionMask}).
+ * Permite ao {@link PermissionAuthorizationManager} decidir o acesso com uma operação de bits.
+ */
+public class PermissionAuthenticationToken extends UsernamePasswordAuthenticationToken {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final long permissionMask;
+
+    public PermissionAuthenticationToken(Object principal, Collection<? extends GrantedAuthority> authorities,
+                                         long permissionMask) {
+        super(principal, null, authorities);
+        this.permissionMask = permissionMask;
+    }
+
+    public long getPermissionMask() {
+        return permissionMask;
+    }
+}
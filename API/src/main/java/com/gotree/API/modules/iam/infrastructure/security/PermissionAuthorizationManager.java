@@ -0,0 +1,116 @@
+package com.gotree.API.modules.iam.infrastructure.security;
+
+import com.gotree.API.modules.iam.domain.enums.SystemPermission;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decide os {@code @PreAuthorize} sem avaliar SpEL nos casos comuns do projeto.
+ * <p>
+ * Na primeira chamada de cada método, a expressão é reconhecida e guardada como uma regra:
+ * {@code hasAuthority('X') or hasRole('ADMIN')}, {@code hasRole('ADMIN')}, {@code isAuthenticated()} e
+ * {@code permitAll()}. Com uma {@link PermissionAuthenticationToken}, a decisão é um teste de bits na máscara
+ * assinada no token, sem percorrer autoridades nem consultar o banco. Qualquer outra expressão (ou permissão que não
+ * exista em {@link SystemPermission}), e autenticações sem máscara, seguem para o {@link PreAuthorizeAuthorizationManager}
+ * padrão, com o mesmo resultado de antes.
+ */
+public class PermissionAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+
+    private static final Pattern AUTHORITY_OR_ADMIN =
+            Pattern.compile("hasAuthority\\('(\\w+)'\\)\\s+or\\s+hasRole\\('ADMIN'\\)");
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final PreAuthorizeAuthorizationManager fallback = new PreAuthorizeAuthorizationManager();
+    private final Map<MethodClassKey, Rule> rules = new ConcurrentHashMap<>();
+
+    public PermissionAuthorizationManager(ApplicationContext context) {
+        fallback.setApplicationContext(context);
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        Class<?> targetClass = invocation.getThis() != null ? AopUtils.getTargetClass(invocation.getThis()) : null;
+        Rule rule = rules.computeIfAbsent(new MethodClassKey(invocation.getMethod(), targetClass),
+                key -> compile(invocation.getMethod(), targetClass));
+
+        if (rule.kind() == Kind.PERMIT_ALL) {
+            return GRANTED;
+        }
+
+        Authentication current = authentication.get();
+        if (rule.kind() != Kind.EXPRESSION && current instanceof PermissionAuthenticationToken token) {
+            long mask = token.getPermissionMask();
+            return switch (rule.kind()) {
+                case AUTHENTICATED -> GRANTED;
+                case ADMIN -> PermissionMask.isAdmin(mask) ? GRANTED : DENIED;
+                case PERMISSION_OR_ADMIN -> PermissionMask.grants(mask, rule.permission()) ? GRANTED : DENIED;
+                default -> throw new IllegalStateException("Regra inesperada: " + rule.kind());
+            };
+        }
+        if (rule.kind() == Kind.AUTHENTICATED) {
+            return current != null && current.isAuthenticated() && !(current instanceof AnonymousAuthenticationToken)
+                    ? GRANTED : DENIED;
+        }
+        return fallback.check(() -> current, invocation);
+    }
+
+    private static Rule compile(Method method, Class<?> targetClass) {
+        Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+        PreAuthorize annotation = AnnotatedElementUtils.findMergedAnnotation(specificMethod, PreAuthorize.class);
+        if (annotation == null && targetClass != null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(targetClass, PreAuthorize.class);
+        }
+        if (annotation == null) {
+            return Rule.EXPRESSION;
+        }
+
+        String expression = annotation.value().trim();
+        switch (expression) {
+            case "permitAll()":
+                return new Rule(Kind.PERMIT_ALL, null);
+            case "isAuthenticated()":
+                return new Rule(Kind.AUTHENTICATED, null);
+            case "hasRole('ADMIN')":
+                return new Rule(Kind.ADMIN, null);
+            default:
+                break;
+        }
+
+        Matcher matcher = AUTHORITY_OR_ADMIN.matcher(expression);
+        if (matcher.matches()) {
+            try {
+                return new Rule(Kind.PERMISSION_OR_ADMIN, SystemPermission.valueOf(matcher.group(1)));
+            } catch (IllegalArgumentException e) {
+                // Permissão que não existe no enum: o SpEL decide (só ADMIN passa)
+                return Rule.EXPRESSION;
+            }
+        }
+        return Rule.EXPRESSION;
+    }
+
+    private enum Kind {
+        PERMIT_ALL, AUTHENTICATED, ADMIN, PERMISSION_OR_ADMIN, EXPRESSION
+    }
+
+    private record Rule(Kind kind, SystemPermission permission) {
+
+        static final Rule EXPRESSION = new Rule(Kind.EXPRESSION, null);
+    }
+}
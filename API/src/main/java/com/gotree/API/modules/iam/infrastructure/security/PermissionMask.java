@@ -0,0 +1,42 @@
+package com.gotree.API.modules.iam.infrastructure.security;
+
+import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.iam.domain.enums.SystemPermission;
+import com.gotree.API.modules.iam.domain.enums.UserRole;
+
+/**
+ * Permissões do usuário compactadas num {@code long}: um bit por {@link SystemPermission} (pela posição no enum)
+ * e um bit para a role ADMIN, que libera tudo.
+ */
+public final class PermissionMask {
+
+    public static final long ADMIN = 1L << 62;
+
+    static {
+        if (SystemPermission.values().length > 62) {
+            throw new IllegalStateException("SystemPermission passou de 62 valores: a máscara de permissões não comporta.");
+        }
+    }
+
+    private PermissionMask() {
+    }
+
+    public static long of(User user) {
+        long mask = user.getRole() == UserRole.ADMIN ? ADMIN : 0;
+        if (user.getProfile() != null) {
+            mask |= SystemPermission.toMask(user.getProfile().getPermissions());
+        }
+        return mask;
+    }
+
+    public static boolean isAdmin(long mask) {
+        return (mask & ADMIN) != 0;
+    }
+
+    /**
+     * A permissão está na máscara, ou a máscara é de um ADMIN.
+     */
+    public static boolean grants(long mask, SystemPermission permission) {
+        return (mask & (ADMIN | permission.bit())) != 0;
+    }
+}
@@ -3,11 +3,16 @@ package com.gotree.API.modules.iam.infrastructure.security;
 import com.gotree.API.modules.iam.infrastructure.security.jwt.JwtAccessDeniedHandler;
 import com.gotree.API.modules.iam.infrastructure.security.jwt.JwtAuthenticationEntryPoint;
 import com.gotree.API.modules.iam.infrastructure.security.jwt.JwtAuthenticationFilter;
+import org.springframework.aop.Advisor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -25,7 +30,7 @@ import java.util.List;
 
 @Configuration
 @EnableWebSecurity
-@EnableMethodSecurity // Habilita o uso de anotações como @PreAuthorize nos controllers
+@EnableMethodSecurity(prePostEnabled = false) // @PreAuthorize é registrado abaixo, com o PermissionAuthorizationManager
 public class SecurityConfig {
 
 	// Injeta a configuração de origens do application.properties
@@ -43,6 +48,13 @@ public class SecurityConfig {
 		this.jwtAuthenticationEntryPoint = jwtAuthenticationEntryPoint;
 	}
 
+	// Decide os @PreAuthorize pela máscara de permissões do token; expressões não reconhecidas continuam no SpEL
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	static Advisor preAuthorizeAdvisor(ApplicationContext context) {
+		return AuthorizationManagerBeforeMethodInterceptor.preAuthorize(new PermissionAuthorizationManager(context));
+	}
+
 	@Bean
 	public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
 		return config.getAuthenticationManager();
@@ -58,6 +70,7 @@ public class SecurityConfig {
 						.requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 						.requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
 						.requestMatchers("/auth/login").permitAll()
+						.requestMatchers("/auth/refresh").permitAll()
 						.requestMatchers("/users/me/forgot-password").permitAll()
 						.requestMatchers("/users/me/reset-password").permitAll()
 						.requestMatchers("/client-portal/login").permitAll()
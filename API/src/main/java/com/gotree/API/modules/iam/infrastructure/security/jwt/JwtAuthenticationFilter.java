@@ -1,8 +1,10 @@
 package com.gotree.API.modules.iam.infrastructure.security.jwt;
 
+import com.gotree.API.modules.iam.infrastructure.security.AuthenticatedPrincipalCache;
 import com.gotree.API.modules.iam.infrastructure.security.CustomUserDetails;
-import com.gotree.API.modules.iam.infrastructure.repositories.UserRepository;
+import com.gotree.API.modules.iam.infrastructure.security.PermissionAuthenticationToken;
 import com.gotree.API.modules.iam.application.services.JwtService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,7 +26,8 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserRepository userRepository;
+    private final AuthenticatedPrincipalCache principalCache;
+    private final TokenRevocationList revocationList;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain)
@@ -43,26 +46,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         final String jwt = authHeader.substring(7);
-        final String username = jwtService.extractUsername(jwt);
+        // Token validado uma única vez; as claims ficam na requisição para quem precisar delas
+        final Claims claims = jwtService.parseClaims(jwt);
+        final String username = claims.getSubject();
 
         if (username == null) {
             throw new BadCredentialsException("Token inválido");
         }
+        // Logout ou sessão revogada: consulta em memória, sem banco
+        if (revocationList.isRevoked(claims.getId())) {
+            throw new BadCredentialsException("Token revogado");
+        }
+        request.setAttribute(JwtService.CLAIMS_ATTRIBUTE, claims);
 
         if (SecurityContextHolder.getContext().getAuthentication() == null) {
-            var user = userRepository.findByEmail(username).orElse(null);
+            // Normalmente vem do cache, sem consulta ao banco
+            CustomUserDetails userDetails = principalCache.resolve(username, jwtService.extractTokenVersion(claims))
+                    .orElse(null);
 
-            if (user == null || !jwtService.isTokenValid(jwt, user)) {
+            if (userDetails == null || !jwtService.isTokenValid(claims, userDetails)) {
                 throw new BadCredentialsException("Token inválido ou expirado");
             }
+            if (!jwtService.hasCurrentPermissions(claims, userDetails.user())) {
+                throw new BadCredentialsException("Permissões alteradas. Faça login novamente.");
+            }
 
-            CustomUserDetails userDetails = new CustomUserDetails(user);
-
-            var authToken = new UsernamePasswordAuthenticationToken(
-                    userDetails,
-                    null,
-                    userDetails.getAuthorities()
-            );
+            // Com a máscara no token, o @PreAuthorize é decidido por bits (PermissionAuthorizationManager)
+            Long permissionMask = jwtService.extractPermissionMask(claims);
+            UsernamePasswordAuthenticationToken authToken = permissionMask != null
+                    ? new PermissionAuthenticationToken(userDetails, userDetails.getAuthorities(), permissionMask)
+                    : new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
 
             authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(authToken);
@@ -0,0 +1,170 @@
+package com.gotree.API.modules.iam.infrastructure.security.jwt;
+
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chaves HMAC dos tokens JWT, lidas uma única vez e mantidas em memória.
+ * <p>
+ * {@code jwt.secret_path} aceita o segredo em Base64 direto na propriedade ou, se começar com "/", o caminho de um
+ * arquivo (Docker Secrets). O arquivo pode conter:
+ * <ul>
+ *     <li>um único segredo (formato antigo): todo o conteúdo, sem espaços e quebras de linha, é o Base64 da chave
+ *     (aceita o Base64 quebrado em várias linhas, como o do {@code openssl rand -base64});</li>
+ *     <li>um chaveiro, uma chave por linha no formato {@code kid:segredoBase64}: a primeira linha assina os tokens
+ *     novos e as demais só validam os já emitidos. Linhas vazias e iniciadas por "#" são ignoradas.</li>
+ * </ul>
+ * O formato é o de chaveiro quando alguma linha tem ":" (que não existe no alfabeto Base64).
+ * <p>
+ * O arquivo é verificado periodicamente: para trocar o segredo sem reiniciar, acrescente a chave nova no topo e
+ * mantenha a anterior abaixo até os tokens antigos expirarem. Um arquivo inválido é ignorado e as chaves em uso
+ * continuam valendo.
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+    private static final int MIN_KEY_BYTES = 32;
+
+    private final String secretPath;
+    private volatile KeySet keySet;
+
+    public JwtKeyRing(@Value("${jwt.secret_path}") String secretPath) {
+        this.secretPath = secretPath;
+        this.keySet = load();
+        log.info("Chaves JWT carregadas: {} (ativa: {}).", keySet.keys().size(), keySet.activeKid());
+    }
+
+    /**
+     * Chave que assina os tokens novos, com o seu "kid".
+     */
+    public SigningKey signingKey() {
+        KeySet current = keySet;
+        return new SigningKey(current.activeKid(), current.keys().get(current.activeKid()));
+    }
+
+    /**
+     * Chave que valida um token pelo "kid" do cabeçalho. Tokens sem "kid" (emitidos antes do chaveiro) são
+     * validados com a chave ativa.
+     *
+     * @return null se o "kid" não for conhecido
+     */
+    public SecretKey verificationKey(String kid) {
+        KeySet current = keySet;
+        return current.keys().get(kid != null ? kid : current.activeKid());
+    }
+
+    /**
+     * Relê o arquivo de chaves se ele mudou desde a última leitura.
+     */
+    @Scheduled(fixedDelayString = "${jwt.key-reload-interval-ms:60000}", initialDelayString = "${jwt.key-reload-interval-ms:60000}")
+    public void reloadIfChanged() {
+        if (!isFile()) return;
+
+        try {
+            if (Files.getLastModifiedTime(Paths.get(secretPath)).equals(keySet.lastModified())) return;
+
+            KeySet reloaded = load();
+            keySet = reloaded;
+            log.info("Chaves JWT recarregadas: {} (ativa: {}).", reloaded.keys().size(), reloaded.activeKid());
+        } catch (Exception e) {
+            log.error("Falha ao recarregar as chaves JWT de {}; as chaves atuais continuam em uso: {}", secretPath, e.getMessage());
+        }
+    }
+
+    private boolean isFile() {
+        return secretPath != null && secretPath.startsWith("/");
+    }
+
+    private KeySet load() {
+        String content;
+        FileTime lastModified = null;
+        try {
+            if (isFile()) {
+                Path path = Paths.get(secretPath);
+                lastModified = Files.getLastModifiedTime(path);
+                content = Files.readString(path);
+            } else {
+                content = secretPath;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Falha ao ler o arquivo do segredo em: " + secretPath, e);
+        }
+
+        if (content == null || content.isBlank()) {
+            throw new RuntimeException("A chave JWT lida está vazia! Verifique o caminho: " + secretPath);
+        }
+
+        List<String> lines = content.lines()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .toList();
+
+        Map<String, SecretKey> keys = new LinkedHashMap<>();
+        if (lines.stream().noneMatch(line -> line.contains(":"))) {
+            // Formato antigo: um único segredo, possivelmente quebrado em várias linhas
+            byte[] keyBytes = decode(content.replaceAll("\\s", ""));
+            keys.put(derivedKid(keyBytes), Keys.hmacShaKeyFor(keyBytes));
+        } else {
+            for (String line : lines) {
+                int separator = line.indexOf(':');
+                if (separator < 0) {
+                    throw new RuntimeException("Linha sem 'kid:' no chaveiro JWT: todas as chaves precisam de identificador.");
+                }
+                String kid = line.substring(0, separator).trim();
+                byte[] keyBytes = decode(line.substring(separator + 1).trim());
+                if (kid.isEmpty() || keys.putIfAbsent(kid, Keys.hmacShaKeyFor(keyBytes)) != null) {
+                    throw new RuntimeException("Identificador de chave JWT vazio ou repetido: '" + kid + "'.");
+                }
+            }
+        }
+
+        String activeKid = keys.keySet().iterator().next();
+        return new KeySet(activeKid, Collections.unmodifiableMap(keys), lastModified);
+    }
+
+    private static byte[] decode(String base64) {
+        byte[] keyBytes = Decoders.BASE64.decode(base64);
+        if (keyBytes.length < MIN_KEY_BYTES) {
+            throw new RuntimeException("A chave JWT precisa ter pelo menos 256 bits (32 caracteres).");
+        }
+        return keyBytes;
+    }
+
+    /**
+     * "kid" estável para um segredo sem identificador: prefixo do SHA-256, sem revelar o segredo.
+     */
+    private static String derivedKid(byte[] keyBytes) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(keyBytes);
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível na JVM.", e);
+        }
+    }
+
+    public record SigningKey(String kid, SecretKey key) {
+    }
+
+    private record KeySet(String activeKid, Map<String, SecretKey> keys, FileTime lastModified) {
+    }
+}
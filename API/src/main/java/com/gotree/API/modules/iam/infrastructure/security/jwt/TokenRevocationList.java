@@ -0,0 +1,193 @@
+package com.gotree.API.modules.iam.infrastructure.security.jwt;
+
+import com.gotree.API.modules.iam.domain.entities.RevokedToken;
+import com.gotree.API.modules.iam.infrastructure.repositories.RevokedTokenRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tokens de acesso revogados antes de expirar (pelo "jti"), consultados pelo filtro JWT em toda requisição.
+ * <p>
+ * A consulta não vai ao banco: um filtro de Bloom responde "certamente não revogado" para quase todos os tokens,
+ * e só quando ele indica um possível revogado o conjunto exato é consultado. Ambos ficam em memória e são
+ * carregados do {@code tb_revoked_token} na inicialização; a recarga periódica traz as revogações feitas em outras
+ * instâncias, descarta as expiradas e redimensiona o filtro. Revogações desta instância valem na hora.
+ * <p>
+ * Como os tokens de acesso duram pouco, a tabela e os conjuntos guardam só as revogações ainda não expiradas.
+ * Métrica: {@code security.token.revoked.size}.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    private final RevokedTokenRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final int expectedEntries;
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot;
+
+    public TokenRevocationList(RevokedTokenRepository repository, TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${security.revocation.expected-entries:10000}") int expectedEntries) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.expectedEntries = Math.max(1, expectedEntries);
+        // Antes de o filtro JWT atender qualquer requisição; sem a lista, a aplicação não sobe
+        this.snapshot = load();
+        log.info("Tokens revogados carregados: {}.", snapshot.exact.size());
+
+        Gauge.builder("security.token.revoked.size", this, list -> list.snapshot.exact.size())
+                .description("Tokens de acesso revogados em memória")
+                .register(meterRegistry);
+    }
+
+    /**
+     * O token foi revogado. Tokens sem "jti" (emitidos antes da revogação existir) nunca estão na lista.
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null) return false;
+        Snapshot current = snapshot;
+        return current.filter.mightContain(jti) && current.exact.containsKey(jti);
+    }
+
+    /**
+     * Revoga o token de acesso até a sua expiração, nesta instância na hora e nas demais na próxima recarga.
+     * Deve ser chamado dentro de uma transação.
+     */
+    public void revoke(String jti, LocalDateTime expiresAt) {
+        if (jti == null || expiresAt == null || !expiresAt.isAfter(LocalDateTime.now())) return;
+
+        repository.insertIfAbsent(jti, expiresAt);
+        synchronized (writeLock) {
+            snapshot.add(jti, toEpochMillis(expiresAt));
+        }
+    }
+
+    /**
+     * Recarrega as revogações do banco, apagando as já expiradas.
+     */
+    @Scheduled(fixedDelayString = "${security.revocation.reload-interval-ms:30000}",
+            initialDelayString = "${security.revocation.reload-interval-ms:30000}")
+    public void reload() {
+        try {
+            Snapshot loaded = load();
+
+            long nowMillis = System.currentTimeMillis();
+            synchronized (writeLock) {
+                // Revogações locais feitas durante a leitura do banco continuam valendo
+                snapshot.exact.forEach((jti, expiresAt) -> {
+                    if (expiresAt > nowMillis) loaded.add(jti, expiresAt);
+                });
+                snapshot = loaded;
+            }
+        } catch (Exception e) {
+            log.error("Falha ao recarregar os tokens revogados; a lista atual continua em uso: {}", e.getMessage());
+        }
+    }
+
+    private Snapshot load() {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> repository.deleteExpired(now));
+        List<RevokedToken> active = repository.findActive(now);
+
+        Snapshot loaded = new Snapshot(Math.max(expectedEntries, active.size() * 2));
+        for (RevokedToken token : active) {
+            loaded.add(token.getJti(), toEpochMillis(token.getExpiresAt()));
+        }
+        return loaded;
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class Snapshot {
+
+        final BloomFilter filter;
+        final Map<String, Long> exact = new ConcurrentHashMap<>();
+
+        Snapshot(int capacity) {
+            this.filter = new BloomFilter(capacity);
+        }
+
+        void add(String jti, long expiresAtMillis) {
+            // O conjunto exato primeiro: quem vê o bit no filtro encontra o jti no conjunto
+            exact.put(jti, expiresAtMillis);
+            filter.put(jti);
+        }
+    }
+
+    /**
+     * Filtro de Bloom com ~1% de falsos positivos na capacidade (9,6 bits e 7 funções de hash por entrada).
+     * Acima da capacidade os falsos positivos aumentam, o que só custa uma consulta ao conjunto exato.
+     */
+    private static final class BloomFilter {
+
+        private static final int HASHES = 7;
+
+        private final AtomicLongArray words;
+        private final int bits;
+
+        BloomFilter(int capacity) {
+            long requested = Math.max(64, (long) Math.ceil(capacity * 9.6));
+            this.words = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE / 64, (requested + 63) / 64));
+            this.bits = words.length() * 64;
+        }
+
+        void put(String key) {
+            long hash = hash(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            for (int i = 0; i < HASHES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                long current;
+                while (((current = words.get(word)) & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                    Thread.onSpinWait();
+                }
+            }
+        }
+
+        boolean mightContain(String key) {
+            long hash = hash(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            for (int i = 0; i < HASHES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * FNV-1a de 64 bits seguido da mistura do SplitMix64: bits bem distribuídos nas duas metades.
+         */
+        private static long hash(String key) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                hash ^= key.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+            hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+            return hash ^ (hash >>> 31);
+        }
+    }
+}
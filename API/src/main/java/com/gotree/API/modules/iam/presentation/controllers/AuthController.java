@@ -4,13 +4,17 @@ import com.gotree.API.modules.iam.infrastructure.security.CustomUserDetails;
 import com.gotree.API.modules.iam.presentation.dto.LoginRequestDTO;
 import com.gotree.API.modules.iam.domain.entities.User;
 import com.gotree.API.modules.iam.application.services.JwtService;
+import com.gotree.API.modules.iam.application.services.LoginService;
+import com.gotree.API.modules.iam.application.services.RefreshTokenService;
+import com.gotree.API.modules.iam.presentation.dto.RefreshTokenRequestDTO;
+import io.jsonwebtoken.Claims;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -23,6 +27,9 @@ import java.util.Map;
 /**
  * Controlador responsável por gerenciar as operações relacionadas à autenticação de usuários.
  * Disponibiliza endpoints para login e geração de tokens JWT.
+ * <p>
+ * O token de acesso dura pouco; a sessão é renovada em {@code /auth/refresh} com o refresh token
+ * (trocado por um novo a cada uso) e encerrada em {@code /auth/logout}.
  */
 @Tag(name = "Autenticação", description = "Operações relacionadas à autenticação e geração de tokens JWT.")
 @RestController
@@ -30,26 +37,25 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class AuthController {
 	
-	private final AuthenticationManager authenticationManager;
-	private final JwtService jwtService;
+	private final LoginService loginService;
+	private final RefreshTokenService refreshTokenService;
 
 	/**
 	 * Autentica um usuário e gera um token JWT.
 	 *
 	 * @param request DTO contendo as credenciais do usuário (email e senha)
-	 * @return ResponseEntity contendo o token JWT, flag de reset de senha e role do usuário
+	 * @param httpRequest requisição HTTP, para o limite de tentativas por IP
+	 * @return ResponseEntity contendo o token JWT, o refresh token, flag de reset de senha e role do usuário
 	 * @throws org.springframework.security.core.AuthenticationException se as credenciais forem inválidas
+	 * @throws com.gotree.API.modules.shared.exceptions.TooManyRequestsException se o limite de tentativas foi atingido
 	 */
 	@Operation(summary = "Realiza login", description = "Autentica o usuário com email e senha, retornando o token JWT e informações de perfil.")
 	@PostMapping("/login")
-	public ResponseEntity<?> login(@RequestBody @Valid LoginRequestDTO request) {
+	public ResponseEntity<?> login(@RequestBody @Valid LoginRequestDTO request, HttpServletRequest httpRequest) {
 
-		// Cria o "pacote de login" com o email e senha fornecidos
-		UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(request.getEmail(),
-				request.getPassword());
-
-		// Faz a autenticação de fato (verifica se existe, se a senha está certa, etc)
-		Authentication authentication = authenticationManager.authenticate(authToken);
+		// Faz a autenticação de fato (limite de tentativas, se existe, se a senha está certa, etc)
+		Authentication authentication = loginService.authenticate(request.getEmail(), request.getPassword(),
+				httpRequest.getRemoteAddr());
 
 		// Após autenticar pega os dados do usuário
 		CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
@@ -63,11 +69,13 @@ public class AuthController {
 					.toList();
 		}
 
-		// Gera o token jwt com base nesse usuário
-		String jwt = jwtService.generateToken(userDetails);
+		// Gera o token jwt (curto) e o refresh token com base nesse usuário
+		RefreshTokenService.TokenPair tokens = refreshTokenService.issue(userDetails);
 
 		return ResponseEntity.ok(Map.of(
-				"token", jwt,
+				"token", tokens.accessToken(),
+				"refreshToken", tokens.refreshToken(),
+				"expiresIn", tokens.expiresIn(),
 				"passwordResetRequired", user.getPasswordResetRequired(),
 				"role", user.getRole().name(), // Mantemos a role principal
 				"userId", user.getId(),
@@ -75,4 +83,37 @@ public class AuthController {
 		));
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Renova a sessão: troca o refresh token por um novo token de acesso e um novo refresh token.
+	 * O refresh token usado deixa de valer; reapresentá-lo encerra a sessão.
+	 *
+	 * @throws org.springframework.security.authentication.BadCredentialsException se o refresh token for inválido
+	 */
+	@Operation(summary = "Renova o token", description = "Troca o refresh token por um novo par de tokens.")
+	@PostMapping("/refresh")
+	public ResponseEntity<?> refresh(@RequestBody @Valid RefreshTokenRequestDTO request) {
+		RefreshTokenService.TokenPair tokens = refreshTokenService.refresh(request.getRefreshToken());
+
+		return ResponseEntity.ok(Map.of(
+				"token", tokens.accessToken(),
+				"refreshToken", tokens.refreshToken(),
+				"expiresIn", tokens.expiresIn()
+		));
+	}
+
+	/**
+	 * Encerra a sessão: revoga o token de acesso atual e o refresh token da sessão.
+	 */
+	@Operation(summary = "Realiza logout", description = "Revoga o token de acesso atual e o refresh token da sessão.")
+	@PostMapping("/logout")
+	@PreAuthorize("isAuthenticated()")
+	public ResponseEntity<Void> logout(@RequestBody(required = false) RefreshTokenRequestDTO request,
+									   Authentication authentication, HttpServletRequest httpRequest) {
+		// Claims já validadas pelo filtro JWT
+		Claims claims = (Claims) httpRequest.getAttribute(JwtService.CLAIMS_ATTRIBUTE);
+		refreshTokenService.logout(authentication.getName(), claims != null ? claims.getId() : null,
+				claims != null ? claims.getExpiration() : null,
+				request != null ? request.getRefreshToken() : null);
+		return ResponseEntity.noContent().build();
+	}
+}
@@ -17,10 +17,17 @@ public class AuthenticationResponseDTO {
     private String token;
 
     @Schema(description = "Tipo do token", example = "Bearer")
+    @Builder.Default
     private String type = "Bearer";
 
     private Long userId;
 
+    @Schema(description = "Refresh token, trocado por um novo a cada renovação em /auth/refresh")
+    private String refreshToken;
+
+    @Schema(description = "Validade do token de acesso, em segundos", example = "900")
+    private Long expiresIn;
+
     public AuthenticationResponseDTO(String token, Long userId) {
         this.token = token;
         this.userId = userId;
@@ -0,0 +1,17 @@
+package com.gotree.API.modules.iam.presentation.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.Setter;
+
+@Schema(description = "DTO para renovação da sessão ou logout")
+@Getter
+@Setter
+public class RefreshTokenRequestDTO {
+
+    @NotBlank
+    @Schema(description = "Refresh token recebido no login ou na última renovação")
+    private String refreshToken;
+
+}
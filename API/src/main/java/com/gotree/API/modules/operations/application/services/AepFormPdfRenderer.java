@@ -0,0 +1,745 @@
+package com.gotree.API.modules.operations.application.services;
+
+import com.gotree.API.modules.administration.domain.entities.Company;
+import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.operations.domain.entities.AepReport;
+import com.gotree.API.modules.professionals.domain.entities.Physiotherapist;
+import com.gotree.API.modules.shared.application.services.FormPdfRenderer;
+import com.gotree.API.modules.shared.application.services.ReportRenderResources;
+import org.apache.fontbox.ttf.CmapLookup;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Motor de formulário para a AEP: o mesmo layout do {@code aep-template.html} desenhado diretamente com o PDFBox.
+ *
+ * <p>A parte fixa (cabeçalho, logo, cartões, rótulos e as linhas da lista de riscos) é desenhada uma única vez
+ * e guardada como um PDF-modelo em memória, com a posição de cada campo. Cada documento apenas abre esse modelo
+ * e escreve os valores por cima (empresa, datas, avaliador, os "X" dos riscos marcados e a assinatura):
+ * sem Thymeleaf, sem CSS e sem diagramação. A fonte já vai embutida no modelo (subconjunto Latin), então
+ * o documento também não refaz o subconjunto de glifos. O modelo é refeito quando a logo ou a lista de riscos muda.</p>
+ *
+ * <p>Diferença em relação ao HTML: os campos têm tamanho fixo. Textos longos (ex.: função avaliada) quebram em até
+ * duas linhas com fonte reduzida; se ainda não couberem (ou uma palavra for mais larga que o campo), o render lança
+ * {@link LayoutOverflowException} e o {@code ReportService} gera esse documento pelo HTML, sem cortar o texto.</p>
+ */
+@Component
+public class AepFormPdfRenderer implements FormPdfRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(AepFormPdfRenderer.class);
+
+    static final String TEMPLATE = "aep-template";
+
+    // Incrementar ao mudar o desenho: os PDFs memoizados com o layout anterior deixam de ser reaproveitados
+    private static final int LAYOUT_VERSION = 2;
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    // --- Geometria (pt). Medidas do template HTML convertidas: 1px = 0,75pt ---
+    private static final PDRectangle PAGE = PDRectangle.A4;
+    private static final float MARGIN = 22.68f; // 0,8cm
+    private static final float CONTENT_WIDTH = PAGE.getWidth() - 2 * MARGIN;
+    private static final float HEADER_HEIGHT = 48.75f;
+    private static final float HEADER_BORDER = 3f;
+    private static final float LOGO_MAX_HEIGHT = 33.75f;
+    private static final float CARD_RADIUS = 6f;
+    private static final float CARD_GAP = 11.25f;
+    private static final float CARD_HEADER_HEIGHT = 19.8f;
+    private static final float CELL_PAD_X = 9f;
+    private static final float CELL_PAD_Y = 4.5f;
+    private static final float LABEL_SIZE = 7.5f;
+    private static final float VALUE_SIZE = 9f;
+    private static final float VALUE_MIN_SIZE = 7.5f;
+    private static final float VALUE_HEIGHT = 17.25f; // Duas linhas de 7,5pt ou uma de 9pt
+    private static final float DATA_ROW_HEIGHT = CELL_PAD_Y + LABEL_SIZE * 1.2f + 1.5f + VALUE_HEIGHT + CELL_PAD_Y;
+    private static final float SECTION_MARGIN_TOP = 18.75f;
+    private static final float SECTION_MARGIN_BOTTOM = 7.5f;
+    private static final float TABLE_PAD_X = 6f;
+    private static final float TABLE_PAD_Y = 7.5f;
+    private static final float TH_SIZE = 8f;
+    private static final float TD_SIZE = 8.5f;
+    private static final float CHECK_SIZE = 10f;
+    private static final float LINE_HEIGHT = 1.2f;
+
+    // --- Cores do template HTML ---
+    private static final Color GREEN = new Color(0x004d31);
+    private static final Color LIME = new Color(0x8cc63f);
+    private static final Color CARD_BORDER = new Color(0xcccccc);
+    private static final Color ROW_BORDER = new Color(0xeeeeee);
+    private static final Color CARD_HEADER_BG = new Color(0xf8f9fa);
+    private static final Color TH_BORDER = new Color(0xe2e8f0);
+    private static final Color EVEN_ROW_BG = new Color(0xfafafa);
+    private static final Color CELL_TEXT = new Color(0x1e293b);
+    private static final Color EMPTY_TEXT = new Color(0x64748b);
+    private static final Color SIGNATURE_LINE = new Color(0x333333);
+    private static final Color META_TEXT = new Color(0x555555);
+
+    // Glifos embutidos no modelo: o bastante para qualquer texto em português (Latin-1, Latin Extended-A
+    // e pontuação tipográfica). Os documentos reutilizam essa fonte, sem refazer o subconjunto a cada PDF.
+    private static final int[][] EMBEDDED_RANGES = {
+            {0x0020, 0x007E}, {0x00A0, 0x017F}, {0x2013, 0x2014}, {0x2018, 0x201E}, {0x2022, 0x2022},
+            {0x2026, 0x2026}, {0x20AC, 0x20AC}
+    };
+
+    private final ReportRenderResources renderResources;
+    private final String fontKey;
+
+    private volatile FormTemplate template;
+    private volatile LogoKey lastLogoKey;
+
+    public AepFormPdfRenderer(ReportRenderResources renderResources) {
+        this.renderResources = renderResources;
+        byte[] fontData = renderResources.fontData();
+        this.fontKey = fontData != null ? DigestUtils.md5DigestAsHex(fontData) : "helvetica";
+    }
+
+    @Override
+    public String templateName() {
+        return TEMPLATE;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public FormData prepare(Map<String, Object> data) {
+        ReportRenderResources.Branding branding = renderResources.branding();
+        AepReport aep = (AepReport) data.get("aep");
+        List<String> allRisks = data.get("allRisks") instanceof List<?> list ? (List<String>) list : List.of();
+        Set<String> selected = data.get("selectedRisks") instanceof Collection<?> collection
+                ? new HashSet<>((Collection<String>) collection)
+                : Set.of();
+
+        SortedMap<String, String> values = new TreeMap<>();
+        put(values, "issuer.name", branding.companyName());
+        put(values, "issuer.cnpj", branding.cnpj());
+
+        Company company = aep.getCompany();
+        if (company != null) {
+            put(values, "client.name", company.getName());
+            put(values, "client.cnpj", company.getCnpj());
+        }
+        if (aep.getEvaluationDate() != null) {
+            put(values, "evaluation.date", aep.getEvaluationDate().format(DATE_FORMAT));
+        }
+        put(values, "evaluation.function", aep.getEvaluatedFunction());
+
+        User evaluator = aep.getEvaluator();
+        if (evaluator != null) {
+            put(values, "evaluator.name", evaluator.getName());
+            put(values, "evaluator.council", evaluator.getConselhoClasse());
+            put(values, "evaluator.specialty", evaluator.getEspecialidade());
+            put(values, "evaluator.councilAcronym", evaluator.getSiglaConselhoClasse());
+        }
+
+        Physiotherapist physio = aep.getPhysiotherapist();
+        put(values, "physio.name", physio != null && physio.getName() != null ? physio.getName() : "Nome do Profissional");
+        put(values, "physio.crefito", "CREFITO: "
+                + (physio != null && physio.getCrefito() != null ? physio.getCrefito() : "Não informado"));
+
+        for (int i = 0; i < allRisks.size(); i++) {
+            if (selected.contains(allRisks.get(i))) {
+                values.put("risk." + i, "X");
+            }
+        }
+
+        Layout layout = new Layout(layoutKey(branding.logoBase64(), allRisks), branding.logoBase64(), List.copyOf(allRisks));
+        return new AepFormData(layout, values, cacheKey(layout, values));
+    }
+
+    @Override
+    public byte[] render(FormData formData) {
+        if (!(formData instanceof AepFormData form)) {
+            throw new IllegalArgumentException("Dados de formulário de outro template: " + formData);
+        }
+        FormTemplate current = templateFor(form.layout());
+
+        try (PDDocument document = Loader.loadPDF(current.pdf());
+             ByteArrayOutputStream output = new ByteArrayOutputStream(current.pdf().length + 8 * 1024)) {
+            PDFont font = templateFont(document);
+            Map<Integer, PDPageContentStream> streams = new HashMap<>();
+            try {
+                for (Map.Entry<String, String> entry : form.values().entrySet()) {
+                    Field field = current.fields().get(entry.getKey());
+                    if (field == null) continue;
+                    PDPageContentStream stream = streams.get(field.page());
+                    if (stream == null) {
+                        stream = new PDPageContentStream(document, document.getPage(field.page()),
+                                PDPageContentStream.AppendMode.APPEND, true, true);
+                        streams.put(field.page(), stream);
+                    }
+                    drawField(stream, font, entry.getKey(), field, entry.getValue());
+                }
+            } finally {
+                for (PDPageContentStream stream : streams.values()) {
+                    stream.close();
+                }
+            }
+            document.save(output);
+            return output.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao preencher o formulário da AEP.", e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> sampleData() {
+        Company company = new Company();
+        company.setName("Indústria e Comércio de Exemplo Ltda.");
+        company.setCnpj("12.345.678/0001-90");
+
+        User evaluator = new User();
+        evaluator.setName("Avaliador de Exemplo");
+        evaluator.setConselhoClasse("123456");
+        evaluator.setEspecialidade("Ergonomia");
+        evaluator.setSiglaConselhoClasse("CREFITO-3");
+
+        Physiotherapist physio = new Physiotherapist();
+        physio.setName("Fisioterapeuta de Exemplo");
+        physio.setCrefito("654321-F");
+
+        List<String> selected = new ArrayList<>();
+        for (int i = 0; i < AepService.MASTER_RISK_LIST.size(); i += 3) {
+            selected.add(AepService.MASTER_RISK_LIST.get(i));
+        }
+
+        AepReport aep = new AepReport();
+        aep.setCompany(company);
+        aep.setEvaluator(evaluator);
+        aep.setPhysiotherapist(physio);
+        aep.setEvaluationDate(LocalDate.of(2024, 3, 15));
+        aep.setEvaluatedFunction("Operador de máquinas e equipamentos de produção");
+        aep.setSelectedRisks(selected);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("aep", aep);
+        data.put("company", company);
+        data.put("evaluator", evaluator);
+        data.put("allRisks", AepService.MASTER_RISK_LIST);
+        data.put("selectedRisks", selected);
+        return data;
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Modelo (parte fixa)
+    // ------------------------------------------------------------------------------------------------
+
+    private FormTemplate templateFor(Layout layout) {
+        FormTemplate current = template;
+        if (current != null && current.layoutKey().equals(layout.key())) {
+            return current;
+        }
+        synchronized (this) {
+            current = template;
+            if (current == null || !current.layoutKey().equals(layout.key())) {
+                long start = System.nanoTime();
+                current = buildTemplate(layout);
+                template = current;
+                log.info("Modelo do formulário da AEP montado em {} ms ({} KB).",
+                        (System.nanoTime() - start) / 1_000_000, current.pdf().length / 1024);
+            }
+            return current;
+        }
+    }
+
+    private FormTemplate buildTemplate(Layout layout) {
+        byte[] fontData = renderResources.fontData();
+        try (TrueTypeFont ttf = fontData != null ? new TTFParser().parse(new RandomAccessReadBuffer(fontData)) : null;
+             PDDocument document = new PDDocument();
+             ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+            LayoutWriter writer = new LayoutWriter(document, embedFont(document, ttf));
+            try {
+                writer.header(layout.logoBase64());
+                writer.card("Dados do Emissor", List.<Cell[]>of(
+                        new Cell[]{new Cell("Empresa", "issuer.name"), new Cell("CNPJ", "issuer.cnpj")}));
+                writer.card("Dados do Cliente e Avaliação", List.<Cell[]>of(
+                        new Cell[]{new Cell("Empresa Cliente", "client.name"), new Cell("CNPJ", "client.cnpj")},
+                        new Cell[]{new Cell("Data da Avaliação", "evaluation.date"), new Cell("Função Avaliada", "evaluation.function")}));
+                writer.card("Responsável Técnico", List.<Cell[]>of(
+                        new Cell[]{new Cell("Nome", "evaluator.name"), new Cell("Registro Conselho", "evaluator.council")},
+                        new Cell[]{new Cell("Especialidade", "evaluator.specialty"), new Cell("Sigla Conselho", "evaluator.councilAcronym")}));
+                writer.sectionTitle("Riscos Identificados por Função");
+                writer.riskTable(layout.risks());
+                writer.signature();
+            } finally {
+                writer.close();
+            }
+            document.save(output);
+            return new FormTemplate(layout.key(), output.toByteArray(), Map.copyOf(writer.fields));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao montar o modelo do formulário da AEP.", e);
+        }
+    }
+
+    /**
+     * Desenha a parte fixa página a página, com o cursor medido a partir do topo (como no HTML),
+     * e registra a caixa de cada campo.
+     */
+    private static final class LayoutWriter {
+
+        private final PDDocument document;
+        private final PDFont font;
+        private final Map<String, Field> fields = new HashMap<>();
+        private PDPageContentStream stream;
+        private int pageIndex = -1;
+        private float top;
+
+        LayoutWriter(PDDocument document, PDFont font) throws IOException {
+            this.document = document;
+            this.font = font;
+            newPage();
+        }
+
+        void close() throws IOException {
+            if (stream != null) stream.close();
+        }
+
+        void header(String logoBase64) throws IOException {
+            fillRect(0, 0, PAGE.getWidth(), HEADER_HEIGHT, GREEN);
+            fillRect(0, HEADER_HEIGHT, PAGE.getWidth(), HEADER_BORDER, LIME);
+
+            float sideWidth = PAGE.getWidth() * 0.15f;
+            String title = "AVALIAÇÃO ERGONÔMICA PRELIMINAR (AEP)";
+            textCentered(title, sideWidth, PAGE.getWidth() - 2 * sideWidth,
+                    (HEADER_HEIGHT - 11f * LINE_HEIGHT) / 2, 11f, Color.WHITE);
+
+            if (logoBase64 != null) {
+                PDImageXObject logo = PDImageXObject.createFromByteArray(document, Base64.getDecoder().decode(logoBase64), "logo");
+                float maxWidth = sideWidth - 12f;
+                float scale = Math.min(LOGO_MAX_HEIGHT / logo.getHeight(), maxWidth / logo.getWidth());
+                float width = logo.getWidth() * scale;
+                float height = logo.getHeight() * scale;
+                float logoTop = (HEADER_HEIGHT - height) / 2;
+                for (float columnX : new float[]{0, PAGE.getWidth() - sideWidth}) {
+                    stream.drawImage(logo, columnX + (sideWidth - width) / 2, y(logoTop + height), width, height);
+                }
+            }
+            top = HEADER_HEIGHT + HEADER_BORDER + MARGIN;
+        }
+
+        void card(String title, List<Cell[]> rows) throws IOException {
+            float height = CARD_HEADER_HEIGHT + rows.size() * DATA_ROW_HEIGHT;
+            ensureSpace(height);
+            float cardTop = top;
+
+            fillRoundedTop(MARGIN, cardTop, CONTENT_WIDTH, CARD_HEADER_HEIGHT, CARD_RADIUS, CARD_HEADER_BG);
+            fillRect(MARGIN, cardTop + CARD_HEADER_HEIGHT - 0.75f, CONTENT_WIDTH, 0.75f, CARD_BORDER);
+            text(title.toUpperCase(), MARGIN + CELL_PAD_X, cardTop + CELL_PAD_Y, VALUE_SIZE, GREEN);
+
+            float rowTop = cardTop + CARD_HEADER_HEIGHT;
+            for (int r = 0; r < rows.size(); r++) {
+                Cell[] cells = rows.get(r);
+                float cellWidth = CONTENT_WIDTH / cells.length;
+                for (int c = 0; c < cells.length; c++) {
+                    float cellX = MARGIN + c * cellWidth;
+                    if (c > 0) fillRect(cellX, rowTop, 0.75f, DATA_ROW_HEIGHT, ROW_BORDER);
+                    text(cells[c].label().toUpperCase(), cellX + CELL_PAD_X, rowTop + CELL_PAD_Y, LABEL_SIZE, GREEN);
+                    float valueTop = rowTop + CELL_PAD_Y + LABEL_SIZE * LINE_HEIGHT + 1.5f;
+                    fields.put(cells[c].field(), new Field(pageIndex, cellX + CELL_PAD_X, valueTop,
+                            cellWidth - 2 * CELL_PAD_X, VALUE_HEIGHT, VALUE_SIZE, VALUE_MIN_SIZE, false, Color.BLACK));
+                }
+                if (r < rows.size() - 1) {
+                    fillRect(MARGIN, rowTop + DATA_ROW_HEIGHT - 0.75f, CONTENT_WIDTH, 0.75f, ROW_BORDER);
+                }
+                rowTop += DATA_ROW_HEIGHT;
+            }
+
+            strokeRounded(MARGIN, cardTop, CONTENT_WIDTH, height, CARD_RADIUS, CARD_BORDER);
+            top = cardTop + height + CARD_GAP;
+        }
+
+        void sectionTitle(String title) throws IOException {
+            // As margens verticais do HTML se sobrepõem: a do título absorve a do cartão anterior
+            top += SECTION_MARGIN_TOP - CARD_GAP;
+            ensureSpace(11f * LINE_HEIGHT + SECTION_MARGIN_BOTTOM + 60f);
+            text(title.toUpperCase(), MARGIN, top, 11f, GREEN);
+            top += 11f * LINE_HEIGHT + SECTION_MARGIN_BOTTOM;
+        }
+
+        void riskTable(List<String> risks) throws IOException {
+            float checkWidth = CONTENT_WIDTH * 0.08f;
+            float riskWidth = CONTENT_WIDTH * 0.25f;
+            float factorWidth = CONTENT_WIDTH - checkWidth - riskWidth;
+            float checkX = MARGIN;
+            float riskX = checkX + checkWidth;
+            float factorX = riskX + riskWidth;
+
+            float headHeight = 2 * TABLE_PAD_Y + TH_SIZE * LINE_HEIGHT;
+            ensureSpace(headHeight + 40f);
+            float segmentTop = top;
+            textCentered("X", checkX, checkWidth, top + TABLE_PAD_Y, TH_SIZE, GREEN);
+            text("RISCO", riskX + TABLE_PAD_X, top + TABLE_PAD_Y, TH_SIZE, GREEN);
+            text("FATOR DE RISCO", factorX + TABLE_PAD_X, top + TABLE_PAD_Y, TH_SIZE, GREEN);
+            top += headHeight;
+            fillRect(MARGIN, top, CONTENT_WIDTH, 1.5f, TH_BORDER);
+            top += 1.5f;
+
+            if (risks.isEmpty()) {
+                float rowHeight = 30f + TD_SIZE * LINE_HEIGHT;
+                textCentered("Nenhum fator de risco disponível para exibição.", MARGIN, CONTENT_WIDTH,
+                        top + 15f, TD_SIZE, EMPTY_TEXT);
+                top += rowHeight;
+            }
+
+            for (int i = 0; i < risks.size(); i++) {
+                List<String> lines = wrap(font, printable(font, risks.get(i)), TD_SIZE, factorWidth - 2 * TABLE_PAD_X);
+                float textHeight = lines.size() * TD_SIZE * LINE_HEIGHT;
+                float rowHeight = 2 * TABLE_PAD_Y + textHeight;
+
+                if (top + rowHeight > PAGE.getHeight() - MARGIN) {
+                    // Fecha o cartão nesta página e continua a tabela na próxima
+                    strokeRounded(MARGIN, segmentTop, CONTENT_WIDTH, top - segmentTop, CARD_RADIUS, CARD_BORDER);
+                    newPage();
+                    segmentTop = top;
+                }
+
+                if (i % 2 == 1) fillRect(MARGIN, top, CONTENT_WIDTH, rowHeight, EVEN_ROW_BG);
+                if (i < risks.size() - 1) fillRect(MARGIN, top + rowHeight - 0.75f, CONTENT_WIDTH, 0.75f, ROW_BORDER);
+
+                text("ERGONÔMICO", riskX + TABLE_PAD_X, top + (rowHeight - TD_SIZE * LINE_HEIGHT) / 2, TD_SIZE, CELL_TEXT);
+                float lineTop = top + TABLE_PAD_Y;
+                for (String line : lines) {
+                    text(line, factorX + TABLE_PAD_X, lineTop, TD_SIZE, CELL_TEXT);
+                    lineTop += TD_SIZE * LINE_HEIGHT;
+                }
+
+                float checkHeight = CHECK_SIZE * LINE_HEIGHT;
+                fields.put("risk." + i, new Field(pageIndex, checkX + TABLE_PAD_X, top + (rowHeight - checkHeight) / 2,
+                        checkWidth - 2 * TABLE_PAD_X, checkHeight, CHECK_SIZE, CHECK_SIZE, true, GREEN));
+                top += rowHeight;
+            }
+
+            strokeRounded(MARGIN, segmentTop, CONTENT_WIDTH, top - segmentTop, CARD_RADIUS, CARD_BORDER);
+            top += CARD_GAP;
+        }
+
+        void signature() throws IOException {
+            float imageSpace = 45.35f; // 1,6cm reservados para a assinatura
+            float nameHeight = VALUE_SIZE * LINE_HEIGHT;
+            float metaHeight = TD_SIZE * LINE_HEIGHT;
+            ensureSpace(30f + imageSpace + 10f + nameHeight + 2 * metaHeight);
+
+            top += 30f - CARD_GAP + imageSpace + 3.75f;
+            float lineWidth = Math.min(CONTENT_WIDTH * 0.5f, 262.5f);
+            fillRect(MARGIN + (CONTENT_WIDTH - lineWidth) / 2, top, lineWidth, 0.75f, SIGNATURE_LINE);
+            top += 0.75f + 6f;
+
+            float boxX = MARGIN + 30f;
+            float boxWidth = CONTENT_WIDTH - 60f;
+            fields.put("physio.name", new Field(pageIndex, boxX, top, boxWidth, nameHeight,
+                    VALUE_SIZE, VALUE_MIN_SIZE, true, Color.BLACK));
+            top += nameHeight;
+            textCentered("Fisioterapeuta do Trabalho", boxX, boxWidth, top, TD_SIZE, SIGNATURE_LINE);
+            top += metaHeight;
+            fields.put("physio.crefito", new Field(pageIndex, boxX, top, boxWidth, metaHeight,
+                    TD_SIZE, VALUE_MIN_SIZE, true, META_TEXT));
+            top += metaHeight;
+        }
+
+        private void ensureSpace(float height) throws IOException {
+            if (top + height > PAGE.getHeight() - MARGIN) {
+                newPage();
+            }
+        }
+
+        private void newPage() throws IOException {
+            if (stream != null) stream.close();
+            PDPage page = new PDPage(PAGE);
+            document.addPage(page);
+            stream = new PDPageContentStream(document, page);
+            pageIndex++;
+            top = MARGIN;
+        }
+
+        private void text(String text, float x, float lineTop, float size, Color color) throws IOException {
+            drawText(stream, font, printable(font, text), x, lineTop, size, color);
+        }
+
+        private void textCentered(String text, float x, float width, float lineTop, float size, Color color) throws IOException {
+            String clean = printable(font, text);
+            drawText(stream, font, clean, x + (width - textWidth(font, clean, size)) / 2, lineTop, size, color);
+        }
+
+        private void fillRect(float x, float rectTop, float width, float height, Color color) throws IOException {
+            stream.setNonStrokingColor(color);
+            stream.addRect(x, y(rectTop + height), width, height);
+            stream.fill();
+        }
+
+        private void fillRoundedTop(float x, float rectTop, float width, float height, float radius, Color color) throws IOException {
+            stream.setNonStrokingColor(color);
+            roundedPath(x, rectTop, width, height, radius, 0);
+            stream.fill();
+        }
+
+        private void strokeRounded(float x, float rectTop, float width, float height, float radius, Color color) throws IOException {
+            stream.setStrokingColor(color);
+            stream.setLineWidth(0.75f);
+            roundedPath(x, rectTop, width, height, radius, radius);
+            stream.stroke();
+        }
+
+        /**
+         * Retângulo com cantos arredondados (raios separados para os cantos de cima e de baixo).
+         */
+        private void roundedPath(float x, float rectTop, float width, float height, float topRadius, float bottomRadius) throws IOException {
+            final float k = 0.5523f; // Aproximação do quarto de círculo por Bézier
+            float left = x;
+            float right = x + width;
+            float upper = y(rectTop);
+            float lower = y(rectTop + height);
+
+            stream.moveTo(left + topRadius, upper);
+            stream.lineTo(right - topRadius, upper);
+            if (topRadius > 0) {
+                stream.curveTo(right - topRadius + k * topRadius, upper, right, upper - topRadius + k * topRadius, right, upper - topRadius);
+            }
+            stream.lineTo(right, lower + bottomRadius);
+            if (bottomRadius > 0) {
+                stream.curveTo(right, lower + bottomRadius - k * bottomRadius, right - bottomRadius + k * bottomRadius, lower, right - bottomRadius, lower);
+            }
+            stream.lineTo(left + bottomRadius, lower);
+            if (bottomRadius > 0) {
+                stream.curveTo(left + bottomRadius - k * bottomRadius, lower, left, lower + bottomRadius - k * bottomRadius, left, lower + bottomRadius);
+            }
+            stream.lineTo(left, upper - topRadius);
+            if (topRadius > 0) {
+                stream.curveTo(left, upper - topRadius + k * topRadius, left + topRadius - k * topRadius, upper, left + topRadius, upper);
+            }
+            stream.closePath();
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Preenchimento e texto
+    // ------------------------------------------------------------------------------------------------
+
+    /**
+     * Escreve o valor na caixa do campo: reduz a fonte até o texto caber (em quantas linhas a altura permitir).
+     *
+     * @throws LayoutOverflowException se nem no tamanho mínimo o texto couber
+     */
+    private static void drawField(PDPageContentStream stream, PDFont font, String name, Field field, String value) throws IOException {
+        String text = printable(font, value);
+        if (text.isBlank()) return;
+
+        float size = field.fontSize();
+        List<String> lines = wrap(font, text, size, field.width());
+        while (!fits(font, lines, size, field) && size - 0.5f >= field.minFontSize()) {
+            size -= 0.5f;
+            lines = wrap(font, text, size, field.width());
+        }
+        if (!fits(font, lines, size, field)) {
+            throw new LayoutOverflowException("O valor do campo '" + name + "' não cabe no formulário da AEP.");
+        }
+
+        float lineTop = field.top();
+        for (String line : lines) {
+            float x = field.centered() ? field.x() + (field.width() - textWidth(font, line, size)) / 2 : field.x();
+            drawText(stream, font, line, x, lineTop, size, field.color());
+            lineTop += size * LINE_HEIGHT;
+        }
+    }
+
+    /**
+     * Cabe na altura do campo e nenhuma linha (ex.: uma palavra longa sem espaços) passa da largura.
+     */
+    private static boolean fits(PDFont font, List<String> lines, float size, Field field) throws IOException {
+        int maxLines = Math.max(1, (int) ((field.height() + 0.01f) / (size * LINE_HEIGHT)));
+        if (lines.size() > maxLines) return false;
+        for (String line : lines) {
+            if (textWidth(font, line, size) > field.width() + 0.01f) return false;
+        }
+        return true;
+    }
+
+    private static void drawText(PDPageContentStream stream, PDFont font, String text, float x, float lineTop,
+                                 float size, Color color) throws IOException {
+        if (text.isEmpty()) return;
+        stream.beginText();
+        stream.setFont(font, size);
+        stream.setNonStrokingColor(color);
+        stream.newLineAtOffset(x, y(lineTop + baseline(font, size)));
+        stream.showText(text);
+        stream.endText();
+    }
+
+    /**
+     * Distância do topo da linha (altura {@code size * LINE_HEIGHT}) até a linha de base, como no CSS.
+     */
+    private static float baseline(PDFont font, float size) {
+        float ascent = font.getFontDescriptor() != null ? font.getFontDescriptor().getAscent() / 1000f : 0.8f;
+        float descent = font.getFontDescriptor() != null ? -font.getFontDescriptor().getDescent() / 1000f : 0.2f;
+        return (LINE_HEIGHT - ascent - descent) * size / 2 + ascent * size;
+    }
+
+    private static List<String> wrap(PDFont font, String text, float size, float width) throws IOException {
+        List<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        for (String word : text.split(" +")) {
+            if (word.isEmpty()) continue;
+            String candidate = line.isEmpty() ? word : line + " " + word;
+            if (textWidth(font, candidate, size) <= width || line.isEmpty()) {
+                line.setLength(0);
+                line.append(candidate);
+            } else {
+                lines.add(line.toString());
+                line.setLength(0);
+                line.append(word);
+            }
+        }
+        if (!line.isEmpty()) lines.add(line.toString());
+        return lines;
+    }
+
+    private static float textWidth(PDFont font, String text, float size) throws IOException {
+        return font.getStringWidth(text) / 1000f * size;
+    }
+
+    /**
+     * Quebras de linha e tabulações viram espaço; caracteres sem glifo na fonte (ex.: emojis) são descartados,
+     * em vez de interromper a geração.
+     */
+    private static String printable(PDFont font, String text) {
+        if (text == null) return "";
+        StringBuilder clean = new StringBuilder(text.length());
+        text.codePoints().forEach(codePoint -> {
+            if (Character.isWhitespace(codePoint) || Character.isISOControl(codePoint)) {
+                clean.append(' ');
+                return;
+            }
+            String character = new String(Character.toChars(codePoint));
+            try {
+                font.encode(character);
+                clean.append(character);
+            } catch (IllegalArgumentException | IOException e) {
+                // Sem glifo: ignora
+            }
+        });
+        return clean.toString().trim();
+    }
+
+    private static float y(float topOffset) {
+        return PAGE.getHeight() - topOffset;
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Fonte e chaves
+    // ------------------------------------------------------------------------------------------------
+
+    /**
+     * Fonte do modelo: subconjunto com os glifos de {@link #EMBEDDED_RANGES} (e os do texto fixo).
+     */
+    private static PDFont embedFont(PDDocument document, TrueTypeFont ttf) throws IOException {
+        if (ttf == null) {
+            return new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        }
+        PDType0Font font = PDType0Font.load(document, ttf, true);
+        CmapLookup cmap = ttf.getUnicodeCmapLookup();
+        for (int[] range : EMBEDDED_RANGES) {
+            for (int codePoint = range[0]; codePoint <= range[1]; codePoint++) {
+                if (cmap.getGlyphId(codePoint) > 0) {
+                    font.addToSubset(codePoint);
+                }
+            }
+        }
+        return font;
+    }
+
+    /**
+     * Fonte já embutida no modelo (a única usada nele); caracteres fora do subconjunto são descartados em {@link #printable}.
+     */
+    private static PDFont templateFont(PDDocument document) throws IOException {
+        PDResources resources = document.getPage(0).getResources();
+        for (COSName name : resources.getFontNames()) {
+            PDFont font = resources.getFont(name);
+            if (font != null) return font;
+        }
+        throw new IllegalStateException("Modelo do formulário da AEP sem fonte.");
+    }
+
+    private String layoutKey(String logoBase64, List<String> risks) {
+        // Só refaz o hash quando a logo muda. Enquanto o cache de dados da empresa não muda a instância é a mesma,
+        // e o equals sai na comparação de referência; uma logo nova com outra instância sempre recalcula
+        LogoKey logoKey = lastLogoKey;
+        if (logoKey == null || !Objects.equals(logoKey.logoBase64(), logoBase64)) {
+            String hash = logoBase64 != null
+                    ? DigestUtils.md5DigestAsHex(logoBase64.getBytes(StandardCharsets.US_ASCII))
+                    : "none";
+            logoKey = new LogoKey(logoBase64, hash);
+            lastLogoKey = logoKey;
+        }
+        String risksHash = DigestUtils.md5DigestAsHex(String.join("\n", risks).getBytes(StandardCharsets.UTF_8));
+        return "v" + LAYOUT_VERSION + ";font=" + fontKey + ";logo=" + logoKey.hash() + ";risks=" + risksHash;
+    }
+
+    private static String cacheKey(Layout layout, SortedMap<String, String> values) {
+        StringBuilder key = new StringBuilder(layout.key());
+        // Prefixo de tamanho: nenhum valor consegue se passar por outro campo
+        values.forEach((name, value) -> key.append('\n').append(name).append('=')
+                .append(value.length()).append(':').append(value));
+        return key.toString();
+    }
+
+    private static void put(Map<String, String> values, String field, String value) {
+        if (value != null && !value.isBlank()) {
+            values.put(field, value);
+        }
+    }
+
+    private record Cell(String label, String field) {
+    }
+
+    /**
+     * Caixa de um campo no modelo. {@code top} é medido a partir do topo da página.
+     */
+    private record Field(int page, float x, float top, float width, float height,
+                         float fontSize, float minFontSize, boolean centered, Color color) {
+    }
+
+    private record FormTemplate(String layoutKey, byte[] pdf, Map<String, Field> fields) {
+    }
+
+    private record Layout(String key, String logoBase64, List<String> risks) {
+    }
+
+    private record LogoKey(String logoBase64, String hash) {
+    }
+
+    private record AepFormData(Layout layout, SortedMap<String, String> values, String cacheKey) implements FormData {
+    }
+}
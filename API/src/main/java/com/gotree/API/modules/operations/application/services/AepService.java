@@ -6,25 +6,20 @@ import com.gotree.API.modules.operations.presentation.dto.AepRequestDTO;
 import com.gotree.API.modules.operations.domain.entities.AepReport;
 import com.gotree.API.modules.administration.domain.entities.Company;
 import com.gotree.API.modules.professionals.domain.entities.Physiotherapist;
-import com.gotree.API.modules.administration.domain.entities.SystemInfo;
 import com.gotree.API.modules.operations.infrastructure.repositories.AepReportRepository;
 import com.gotree.API.modules.administration.infrastructure.repositories.CompanyRepository;
 import com.gotree.API.modules.professionals.infrastructure.repositories.PhysiotherapistRepository;
-import com.gotree.API.modules.administration.infrastructure.repositories.SystemInfoRepository;
 import com.gotree.API.modules.shared.application.services.ReportService;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
 import com.gotree.API.modules.shared.utils.XmlSanitizer;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * Serviço responsável pelo gerenciamento de Análises Ergonômicas Preliminares (AEP).
@@ -33,8 +28,8 @@ import java.util.UUID;
 @Service
 public class AepService {
 
-    // A LISTA MESTRE DE TODOS OS RISCOS
-    private static final List<String> MASTER_RISK_LIST = Arrays.asList(
+    // A LISTA MESTRE DE TODOS OS RISCOS (também usada pelo modelo de exemplo do AepFormPdfRenderer)
+    static final List<String> MASTER_RISK_LIST = Arrays.asList(
             "Trabalho em posturas incômodas ou pouco confortáveis por longos períodos",
             "Postura sentada por longos períodos",
             "Postura de pé por longos períodos",
@@ -76,17 +71,16 @@ public class AepService {
     private final CompanyRepository companyRepository;
     private final ReportService reportService;
     private final PhysiotherapistRepository physioRepository;
-    private final SystemInfoRepository systemInfoRepository;
-    private final String fileStoragePath = "/app-data/reports/";
+    private final StorageService storageService;
 
     public AepService(AepReportRepository aepReportRepository, CompanyRepository companyRepository,
                       ReportService reportService, PhysiotherapistRepository physioRepository,
-                      SystemInfoRepository systemInfoRepository) {
+                      StorageService storageService) {
         this.aepReportRepository = aepReportRepository;
         this.companyRepository = companyRepository;
         this.reportService = reportService;
         this.physioRepository = physioRepository;
-        this.systemInfoRepository = systemInfoRepository;
+        this.storageService = storageService;
     }
 
 
@@ -135,9 +129,10 @@ public class AepService {
         // Dados da Fisio
         aep.setPhysiotherapist(physio);
 
-        // Se o documento foi editado, limpa o caminho do PDF antigo
+        // Se o documento foi editado, limpa o caminho do PDF antigo.
+        // O arquivo continua no cache de renderização: se os dados não mudaram, a próxima geração o reaproveita.
         if (existingId != null && aep.getPdfPath() != null) {
-            deletePdfFile(aep.getPdfPath()); // Deleta o arquivo físico
+            storageService.release(aep.getPdfPath()); // Libera a referência ao arquivo
             aep.setPdfPath(null); // Limpa o caminho no banco
         }
 
@@ -162,9 +157,8 @@ public class AepService {
         // Se o PDF já foi gerado e salvo, apenas o retorna
         if (aep.getPdfPath() != null && !aep.getPdfPath().isBlank()) {
             try {
-                Path path = Paths.get(aep.getPdfPath());
-                if (Files.exists(path)) {
-                    return Files.readAllBytes(path);
+                if (storageService.exists(aep.getPdfPath())) {
+                    return storageService.readAllBytes(aep.getPdfPath());
                 }
             } catch (Exception e) {
                 // Se o arquivo não existir (ex: foi apagado do disco), geramos um novo
@@ -183,32 +177,21 @@ public class AepService {
         templateData.put("company", aep.getCompany());
         templateData.put("evaluator", aep.getEvaluator());
 
-        // Busca dados da empresa do banco de dados
-        SystemInfo sysInfo = systemInfoRepository.findFirst();
-        if (sysInfo != null) {
-            templateData.put("generatingCompanyName", sysInfo.getCompanyName());
-            templateData.put("generatingCompanyCnpj", sysInfo.getCnpj());
-        } else {
-            // Fallback para valores padrão se não encontrar no banco
-            templateData.put("generatingCompanyName", "Go-Tree Consultoria LTDA");
-            templateData.put("generatingCompanyCnpj", "47.885.556/0001-76");
-        }
+        // Nome, CNPJ e logo da empresa geradora são incluídos pelo ReportService (em cache)
 
         templateData.put("allRisks", MASTER_RISK_LIST);
         templateData.put("selectedRisks", aep.getSelectedRisks());
 
-        byte[] pdfBytes = reportService.generatePdfFromHtml("aep-template", templateData);
-
-        // Salva o novo PDF no disco e atualiza a entidade
-        String fileName = "AEP_" + aep.getId() + "_" + UUID.randomUUID() + ".pdf";
-        Path path = Paths.get(fileStoragePath, fileName);
-        Files.createDirectories(path.getParent());
-        Files.write(path, pdfBytes);
+        // Só renderiza se o conteúdo mudou; senão reaproveita o PDF já gerado para os mesmos dados
+        String pdfKey = reportService.generatePdfToStorage("aep-template", templateData);
 
-        aep.setPdfPath(path.toString()); // Salva o caminho do NOVO PDF
+        // Atualiza a entidade (liberando a referência ao arquivo perdido, se houver)
+        String previousPath = aep.getPdfPath();
+        aep.setPdfPath(pdfKey); // Salva a chave do NOVO PDF
+        storageService.release(previousPath);
         aepReportRepository.save(aep);
 
-        return pdfBytes;
+        return storageService.readAllBytes(pdfKey);
     }
 
     /**
@@ -269,24 +252,8 @@ public class AepService {
             throw new SecurityException("Usuário não autorizado a deletar esta AEP.");
         }
 
-        if (aep.getPdfPath() != null) {
-            deletePdfFile(aep.getPdfPath());
-        }
+        storageService.release(aep.getPdfPath());
 
         aepReportRepository.delete(aep);
     }
-
-    /**
-     * Deleta um arquivo PDF do sistema de arquivos.
-     *
-     * @param pdfPath Caminho completo do arquivo PDF a ser deletado
-     */
-    private void deletePdfFile(String pdfPath) {
-        try {
-            Path path = Paths.get(pdfPath);
-            Files.deleteIfExists(path);
-        } catch (IOException e) {
-            System.err.println("Falha ao deletar arquivo PDF antigo: " + pdfPath);
-        }
-    }
 }
\ No newline at end of file
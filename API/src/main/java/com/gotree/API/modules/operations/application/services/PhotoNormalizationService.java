@@ -0,0 +1,285 @@
+package com.gotree.API.modules.operations.application.services;
+
+import com.gotree.API.modules.operations.infrastructure.utils.ExifOrientation;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Normaliza as fotos dos achados antes de irem para o armazenamento e para o PDF.
+ *
+ * <p>Fotos de celular chegam com 3–12 MP e vários MB, mas no relatório ocupam um quadro de 8,5 x 10 cm.
+ * Cada foto é decodificada uma única vez, girada conforme a orientação do EXIF, reduzida para caber no quadro
+ * na resolução de impressão e regravada em JPEG com qualidade fixa e sem metadados (o que também remove a
+ * localização GPS gravada pelo celular). O PDF passa a embutir imagens pequenas, em vez de reamostrar as
+ * originais a cada renderização.</p>
+ *
+ * <p>As fotos de uma visita são processadas em paralelo num pool próprio, limitado aos núcleos; se ele estiver
+ * ocupado, a thread da requisição faz o trabalho (sem rejeição).</p>
+ */
+@Service
+public class PhotoNormalizationService {
+
+    private static final Logger log = LoggerFactory.getLogger(PhotoNormalizationService.class);
+
+    // Acima disso a decodificação já é feita com subamostragem, para não alocar centenas de MB por foto
+    private static final long MAX_DECODED_PIXELS = 24_000_000L;
+    // Fotos maiores que isso não são fotos de celular: provavelmente um arquivo malformado ou malicioso
+    private static final long MAX_SOURCE_PIXELS = 60_000_000L;
+
+    private final int maxWidth;
+    private final int maxHeight;
+    private final float jpegQuality;
+    private final boolean keepOriginal;
+    private final ThreadPoolExecutor executor;
+
+    public PhotoNormalizationService(@Value("${visit.photos.max-width-px:670}") int maxWidth,
+                                     @Value("${visit.photos.max-height-px:790}") int maxHeight,
+                                     @Value("${visit.photos.jpeg-quality:0.82}") float jpegQuality,
+                                     @Value("${visit.photos.keep-original:false}") boolean keepOriginal,
+                                     @Value("${visit.photos.threads:0}") int configuredThreads) {
+        if (maxWidth <= 0 || maxHeight <= 0) {
+            throw new IllegalStateException("Dimensões máximas das fotos devem ser positivas.");
+        }
+        if (jpegQuality <= 0f || jpegQuality > 1f) {
+            throw new IllegalStateException("Qualidade JPEG das fotos deve estar entre 0 e 1.");
+        }
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+        this.jpegQuality = jpegQuality;
+        this.keepOriginal = keepOriginal;
+
+        int threads = configuredThreads > 0 ? configuredThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(threads * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "photo-normalize-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Indica se o arquivo original também deve ser guardado, além da versão normalizada.
+     */
+    public boolean keepOriginal() {
+        return keepOriginal;
+    }
+
+    /**
+     * Normaliza a foto no pool de imagens.
+     *
+     * @return futuro com o JPEG normalizado; falha com {@link IllegalArgumentException} se o conteúdo
+     *         não for uma imagem suportada
+     */
+    public CompletableFuture<NormalizedPhoto> normalizeAsync(byte[] original) {
+        return CompletableFuture.supplyAsync(() -> normalize(original), executor);
+    }
+
+    /**
+     * Normaliza a foto na thread atual.
+     *
+     * @throws IllegalArgumentException se o conteúdo não for uma imagem suportada
+     */
+    public NormalizedPhoto normalize(byte[] original) {
+        long start = System.nanoTime();
+        int orientation = ExifOrientation.read(original);
+
+        BufferedImage decoded = decode(original, orientation);
+        BufferedImage oriented = applyOrientation(downscaleToFit(decoded, orientation), orientation);
+        byte[] jpeg = encodeJpeg(oriented);
+
+        log.debug("Foto normalizada: {} KB -> {} KB ({}x{}, orientação {}) em {} ms.",
+                original.length / 1024, jpeg.length / 1024, oriented.getWidth(), oriented.getHeight(),
+                orientation, (System.nanoTime() - start) / 1_000_000);
+        return new NormalizedPhoto(jpeg, oriented.getWidth(), oriented.getHeight());
+    }
+
+    /**
+     * Decodifica já com subamostragem quando a foto é muito maior que o quadro final: uma foto de 12 MP
+     * vira ~3 MP na leitura, sem passar pelo bitmap completo.
+     */
+    private BufferedImage decode(byte[] data, int orientation) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("Formato de imagem não suportado.");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_SOURCE_PIXELS) {
+                    throw new IllegalArgumentException("Imagem grande demais (" + width + "x" + height + ").");
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = subsamplingFor(width, height, orientation);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+
+                BufferedImage image = reader.read(0, param);
+                return toRgb(image);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Não foi possível ler a imagem.", e);
+        }
+    }
+
+    /**
+     * Maior fator de subamostragem que ainda deixa a imagem com pelo menos o dobro do quadro final
+     * (a redução final continua sendo feita com interpolação), respeitando o teto de pixels decodificados.
+     */
+    private int subsamplingFor(int width, int height, int orientation) {
+        int[] box = targetBox(orientation);
+        int factor = Math.max(1, Math.min(width / (box[0] * 2), height / (box[1] * 2)));
+        while ((long) (width / factor) * (height / factor) > MAX_DECODED_PIXELS) {
+            factor++;
+        }
+        return factor;
+    }
+
+    /**
+     * Quadro máximo no sistema de coordenadas da imagem gravada: nas orientações que giram 90°,
+     * a largura gravada vira a altura exibida.
+     */
+    private int[] targetBox(int orientation) {
+        return ExifOrientation.swapsDimensions(orientation)
+                ? new int[]{maxHeight, maxWidth}
+                : new int[]{maxWidth, maxHeight};
+    }
+
+    /**
+     * Redução em etapas de no máximo metade (qualidade próxima do bicúbico, custo do bilinear),
+     * seguida de um último passo até o tamanho exato. Imagens que já cabem no quadro não são ampliadas.
+     */
+    private BufferedImage downscaleToFit(BufferedImage image, int orientation) {
+        int[] box = targetBox(orientation);
+        double scale = Math.min(1.0, Math.min((double) box[0] / image.getWidth(), (double) box[1] / image.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = resize(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        if (current.getWidth() != targetWidth || current.getHeight() != targetHeight) {
+            current = resize(current, targetWidth, targetHeight);
+        }
+        return current;
+    }
+
+    private BufferedImage applyOrientation(BufferedImage image, int orientation) {
+        if (orientation == ExifOrientation.NORMAL || orientation < 1 || orientation > 8) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        boolean swap = ExifOrientation.swapsDimensions(orientation);
+
+        BufferedImage rotated = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rotated.createGraphics();
+        try {
+            g.drawImage(image, ExifOrientation.transform(orientation, w, h), null);
+        } finally {
+            g.dispose();
+        }
+        return rotated;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ByteArrayOutputStream output = new ByteArrayOutputStream();
+             ImageOutputStream stream = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(stream);
+
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+
+            // Sem metadados: o EXIF (GPS, modelo do aparelho, orientação) não é copiado
+            writer.write(null, new IIOImage(image, null, null), param);
+            stream.flush();
+            return output.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Falha ao gravar a foto normalizada.", e);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Converte para RGB sobre fundo branco: PNGs com transparência e JPEGs em CMYK/tons de cinza
+     * passam a ter o mesmo formato, que o codificador JPEG aceita.
+     */
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+
+    private static BufferedImage resize(BufferedImage image, int width, int height) {
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = resized.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return resized;
+    }
+
+    /**
+     * Foto pronta para o armazenamento: sempre JPEG.
+     */
+    public record NormalizedPhoto(byte[] jpeg, int width, int height) {
+    }
+}
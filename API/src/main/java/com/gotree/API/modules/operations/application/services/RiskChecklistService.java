@@ -5,27 +5,29 @@ import com.gotree.API.modules.administration.infrastructure.repositories.SectorR
 import com.gotree.API.modules.administration.infrastructure.repositories.UnitRepository;
 import com.gotree.API.modules.iam.domain.entities.User;
 import com.gotree.API.modules.operations.infrastructure.repositories.OccupationalRiskReportRepository;
-import com.gotree.API.modules.administration.infrastructure.repositories.SystemInfoRepository;
 import com.gotree.API.modules.operations.presentation.dto.EvaluatedFunctionRequestDTO;
 import com.gotree.API.modules.operations.presentation.dto.SaveRiskReportRequestDTO;
 import com.gotree.API.modules.administration.domain.entities.Company;
 import com.gotree.API.modules.operations.domain.entities.EvaluatedFunction;
 import com.gotree.API.modules.operations.domain.entities.OccupationalRiskReport;
 import com.gotree.API.modules.administration.domain.entities.Sector;
-import com.gotree.API.modules.administration.domain.entities.SystemInfo;
 import com.gotree.API.modules.administration.domain.entities.Unit;
+import com.gotree.API.modules.shared.application.services.AsyncPdfSource;
+import com.gotree.API.modules.shared.application.services.SignablePdfSource;
+import com.gotree.API.modules.shared.application.services.BinaryAssetService;
 import com.gotree.API.modules.shared.application.services.DigitalSignatureService;
+import com.gotree.API.modules.shared.application.services.PdfGenerationRequested;
 import com.gotree.API.modules.shared.application.services.ReportService;
 import com.gotree.API.modules.operations.infrastructure.utils.RiskCatalog;
+import com.gotree.API.modules.shared.domain.enums.PdfStatus;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
 import com.gotree.API.modules.shared.utils.XmlSanitizer; // IMPORTANTE: Utilitário de sanitização
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -35,31 +37,35 @@ import java.util.stream.Collectors;
  * Permite criar, atualizar, deletar e gerar PDFs dos relatórios de avaliação de riscos.
  */
 @Service
-public class RiskChecklistService {
+public class RiskChecklistService implements AsyncPdfSource, SignablePdfSource {
 
+    private static final String DOC_TYPE = "risk";
+    private static final String TEMPLATE = "risk-checklist-template";
 
     private final OccupationalRiskReportRepository reportRepository;
     private final CompanyRepository companyRepository;
     private final UnitRepository unitRepository;
     private final SectorRepository sectorRepository;
     private final ReportService reportService;
-    private final SystemInfoRepository systemInfoRepository; // Para a Logo
     private final DigitalSignatureService digitalSignatureService;
-
-    @Value("${file.storage.path}")
-    private String fileStoragePath;
+    private final BinaryAssetService binaryAssetService;
+    private final StorageService storageService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public RiskChecklistService(OccupationalRiskReportRepository reportRepository, CompanyRepository companyRepository,
                                 UnitRepository unitRepository, SectorRepository sectorRepository,
-                                ReportService reportService, SystemInfoRepository systemInfoRepository,
-                                DigitalSignatureService digitalSignatureService) {
+                                ReportService reportService,
+                                DigitalSignatureService digitalSignatureService, BinaryAssetService binaryAssetService,
+                                StorageService storageService, ApplicationEventPublisher eventPublisher) {
         this.reportRepository = reportRepository;
         this.companyRepository = companyRepository;
         this.unitRepository = unitRepository;
         this.sectorRepository = sectorRepository;
         this.reportService = reportService;
-        this.systemInfoRepository = systemInfoRepository;
         this.digitalSignatureService = digitalSignatureService;
+        this.binaryAssetService = binaryAssetService;
+        this.storageService = storageService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -72,42 +78,29 @@ public class RiskChecklistService {
      */
     @Transactional
     public OccupationalRiskReport createAndGeneratePdf(SaveRiskReportRequestDTO dto, User technician) {
-        // 1. Buscando Entidades Relacionadas
-        Company company = companyRepository.findById(dto.getCompanyId())
-                .orElseThrow(() -> new RuntimeException("Empresa não encontrada"));
-        Unit unit = dto.getUnitId() != null ? unitRepository.findById(dto.getUnitId()).orElse(null) : null;
-        Sector sector = dto.getSectorId() != null ? sectorRepository.findById(dto.getSectorId()).orElse(null) : null;
-
-        // 2. Criando o Relatório
-        OccupationalRiskReport report = new OccupationalRiskReport();
-        report.setCompany(company);
-        report.setUnit(unit);
-        report.setSector(sector);
-        report.setTechnician(technician);
-        report.setInspectionDate(dto.getInspectionDate());
-
-        if (dto.getTitle() != null && !dto.getTitle().isBlank()) {
-            report.setTitle(dto.getTitle());
-        } else {
-            // Título padrão caso o front não mande nada
-            report.setTitle("Checklist de Riscos - " + java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy").format(dto.getInspectionDate()));
-        }
-
-        if (dto.getTechnicianSignatureImageBase64() != null && !dto.getTechnicianSignatureImageBase64().isBlank()) {
-            report.setTechnicianSignatureImageBase64(stripDataUrlPrefix(dto.getTechnicianSignatureImageBase64()));
-            report.setTechnicianSignedAt(java.time.LocalDateTime.now());
-        }
-
-        // 3. Mapeando Funções e Riscos
-        mapFunctionsDtoToEntity(dto.getFunctions(), report);
-
-        // 4. Salva no banco (gera ID)
-        OccupationalRiskReport savedReport = reportRepository.save(report);
+        OccupationalRiskReport savedReport = saveNewReport(dto, technician);
 
         // 5. Gera o PDF
         return generatePdf(savedReport);
     }
 
+    /**
+     * Salva o relatório e retorna na hora com o PDF PENDING; o PDF é gerado em segundo plano após o commit.
+     * O cliente acompanha por GET /documents/risk/{id}/pdf-status.
+     *
+     * @param dto        Objeto contendo os dados do relatório a ser criado
+     * @param technician Usuário técnico responsável pelo relatório
+     * @return Relatório salvo, ainda sem PDF
+     */
+    @Transactional
+    public OccupationalRiskReport createWithPendingPdf(SaveRiskReportRequestDTO dto, User technician) {
+        OccupationalRiskReport savedReport = saveNewReport(dto, technician);
+        savedReport.setPdfStatus(PdfStatus.PENDING);
+        savedReport.setPdfRequestedAt(LocalDateTime.now());
+
+        eventPublisher.publishEvent(new PdfGenerationRequested(DOC_TYPE, savedReport.getId()));
+        return savedReport;
+    }
 
     /**
      * Atualiza um relatório existente e regenera seu PDF.
@@ -132,7 +125,7 @@ public class RiskChecklistService {
         }
 
         // 3. REGRA DE NEGÓCIO: Bloqueio se já assinado
-        if (report.getTechnicianSignatureImageBase64() != null && !report.getTechnicianSignatureImageBase64().isBlank()) {
+        if (report.getTechnicianSignatureAssetId() != null) {
             throw new IllegalStateException("Este relatório já foi assinado e finalizado. Não é possível editá-lo.");
         }
 
@@ -149,7 +142,7 @@ public class RiskChecklistService {
 
         // 5. Atualiza Assinatura (Se o usuário decidiu assinar AGORA na edição)
         if (dto.getTechnicianSignatureImageBase64() != null && !dto.getTechnicianSignatureImageBase64().isBlank()) {
-            report.setTechnicianSignatureImageBase64(stripDataUrlPrefix(dto.getTechnicianSignatureImageBase64()));
+            report.setTechnicianSignatureAssetId(binaryAssetService.storeBase64Image(dto.getTechnicianSignatureImageBase64()));
             report.setTechnicianSignedAt(LocalDateTime.now());
         }
 
@@ -181,16 +174,13 @@ public class RiskChecklistService {
             throw new SecurityException("Sem permissão para deletar.");
         }
 
-        // Apaga o PDF físico
-        if (report.getPdfPath() != null) {
-            try {
-                Files.deleteIfExists(Paths.get(report.getPdfPath()));
-            } catch (IOException e) {
-                System.err.println("Erro ao deletar arquivo: " + e.getMessage());
-            }
-        }
+        // Libera o PDF físico
+        storageService.release(report.getPdfPath());
 
+        Long signatureId = report.getTechnicianSignatureAssetId();
         reportRepository.delete(report);
+        reportRepository.flush(); // Libera a FK antes de apagar a imagem da assinatura
+        binaryAssetService.delete(signatureId);
     }
 
     @Transactional(readOnly = true)
@@ -211,7 +201,7 @@ public class RiskChecklistService {
         dto.setCompanyId(report.getCompany().getId());
         dto.setUnitId(report.getUnit() != null ? report.getUnit().getId() : null);
         dto.setSectorId(report.getSector() != null ? report.getSector().getId() : null);
-        dto.setTechnicianSignatureImageBase64(report.getTechnicianSignatureImageBase64()); // Importante para o front saber se já assinou
+        dto.setTechnicianSignatureImageBase64(binaryAssetService.loadAsBase64(report.getTechnicianSignatureAssetId())); // Importante para o front saber se já assinou
 
         // 4. Converte a lista de funções (CORREÇÃO DO LAZY INITIALIZATION AQUI)
         List<EvaluatedFunctionRequestDTO> functionDtos = report.getEvaluatedFunctions().stream()
@@ -241,6 +231,97 @@ public class RiskChecklistService {
      */
     @Transactional
     public void signExistingReport(Long id, User signer) throws IOException {
+        OccupationalRiskReport report = findSignableReport(id, signer);
+
+        // Assinatura em streaming: o PDF vai do arquivo atual para um novo, sem ser carregado em memória
+        String previousPath = report.getPdfPath();
+        report.setPdfPath(storageService.storeTransformed(previousPath, "pdf",
+                (source, target) -> digitalSignatureService.signPdf(source, target, signer)));
+        storageService.release(previousPath);
+
+        report.setIcpSignedAt(LocalDateTime.now());
+        reportRepository.save(report);
+    }
+
+    // --- ASSINATURA EM LOTE (SignablePdfSource) ---
+
+    @Override
+    @Transactional(readOnly = true)
+    public String pdfKeyForSigning(Long id, User signer) {
+        return findSignableReport(id, signer).getPdfPath();
+    }
+
+    @Override
+    @Transactional
+    public boolean completeSignature(Long id, String originalPdfKey, String signedPdfKey) {
+        if (reportRepository.completeSignature(id, originalPdfKey, signedPdfKey, LocalDateTime.now()) == 0) {
+            storageService.release(signedPdfKey);
+            return false;
+        }
+        storageService.release(originalPdfKey);
+        return true;
+    }
+
+    // --- GERAÇÃO ASSÍNCRONA DO PDF (AsyncPdfSource) ---
+
+    @Override
+    public String docType() {
+        return DOC_TYPE;
+    }
+
+    @Override
+    public String templateName() {
+        return TEMPLATE;
+    }
+
+    @Override
+    @Transactional
+    public boolean claimPdf(Long id, LocalDateTime claimedAt, LocalDateTime staleBefore) {
+        return reportRepository.claimPdf(id, claimedAt, staleBefore, PdfStatus.PENDING) > 0;
+    }
+
+    @Override
+    public Map<String, Object> buildPdfTemplateData(Long id) {
+        OccupationalRiskReport report = reportRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Checklist não encontrado"));
+        return buildTemplateData(report);
+    }
+
+    @Override
+    @Transactional
+    public void completePdf(Long id, LocalDateTime claimedAt, String pdfKey) {
+        OccupationalRiskReport report = reportRepository.findById(id).orElse(null);
+        // Excluído durante a geração, regerado por uma edição, ou a reserva expirou e outra execução assumiu
+        if (report == null || !claimedAt.equals(report.getPdfClaimedAt())) {
+            storageService.release(pdfKey);
+            return;
+        }
+
+        storePdf(report, pdfKey);
+        reportRepository.save(report);
+    }
+
+    @Override
+    @Transactional
+    public void failPdf(Long id, LocalDateTime claimedAt, String error) {
+        reportRepository.failPdf(id, claimedAt, error, PdfStatus.FAILED);
+    }
+
+    @Override
+    @Transactional
+    public void releasePdfClaim(Long id, LocalDateTime claimedAt) {
+        reportRepository.releasePdfClaim(id, claimedAt);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> findPendingPdfs(LocalDateTime requestedBefore, LocalDateTime staleBefore, int limit) {
+        return reportRepository.findPendingPdfIds(requestedBefore, staleBefore, PdfStatus.PENDING, PageRequest.of(0, limit));
+    }
+
+    // --- MÉTODOS AUXILIARES ---
+
+    private OccupationalRiskReport findSignableReport(Long id, User signer) {
         OccupationalRiskReport report = reportRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Checklist não encontrado"));
 
@@ -252,20 +333,45 @@ public class RiskChecklistService {
             throw new IllegalStateException("O PDF ainda não foi gerado. Salve o relatório antes de assinar.");
         }
 
-        Path path = Paths.get(report.getPdfPath());
-        if (!Files.exists(path)) {
+        if (!storageService.exists(report.getPdfPath())) {
             throw new IllegalStateException("Arquivo PDF não encontrado no servidor.");
         }
+        return report;
+    }
 
-        byte[] pdfBytes = Files.readAllBytes(Paths.get(fileStoragePath, report.getPdfPath()));
-        byte[] signedBytes = digitalSignatureService.signPdf(pdfBytes, signer);
-        Files.write(Paths.get(fileStoragePath, report.getPdfPath()), signedBytes);
+    private OccupationalRiskReport saveNewReport(SaveRiskReportRequestDTO dto, User technician) {
+        // 1. Buscando Entidades Relacionadas
+        Company company = companyRepository.findById(dto.getCompanyId())
+                .orElseThrow(() -> new RuntimeException("Empresa não encontrada"));
+        Unit unit = dto.getUnitId() != null ? unitRepository.findById(dto.getUnitId()).orElse(null) : null;
+        Sector sector = dto.getSectorId() != null ? sectorRepository.findById(dto.getSectorId()).orElse(null) : null;
 
-        report.setIcpSignedAt(LocalDateTime.now());
-        reportRepository.save(report);
-    }
+        // 2. Criando o Relatório
+        OccupationalRiskReport report = new OccupationalRiskReport();
+        report.setCompany(company);
+        report.setUnit(unit);
+        report.setSector(sector);
+        report.setTechnician(technician);
+        report.setInspectionDate(dto.getInspectionDate());
 
-    // --- MÉTODOS AUXILIARES ---
+        if (dto.getTitle() != null && !dto.getTitle().isBlank()) {
+            report.setTitle(dto.getTitle());
+        } else {
+            // Título padrão caso o front não mande nada
+            report.setTitle("Checklist de Riscos - " + java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy").format(dto.getInspectionDate()));
+        }
+
+        if (dto.getTechnicianSignatureImageBase64() != null && !dto.getTechnicianSignatureImageBase64().isBlank()) {
+            report.setTechnicianSignatureAssetId(binaryAssetService.storeBase64Image(dto.getTechnicianSignatureImageBase64()));
+            report.setTechnicianSignedAt(java.time.LocalDateTime.now());
+        }
+
+        // 3. Mapeando Funções e Riscos
+        mapFunctionsDtoToEntity(dto.getFunctions(), report);
+
+        // 4. Salva no banco (gera ID)
+        return reportRepository.save(report);
+    }
 
     /**
      * Mapeia as funções do DTO para entidades do relatório.
@@ -296,6 +402,16 @@ public class RiskChecklistService {
      * @throws RuntimeException se houver erro ao salvar o PDF
      */
     private OccupationalRiskReport generatePdf(OccupationalRiskReport report) {
+        // Dados iguais aos do PDF atual reaproveitam o arquivo, sem renderizar
+        String pdfKey = reportService.generatePdfToStorage(TEMPLATE, buildTemplateData(report));
+        storePdf(report, pdfKey);
+        return reportRepository.save(report);
+    }
+
+    /**
+     * Monta os dados do template: sanitiza textos, carrega a assinatura e converte os códigos de risco.
+     */
+    private Map<String, Object> buildTemplateData(OccupationalRiskReport report) {
         Map<String, Object> templateData = new HashMap<>();
 
         // --- SANITIZAÇÃO DE SEGURANÇA NO TEMPLATE ---
@@ -304,20 +420,11 @@ public class RiskChecklistService {
             report.setTitle(XmlSanitizer.sanitize(report.getTitle()));
         }
 
+        // A assinatura só é lida do banco aqui, no momento de montar o PDF
+        report.setTechnicianSignatureImageBase64(binaryAssetService.loadAsBase64(report.getTechnicianSignatureAssetId()));
         templateData.put("report", report);
 
-        // Busca Dados da Go-Tree (Logo, CNPJ, Nome)
-        SystemInfo myInfo = systemInfoRepository.findFirst();
-        if (myInfo != null) {
-            templateData.put("generatingCompanyName", myInfo.getCompanyName());
-            templateData.put("generatingCompanyCnpj", myInfo.getCnpj());
-            templateData.put("generatingCompanyLogo", myInfo.getLogoBase64());
-        } else {
-            // Fallback
-            templateData.put("generatingCompanyName", "Go-Tree Consultoria");
-            templateData.put("generatingCompanyCnpj", "47.885.556/0001-76");
-            templateData.put("generatingCompanyLogo", null);
-        }
+        // Dados da Go-Tree (Logo, CNPJ, Nome) são incluídos pelo ReportService (em cache)
 
         // Prepara dados dos riscos para o Template (Converte IDs em Textos)
         List<Map<String, Object>> functionsData = new ArrayList<>();
@@ -339,37 +446,18 @@ public class RiskChecklistService {
         }
         templateData.put("functionsData", functionsData);
 
-        // Gera PDF
-        byte[] pdfBytes = reportService.generatePdfFromHtml("risk-checklist-template", templateData);
-
-        try {
-            // Apaga PDF antigo se existir (para economizar espaço/limpeza)
-            if (report.getPdfPath() != null) {
-                Files.deleteIfExists(Paths.get(report.getPdfPath()));
-            }
-
-            String fileName = "RISK_CHECKLIST_" + report.getId() + "_" + UUID.randomUUID() + ".pdf";
-            Path path = Paths.get(fileStoragePath, fileName);
-            Files.createDirectories(path.getParent());
-            Files.write(path, pdfBytes);
+        return templateData;
+    }
 
-            report.setPdfPath(path.toString());
-            return reportRepository.save(report);
+    private void storePdf(OccupationalRiskReport report, String pdfKey) {
+        // Libera o PDF antigo (para economizar espaço/limpeza)
+        String previousPath = report.getPdfPath();
+        report.setPdfPath(pdfKey);
+        storageService.release(previousPath);
 
-        } catch (IOException e) {
-            throw new RuntimeException("Erro ao salvar PDF: " + e.getMessage());
-        }
+        report.setPdfStatus(PdfStatus.READY);
+        report.setPdfError(null);
+        report.setPdfClaimedAt(null);
     }
 
-    /**
-     * Remove o prefixo data:image da string base64.
-     *
-     * @param dataUrl String base64 da imagem com prefixo
-     * @return String base64 limpa sem prefixo
-     */
-    private String stripDataUrlPrefix(String dataUrl) {
-        if (dataUrl == null) return null;
-        int commaIndex = dataUrl.indexOf(',');
-        return commaIndex != -1 ? dataUrl.substring(commaIndex + 1) : dataUrl;
-    }
 }
\ No newline at end of file
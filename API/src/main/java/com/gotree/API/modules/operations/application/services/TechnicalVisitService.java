@@ -15,31 +15,41 @@ import com.gotree.API.modules.administration.infrastructure.repositories.Company
 import com.gotree.API.modules.administration.infrastructure.repositories.SectorRepository;
 import com.gotree.API.modules.operations.infrastructure.repositories.TechnicalVisitRepository;
 import com.gotree.API.modules.administration.infrastructure.repositories.UnitRepository;
+import com.gotree.API.modules.shared.application.services.AsyncPdfSource;
+import com.gotree.API.modules.shared.application.services.SignablePdfSource;
+import com.gotree.API.modules.shared.application.services.BinaryAssetService;
 import com.gotree.API.modules.shared.application.services.DigitalSignatureService;
+import com.gotree.API.modules.shared.application.services.PdfGenerationRequested;
 import com.gotree.API.modules.shared.application.services.ReportService;
-import org.springframework.beans.factory.annotation.Value;
+import com.gotree.API.modules.shared.domain.enums.PdfStatus;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import com.gotree.API.modules.shared.utils.ImageFormat;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Serviço responsável por gerenciar visitas técnicas, incluindo criação,
  * geração de relatórios PDF, e manipulação de imagens associadas.
  */
 @Service
-public class TechnicalVisitService {
+public class TechnicalVisitService implements AsyncPdfSource, SignablePdfSource {
+
+    private static final String DOC_TYPE = "visit";
+    private static final String TEMPLATE = "visit-report-template";
 
     private final TechnicalVisitRepository technicalVisitRepository;
     private final CompanyRepository companyRepository;
@@ -48,14 +58,17 @@ public class TechnicalVisitService {
     private final SectorRepository sectorRepository;
     private final AgendaEventRepository agendaEventRepository;
     private final DigitalSignatureService digitalSignatureService;
-
-    @Value("${file.storage.path}")
-    private String fileStoragePath;
+    private final BinaryAssetService binaryAssetService;
+    private final StorageService storageService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PhotoNormalizationService photoNormalizationService;
 
     public TechnicalVisitService(TechnicalVisitRepository technicalVisitRepository, CompanyRepository companyRepository,
                                  ReportService reportService, UnitRepository unitRepository,
                                  SectorRepository sectorRepository, AgendaEventRepository agendaEventRepository,
-                                 DigitalSignatureService digitalSignatureService) {
+                                 DigitalSignatureService digitalSignatureService, BinaryAssetService binaryAssetService,
+                                 StorageService storageService, ApplicationEventPublisher eventPublisher,
+                                 PhotoNormalizationService photoNormalizationService) {
         this.technicalVisitRepository = technicalVisitRepository;
         this.companyRepository = companyRepository;
         this.reportService = reportService;
@@ -63,45 +76,42 @@ public class TechnicalVisitService {
         this.sectorRepository = sectorRepository;
         this.agendaEventRepository = agendaEventRepository;
         this.digitalSignatureService = digitalSignatureService;
+        this.binaryAssetService = binaryAssetService;
+        this.storageService = storageService;
+        this.eventPublisher = eventPublisher;
+        this.photoNormalizationService = photoNormalizationService;
     }
 
     @Transactional
     public TechnicalVisit createAndGeneratePdf(CreateTechnicalVisitRequestDTO dto, User technician) {
-        TechnicalVisit visit = new TechnicalVisit();
-        visit.setTechnician(technician);
-
-        // Delega o mapeamento pesado para o metodo auxiliar
-        applyRequestDataToVisit(visit, dto);
-
-        TechnicalVisit savedVisit = technicalVisitRepository.save(visit);
+        TechnicalVisit savedVisit = saveNewVisit(dto, technician);
+        return generateAndSavePdf(savedVisit);
+    }
 
-        createAgendaEventForNextVisit(savedVisit, dto.getNextVisitDate(), dto.getNextVisitShift(), dto.getEventHour(), technician);
+    /**
+     * Salva a visita e retorna na hora com o PDF PENDING; o PDF é gerado em segundo plano após o commit.
+     * O cliente acompanha por GET /documents/visit/{id}/pdf-status.
+     */
+    @Transactional
+    public TechnicalVisit createWithPendingPdf(CreateTechnicalVisitRequestDTO dto, User technician) {
+        TechnicalVisit savedVisit = saveNewVisit(dto, technician);
+        savedVisit.setPdfStatus(PdfStatus.PENDING);
+        savedVisit.setPdfRequestedAt(LocalDateTime.now());
 
-        return generateAndSavePdf(savedVisit, dto.getNextVisitDate(), dto.getNextVisitShift());
+        eventPublisher.publishEvent(new PdfGenerationRequested(DOC_TYPE, savedVisit.getId()));
+        return savedVisit;
     }
 
     @Transactional
     public void signExistingVisit(Long id, User signer) throws IOException {
-        TechnicalVisit visit = technicalVisitRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Visita Técnica não encontrada"));
-
-        if (!visit.getTechnician().getId().equals(signer.getId())) {
-            throw new SecurityException("Apenas o técnico responsável pode assinar digitalmente este documento.");
-        }
-
-        if (visit.getPdfPath() == null) {
-            throw new IllegalStateException("O PDF ainda não foi gerado.");
-        }
-
-        Path path = Paths.get(fileStoragePath, visit.getPdfPath());
-        if (!Files.exists(path)) {
-            throw new IllegalStateException("Arquivo PDF não encontrado no disco.");
-        }
-
-        byte[] pdfBytes = Files.readAllBytes(path);
-        byte[] signedBytes = digitalSignatureService.signPdf(pdfBytes, signer);
+        TechnicalVisit visit = findSignableVisit(id, signer);
 
-        Files.write(path, signedBytes);
+        // Assinatura em streaming: o PDF vai do arquivo atual para um novo, sem ser carregado em memória.
+        // O PDF assinado tem outro conteúdo, logo outra chave; o original é liberado
+        String previousPath = visit.getPdfPath();
+        visit.setPdfPath(storageService.storeTransformed(previousPath, "pdf",
+                (source, target) -> digitalSignatureService.signPdf(source, target, signer)));
+        storageService.release(previousPath);
 
         visit.setIcpSignedAt(LocalDateTime.now());
         technicalVisitRepository.save(visit);
@@ -121,22 +131,116 @@ public class TechnicalVisitService {
             throw new SecurityException("Usuário não autorizado a deletar este relatório de visita.");
         }
 
-        try {
-            if (visit.getPdfPath() != null && !visit.getPdfPath().isBlank()) {
-                Files.deleteIfExists(Paths.get(fileStoragePath, visit.getPdfPath()));
-            }
-        } catch (IOException e) {
-            System.err.println("Falha ao deletar o arquivo PDF da visita: " + visit.getPdfPath());
+        storageService.release(visit.getPdfPath());
+        visit.getFindings().forEach(this::releasePhotos);
+
+        Long techSignatureId = visit.getTechnicianSignatureAssetId();
+        Long clientSignatureId = visit.getClientSignatureAssetId();
+
+        technicalVisitRepository.delete(visit);
+        technicalVisitRepository.flush(); // Libera a FK antes de apagar as imagens das assinaturas
+
+        binaryAssetService.delete(techSignatureId);
+        binaryAssetService.delete(clientSignatureId);
+    }
+
+    // ===================================================================================
+    // GERAÇÃO ASSÍNCRONA DO PDF (AsyncPdfSource)
+    // ===================================================================================
+
+    @Override
+    public String docType() {
+        return DOC_TYPE;
+    }
+
+    @Override
+    public String templateName() {
+        return TEMPLATE;
+    }
+
+    @Override
+    @Transactional
+    public boolean claimPdf(Long id, LocalDateTime claimedAt, LocalDateTime staleBefore) {
+        return technicalVisitRepository.claimPdf(id, claimedAt, staleBefore, PdfStatus.PENDING) > 0;
+    }
+
+    @Override
+    public Map<String, Object> buildPdfTemplateData(Long id) {
+        TechnicalVisit visit = technicalVisitRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Visita Técnica não encontrada"));
+        return buildTemplateData(visit);
+    }
+
+    @Override
+    @Transactional
+    public void completePdf(Long id, LocalDateTime claimedAt, String pdfKey) {
+        TechnicalVisit visit = technicalVisitRepository.findById(id).orElse(null);
+        // Excluída durante a geração, ou a reserva expirou e outra execução assumiu
+        if (visit == null || !claimedAt.equals(visit.getPdfClaimedAt())) {
+            storageService.release(pdfKey);
+            return;
         }
 
-        technicalVisitRepository.deleteById(visitId);
+        storePdf(visit, pdfKey);
+        technicalVisitRepository.save(visit);
+    }
+
+    @Override
+    @Transactional
+    public void failPdf(Long id, LocalDateTime claimedAt, String error) {
+        technicalVisitRepository.failPdf(id, claimedAt, error, PdfStatus.FAILED);
+    }
+
+    @Override
+    @Transactional
+    public void releasePdfClaim(Long id, LocalDateTime claimedAt) {
+        technicalVisitRepository.releasePdfClaim(id, claimedAt);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> findPendingPdfs(LocalDateTime requestedBefore, LocalDateTime staleBefore, int limit) {
+        return technicalVisitRepository.findPendingPdfIds(requestedBefore, staleBefore, PdfStatus.PENDING, PageRequest.of(0, limit));
+    }
+
+
+    // --- ASSINATURA EM LOTE (SignablePdfSource) ---
+
+    @Override
+    @Transactional(readOnly = true)
+    public String pdfKeyForSigning(Long id, User signer) {
+        return findSignableVisit(id, signer).getPdfPath();
     }
 
+    @Override
+    @Transactional
+    public boolean completeSignature(Long id, String originalPdfKey, String signedPdfKey) {
+        if (technicalVisitRepository.completeSignature(id, originalPdfKey, signedPdfKey, LocalDateTime.now()) == 0) {
+            storageService.release(signedPdfKey);
+            return false;
+        }
+        // O PDF assinado tem outro conteúdo, logo outra chave; o original é liberado
+        storageService.release(originalPdfKey);
+        return true;
+    }
 
     // ===================================================================================
     // MÉTODOS PRIVADOS AUXILIARES (Para evitar duplicação de código)
     // ===================================================================================
 
+    private TechnicalVisit saveNewVisit(CreateTechnicalVisitRequestDTO dto, User technician) {
+        TechnicalVisit visit = new TechnicalVisit();
+        visit.setTechnician(technician);
+
+        // Delega o mapeamento pesado para o metodo auxiliar
+        applyRequestDataToVisit(visit, dto);
+
+        TechnicalVisit savedVisit = technicalVisitRepository.save(visit);
+
+        createAgendaEventForNextVisit(savedVisit, dto.getNextVisitDate(), dto.getNextVisitShift(), dto.getEventHour(), technician);
+        return savedVisit;
+    }
+
     private void applyRequestDataToVisit(TechnicalVisit visit, CreateTechnicalVisitRequestDTO dto) {
         Company clientCompany = companyRepository.findById(dto.getClientCompanyId())
                 .orElseThrow(() -> new RuntimeException("Empresa cliente com ID " + dto.getClientCompanyId() + " não encontrada."));
@@ -147,6 +251,8 @@ public class TechnicalVisitService {
                 dto.getLocation(), dto.getSummary(), dto.getVisitDate(), dto.getStartTime());
 
         visit.setEndTime(LocalTime.now());
+        visit.setNextVisitDate(dto.getNextVisitDate());
+        visit.setNextVisitShift(dto.getNextVisitShift());
 
         applySignaturesToVisit(visit, dto.getTechnicianSignatureImageBase64(), dto.getClientSignatureImageBase64(),
                 dto.getClientSignerName(), dto.getClientSignatureLatitude(), dto.getClientSignatureLongitude());
@@ -158,34 +264,37 @@ public class TechnicalVisitService {
     }
 
     private void applySignaturesToVisit(TechnicalVisit visit, String techBase64, String clientBase64, String clientName, Double lat, Double lon) {
-        if (techBase64 != null) visit.setTechnicianSignatureImageBase64(stripDataUrlPrefix(techBase64));
-        if (clientBase64 != null) visit.setClientSignatureImageBase64(stripDataUrlPrefix(clientBase64));
+        if (techBase64 != null) {
+            visit.setTechnicianSignatureAssetId(binaryAssetService.replaceBase64Image(visit.getTechnicianSignatureAssetId(), techBase64));
+        }
+        if (clientBase64 != null) {
+            visit.setClientSignatureAssetId(binaryAssetService.replaceBase64Image(visit.getClientSignatureAssetId(), clientBase64));
+        }
         if (clientName != null) visit.setClientSignerName(clientName);
         if (lat != null) visit.setClientSignatureLatitude(lat);
         if (lon != null) visit.setClientSignatureLongitude(lon);
     }
 
     private void updateFindings(TechnicalVisit visit, List<VisitFindingDTO> findingsDto) {
-        // 1. Remove os arquivos físicos antigos do VPS
-        for (VisitFinding finding : visit.getFindings()) {
-            try {
-                if (finding.getPhotoPath1() != null) Files.deleteIfExists(Paths.get(finding.getPhotoPath1()));
-                if (finding.getPhotoPath2() != null) Files.deleteIfExists(Paths.get(finding.getPhotoPath2()));
-            } catch (IOException e) {
-                System.err.println("Aviso: Falha ao remover foto de rascunho anterior.");
-            }
-        }
+        // 1. Libera as fotos antigas (o arquivo só sai do disco se nenhum outro achado usar a mesma imagem)
+        visit.getFindings().forEach(this::releasePhotos);
 
         // 2. Remove do banco
         visit.getFindings().clear();
 
         // 3. Adiciona os novos
         if (findingsDto != null && !findingsDto.isEmpty()) {
-            findingsDto.forEach(findingDto -> {
-                VisitFinding finding = mapFindingDtoToEntity(findingDto);
+            // Todas as fotos da visita são normalizadas em paralelo; a gravação segue em ordem, nesta thread
+            List<FindingPhotos> photos = new ArrayList<>(findingsDto.size());
+            findingsDto.forEach(findingDto -> photos.add(new FindingPhotos(
+                    startPhoto(findingDto.getPhotoBase64_1(), 1),
+                    startPhoto(findingDto.getPhotoBase64_2(), 2))));
+
+            for (int i = 0; i < findingsDto.size(); i++) {
+                VisitFinding finding = mapFindingDtoToEntity(findingsDto.get(i), photos.get(i));
                 finding.setTechnicalVisit(visit);
                 visit.getFindings().add(finding);
-            });
+            }
         }
     }
 
@@ -216,61 +325,133 @@ public class TechnicalVisitService {
         agendaEventRepository.save(futureEvent);
     }
 
-    private TechnicalVisit generateAndSavePdf(TechnicalVisit visit, LocalDate nextVisitDate, String nextVisitShift) {
+    private TechnicalVisit generateAndSavePdf(TechnicalVisit visit) {
+        // Dados iguais aos do PDF atual reaproveitam o arquivo, sem renderizar
+        String pdfKey = reportService.generatePdfToStorage(TEMPLATE, buildTemplateData(visit));
+        storePdf(visit, pdfKey);
+        return technicalVisitRepository.save(visit);
+    }
+
+    private TechnicalVisit findSignableVisit(Long id, User signer) {
+        TechnicalVisit visit = technicalVisitRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Visita Técnica não encontrada"));
+
+        if (!visit.getTechnician().getId().equals(signer.getId())) {
+            throw new SecurityException("Apenas o técnico responsável pode assinar digitalmente este documento.");
+        }
+
+        if (visit.getPdfPath() == null) {
+            throw new IllegalStateException("O PDF ainda não foi gerado.");
+        }
+
+        if (!storageService.exists(visit.getPdfPath())) {
+            throw new IllegalStateException("Arquivo PDF não encontrado no disco.");
+        }
+        return visit;
+    }
+
+    private Map<String, Object> buildTemplateData(TechnicalVisit visit) {
+        // As assinaturas só são lidas do banco aqui, no momento de montar o PDF
+        visit.setTechnicianSignatureImageBase64(binaryAssetService.loadAsBase64(visit.getTechnicianSignatureAssetId()));
+        visit.setClientSignatureImageBase64(binaryAssetService.loadAsBase64(visit.getClientSignatureAssetId()));
+
         Map<String, Object> templateData = new HashMap<>();
         templateData.put("visit", visit);
+        templateData.put("photoUrls", buildPhotoUrls(visit));
 
-        if (nextVisitDate != null) {
-            templateData.put("nextVisitDateFormatted", nextVisitDate.format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy")));
-            templateData.put("nextVisitShiftLabel", nextVisitShift != null ? nextVisitShift : "-");
+        if (visit.getNextVisitDate() != null) {
+            templateData.put("nextVisitDateFormatted", visit.getNextVisitDate().format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy")));
+            templateData.put("nextVisitShiftLabel", visit.getNextVisitShift() != null ? visit.getNextVisitShift() : "-");
         } else {
             templateData.put("nextVisitDateFormatted", "A Definir");
             templateData.put("nextVisitShiftLabel", "-");
         }
+        return templateData;
+    }
 
-        byte[] pdfBytes = reportService.generatePdfFromHtml("visit-report-template", templateData);
+    private void storePdf(TechnicalVisit visit, String pdfKey) {
+        String previousPath = visit.getPdfPath();
+        visit.setPdfPath(pdfKey);
+        storageService.release(previousPath);
 
+        visit.setPdfStatus(PdfStatus.READY);
+        visit.setPdfError(null);
+        visit.setPdfClaimedAt(null);
+    }
+
+    /**
+     * Mapa chave da foto -> URI lida pelo template ("file://" no disco local, "data:" em backend remoto).
+     */
+    private Map<String, String> buildPhotoUrls(TechnicalVisit visit) {
+        Map<String, String> photoUrls = new HashMap<>();
         try {
-            String fileName = "technical_visit_" + visit.getId() + "_" + UUID.randomUUID() + ".pdf";
-            Path path = Paths.get(fileStoragePath, fileName);
-            Files.createDirectories(path.getParent());
-            Files.write(path, pdfBytes);
+            for (VisitFinding finding : visit.getFindings()) {
+                if (finding.getPhotoPath1() != null) photoUrls.put(finding.getPhotoPath1(), storageService.toRenderUri(finding.getPhotoPath1()));
+                if (finding.getPhotoPath2() != null) photoUrls.put(finding.getPhotoPath2(), storageService.toRenderUri(finding.getPhotoPath2()));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Falha ao carregar as fotos da visita: " + e.getMessage(), e);
+        }
+        return photoUrls;
+    }
 
-            visit.setPdfPath(fileName);
-            return technicalVisitRepository.save(visit);
+    private void releasePhotos(VisitFinding finding) {
+        storageService.release(finding.getPhotoPath1());
+        storageService.release(finding.getPhotoPath2());
+        storageService.release(finding.getPhotoOriginalPath1());
+        storageService.release(finding.getPhotoOriginalPath2());
+    }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Falha ao salvar o PDF da visita: " + e.getMessage(), e);
+    /**
+     * Decodifica o base64 e dispara a normalização da foto; null se o achado não tiver essa foto.
+     */
+    private PendingPhoto startPhoto(String base64, int index) {
+        if (base64 == null || base64.isEmpty()) return null;
+        byte[] original;
+        try {
+            original = Base64.getMimeDecoder().decode(stripDataUrlPrefix(base64));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Erro ao processar a imagem " + index + " do achado.", e);
+        }
+        return new PendingPhoto(index, original, photoNormalizationService.normalizeAsync(original));
+    }
+
+    /**
+     * Aguarda a normalização e grava a foto; o original só é guardado se configurado.
+     *
+     * @return chaves no armazenamento: [normalizada, original ou null]
+     */
+    private String[] storePhoto(PendingPhoto photo) {
+        PhotoNormalizationService.NormalizedPhoto normalized;
+        try {
+            normalized = photo.normalization().join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("Erro ao processar a imagem " + photo.index() + " do achado.", e.getCause());
+        }
+
+        String normalizedKey = storageService.store(normalized.jpeg(), "jpg");
+        String originalKey = null;
+        if (photoNormalizationService.keepOriginal()) {
+            // O original fica no formato em que chegou (PNG, HEIC...): a extensão, e com ela o tipo, vem do conteúdo
+            String extension = ImageFormat.detect(photo.original()).map(ImageFormat::extension).orElse("bin");
+            originalKey = storageService.store(photo.original(), extension);
         }
+        return new String[]{normalizedKey, originalKey};
     }
 
-    private VisitFinding mapFindingDtoToEntity(VisitFindingDTO dto) {
+    private VisitFinding mapFindingDtoToEntity(VisitFindingDTO dto, FindingPhotos photos) {
         VisitFinding finding = new VisitFinding();
 
-        if (dto.getPhotoBase64_1() != null && !dto.getPhotoBase64_1().isEmpty()) {
-            try {
-                byte[] imageBytes = Base64.getMimeDecoder().decode(stripDataUrlPrefix(dto.getPhotoBase64_1()));
-                String imageFileName = "finding_" + UUID.randomUUID() + ".jpg";
-                Path imagePath = Paths.get(fileStoragePath, "visit_photos", imageFileName);
-                Files.createDirectories(imagePath.getParent());
-                Files.write(imagePath, imageBytes);
-                finding.setPhotoPath1(imagePath.toAbsolutePath().toString().replace("\\", "/"));
-            } catch (IOException e) {
-                throw new RuntimeException("Erro ao processar a imagem 1 do achado.", e);
-            }
+        if (photos.first() != null) {
+            String[] keys = storePhoto(photos.first());
+            finding.setPhotoPath1(keys[0]);
+            finding.setPhotoOriginalPath1(keys[1]);
         }
 
-        if (dto.getPhotoBase64_2() != null && !dto.getPhotoBase64_2().isEmpty()) {
-            try {
-                byte[] imageBytes2 = Base64.getMimeDecoder().decode(stripDataUrlPrefix(dto.getPhotoBase64_2()));
-                String imageFileName = "finding_" + UUID.randomUUID() + ".jpg";
-                Path imagePath = Paths.get(fileStoragePath, "visit_photos", imageFileName);
-                Files.createDirectories(imagePath.getParent());
-                Files.write(imagePath, imageBytes2);
-                finding.setPhotoPath2(imagePath.toAbsolutePath().toString().replace("\\", "/"));
-            } catch (IOException e) {
-                throw new RuntimeException("Erro ao processar a imagem 2 do achado.", e);
-            }
+        if (photos.second() != null) {
+            String[] keys = storePhoto(photos.second());
+            finding.setPhotoPath2(keys[0]);
+            finding.setPhotoOriginalPath2(keys[1]);
         }
 
         finding.setDescription(dto.getDescription());
@@ -292,6 +473,12 @@ public class TechnicalVisitService {
         return finding;
     }
 
+    private record PendingPhoto(int index, byte[] original, CompletableFuture<PhotoNormalizationService.NormalizedPhoto> normalization) {
+    }
+
+    private record FindingPhotos(PendingPhoto first, PendingPhoto second) {
+    }
+
     private String stripDataUrlPrefix(String dataUrl) {
         if (dataUrl == null) return null;
         int commaIndex = dataUrl.indexOf(',');
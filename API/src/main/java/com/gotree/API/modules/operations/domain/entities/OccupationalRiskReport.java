@@ -4,6 +4,7 @@ import com.gotree.API.modules.administration.domain.entities.Sector;
 import com.gotree.API.modules.administration.domain.entities.Unit;
 import com.gotree.API.modules.administration.domain.entities.Company;
 import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.shared.domain.enums.PdfStatus;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.time.LocalDate;
@@ -50,6 +51,22 @@ public class OccupationalRiskReport {
      */
     private String pdfPath;
 
+    /**
+     * Situação da geração do PDF (PENDING enquanto o worker ainda não terminou).
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "pdf_status", length = 20)
+    private PdfStatus pdfStatus;
+
+    @Column(name = "pdf_error", length = 1000)
+    private String pdfError;
+
+    @Column(name = "pdf_requested_at")
+    private LocalDateTime pdfRequestedAt;
+
+    @Column(name = "pdf_claimed_at")
+    private LocalDateTime pdfClaimedAt;
+
     /**
      * Empresa onde a avaliação foi realizada.
      */
@@ -67,9 +84,15 @@ public class OccupationalRiskReport {
     private User technician;
 
     /**
-     * Assinatura do técnico em formato Base64.
+     * Referência à imagem da assinatura do técnico em tb_binary_asset.
+     */
+    @Column(name = "technician_signature_asset_id")
+    private Long technicianSignatureAssetId;
+
+    /**
+     * Assinatura em Base64, preenchida apenas na geração do PDF para uso no template.
      */
-    @Column(columnDefinition = "TEXT")
+    @Transient
     private String technicianSignatureImageBase64;
     private LocalDateTime technicianSignedAt;
 
@@ -4,6 +4,7 @@ import com.gotree.API.modules.administration.domain.entities.Unit;
 import com.gotree.API.modules.administration.domain.entities.Company;
 import com.gotree.API.modules.administration.domain.entities.Sector;
 import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.shared.domain.enums.PdfStatus;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.time.LocalDate;
@@ -45,17 +46,38 @@ public class TechnicalVisit {
 
     private String pdfPath;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "pdf_status", length = 20)
+    private PdfStatus pdfStatus; // PENDING enquanto o PDF é gerado em segundo plano
+
+    @Column(name = "pdf_error", length = 1000)
+    private String pdfError;
+
+    @Column(name = "pdf_requested_at")
+    private LocalDateTime pdfRequestedAt;
+
+    @Column(name = "pdf_claimed_at")
+    private LocalDateTime pdfClaimedAt;
+
+    // Próxima visita impressa no PDF (também vira um evento na agenda)
+    @Column(name = "next_visit_date")
+    private LocalDate nextVisitDate;
+
+    @Column(name = "next_visit_shift", length = 20)
+    private String nextVisitShift;
+
     @OneToMany(mappedBy = "technicalVisit", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<VisitFinding> findings = new ArrayList<>();
 
     // Campos de assinatura (reutilizando a lógica do InspectionReport)
-    @Column(columnDefinition = "TEXT")
-    private String technicianSignatureImageBase64;
+    // As imagens ficam em tb_binary_asset; aqui guardamos apenas a referência
+    @Column(name = "technician_signature_asset_id")
+    private Long technicianSignatureAssetId;
     private LocalDateTime technicianSignedAt;
 
     private String clientSignerName;
-    @Column(columnDefinition = "TEXT")
-    private String clientSignatureImageBase64;
+    @Column(name = "client_signature_asset_id")
+    private Long clientSignatureAssetId;
     private LocalDateTime clientSignedAt;
     private Double clientSignatureLatitude;
     private Double clientSignatureLongitude;
@@ -66,4 +88,10 @@ public class TechnicalVisit {
     @Column(name = "icp_signed_at")
     private LocalDateTime icpSignedAt; // Data da assinatura PFX
 
+    // Preenchidos apenas na geração do PDF (lidos de tb_binary_asset), para uso no template
+    @Transient
+    private String technicianSignatureImageBase64;
+    @Transient
+    private String clientSignatureImageBase64;
+
 }
\ No newline at end of file
@@ -34,6 +34,10 @@ public class VisitFinding {
     private String photoPath1; // Caminho para a imagem salva no servidor
     private String photoPath2; // Pode ser nulo
 
+    // Arquivos enviados antes da normalização; só preenchidos com visit.photos.keep-original=true
+    private String photoOriginalPath1;
+    private String photoOriginalPath2;
+
     @Column(columnDefinition = "TEXT")
     private String description;
 
@@ -2,10 +2,16 @@ package com.gotree.API.modules.operations.infrastructure.repositories;
 
 import com.gotree.API.modules.operations.domain.entities.OccupationalRiskReport;
 import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.shared.domain.enums.PdfStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,4 +37,40 @@ public interface OccupationalRiskReportRepository extends JpaRepository<Occupati
     // Busca o relatório trazendo junto a Empresa e o Cliente
     @EntityGraph(attributePaths = {"company", "company.clients"})
     Optional<OccupationalRiskReport> findById(Long id);
-}
\ No newline at end of file
+
+    // ===== Geração assíncrona do PDF (ver AsyncPdfGenerationService) =====
+
+    /**
+     * Reserva condicional: só um worker por vez fica com o documento PENDING.
+     */
+    @Modifying
+    @Query("UPDATE OccupationalRiskReport r SET r.pdfClaimedAt = :claimedAt WHERE r.id = :id AND r.pdfStatus = :pending" +
+            " AND (r.pdfClaimedAt IS NULL OR r.pdfClaimedAt < :staleBefore)")
+    int claimPdf(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt,
+                 @Param("staleBefore") LocalDateTime staleBefore, @Param("pending") PdfStatus pending);
+
+    @Modifying
+    @Query("UPDATE OccupationalRiskReport r SET r.pdfStatus = :failed, r.pdfError = :error, r.pdfClaimedAt = NULL" +
+            " WHERE r.id = :id AND r.pdfClaimedAt = :claimedAt")
+    int failPdf(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt,
+                @Param("error") String error, @Param("failed") PdfStatus failed);
+
+    @Modifying
+    @Query("UPDATE OccupationalRiskReport r SET r.pdfClaimedAt = NULL WHERE r.id = :id AND r.pdfClaimedAt = :claimedAt")
+    int releasePdfClaim(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt);
+
+    /**
+     * Troca o PDF pelo assinado apenas se o documento ainda apontar para o PDF que foi assinado.
+     */
+    @Modifying
+    @Query("UPDATE OccupationalRiskReport r SET r.pdfPath = :signedKey, r.icpSignedAt = :signedAt" +
+            " WHERE r.id = :id AND r.pdfPath = :originalKey")
+    int completeSignature(@Param("id") Long id, @Param("originalKey") String originalKey,
+                          @Param("signedKey") String signedKey, @Param("signedAt") LocalDateTime signedAt);
+
+    @Query("SELECT r.id FROM OccupationalRiskReport r WHERE r.pdfStatus = :pending AND r.pdfRequestedAt < :requestedBefore" +
+            " AND (r.pdfClaimedAt IS NULL OR r.pdfClaimedAt < :staleBefore) ORDER BY r.pdfRequestedAt")
+    List<Long> findPendingPdfIds(@Param("requestedBefore") LocalDateTime requestedBefore,
+                                 @Param("staleBefore") LocalDateTime staleBefore,
+                                 @Param("pending") PdfStatus pending, Pageable pageable);
+}
@@ -2,12 +2,16 @@ package com.gotree.API.modules.operations.infrastructure.repositories;
 
 import com.gotree.API.modules.operations.domain.entities.TechnicalVisit;
 import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.shared.domain.enums.PdfStatus;
 import lombok.NonNull;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -93,4 +97,40 @@ public interface TechnicalVisitRepository extends JpaRepository<TechnicalVisit,
     @NonNull //Garante que o retorno (Optional) nunca será nulo
     @EntityGraph(attributePaths = {"clientCompany", "clientCompany.clients"})
     Optional<TechnicalVisit> findById(@NonNull Long id); //Garante que o parâmetro 'id' não pode ser nulo
-}
\ No newline at end of file
+
+    // ===== Geração assíncrona do PDF (ver AsyncPdfGenerationService) =====
+
+    /**
+     * Reserva condicional: só um worker por vez fica com o documento PENDING.
+     */
+    @Modifying
+    @Query("UPDATE TechnicalVisit v SET v.pdfClaimedAt = :claimedAt WHERE v.id = :id AND v.pdfStatus = :pending" +
+            " AND (v.pdfClaimedAt IS NULL OR v.pdfClaimedAt < :staleBefore)")
+    int claimPdf(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt,
+                 @Param("staleBefore") LocalDateTime staleBefore, @Param("pending") PdfStatus pending);
+
+    @Modifying
+    @Query("UPDATE TechnicalVisit v SET v.pdfStatus = :failed, v.pdfError = :error, v.pdfClaimedAt = NULL" +
+            " WHERE v.id = :id AND v.pdfClaimedAt = :claimedAt")
+    int failPdf(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt,
+                @Param("error") String error, @Param("failed") PdfStatus failed);
+
+    @Modifying
+    @Query("UPDATE TechnicalVisit v SET v.pdfClaimedAt = NULL WHERE v.id = :id AND v.pdfClaimedAt = :claimedAt")
+    int releasePdfClaim(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt);
+
+    /**
+     * Troca o PDF pelo assinado apenas se o documento ainda apontar para o PDF que foi assinado.
+     */
+    @Modifying
+    @Query("UPDATE TechnicalVisit v SET v.pdfPath = :signedKey, v.icpSignedAt = :signedAt" +
+            " WHERE v.id = :id AND v.pdfPath = :originalKey")
+    int completeSignature(@Param("id") Long id, @Param("originalKey") String originalKey,
+                          @Param("signedKey") String signedKey, @Param("signedAt") LocalDateTime signedAt);
+
+    @Query("SELECT v.id FROM TechnicalVisit v WHERE v.pdfStatus = :pending AND v.pdfRequestedAt < :requestedBefore" +
+            " AND (v.pdfClaimedAt IS NULL OR v.pdfClaimedAt < :staleBefore) ORDER BY v.pdfRequestedAt")
+    List<Long> findPendingPdfIds(@Param("requestedBefore") LocalDateTime requestedBefore,
+                                 @Param("staleBefore") LocalDateTime staleBefore,
+                                 @Param("pending") PdfStatus pending, Pageable pageable);
+}
@@ -0,0 +1,136 @@
+package com.gotree.API.modules.operations.infrastructure.utils;
+
+import java.awt.geom.AffineTransform;
+
+/**
+ * Leitura da tag de orientação (0x0112) do EXIF de um JPEG, sem biblioteca externa.
+ * Celulares gravam a foto "deitada" e indicam a rotação só nessa tag; o ImageIO a ignora,
+ * então a rotação precisa ser aplicada antes de regravar a imagem (que sai sem EXIF).
+ */
+public final class ExifOrientation {
+
+    public static final int NORMAL = 1;
+
+    private static final int TAG_ORIENTATION = 0x0112;
+
+    private ExifOrientation() {
+    }
+
+    /**
+     * @return valor de 1 a 8; {@link #NORMAL} se não for JPEG, não houver EXIF ou a tag for inválida
+     */
+    public static int read(byte[] jpeg) {
+        if (jpeg == null || jpeg.length < 4 || (jpeg[0] & 0xFF) != 0xFF || (jpeg[1] & 0xFF) != 0xD8) {
+            return NORMAL;
+        }
+
+        int pos = 2;
+        while (pos + 4 <= jpeg.length) {
+            if ((jpeg[pos] & 0xFF) != 0xFF) return NORMAL;
+            int marker = jpeg[pos + 1] & 0xFF;
+            if (marker == 0xFF) { // Bytes de preenchimento entre segmentos
+                pos++;
+                continue;
+            }
+            if (marker == 0xDA || marker == 0xD9) return NORMAL; // Início dos dados da imagem: não há mais cabeçalhos
+
+            int segmentLength = u16(jpeg, pos + 2, false);
+            int segmentEnd = Math.min(jpeg.length, pos + 2 + segmentLength);
+            if (marker == 0xE1 && segmentLength >= 8 && isExifHeader(jpeg, pos + 4)) {
+                return readFromTiff(jpeg, pos + 10, segmentEnd);
+            }
+            pos += 2 + segmentLength;
+        }
+        return NORMAL;
+    }
+
+    /**
+     * As orientações 5 a 8 giram 90°: largura e altura trocam de lugar.
+     */
+    public static boolean swapsDimensions(int orientation) {
+        return orientation >= 5 && orientation <= 8;
+    }
+
+    /**
+     * Transformação que leva a imagem gravada (largura {@code w}, altura {@code h}) para a posição correta.
+     */
+    public static AffineTransform transform(int orientation, int w, int h) {
+        AffineTransform t = new AffineTransform();
+        switch (orientation) {
+            case 2 -> { // Espelhada na horizontal
+                t.scale(-1.0, 1.0);
+                t.translate(-w, 0);
+            }
+            case 3 -> { // 180°
+                t.translate(w, h);
+                t.rotate(Math.PI);
+            }
+            case 4 -> { // Espelhada na vertical
+                t.scale(1.0, -1.0);
+                t.translate(0, -h);
+            }
+            case 5 -> { // Transposta
+                t.rotate(-Math.PI / 2);
+                t.scale(-1.0, 1.0);
+            }
+            case 6 -> { // 90° horário
+                t.translate(h, 0);
+                t.rotate(Math.PI / 2);
+            }
+            case 7 -> { // Transversa
+                t.scale(-1.0, 1.0);
+                t.translate(-h, 0);
+                t.translate(0, w);
+                t.rotate(3 * Math.PI / 2);
+            }
+            case 8 -> { // 90° anti-horário
+                t.translate(0, w);
+                t.rotate(3 * Math.PI / 2);
+            }
+            default -> {
+                // 1: já está na posição correta
+            }
+        }
+        return t;
+    }
+
+    private static boolean isExifHeader(byte[] data, int pos) {
+        return pos + 6 <= data.length
+                && data[pos] == 'E' && data[pos + 1] == 'x' && data[pos + 2] == 'i' && data[pos + 3] == 'f'
+                && data[pos + 4] == 0 && data[pos + 5] == 0;
+    }
+
+    private static int readFromTiff(byte[] data, int start, int end) {
+        if (start + 8 > end) return NORMAL;
+        boolean littleEndian = data[start] == 'I' && data[start + 1] == 'I';
+        if (!littleEndian && !(data[start] == 'M' && data[start + 1] == 'M')) return NORMAL;
+        if (u16(data, start + 2, littleEndian) != 42) return NORMAL;
+
+        long ifdOffset = u32(data, start + 4, littleEndian);
+        if (ifdOffset < 8 || start + ifdOffset + 2 > end) return NORMAL;
+        int ifd = (int) (start + ifdOffset);
+
+        int entries = u16(data, ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > end) break;
+            if (u16(data, entry, littleEndian) == TAG_ORIENTATION) {
+                int value = u16(data, entry + 8, littleEndian);
+                return value >= 1 && value <= 8 ? value : NORMAL;
+            }
+        }
+        return NORMAL;
+    }
+
+    private static int u16(byte[] data, int pos, boolean littleEndian) {
+        int b0 = data[pos] & 0xFF;
+        int b1 = data[pos + 1] & 0xFF;
+        return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    private static long u32(byte[] data, int pos, boolean littleEndian) {
+        long high = u16(data, littleEndian ? pos + 2 : pos, littleEndian);
+        long low = u16(data, littleEndian ? pos : pos + 2, littleEndian);
+        return (high << 16) | low;
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.Map;
 
 /**
@@ -49,16 +50,30 @@ public class RiskChecklistController {
 
     /**
      * Cria um novo relatório de risco ocupacional e gera o PDF correspondente.
+     * Com {@code async=true} o relatório é salvo e a resposta volta na hora (202, pdfStatus PENDING);
+     * o PDF é gerado em segundo plano e o status é consultado em /documents/risk/{id}/pdf-status.
      *
      * @param dto DTO contendo os dados necessários para criar o relatório
+     * @param async Gera o PDF em segundo plano em vez de aguardar a renderização
      * @param authentication Objeto de autenticação contendo as informações do usuário atual
      * @return ResponseEntity contendo mensagem de sucesso e ID do relatório criado
      */
-    @Operation(summary = "Cria novo relatório", description = "Criação de um novo relatório de risco ocupacional e gera o PDF correspondente.")
+    @Operation(summary = "Cria novo relatório", description = "Criação de um novo relatório de risco ocupacional e gera o PDF correspondente. Com async=true o PDF é gerado em segundo plano.")
     @PostMapping
     @PreAuthorize("hasAuthority('CREATE_REPORTS') or hasRole('ADMIN')")
-    public ResponseEntity<?> create(@RequestBody SaveRiskReportRequestDTO dto, Authentication authentication) {
+    public ResponseEntity<?> create(@RequestBody SaveRiskReportRequestDTO dto,
+                                    @RequestParam(defaultValue = "false") boolean async,
+                                    Authentication authentication) {
         var user = ((CustomUserDetails) authentication.getPrincipal()).user();
+
+        if (async) {
+            OccupationalRiskReport report = service.createWithPendingPdf(dto, user);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/documents/risk/" + report.getId() + "/pdf-status"))
+                    .body(Map.of("message", "Criado com sucesso. O PDF está sendo gerado.", "id", report.getId(),
+                            "pdfStatus", report.getPdfStatus()));
+        }
+
         OccupationalRiskReport report = service.createAndGeneratePdf(dto, user);
 
         return ResponseEntity.ok(Map.of("message", "Criado com sucesso", "id", report.getId()));
@@ -19,8 +19,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 
@@ -47,18 +49,35 @@ public class TechnicalVisitController {
 
     /**
      * Cria uma nova visita técnica e gera o relatório PDF correspondente.
+     * Com {@code async=true} a visita é salva e a resposta volta na hora (202, pdfStatus PENDING);
+     * o PDF é gerado em segundo plano e o status é consultado em /documents/visit/{id}/pdf-status.
      * @param dto            Objeto contendo os dados necessários para criação da visita técnica
+     * @param async          Gera o PDF em segundo plano em vez de aguardar a renderização
      * @param authentication Informações de autenticação do técnico que está criando a visita
-     * @return ResponseEntity com status 201 (CREATED) contendo mensagem de sucesso e o ID da visita criada
+     * @return ResponseEntity com status 201 (CREATED), ou 202 (ACCEPTED) no modo assíncrono, contendo mensagem de sucesso e o ID da visita criada
      */
-    @Operation(summary = "Cria uma visita", description = "Criação de uma nova visita técnica.")
+    @Operation(summary = "Cria uma visita", description = "Criação de uma nova visita técnica. Com async=true o PDF é gerado em segundo plano.")
     @PostMapping
     @PreAuthorize("hasAuthority('CREATE_REPORTS') or hasRole('ADMIN')")
-    public ResponseEntity<?> createVisit(@RequestBody @Valid CreateTechnicalVisitRequestDTO dto, Authentication authentication) {
+    public ResponseEntity<?> createVisit(@RequestBody @Valid CreateTechnicalVisitRequestDTO dto,
+                                         @RequestParam(defaultValue = "false") boolean async,
+                                         Authentication authentication) {
         // Obtém os detalhes do utilizador autenticado de forma segura.
         CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
         User technician = userDetails.user();
 
+        if (async) {
+            TechnicalVisit createdVisit = technicalVisitService.createWithPendingPdf(dto, technician);
+            return ResponseEntity
+                    .accepted()
+                    .location(URI.create("/documents/visit/" + createdVisit.getId() + "/pdf-status"))
+                    .body(Map.of(
+                            "message", "Relatório de visita técnica criado com sucesso! O PDF está sendo gerado.",
+                            "visitId", createdVisit.getId(),
+                            "pdfStatus", createdVisit.getPdfStatus()
+                    ));
+        }
+
         // Delega toda a lógica de negócio (criação, geração de PDF, salvamento) para o serviço.
         TechnicalVisit createdVisit = technicalVisitService.createAndGeneratePdf(dto, technician);
 
@@ -0,0 +1,169 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.shared.exceptions.ServiceBusyException;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Geração de PDF em segundo plano para documentos salvos com status PENDING.
+ *
+ * <p>Fluxo: a requisição salva o documento e responde na hora; após o commit, o worker reserva o documento,
+ * monta o HTML numa transação somente-leitura curta, renderiza o PDF sem nenhuma conexão aberta e grava
+ * o resultado (READY) ou o erro (FAILED). O cliente acompanha por polling.</p>
+ * <ul>
+ *     <li>No máximo {@code report.async.workers} documentos em geração ao mesmo tempo nesta instância,
+ *     com fila limitada; o PDF em si ainda passa pelo {@link PdfRenderExecutor}.</li>
+ *     <li>Fila cheia, pool de renderização ocupado ou queda da instância não perdem o documento: ele continua
+ *     PENDING e a varredura periódica o coloca de volta na fila.</li>
+ *     <li>A reserva no banco impede que duas réplicas gerem o mesmo documento.</li>
+ * </ul>
+ */
+@Service
+public class AsyncPdfGenerationService {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncPdfGenerationService.class);
+
+    private static final int SWEEP_BATCH_SIZE = 50;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final ReportService reportService;
+    private final StorageService storageService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Map<String, AsyncPdfSource> sources = new HashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final Duration claimTimeout;
+    private final Duration sweepGrace;
+
+    public AsyncPdfGenerationService(ReportService reportService,
+                                     StorageService storageService,
+                                     PlatformTransactionManager transactionManager,
+                                     List<AsyncPdfSource> sourceBeans,
+                                     @Value("${report.async.workers:2}") int workers,
+                                     @Value("${report.async.queue-capacity:200}") int queueCapacity,
+                                     @Value("${report.async.claim-timeout-minutes:5}") long claimTimeoutMinutes,
+                                     @Value("${report.async.sweep-grace-seconds:60}") long sweepGraceSeconds) {
+        this.reportService = reportService;
+        this.storageService = storageService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.claimTimeout = Duration.ofMinutes(claimTimeoutMinutes);
+        this.sweepGrace = Duration.ofSeconds(sweepGraceSeconds);
+
+        for (AsyncPdfSource source : sourceBeans) {
+            if (sources.put(source.docType(), source) != null) {
+                throw new IllegalStateException("Mais de uma fonte de PDF assíncrono para " + source.docType());
+            }
+        }
+
+        int threads = Math.max(1, workers);
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "pdf-async-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Documentos em andamento ficam com a reserva vencida e são retomados pela varredura
+        executor.shutdownNow();
+    }
+
+    /**
+     * Coloca o documento na fila assim que a transação que o salvou é confirmada.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPdfRequested(PdfGenerationRequested event) {
+        enqueue(event.docType(), event.id());
+    }
+
+    /**
+     * Recupera documentos que ficaram PENDING sem ninguém gerando (reinício, fila cheia, pool ocupado).
+     */
+    @Scheduled(fixedDelayString = "${report.async.sweep-interval-ms:60000}",
+            initialDelayString = "${report.async.sweep-interval-ms:60000}")
+    public void sweepPending() {
+        LocalDateTime now = LocalDateTime.now();
+        for (AsyncPdfSource source : sources.values()) {
+            List<Long> pending = source.findPendingPdfs(now.minus(sweepGrace), now.minus(claimTimeout), SWEEP_BATCH_SIZE);
+            if (!pending.isEmpty()) {
+                log.info("Retomando {} PDF(s) pendente(s) do tipo '{}'.", pending.size(), source.docType());
+                pending.forEach(id -> enqueue(source.docType(), id));
+            }
+        }
+    }
+
+    private void enqueue(String docType, Long id) {
+        AsyncPdfSource source = sources.get(docType);
+        if (source == null) {
+            log.error("Tipo de documento sem geração assíncrona de PDF: {}", docType);
+            return;
+        }
+        try {
+            executor.execute(() -> generate(source, id));
+        } catch (RejectedExecutionException e) {
+            // Continua PENDING: a varredura tenta de novo
+            log.warn("Fila de geração de PDF cheia; {} #{} fica para a próxima varredura.", docType, id);
+        }
+    }
+
+    private void generate(AsyncPdfSource source, Long id) {
+        // Mesma precisão da coluna (microssegundos), para a comparação da reserva no banco bater
+        LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        if (!source.claimPdf(id, claimedAt, claimedAt.minus(claimTimeout))) {
+            return; // Já gerado, excluído ou em geração por outra execução
+        }
+
+        try {
+            // 1. HTML com as entidades ainda ligadas à sessão; a conexão é devolvida logo em seguida
+            String html = readOnlyTransaction.execute(status ->
+                    reportService.generateHtml(source.templateName(), source.buildPdfTemplateData(id)));
+
+            // 2. Renderização sem transação (ou o PDF já existente, se as entradas não mudaram)
+            String pdfKey = reportService.storePdfFromProcessedHtml(source.templateName(), html);
+
+            // 3. Marca como pronto
+            try {
+                source.completePdf(id, claimedAt, pdfKey);
+            } catch (RuntimeException e) {
+                storageService.release(pdfKey);
+                throw e;
+            }
+
+        } catch (ServiceBusyException e) {
+            log.warn("Pool de renderização ocupado; {} #{} volta para a fila.", source.docType(), id);
+            source.releasePdfClaim(id, claimedAt);
+        } catch (Exception e) {
+            log.error("Falha ao gerar o PDF de {} #{}", source.docType(), id, e);
+            source.failPdf(id, claimedAt, truncate(e.getMessage() != null ? e.getMessage() : e.toString()));
+        }
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,56 @@
+package com.gotree.API.modules.shared.application.services;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tipo de documento cujo PDF pode ser gerado em segundo plano (status PENDING → READY/FAILED).
+ * Cada implementação é um bean do Spring; o {@link AsyncPdfGenerationService} escolhe a correta pelo {@link #docType()}.
+ * <p>
+ * O valor de {@code claimedAt} identifica a execução que reservou o documento: as operações de conclusão só
+ * têm efeito se a reserva ainda for dela (outra réplica pode ter assumido um documento travado).
+ */
+public interface AsyncPdfSource {
+
+    /**
+     * Chave do tipo, a mesma do índice de documentos ("visit", "risk").
+     */
+    String docType();
+
+    String templateName();
+
+    /**
+     * Reserva o documento para geração, se ainda estiver PENDING e sem reserva válida.
+     *
+     * @param staleBefore reservas anteriores a este instante são consideradas abandonadas
+     * @return true se esta execução ficou com o documento
+     */
+    boolean claimPdf(Long id, LocalDateTime claimedAt, LocalDateTime staleBefore);
+
+    /**
+     * Dados do template. Chamado dentro de uma transação somente-leitura, junto com a montagem do HTML.
+     */
+    Map<String, Object> buildPdfTemplateData(Long id);
+
+    /**
+     * Aponta o documento para o PDF e o marca como READY.
+     *
+     * @param pdfKey chave do PDF no armazenamento, com uma referência já registrada: se o documento não aceitar
+     *               o resultado (reserva perdida, documento excluído), a implementação deve liberá-la
+     */
+    void completePdf(Long id, LocalDateTime claimedAt, String pdfKey);
+
+    void failPdf(Long id, LocalDateTime claimedAt, String error);
+
+    /**
+     * Devolve o documento à fila (continua PENDING), para uma nova tentativa.
+     */
+    void releasePdfClaim(Long id, LocalDateTime claimedAt);
+
+    /**
+     * Documentos PENDING solicitados antes de {@code requestedBefore} e sem reserva válida (queda da instância,
+     * fila local cheia).
+     */
+    List<Long> findPendingPdfs(LocalDateTime requestedBefore, LocalDateTime staleBefore, int limit);
+}
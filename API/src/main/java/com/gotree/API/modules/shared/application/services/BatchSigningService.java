@@ -0,0 +1,145 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import com.gotree.API.modules.shared.presentation.dto.BatchSignRequestDTO;
+import com.gotree.API.modules.shared.presentation.dto.BatchSignResultDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Assina digitalmente vários documentos do técnico em uma única requisição.
+ *
+ * <p>O certificado é lido e decifrado uma vez para o lote; cada documento é assinado em paralelo num pool
+ * próprio, limitado aos núcleos (se ele estiver ocupado, a thread da requisição faz o trabalho). Cada documento
+ * é independente: o PDF assinado é gravado (em streaming, de arquivo para arquivo) e só então o documento passa
+ * a apontar para ele, numa atualização condicional. Se o PDF mudou durante a assinatura, o resultado é
+ * descartado e o documento aparece como falha.</p>
+ */
+@Service
+public class BatchSigningService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchSigningService.class);
+
+    private final Map<String, SignablePdfSource> sources;
+    private final SigningMaterialCache signingMaterialCache;
+    private final DigitalSignatureService digitalSignatureService;
+    private final StorageService storageService;
+    private final int maxDocuments;
+    private final ThreadPoolExecutor executor;
+
+    public BatchSigningService(List<SignablePdfSource> sources,
+                               SigningMaterialCache signingMaterialCache,
+                               DigitalSignatureService digitalSignatureService,
+                               StorageService storageService,
+                               @Value("${signature.batch.threads:0}") int configuredThreads,
+                               @Value("${signature.batch.max-documents:100}") int maxDocuments) {
+        this.sources = sources.stream().collect(Collectors.toMap(SignablePdfSource::docType, Function.identity()));
+        this.signingMaterialCache = signingMaterialCache;
+        this.digitalSignatureService = digitalSignatureService;
+        this.storageService = storageService;
+        this.maxDocuments = maxDocuments;
+
+        int threads = configuredThreads > 0 ? configuredThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(threads * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "pdf-sign-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Assina os documentos pedidos (repetidos são assinados uma vez).
+     *
+     * @throws IllegalArgumentException se a lista estiver vazia ou passar do limite por requisição
+     * @throws IllegalStateException    se o usuário não tiver certificado configurado
+     */
+    public BatchSignResultDTO sign(List<BatchSignRequestDTO.Item> documents, User signer) {
+        if (documents == null || documents.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um documento.");
+        }
+
+        Map<String, BatchSignRequestDTO.Item> unique = new LinkedHashMap<>();
+        for (BatchSignRequestDTO.Item item : documents) {
+            String type = item.getType() != null ? item.getType().toLowerCase(Locale.ROOT) : null;
+            unique.putIfAbsent(type + ":" + item.getId(), item);
+        }
+        if (unique.size() > maxDocuments) {
+            throw new IllegalArgumentException("Limite de " + maxDocuments + " documentos por assinatura em lote.");
+        }
+
+        long start = System.nanoTime();
+        SigningMaterialCache.SigningMaterial material = signingMaterialCache.get(signer);
+
+        List<CompletableFuture<BatchSignResultDTO.Item>> futures = new ArrayList<>(unique.size());
+        for (BatchSignRequestDTO.Item item : unique.values()) {
+            String type = item.getType() != null ? item.getType().toLowerCase(Locale.ROOT) : null;
+            futures.add(CompletableFuture
+                    .supplyAsync(() -> signOne(type, item.getId(), signer, material), executor)
+                    .exceptionally(e -> failed(type, item.getId(), e)));
+        }
+
+        List<BatchSignResultDTO.Item> results = futures.stream().map(CompletableFuture::join).toList();
+        int signed = (int) results.stream().filter(BatchSignResultDTO.Item::isSigned).count();
+
+        logger.info("Assinatura em lote do usuário {}: {} assinado(s), {} com falha, em {} ms.",
+                signer.getId(), signed, results.size() - signed, (System.nanoTime() - start) / 1_000_000);
+        return new BatchSignResultDTO(signed, results.size() - signed, results);
+    }
+
+    private BatchSignResultDTO.Item signOne(String type, Long id, User signer, SigningMaterialCache.SigningMaterial material) {
+        SignablePdfSource source = type != null ? sources.get(type) : null;
+        if (source == null) {
+            return new BatchSignResultDTO.Item(type, id, false, "Tipo de documento não pode ser assinado: " + type);
+        }
+
+        String originalKey = source.pdfKeyForSigning(id, signer);
+        String signedKey = storageService.storeTransformed(originalKey, "pdf",
+                (pdf, target) -> digitalSignatureService.signPdf(pdf, target, material));
+        boolean applied;
+        try {
+            applied = source.completeSignature(id, originalKey, signedKey);
+        } catch (RuntimeException e) {
+            storageService.release(signedKey);
+            throw e;
+        }
+        if (!applied) {
+            return new BatchSignResultDTO.Item(type, id, false, "O documento foi alterado durante a assinatura. Tente novamente.");
+        }
+        return new BatchSignResultDTO.Item(type, id, true, null);
+    }
+
+    private static BatchSignResultDTO.Item failed(String type, Long id, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (!(cause instanceof SecurityException) && !(cause instanceof IllegalStateException)) {
+            logger.error("Falha ao assinar o documento {} {}: {}", type, id, cause.getMessage(), cause);
+        }
+        return new BatchSignResultDTO.Item(type, id, false, cause.getMessage());
+    }
+}
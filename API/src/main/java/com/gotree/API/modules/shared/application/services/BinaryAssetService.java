@@ -0,0 +1,104 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.shared.domain.entities.BinaryAsset;
+import com.gotree.API.modules.shared.infrastructure.repositories.BinaryAssetRepository;
+import com.gotree.API.modules.shared.utils.ImageFormat;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Armazena e recupera imagens pequenas (assinaturas, logo) na tabela tb_binary_asset.
+ * O front continua enviando base64; aqui ele é decodificado uma única vez e persistido como bytes.
+ */
+@Service
+public class BinaryAssetService {
+
+    private static final String UNKNOWN_TYPE = "application/octet-stream";
+
+    private final BinaryAssetRepository binaryAssetRepository;
+
+    public BinaryAssetService(BinaryAssetRepository binaryAssetRepository) {
+        this.binaryAssetRepository = binaryAssetRepository;
+    }
+
+    /**
+     * Salva uma imagem recebida em base64 (com ou sem prefixo data URL). O tipo vem do próprio conteúdo
+     * ({@link ImageFormat}); sem um formato reconhecido, vale o tipo declarado no data URL ou, na falta dele,
+     * {@code application/octet-stream}.
+     *
+     * @return ID do novo registro, ou null se o base64 estiver vazio
+     * @throws IllegalArgumentException se o conteúdo não for um base64 válido
+     */
+    @Transactional
+    public Long storeBase64Image(String base64OrDataUrl) {
+        if (base64OrDataUrl == null || base64OrDataUrl.isBlank()) return null;
+
+        String declaredType = null;
+        String payload = base64OrDataUrl;
+
+        int commaIndex = base64OrDataUrl.indexOf(',');
+        if (base64OrDataUrl.startsWith("data:") && commaIndex != -1) {
+            // Ex: data:image/jpeg;base64,...
+            String header = base64OrDataUrl.substring(5, commaIndex);
+            int semicolon = header.indexOf(';');
+            String type = semicolon != -1 ? header.substring(0, semicolon) : header;
+            if (!type.isBlank()) declaredType = type;
+            payload = base64OrDataUrl.substring(commaIndex + 1);
+        }
+
+        byte[] bytes;
+        try {
+            bytes = Base64.getMimeDecoder().decode(payload);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Imagem em base64 inválida.");
+        }
+
+        return store(bytes, ImageFormat.detect(bytes).map(ImageFormat::contentType).orElse(declaredType));
+    }
+
+    @Transactional
+    public Long store(byte[] content, String contentType) {
+        BinaryAsset asset = new BinaryAsset();
+        asset.setContent(content);
+        asset.setContentType(contentType != null ? contentType : UNKNOWN_TYPE);
+        asset.setSizeBytes(content.length);
+        asset.setCreatedAt(LocalDateTime.now());
+        return binaryAssetRepository.save(asset).getId();
+    }
+
+    /**
+     * Substitui um arquivo existente por um novo, apagando o antigo.
+     * O chamador deve gravar o ID retornado antes do commit (a FK impede apagar um arquivo ainda referenciado).
+     */
+    @Transactional
+    public Long replaceBase64Image(Long currentId, String base64OrDataUrl) {
+        Long newId = storeBase64Image(base64OrDataUrl);
+        if (newId != null && currentId != null) {
+            binaryAssetRepository.deleteById(currentId);
+        }
+        return newId != null ? newId : currentId;
+    }
+
+    @Transactional(readOnly = true)
+    public byte[] load(Long id) {
+        if (id == null) return null;
+        return binaryAssetRepository.findById(id).map(BinaryAsset::getContent).orElse(null);
+    }
+
+    /**
+     * Conteúdo em base64 puro (sem prefixo), no formato esperado pelos templates HTML dos PDFs.
+     */
+    @Transactional(readOnly = true)
+    public String loadAsBase64(Long id) {
+        byte[] content = load(id);
+        return content != null ? Base64.getEncoder().encodeToString(content) : null;
+    }
+
+    @Transactional
+    public void delete(Long id) {
+        if (id != null) binaryAssetRepository.deleteById(id);
+    }
+}
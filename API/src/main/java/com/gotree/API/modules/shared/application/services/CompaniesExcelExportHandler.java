@@ -0,0 +1,49 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.shared.domain.enums.ExportJobType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Planilha de empresas, unidades e setores (mesmo conteúdo de GET /import/export).
+ */
+@Component
+public class CompaniesExcelExportHandler implements ExportJobHandler {
+
+    private final ExcelService excelService;
+
+    public CompaniesExcelExportHandler(ExcelService excelService) {
+        this.excelService = excelService;
+    }
+
+    @Override
+    public ExportJobType type() {
+        return ExportJobType.COMPANIES_EXCEL;
+    }
+
+    @Override
+    public String filename(Map<String, String> parameters) {
+        return "empresas_exportadas.xlsx";
+    }
+
+    @Override
+    public String contentType() {
+        return "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    }
+
+    @Override
+    public String extension() {
+        return "xlsx";
+    }
+
+    @Override
+    public void write(Map<String, String> parameters, OutputStream out, ExportProgress progress) throws IOException {
+        // Planilha gerada de uma vez: o progresso só marca início e fim
+        progress.update(0, 1);
+        excelService.writeCompaniesExcel(out);
+        progress.update(1, 1);
+    }
+}
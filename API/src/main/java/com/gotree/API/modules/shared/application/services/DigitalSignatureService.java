@@ -1,7 +1,7 @@
 package com.gotree.API.modules.shared.application.services;
 
 import com.gotree.API.modules.iam.domain.entities.User;
-import com.gotree.API.modules.iam.application.services.SymmetricCryptoService;
+import com.lowagie.text.DocumentException;
 import com.lowagie.text.Image;
 import com.lowagie.text.Rectangle;
 import com.lowagie.text.pdf.BaseFont;
@@ -9,142 +9,133 @@ import com.lowagie.text.pdf.PdfReader;
 import com.lowagie.text.pdf.PdfSignatureAppearance;
 import com.lowagie.text.pdf.PdfStamper;
 import com.lowagie.text.pdf.PdfTemplate;
+import com.lowagie.text.pdf.RandomAccessFileOrArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
-import javax.naming.ldap.LdapName;
-import javax.naming.ldap.Rdn;
-import java.io.ByteArrayOutputStream;
-import java.io.FileInputStream;
 import java.io.InputStream;
-import java.security.KeyStore;
-import java.security.PrivateKey;
-import java.security.cert.Certificate;
-import java.security.cert.X509Certificate;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
 
+/**
+ * Assinatura ICP-Brasil (PKCS#7 destacado) com carimbo visível na última página.
+ * <p>
+ * A chave e a cadeia vêm do {@link SigningMaterialCache}; o selo e a fonte do carimbo são carregados uma única
+ * vez e compartilhados (somente leitura). Cada assinatura faz apenas o trabalho do PDF e da criptografia.
+ */
 @Service
 public class DigitalSignatureService {
 
-    private final SymmetricCryptoService cryptoService;
+    private static final Logger logger = LoggerFactory.getLogger(DigitalSignatureService.class);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
 
-    public DigitalSignatureService(SymmetricCryptoService cryptoService) {
-        this.cryptoService = cryptoService;
-    }
+    private final SigningMaterialCache signingMaterialCache;
+    // Selo decodificado uma vez; cada assinatura usa uma cópia (posição e escala são por documento)
+    private final Image stampTemplate;
+    private final BaseFont stampFont;
 
-    public byte[] signPdf(byte[] originalPdfBytes, User signer) {
-        if (signer.getCertificatePath() == null || signer.getCertificatePassword() == null) {
-            throw new IllegalStateException("Usuário não possui certificado digital configurado.");
+    public DigitalSignatureService(SigningMaterialCache signingMaterialCache) {
+        this.signingMaterialCache = signingMaterialCache;
+        this.stampTemplate = loadStamp();
+        try {
+            this.stampFont = BaseFont.createFont(BaseFont.HELVETICA, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
+        } catch (Exception e) {
+            throw new IllegalStateException("Fonte do carimbo de assinatura indisponível.", e);
         }
+    }
 
-        char[] passwordChars = null;
+    public void signPdf(Path source, Path target, User signer) {
+        signPdf(source, target, signingMaterialCache.get(signer));
+    }
 
+    /**
+     * Assinatura em streaming, usada pelos endpoints de assinatura e pela assinatura em lote (com um material já
+     * carregado: a chave é lida uma vez para todos os documentos; pode ser chamado de várias threads ao mesmo tempo). O PDF de {@code source} é lido sob demanda
+     * (só a tabela de referências e os objetos necessários vão para a memória) e o documento assinado é gravado
+     * em {@code target} como atualização incremental: os bytes originais são copiados como estão e a assinatura
+     * é acrescentada ao final, preservando assinaturas anteriores. O heap usado não depende do tamanho do PDF.
+     *
+     * @param target arquivo de destino (sobrescrito); deve estar num diretório de trabalho, não no armazenamento
+     */
+    public void signPdf(Path source, Path target, SigningMaterialCache.SigningMaterial material) {
+        PdfReader reader = null;
         try {
-            // 1. Extração da senha e isolamento em char[] (LGPD/Segurança)
-            String decryptedPassword = cryptoService.decrypt(signer.getCertificatePassword());
-            passwordChars = decryptedPassword.toCharArray();
-
-            KeyStore ks = KeyStore.getInstance("PKCS12");
-            try (FileInputStream fis = new FileInputStream(signer.getCertificatePath())) {
-                ks.load(fis, passwordChars);
-            }
-
-            String alias = ks.aliases().nextElement();
-            PrivateKey pk = (PrivateKey) ks.getKey(alias, passwordChars);
-            Certificate[] chain = ks.getCertificateChain(alias);
-
-            // --- 🚨 DIAGNÓSTICO CRÍTICO DA CADEIA ---
-            System.out.println("Tamanho da cadeia lida do .pfx: " + chain.length);
-            if (chain.length == 1) {
-                System.err.println("ALERTA: O seu arquivo .pfx não contém a cadeia completa (Raiz e Intermediária). A assinatura terá uma interrogação no Adobe!");
-            }
-
-            X509Certificate x509Cert = (X509Certificate) chain[0];
-            String subjectName = extractCommonName(x509Cert);
-
-            PdfReader reader = new PdfReader(originalPdfBytes);
-            ByteArrayOutputStream os = new ByteArrayOutputStream();
-            PdfStamper stamper = PdfStamper.createSignature(reader, os, '\0');
-
-            PdfSignatureAppearance appearance = stamper.getSignatureAppearance();
-
-            // 2. WINCER_SIGNED é o padrão para PKCS#7 Detached no OpenPDF
-            appearance.setCrypto(pk, chain, null, PdfSignatureAppearance.WINCER_SIGNED);
-            appearance.setReason("Validação Digital ICP-Brasil");
-            appearance.setLocation("Brasil");
-
-            // 3. Renderização Visual da Caixa de Assinatura
-            int totalPages = reader.getNumberOfPages();
-            Rectangle signatureRect = new Rectangle(20, 20, 575, 110);
-            appearance.setVisibleSignature(signatureRect, totalPages, "sig_icp_" + System.currentTimeMillis());
-
-            PdfTemplate layer = appearance.getLayer(2);
-            float rectHeight = signatureRect.getHeight();
-            float imageWidth = 5;
-
-            try {
-                ClassPathResource imgResource = new ClassPathResource("images/stamp_icp.png");
-                if (imgResource.exists()) {
-                    try (InputStream is = imgResource.getInputStream()) {
-                        Image img = Image.getInstance(is.readAllBytes());
-                        float imgSize = rectHeight - 10;
-                        img.scaleToFit(imgSize, imgSize);
-                        img.setAbsolutePosition(5, (rectHeight - img.getScaledHeight()) / 2);
-                        layer.addImage(img);
-                        imageWidth = img.getScaledWidth() + 25;
-                    }
-                }
-            } catch (Exception ignored) {}
-
-            String data = LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss"));
-            BaseFont bf = BaseFont.createFont(BaseFont.HELVETICA, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
-
-            layer.beginText();
-            layer.setFontAndSize(bf, 10);
-            layer.setRGBColorFill(0, 0, 0);
-
-            float middleY = rectHeight / 2;
-            float lineHeight = 15;
-
-            String nomeFormatado = subjectName.replace(":", " - Doc: ");
-            layer.setTextMatrix(imageWidth, middleY + lineHeight);
-            layer.showText("Assinado digitalmente por: " + nomeFormatado);
-
-            layer.setTextMatrix(imageWidth, middleY);
-            layer.showText("Data da Assinatura: " + data);
-
-            layer.setTextMatrix(imageWidth, middleY - lineHeight);
-            layer.setRGBColorFill(100, 100, 100);
-            layer.showText("Verifique a autenticidade em: https://validar.iti.gov.br.");
-            layer.endText();
-
+            reader = new PdfReader(new RandomAccessFileOrArray(source.toString(), false, true), null);
+            // Sem stream de saída: o OpenPDF monta o resultado direto no arquivo e lá ele fica
+            PdfStamper stamper = PdfStamper.createSignature(reader, null, '\0', target.toFile(), true);
+            applySignature(stamper, reader.getNumberOfPages(), material);
             stamper.close();
-            return os.toByteArray();
 
         } catch (Exception e) {
             throw new RuntimeException("Erro ao processar assinatura: " + e.getMessage(), e);
         } finally {
-            // Limpa a senha da memória (proteção contra memory dumps)
-            if (passwordChars != null) {
-                Arrays.fill(passwordChars, '0');
+            if (reader != null) {
+                reader.close();
             }
         }
     }
 
-    private String extractCommonName(X509Certificate cert) {
-        try {
-            String dn = cert.getSubjectX500Principal().getName();
-            LdapName ldapDN = new LdapName(dn);
-            for (Rdn rdn : ldapDN.getRdns()) {
-                if (rdn.getType().equalsIgnoreCase("CN")) {
-                    return rdn.getValue().toString();
-                }
-            }
-            return "Desconhecido";
+    private void applySignature(PdfStamper stamper, int totalPages, SigningMaterialCache.SigningMaterial material)
+            throws DocumentException {
+        PdfSignatureAppearance appearance = stamper.getSignatureAppearance();
+
+        // WINCER_SIGNED é o padrão para PKCS#7 Detached no OpenPDF
+        appearance.setCrypto(material.privateKey(), material.chainCopy(), null, PdfSignatureAppearance.WINCER_SIGNED);
+        appearance.setReason("Validação Digital ICP-Brasil");
+        appearance.setLocation("Brasil");
+
+        // Renderização Visual da Caixa de Assinatura
+        Rectangle signatureRect = new Rectangle(20, 20, 575, 110);
+        appearance.setVisibleSignature(signatureRect, totalPages, "sig_icp_" + System.currentTimeMillis());
+
+        PdfTemplate layer = appearance.getLayer(2);
+        float rectHeight = signatureRect.getHeight();
+        float imageWidth = 5;
+
+        if (stampTemplate != null) {
+            Image img = Image.getInstance(stampTemplate);
+            float imgSize = rectHeight - 10;
+            img.scaleToFit(imgSize, imgSize);
+            img.setAbsolutePosition(5, (rectHeight - img.getScaledHeight()) / 2);
+            layer.addImage(img);
+            imageWidth = img.getScaledWidth() + 25;
+        }
+
+        String data = LocalDateTime.now().format(DATE_FORMAT);
+
+        layer.beginText();
+        layer.setFontAndSize(stampFont, 10);
+        layer.setRGBColorFill(0, 0, 0);
+
+        float middleY = rectHeight / 2;
+        float lineHeight = 15;
+
+        String nomeFormatado = material.subjectName().replace(":", " - Doc: ");
+        layer.setTextMatrix(imageWidth, middleY + lineHeight);
+        layer.showText("Assinado digitalmente por: " + nomeFormatado);
+
+        layer.setTextMatrix(imageWidth, middleY);
+        layer.showText("Data da Assinatura: " + data);
+
+        layer.setTextMatrix(imageWidth, middleY - lineHeight);
+        layer.setRGBColorFill(100, 100, 100);
+        layer.showText("Verifique a autenticidade em: https://validar.iti.gov.br.");
+        layer.endText();
+    }
+
+    private static Image loadStamp() {
+        ClassPathResource imgResource = new ClassPathResource("images/stamp_icp.png");
+        if (!imgResource.exists()) {
+            return null;
+        }
+        try (InputStream is = imgResource.getInputStream()) {
+            return Image.getInstance(is.readAllBytes());
         } catch (Exception e) {
-            return "Assinatura Digital ICP-Brasil";
+            logger.warn("Selo do carimbo de assinatura não carregado: {}", e.getMessage());
+            return null;
         }
     }
-}
\ No newline at end of file
+}
@@ -7,37 +7,42 @@ import com.gotree.API.modules.operations.application.services.TechnicalVisitServ
 import com.gotree.API.modules.operations.infrastructure.repositories.AepReportRepository;
 import com.gotree.API.modules.operations.infrastructure.repositories.OccupationalRiskReportRepository;
 import com.gotree.API.modules.operations.infrastructure.repositories.TechnicalVisitRepository;
+import com.gotree.API.modules.customer.infrastructure.repositories.ClientRepository;
+import com.gotree.API.modules.shared.domain.entities.DocumentIndexId;
+import com.gotree.API.modules.shared.exceptions.ResourceNotFoundException;
+import com.gotree.API.modules.shared.infrastructure.repositories.DocumentIndexRepository;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import com.gotree.API.modules.shared.presentation.dto.DocumentCursorPageDTO;
 import com.gotree.API.modules.shared.presentation.dto.DocumentSummaryDTO;
-import com.gotree.API.modules.shared.presentation.dto.FileDownloadDTO;
+import com.gotree.API.modules.shared.presentation.dto.DocumentFileDTO;
+import com.gotree.API.modules.shared.presentation.dto.DocumentPdfStatusDTO;
+import com.gotree.API.modules.shared.utils.DocumentFilenameBuilder;
 import com.gotree.API.modules.operations.domain.entities.AepReport;
 import com.gotree.API.modules.customer.domain.entities.Client;
-import com.gotree.API.modules.administration.domain.entities.Company;
 import com.gotree.API.modules.operations.domain.entities.OccupationalRiskReport;
 import com.gotree.API.modules.operations.domain.entities.TechnicalVisit;
-import com.gotree.API.modules.shared.infrastructure.providers.EmailService;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.Base64;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 @Service
 public class DocumentAggregationService {
@@ -45,25 +50,41 @@ public class DocumentAggregationService {
     private final TechnicalVisitRepository technicalVisitRepository;
     private final TechnicalVisitService technicalVisitService;
     private final AepService aepService;
-    private final EmailService emailService;
+    private final EmailOutboxService emailOutboxService;
     private final AepReportRepository aepReportRepository;
     private final RiskChecklistService riskChecklistService;
     private final OccupationalRiskReportRepository riskReportRepository;
-
-    @Value("${file.storage.path}")
-    private String fileStoragePath;
+    private final DocumentIndexRepository documentIndexRepository;
+    private final ClientRepository clientRepository;
+    private final DocumentZipExportService documentZipExportService;
+    private final StorageService storageService;
+    // Cópia interna dos relatórios enviados aos clientes (mensagem própria; vazio = sem cópia)
+    private final List<String> supportCopy;
+
+    // Chave inicial do cursor: maior que qualquer documento real (ordem decrescente)
+    private static final LocalDate CURSOR_START_DATE = LocalDate.of(9999, 12, 31);
+    private static final String CURSOR_START_TYPE = "zzzz";
+    private static final int MAX_CURSOR_PAGE_SIZE = 200;
 
     public DocumentAggregationService(TechnicalVisitRepository technicalVisitRepository,
                                       TechnicalVisitService technicalVisitService,
-                                      AepService aepService, EmailService emailService, AepReportRepository aepReportRepository,
-                                      RiskChecklistService riskChecklistService, OccupationalRiskReportRepository riskReportRepository) {
+                                      AepService aepService, EmailOutboxService emailOutboxService, AepReportRepository aepReportRepository,
+                                      RiskChecklistService riskChecklistService, OccupationalRiskReportRepository riskReportRepository,
+                                      DocumentIndexRepository documentIndexRepository, ClientRepository clientRepository,
+                                      DocumentZipExportService documentZipExportService, StorageService storageService,
+                                      @Value("${email.report.support-copy:}") String supportCopy) {
         this.technicalVisitRepository = technicalVisitRepository;
         this.technicalVisitService = technicalVisitService;
         this.aepService = aepService;
-        this.emailService = emailService;
+        this.emailOutboxService = emailOutboxService;
         this.aepReportRepository = aepReportRepository;
         this.riskChecklistService = riskChecklistService;
         this.riskReportRepository = riskReportRepository;
+        this.documentIndexRepository = documentIndexRepository;
+        this.clientRepository = clientRepository;
+        this.documentZipExportService = documentZipExportService;
+        this.storageService = storageService;
+        this.supportCopy = supportCopy.isBlank() ? List.of() : List.of(supportCopy.trim().split("\\s*,\\s*"));
     }
 
     // ===================================================================================
@@ -72,6 +93,7 @@ public class DocumentAggregationService {
 
     /**
      * TÉCNICO: Recupera documentos COM filtros e paginação.
+     * Filtro, ordenação e paginação são feitos no banco (view vw_document_index).
      */
     @Transactional(readOnly = true)
     public Page<DocumentSummaryDTO> findAllDocumentsForUser(
@@ -80,11 +102,7 @@ public class DocumentAggregationService {
             LocalDate startDate, LocalDate endDate,
             Pageable pageable
     ) {
-        // 1. Busca dados específicos do técnico
-        List<DocumentSummaryDTO> rawDocs = fetchRawDocumentsByTechnician(technician);
-
-        // 2. Aplica a lógica comum de filtro/paginação
-        return processDocumentList(rawDocs, typeFilter, clientFilter, startDate, endDate, pageable);
+        return searchDocumentIndex(technician.getId(), typeFilter, clientFilter, startDate, endDate, pageable);
     }
 
     /**
@@ -96,22 +114,33 @@ public class DocumentAggregationService {
             LocalDate startDate, LocalDate endDate,
             Pageable pageable
     ) {
-        // 1. Busca dados globais
-        List<DocumentSummaryDTO> rawDocs = fetchRawDocumentsGlobal();
+        return searchDocumentIndex(null, typeFilter, clientFilter, startDate, endDate, pageable);
+    }
 
-        // 2. Aplica a MESMA lógica comum
-        return processDocumentList(rawDocs, typeFilter, clientFilter, startDate, endDate, pageable);
+    /**
+     * TÉCNICO: Paginação por cursor (keyset) sobre (data, tipo, id).
+     * O custo de cada página independe da profundidade, ao contrário do page/size.
+     */
+    @Transactional(readOnly = true)
+    public DocumentCursorPageDTO findDocumentsForUserAfter(
+            User technician,
+            String typeFilter, String clientFilter,
+            LocalDate startDate, LocalDate endDate,
+            String cursor, int size
+    ) {
+        return searchDocumentIndexAfter(technician.getId(), typeFilter, clientFilter, startDate, endDate, cursor, size);
     }
 
     /**
-     * DASHBOARD: Retorna a LISTA COMPLETA ordenada (sem paginação).
+     * ADMIN: Paginação por cursor (keyset) sobre todos os documentos do sistema.
      */
     @Transactional(readOnly = true)
-    public List<DocumentSummaryDTO> findAllDocumentsListForUser(User technician) {
-        List<DocumentSummaryDTO> docs = fetchRawDocumentsByTechnician(technician);
-        // Apenas ordena
-        docs.sort(Comparator.comparing(DocumentSummaryDTO::getCreationDate, Comparator.nullsLast(Comparator.reverseOrder())));
-        return docs;
+    public DocumentCursorPageDTO findDocumentsGlobalAfter(
+            String typeFilter, String clientFilter,
+            LocalDate startDate, LocalDate endDate,
+            String cursor, int size
+    ) {
+        return searchDocumentIndexAfter(null, typeFilter, clientFilter, startDate, endDate, cursor, size);
     }
 
     /**
@@ -119,144 +148,182 @@ public class DocumentAggregationService {
      */
     @Transactional(readOnly = true)
     public List<DocumentSummaryDTO> findLatestDocumentsForUser(User technician) {
-        List<DocumentSummaryDTO> docs = fetchRawDocumentsByTechnician(technician);
-        docs.sort(Comparator.comparing(DocumentSummaryDTO::getCreationDate, Comparator.nullsLast(Comparator.reverseOrder())));
-        return docs.stream().limit(5).collect(Collectors.toList());
+        return findLatestDocuments(technician.getId());
     }
 
     @Transactional(readOnly = true)
     public List<DocumentSummaryDTO> findAllLatestDocumentsForAdmin() {
-        List<DocumentSummaryDTO> docs = fetchRawDocumentsGlobal();
-        docs.sort(Comparator.comparing(DocumentSummaryDTO::getCreationDate, Comparator.nullsLast(Comparator.reverseOrder())));
-        return docs.stream().limit(5).collect(Collectors.toList());
+        return findLatestDocuments(null);
     }
 
     // ===================================================================================
-    // 2. FETCHERS (Busca de Dados Brutos)
+    // 2. ÍNDICE DE DOCUMENTOS (Filtro, Ordenação e Paginação no Banco)
     // ===================================================================================
 
-    private List<DocumentSummaryDTO> fetchRawDocumentsByTechnician(User technician) {
-        List<DocumentSummaryDTO> visits = technicalVisitRepository.findAllWithCompanyByTechnician(technician)
-                .stream().map(this::mapVisitToSummaryDto).toList();
-
-        List<DocumentSummaryDTO> aeps = aepReportRepository.findAllByEvaluator(technician)
-                .stream().map(this::mapAepToSummaryDto).toList();
-
-        List<DocumentSummaryDTO> risks = riskReportRepository.findByTechnicianOrderByInspectionDateDesc(technician)
-                .stream().map(this::mapRiskToSummaryDto).toList();
-
-        return Stream.of(visits, aeps, risks)
-                .flatMap(List::stream)
-                .collect(Collectors.toList());
-    }
-
-    private List<DocumentSummaryDTO> fetchRawDocumentsGlobal() {
-        List<DocumentSummaryDTO> visits = technicalVisitRepository.findAll()
-                .stream().map(this::mapVisitToSummaryDto).toList();
+    private Page<DocumentSummaryDTO> searchDocumentIndex(
+            Long technicianId,
+            String typeFilter, String clientFilter,
+            LocalDate startDate, LocalDate endDate,
+            Pageable pageable
+    ) {
+        String docType = normalizeTypeFilter(typeFilter);
+        if (docType != null && docType.isEmpty()) {
+            // Tipo desconhecido: mantém o comportamento antigo (nenhum resultado)
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
 
-        List<DocumentSummaryDTO> aeps = aepReportRepository.findAll()
-                .stream().map(this::mapAepToSummaryDto).toList();
+        // A ordenação é fixa no repositório; ignora qualquer sort vindo da URL
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
 
-        List<DocumentSummaryDTO> risks = riskReportRepository.findAll()
-                .stream().map(this::mapRiskToSummaryDto).toList();
+        Page<DocumentIndexRepository.DocumentSummaryRow> page = documentIndexRepository.searchSummaries(
+                technicianId, docType, toClientPattern(clientFilter), startDate, endDate, unsorted);
 
-        return Stream.of(visits, aeps, risks)
-                .flatMap(List::stream)
-                .collect(Collectors.toList());
+        return new PageImpl<>(mapIndexEntries(page.getContent()), pageable, page.getTotalElements());
     }
 
-    // ===================================================================================
-    // 3. PROCESSOR (Lógica Centralizada de Filtro e Paginação)
-    // ===================================================================================
-
-    private Page<DocumentSummaryDTO> processDocumentList(
-            List<DocumentSummaryDTO> allDocuments,
+    private DocumentCursorPageDTO searchDocumentIndexAfter(
+            Long technicianId,
             String typeFilter, String clientFilter,
             LocalDate startDate, LocalDate endDate,
-            Pageable pageable
+            String cursor, int size
     ) {
-        Stream<DocumentSummaryDTO> stream = allDocuments.stream();
-
-        // 1. Filtro por TIPO
-        if (typeFilter != null && !typeFilter.isBlank()) {
-            final String typeInput = typeFilter.trim();
-            stream = stream.filter(doc -> {
-                if ("visit".equalsIgnoreCase(typeInput)) return "Relatório de Visita".equals(doc.getDocumentType());
-                if ("aep".equalsIgnoreCase(typeInput)) return "Avaliação Ergonômica Preliminar".equals(doc.getDocumentType());
-                if ("risk".equalsIgnoreCase(typeInput)) return "Checklist de Riscos".equals(doc.getDocumentType());
-                return false;
-            });
+        String docType = normalizeTypeFilter(typeFilter);
+        if (docType != null && docType.isEmpty()) {
+            return new DocumentCursorPageDTO(Collections.emptyList(), null, false);
         }
 
-        // 2. Filtro por NOME DO CLIENTE
-        if (clientFilter != null && !clientFilter.isBlank()) {
-            String filter = clientFilter.toLowerCase().trim();
-            stream = stream.filter(doc ->
-                    doc.getClientName() != null &&
-                            doc.getClientName().toLowerCase().contains(filter)
-            );
-        }
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
 
-        // 3. Filtro por DATA
-        if (startDate != null) {
-            stream = stream.filter(doc -> doc.getCreationDate() != null && !doc.getCreationDate().isBefore(startDate));
-        }
-        if (endDate != null) {
-            stream = stream.filter(doc -> doc.getCreationDate() != null && !doc.getCreationDate().isAfter(endDate));
-        }
+        LocalDate afterDate = CURSOR_START_DATE;
+        String afterType = CURSOR_START_TYPE;
+        Long afterId = Long.MAX_VALUE;
 
-        // 4. Coleta e Ordena
-        List<DocumentSummaryDTO> filteredList = stream.sorted(Comparator.comparing(DocumentSummaryDTO::getCreationDate, Comparator.nullsLast(Comparator.reverseOrder()))).collect(Collectors.toList());
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            afterDate = LocalDate.parse(parts[0]);
+            afterType = parts[1];
+            afterId = Long.parseLong(parts[2]);
+        }
 
-        // 5. Paginação Manual
-        long totalElements = filteredList.size();
-        int pageSize = pageable.getPageSize();
-        int currentPage = pageable.getPageNumber();
-        int startItem = currentPage * pageSize;
+        // Busca um item a mais para saber se existe próxima página
+        List<DocumentIndexRepository.DocumentSummaryRow> rows = documentIndexRepository.searchSummariesAfter(
+                technicianId, docType, toClientPattern(clientFilter), startDate, endDate,
+                afterDate, afterType, afterId, PageRequest.of(0, pageSize + 1));
 
-        List<DocumentSummaryDTO> paginatedList;
+        boolean hasNext = rows.size() > pageSize;
+        List<DocumentIndexRepository.DocumentSummaryRow> pageRows = hasNext ? rows.subList(0, pageSize) : rows;
 
-        if (startItem >= totalElements) {
-            paginatedList = Collections.emptyList();
-        } else {
-            int toIndex = Math.min(startItem + pageSize, (int) totalElements);
-            paginatedList = filteredList.subList(startItem, toIndex);
+        String nextCursor = null;
+        if (hasNext) {
+            DocumentIndexRepository.DocumentSummaryRow last = pageRows.get(pageRows.size() - 1);
+            nextCursor = encodeCursor(last);
         }
 
-        return new PageImpl<>(paginatedList, pageable, totalElements);
+        return new DocumentCursorPageDTO(mapIndexEntries(pageRows), nextCursor, hasNext);
     }
 
-    // ===================================================================================
-    // 4. MÉTODOS DE ARQUIVO E DELEÇÃO (Mantidos iguais)
-    // ===================================================================================
+    private List<DocumentSummaryDTO> findLatestDocuments(Long technicianId) {
+        List<DocumentIndexRepository.DocumentSummaryRow> rows = documentIndexRepository.searchSummariesAfter(
+                technicianId, null, null, null, null,
+                CURSOR_START_DATE, CURSOR_START_TYPE, Long.MAX_VALUE, PageRequest.of(0, 5));
+        return mapIndexEntries(rows);
+    }
 
-    public byte[] loadPdfFileByTypeAndId(String type, Long id, User currentUser) throws IOException {
-        String fileName = null;
-        byte[] pdfBytes = null;
+    /**
+     * Converte o filtro de tipo da URL para a chave da view.
+     * Retorna null quando não há filtro e "" quando o tipo é desconhecido.
+     */
+    private String normalizeTypeFilter(String typeFilter) {
+        if (typeFilter == null || typeFilter.isBlank()) return null;
+        String typeInput = typeFilter.trim().toLowerCase();
+        return switch (typeInput) {
+            case "visit", "aep", "risk" -> typeInput;
+            default -> "";
+        };
+    }
 
-        if ("visit".equalsIgnoreCase(type)) {
-            TechnicalVisit visit = technicalVisitRepository.findById(id)
-                    .orElseThrow(() -> new RuntimeException("Relatório de Visita não encontrado."));
-            fileName = visit.getPdfPath();
-        } else if ("aep".equalsIgnoreCase(type)) {
-            pdfBytes = aepService.loadOrGenerateAepPdf(id, currentUser);
-        } else if ("risk".equalsIgnoreCase(type)) {
-            OccupationalRiskReport report = riskReportRepository.findById(id)
-                    .orElseThrow(() -> new RuntimeException("Relatório não encontrado."));
-            fileName = report.getPdfPath();
-        } else {
-            throw new IllegalArgumentException("Tipo de documento inválido: " + type);
+    /**
+     * Busca por "contém": os curingas do LIKE digitados pelo usuário ('%', '_') valem como texto.
+     * O caractere de escape é o mesmo do ESCAPE das consultas do DocumentIndexRepository.
+     */
+    private String toClientPattern(String clientFilter) {
+        if (clientFilter == null || clientFilter.isBlank()) return null;
+        String escaped = clientFilter.toLowerCase().trim()
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return "%" + escaped + "%";
+    }
+
+    private String encodeCursor(DocumentIndexRepository.DocumentSummaryRow entry) {
+        String raw = entry.getSortDate() + "|" + entry.getDocType() + "|" + entry.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3) throw new IllegalArgumentException();
+            LocalDate.parse(parts[0]);
+            Long.parseLong(parts[2]);
+            return parts;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido.");
         }
+    }
 
-        if (pdfBytes != null) return pdfBytes;
-        if (fileName == null || fileName.isBlank()) throw new RuntimeException("Este documento não possui um PDF associado.");
+    /**
+     * Converte as linhas do índice em DTOs, buscando os e-mails de clientes da página em uma única consulta.
+     */
+    private List<DocumentSummaryDTO> mapIndexEntries(List<DocumentIndexRepository.DocumentSummaryRow> entries) {
+        Set<Long> companyIds = entries.stream()
+                .map(DocumentIndexRepository.DocumentSummaryRow::getCompanyId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Long, List<String>> emailsByCompany = new HashMap<>();
+        if (!companyIds.isEmpty()) {
+            for (ClientRepository.CompanyClientEmail row : clientRepository.findEmailsByCompanyIds(companyIds)) {
+                emailsByCompany.computeIfAbsent(row.getCompanyId(), k -> new ArrayList<>()).add(row.getEmail());
+            }
+        }
 
-        Path path = ("visit".equalsIgnoreCase(type)) ? Paths.get(fileStoragePath, fileName) : Paths.get(fileName);
+        return entries.stream()
+                .map(entry -> mapIndexEntryToSummaryDto(entry, emailsByCompany))
+                .collect(Collectors.toList());
+    }
 
-        if (!Files.exists(path)) throw new IOException("Arquivo PDF não encontrado.");
-        return Files.readAllBytes(path);
+    private DocumentSummaryDTO mapIndexEntryToSummaryDto(DocumentIndexRepository.DocumentSummaryRow entry, Map<Long, List<String>> emailsByCompany) {
+        DocumentSummaryDTO dto = new DocumentSummaryDTO();
+        dto.setId(entry.getId());
+        dto.setDocumentType(mapKeyToDocumentType(entry.getDocType()));
+        dto.setTitle(entry.getTitle());
+        dto.setCreationDate(entry.getCreationDate());
+        dto.setPdfGenerated(entry.getPdfGenerated());
+        dto.setPdfStatus(entry.getPdfStatus());
+        dto.setIcpSigned(entry.getIcpSignedAt() != null);
+        dto.setIcpSignedAt(entry.getIcpSignedAt());
+
+        if (entry.getCompanyId() != null) {
+            dto.setClientName(entry.getCompanyName());
+            List<String> emails = emailsByCompany.get(entry.getCompanyId());
+            dto.setClientEmail(emails != null && !emails.isEmpty() ? String.join(", ", emails) : null);
+        } else {
+            dto.setClientName("N/A");
+            dto.setClientEmail(null);
+        }
+
+        dto.setTechnicianName(entry.getTechnicianName());
+        dto.setEmailSent(entry.getSentToClientAt() != null);
+        dto.setSigned(entry.getSigned());
+        return dto;
     }
 
+    // ===================================================================================
+    // 3. MÉTODOS DE ARQUIVO E DELEÇÃO
+    // ===================================================================================
+
     @Transactional
     public void deleteDocumentByTypeAndId(String type, Long id, User currentUser) {
         if ("visit".equalsIgnoreCase(type)) technicalVisitService.deleteVisit(id, currentUser);
@@ -266,18 +333,34 @@ public class DocumentAggregationService {
     }
 
     /**
-     * Recupera o PDF e gera um nome amigável para download.
+     * Status do PDF direto do índice (uma linha, sem carregar a entidade): usado no polling da criação assíncrona.
      */
     @Transactional(readOnly = true)
-    public FileDownloadDTO downloadDocument(String type, Long id, User currentUser) throws IOException {
-        String pdfPathOnDisk = null;
-        byte[] pdfBytes = null;
+    public DocumentPdfStatusDTO getPdfStatus(String type, Long id) {
+        String docType = type.toLowerCase();
+        if (!Set.of("visit", "aep", "risk").contains(docType)) {
+            throw new IllegalArgumentException("Tipo de documento inválido: " + type);
+        }
+        return documentIndexRepository.findById(new DocumentIndexId(docType, id))
+                .map(DocumentPdfStatusDTO::from)
+                .orElseThrow(() -> new ResourceNotFoundException("Documento não encontrado."));
+    }
+
+    /**
+     * Localiza o PDF no armazenamento e gera um nome amigável para download.
+     * Não lê o conteúdo: o controller envia o arquivo em streaming (com suporte a Range e cache HTTP).
+     * Não é readOnly porque uma AEP sem arquivo é gerada e gravada aqui.
+     */
+    @Transactional
+    public DocumentFileDTO resolveDocumentFile(String type, Long id, User currentUser) throws IOException {
+        String pdfPathOnDisk;
 
         // Variáveis para montar o nome
-        String docTypeLabel = "";
-        String title = "";
-        String companyName = "";
-        LocalDate date = LocalDate.now();
+        String docTypeLabel;
+        String title;
+        String companyName;
+        LocalDate date;
+        LocalDateTime icpSignedAt = null;
 
         if ("visit".equalsIgnoreCase(type)) {
             TechnicalVisit visit = technicalVisitRepository.findById(id)
@@ -288,18 +371,18 @@ public class DocumentAggregationService {
             title = visit.getTitle();
             companyName = visit.getClientCompany().getName();
             date = visit.getVisitDate();
+            icpSignedAt = visit.getIcpSignedAt();
 
         } else if ("aep".equalsIgnoreCase(type)) {
             AepReport aep = aepReportRepository.findById(id)
                     .orElseThrow(() -> new RuntimeException("AEP não encontrada."));
 
-            // AEP pode gerar em tempo real se não tiver path, assumindo lógica similar ao seu service
-            if (aep.getPdfPath() == null) {
-                pdfBytes = aepService.loadOrGenerateAepPdf(id, currentUser);
-            } else {
-                pdfPathOnDisk = aep.getPdfPath();
+            // AEP sem arquivo (nova ou editada): gera agora, o serviço já grava o PDF e atualiza o caminho
+            if (!storageService.exists(aep.getPdfPath())) {
+                aepService.loadOrGenerateAepPdf(id, currentUser);
             }
 
+            pdfPathOnDisk = aep.getPdfPath();
             docTypeLabel = "AEP";
             title = aep.getEvaluatedFunction(); // Ou outro campo de título
             companyName = aep.getCompany().getName();
@@ -314,108 +397,27 @@ public class DocumentAggregationService {
             title = report.getTitle();
             companyName = report.getCompany().getName();
             date = report.getInspectionDate();
-        }
-
-        // 1. Carrega os bytes (se já não foram gerados em memória para AEP)
-        if (pdfBytes == null) {
-            if (pdfPathOnDisk == null) throw new RuntimeException("Arquivo não encontrado no servidor.");
-            Path path = ("visit".equalsIgnoreCase(type)) ? Paths.get(fileStoragePath, pdfPathOnDisk) : Paths.get(pdfPathOnDisk);
-            pdfBytes = Files.readAllBytes(path);
-        }
-
-        // 2. Sanitiza e Monta o Nome do Arquivo
-        // Formato: TIPO - TITULO - EMPRESA - DD-MM-YYYY.pdf
-        String safeTitle = sanitizeFilename(title);
-        String safeCompany = sanitizeFilename(companyName);
-        String dateStr = date.format(DateTimeFormatter.ofPattern("dd-MM-yyyy"));
-
-        String finalFilename = String.format("%s - %s - %s - %s.pdf",
-                docTypeLabel, safeTitle, safeCompany, dateStr);
-
-        return new FileDownloadDTO(finalFilename, pdfBytes);
-    }
-
-    // Remove caracteres especiais que quebram o download
-    private String sanitizeFilename(String input) {
-        if (input == null) return "SemNome";
-        // Mantém apenas letras, números, espaços, traços e underscores
-        return input.replaceAll("[^a-zA-Z0-9 \\-_.]", "").trim();
-    }
-
-    // ===================================================================================
-    // 5. HELPERS DE MAPEAMENTO (Com E-mail e Nome do Técnico)
-    // ===================================================================================
-
-    public DocumentSummaryDTO mapVisitToSummaryDto(TechnicalVisit visit) {
-        DocumentSummaryDTO dto = new DocumentSummaryDTO();
-        dto.setId(visit.getId());
-        dto.setDocumentType("Relatório de Visita");
-        dto.setTitle(visit.getTitle());
-        dto.setCreationDate(visit.getVisitDate());
-        dto.setPdfGenerated(visit.getPdfPath() != null && !visit.getPdfPath().isEmpty());
-        dto.setIcpSigned(visit.getIcpSignedAt() != null);
-        dto.setIcpSignedAt(visit.getIcpSignedAt());
-        fillCommonFields(dto, visit.getClientCompany(), visit.getSentToClientAt(), visit.getTechnicianSignatureImageBase64(), visit.getTechnician());
-        return dto;
-    }
-
-    public DocumentSummaryDTO mapAepToSummaryDto(AepReport aep) {
-        DocumentSummaryDTO dto = new DocumentSummaryDTO();
-        dto.setId(aep.getId());
-        dto.setDocumentType("Avaliação Ergonômica Preliminar");
-        dto.setTitle(aep.getEvaluatedFunction());
-        dto.setCreationDate(aep.getEvaluationDate());
-        dto.setPdfGenerated(aep.getPdfPath() != null && !aep.getPdfPath().isEmpty());
-        dto.setIcpSigned(false);
-        fillCommonFields(dto, aep.getCompany(), aep.getSentToClientAt(), null, aep.getEvaluator());
-        return dto;
-    }
-
-    public DocumentSummaryDTO mapRiskToSummaryDto(OccupationalRiskReport report) {
-        DocumentSummaryDTO dto = new DocumentSummaryDTO();
-        dto.setId(report.getId());
-        dto.setDocumentType("Checklist de Riscos");
-        dto.setTitle(report.getTitle());
-        dto.setCreationDate(report.getInspectionDate());
-        dto.setPdfGenerated(report.getPdfPath() != null && !report.getPdfPath().isEmpty());
-        dto.setIcpSigned(report.getIcpSignedAt() != null);
-        dto.setIcpSignedAt(report.getIcpSignedAt());
-        fillCommonFields(dto, report.getCompany(), report.getSentToClientAt(), report.getTechnicianSignatureImageBase64(), report.getTechnician());
-        return dto;
-    }
-
-    private void fillCommonFields(DocumentSummaryDTO dto, Company company, LocalDateTime sentAt, String signatureBase64, User technician) {
-        if (company != null) {
-            dto.setClientName(company.getName());
-
-            if (company.getClients() != null && !company.getClients().isEmpty()) {
-                // Pega todos os e-mails dos clientes vinculados e junta com vírgula
-                String emails = company.getClients().stream()
-                        .map(Client::getEmail)
-                        .collect(Collectors.joining(", "));
-                dto.setClientEmail(emails);
-            } else {
-                dto.setClientEmail(null);
-            }
+            icpSignedAt = report.getIcpSignedAt();
 
         } else {
-            dto.setClientName("N/A");
-            dto.setClientEmail(null);
+            throw new IllegalArgumentException("Tipo de documento inválido: " + type);
         }
 
-        if (technician != null) {
-            dto.setTechnicianName(technician.getName());
-        }
+        if (pdfPathOnDisk == null) throw new RuntimeException("Arquivo não encontrado no servidor.");
+        if (!storageService.exists(pdfPathOnDisk)) throw new IOException("Arquivo PDF não encontrado: " + pdfPathOnDisk);
+
+        // Formato: TIPO - TITULO - EMPRESA - DD-MM-YYYY.pdf
+        String finalFilename = DocumentFilenameBuilder.build(docTypeLabel, title, companyName, date);
 
-        dto.setEmailSent(sentAt != null);
-        dto.setSigned(signatureBase64 != null && !signatureBase64.isBlank());
+        return new DocumentFileDTO(finalFilename, pdfPathOnDisk, icpSignedAt);
     }
 
     /**
      * Exporta os documentos filtrados por data em um arquivo ZIP.
      * Escreve diretamente no fluxo de saída da resposta HTTP.
+     * Sem transação aberta: o índice é lido em lotes, cada um com sua própria consulta,
+     * para não acumular entidades no contexto de persistência nem segurar uma conexão durante o download.
      */
-    @Transactional(readOnly = true)
     public void exportDocumentsToZip(LocalDate startDate, LocalDate endDate, HttpServletResponse response) throws IOException {
 
         // 1. Configura os Headers da resposta para o download do ZIP
@@ -423,78 +425,45 @@ public class DocumentAggregationService {
         String zipFilename = "backup_documentos_" + LocalDate.now() + ".zip";
         response.setHeader("Content-Disposition", "attachment; filename=\"" + zipFilename + "\"");
 
-        // 2. Busca todos os documentos globais (usando seu metodo existente)
-        List<DocumentSummaryDTO> allDocs = fetchRawDocumentsGlobal();
-
-        // 3. Aplica o filtro de data
-        List<DocumentSummaryDTO> filteredDocs = allDocs.stream()
-                .filter(doc -> {
-                    if (doc.getCreationDate() == null) return false;
-                    boolean afterStart = (startDate == null) || !doc.getCreationDate().isBefore(startDate);
-                    boolean beforeEnd = (endDate == null) || !doc.getCreationDate().isAfter(endDate);
-                    return afterStart && beforeEnd;
-                })
-                .toList();
-
-        // 4. Cria o ZipOutputStream apontando direto para a saída da requisição HTTP
-        try (ZipOutputStream zos = new ZipOutputStream(response.getOutputStream())) {
-
-            for (DocumentSummaryDTO doc : filteredDocs) {
-                try {
-                    // Mapeia o nome descritivo do tipo para a chave interna (visit, aep, risk)
-                    String typeKey = mapDocumentTypeToKey(doc.getDocumentType());
-
-                    // Reutiliza sua lógica maravilhosa de download para pegar bytes e nome sanitizado
-                    // Nota: Passando null no usuário, pois assumimos permissão Admin neste endpoint
-                    FileDownloadDTO fileInfo = downloadDocument(typeKey, doc.getId(), null);
-
-                    // Cria a entrada no arquivo ZIP com o nome amigável gerado pelo seu serviço
-                    ZipEntry zipEntry = new ZipEntry(fileInfo.getFilename());
-                    zos.putNextEntry(zipEntry);
-
-                    // Escreve os bytes do PDF no ZIP
-                    zos.write(fileInfo.getData());
-                    zos.closeEntry();
-
-                } catch (Exception e) {
-                    // Se um arquivo der erro (ex: PDF não gerado), loga e continua com os próximos
-                    System.err.println("Erro ao adicionar documento ID " + doc.getId() + " ao ZIP: " + e.getMessage());
-                }
-            }
-            // Finaliza o processo de zipagem
-            zos.finish();
-        }
+        // 2. Os PDFs são copiados do disco direto para a resposta, em streaming
+        documentZipExportService.writeZip(startDate, endDate, response.getOutputStream());
     }
 
-    // Helper para converter a string de exibição de volta para o padrão que o downloadDocument aceita
-    private String mapDocumentTypeToKey(String documentType) {
-        if ("Relatório de Visita".equalsIgnoreCase(documentType)) return "visit";
-        if ("Avaliação Ergonômica Preliminar".equalsIgnoreCase(documentType)) return "aep";
-        if ("Checklist de Riscos".equalsIgnoreCase(documentType)) return "risk";
-        throw new IllegalArgumentException("Tipo de documento desconhecido para exportação: " + documentType);
+    // Helper inverso: chave interna (visit, aep, risk) para o nome de exibição
+    private String mapKeyToDocumentType(String typeKey) {
+        if ("visit".equals(typeKey)) return "Relatório de Visita";
+        if ("aep".equals(typeKey)) return "Avaliação Ergonômica Preliminar";
+        if ("risk".equals(typeKey)) return "Checklist de Riscos";
+        return typeKey;
     }
 
     /**
      * Lógica centralizada para envio de qualquer documento por e-mail aos clientes vinculados.
+     * A mensagem é apenas enfileirada (tb_email_outbox); a entrega SMTP acontece em segundo plano,
+     * sem segurar a conexão com o banco nem a thread da requisição.
      */
     @Transactional
     public List<String> sendDocumentToClients(String type, Long id, User currentUser) throws IOException {
 
-        // 1. Usa o seu metodo existente que já sabe buscar os bytes e gerar um nome limpo!
-        // (Isso mata toda a repetição de código de sanitização e formatação de data)
-        FileDownloadDTO fileInfo = downloadDocument(type, id, currentUser);
-
         Set<Client> clients;
         String companyName;
         String subjectType;
+        String docTypeLabel;
+        String title;
+        LocalDate date;
+        String storedPdfPath;
 
-        // 2. Lógica de Negócio: Buscar clientes e atualizar status
+        // 1. Lógica de Negócio: Buscar clientes e atualizar status
         if ("risk".equalsIgnoreCase(type)) {
             OccupationalRiskReport report = riskReportRepository.findById(id)
                     .orElseThrow(() -> new RuntimeException("Checklist não encontrado."));
             clients = report.getCompany().getClients();
             companyName = report.getCompany().getName();
             subjectType = "Checklist de Riscos";
+            docTypeLabel = "Checklist Risco";
+            title = report.getTitle();
+            date = report.getInspectionDate();
+            storedPdfPath = report.getPdfPath();
 
             report.setSentToClientAt(LocalDateTime.now());
             riskReportRepository.save(report);
@@ -505,6 +474,10 @@ public class DocumentAggregationService {
             clients = visit.getClientCompany().getClients();
             companyName = visit.getClientCompany().getName();
             subjectType = "Relatório de Visita Técnica";
+            docTypeLabel = "Visita Tecnica";
+            title = visit.getTitle();
+            date = visit.getVisitDate();
+            storedPdfPath = visit.getPdfPath();
 
             visit.setSentToClientAt(LocalDateTime.now());
             technicalVisitRepository.save(visit);
@@ -512,9 +485,19 @@ public class DocumentAggregationService {
         } else if ("aep".equalsIgnoreCase(type)) {
             AepReport aep = aepReportRepository.findById(id)
                     .orElseThrow(() -> new RuntimeException("AEP não encontrada."));
+
+            // AEP sem arquivo (nova ou editada): gera agora, o serviço já grava o PDF e atualiza o caminho
+            if (!storageService.exists(aep.getPdfPath())) {
+                aepService.loadOrGenerateAepPdf(id, currentUser);
+            }
+
             clients = aep.getCompany().getClients();
             companyName = aep.getCompany().getName();
             subjectType = "Avaliação Ergonômica (AEP)";
+            docTypeLabel = "AEP";
+            title = aep.getEvaluatedFunction();
+            date = aep.getEvaluationDate();
+            storedPdfPath = aep.getPdfPath();
 
             aep.setSentToClientAt(LocalDateTime.now());
             aepReportRepository.save(aep);
@@ -523,7 +506,11 @@ public class DocumentAggregationService {
             throw new IllegalArgumentException("Tipo de documento inválido: " + type);
         }
 
-        // 3. Validações de Negócio
+        if (!storageService.exists(storedPdfPath)) {
+            throw new RuntimeException("Arquivo não encontrado no servidor.");
+        }
+
+        // 2. Validações de Negócio
         if (clients == null || clients.isEmpty()) {
             throw new IllegalStateException("A empresa deste relatório não possui clientes vinculados.");
         }
@@ -537,18 +524,14 @@ public class DocumentAggregationService {
             throw new IllegalStateException("Os clientes vinculados não possuem e-mail válido.");
         }
 
-        // 4. Montagem e Envio do E-mail
+        // 3. Enfileira uma mensagem por destinatário (mais a cópia interna, se configurada)
         String subject = "Documento Emitido: " + subjectType + " - " + companyName;
         String body = buildEmailTemplate(subjectType, companyName);
+        String filename = DocumentFilenameBuilder.build(docTypeLabel, title, companyName, date);
 
-        for (String email : validEmails) {
-            try {
-                // fileInfo.getFilename() já vem sanitizado pelo seu metodo downloadDocument!
-                emailService.sendReportWithAttachment(email, subject, body, fileInfo.getData(), fileInfo.getFilename());
-            } catch (Exception e) {
-                System.err.println("Falha ao enviar e-mail para: " + email + ". Motivo: " + e.getMessage());
-            }
-        }
+        List<String> recipients = new ArrayList<>(validEmails);
+        recipients.addAll(supportCopy);
+        emailOutboxService.enqueue(recipients, subject, body, storedPdfPath, filename);
 
         return validEmails;
     }
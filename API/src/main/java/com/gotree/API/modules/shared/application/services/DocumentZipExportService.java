@@ -0,0 +1,371 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.operations.application.services.AepService;
+import com.gotree.API.modules.shared.infrastructure.repositories.DocumentIndexRepository;
+import com.gotree.API.modules.shared.infrastructure.repositories.DocumentIndexRepository.DocumentSummaryRow;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import com.gotree.API.modules.shared.utils.DocumentFilenameBuilder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Motor de exportação dos documentos em ZIP (backup).
+ *
+ * <p>O consumo de memória é constante, independente da quantidade de documentos:</p>
+ * <ul>
+ *     <li>Os documentos são lidos do índice unificado em lotes por cursor (keyset), nunca todos de uma vez.</li>
+ *     <li>PDFs já são comprimidos, então as entradas são gravadas como STORED (sem deflate).</li>
+ *     <li>Enquanto uma entrada é escrita, as próximas N são lidas do armazenamento em um pool de I/O, calculando tamanho
+ *     e CRC32 durante a própria leitura: cada arquivo é lido uma única vez. Só PDFs de até um bloco de cópia (64 KB)
+ *     ficam em memória; os demais vão direto do armazenamento para um temporário, que depois é copiado para o ZIP em
+ *     blocos. Nenhum PDF inteiro é mantido em memória, no máximo {@code export.zip.prefetch} blocos.</li>
+ *     <li>O pool de I/O só lê PDFs já gerados. AEPs sem PDF são renderizadas quando chegam à vez delas, pela fila de
+ *     lote do {@link PdfRenderExecutor}, sem prender as threads de I/O.</li>
+ * </ul>
+ */
+@Service
+public class DocumentZipExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentZipExportService.class);
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int INDEX_BATCH_SIZE = 500;
+
+    private final DocumentIndexRepository documentIndexRepository;
+    private final AepService aepService;
+    private final StorageService storageService;
+    private final ExecutorService ioExecutor;
+    private final int prefetchDepth;
+
+    public DocumentZipExportService(DocumentIndexRepository documentIndexRepository,
+                                    AepService aepService,
+                                    StorageService storageService,
+                                    @Value("${export.zip.io-threads:4}") int ioThreads,
+                                    @Value("${export.zip.prefetch:8}") int prefetchDepth) {
+        this.documentIndexRepository = documentIndexRepository;
+        this.aepService = aepService;
+        this.storageService = storageService;
+        this.prefetchDepth = Math.max(1, prefetchDepth);
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.ioExecutor = Executors.newFixedThreadPool(Math.max(1, ioThreads), runnable -> {
+            Thread thread = new Thread(runnable, "zip-export-io-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ioExecutor.shutdownNow();
+    }
+
+    /**
+     * Escreve no {@code output} um ZIP com todos os documentos do período informado.
+     * Documentos com erro (ex: arquivo ausente) são registrados no log e ignorados.
+     */
+    public void writeZip(LocalDate startDate, LocalDate endDate, OutputStream output) throws IOException {
+        writeZip(startDate, endDate, output, ExportProgress.NONE);
+    }
+
+    /**
+     * Mesma exportação, informando o andamento (documentos processados / total) a cada entrada.
+     */
+    public void writeZip(LocalDate startDate, LocalDate endDate, OutputStream output, ExportProgress progress) throws IOException {
+        long total = progress == ExportProgress.NONE ? 0 : documentIndexRepository.countForExport(startDate, endDate);
+        long processed = 0;
+        progress.update(0, total);
+
+        Iterator<DocumentSummaryRow> documents = new IndexBatchIterator(startDate, endDate);
+        Deque<Pending> inFlight = new ArrayDeque<>(prefetchDepth);
+        Set<String> usedNames = new HashSet<>();
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        int written = 0;
+
+        try (ZipOutputStream zos = new ZipOutputStream(output)) {
+            fillPipeline(documents, inFlight);
+
+            while (!inFlight.isEmpty()) {
+                Pending next = inFlight.pollFirst();
+                // Mantém a janela de prefetch cheia antes de bloquear na entrada atual
+                fillPipeline(documents, inFlight);
+
+                PreparedEntry entry;
+                try {
+                    entry = next.future().get();
+                    if (entry == null) {
+                        entry = render(next.document());
+                    }
+                } catch (ExecutionException | IOException | RuntimeException e) {
+                    Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                    logger.warn("Documento ignorado no ZIP: {}", cause.getMessage());
+                    progress.update(++processed, Math.max(total, processed));
+                    continue;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    inFlight.forEach(this::discard);
+                    throw new IOException("Exportação ZIP interrompida.", e);
+                }
+
+                try {
+                    writeStoredEntry(zos, entry, uniqueName(entry.filename(), usedNames), buffer);
+                    written++;
+                } catch (IOException e) {
+                    // Falha de escrita na resposta (cliente desconectou): não adianta continuar
+                    inFlight.forEach(this::discard);
+                    throw e;
+                } finally {
+                    entry.cleanup();
+                }
+                progress.update(++processed, Math.max(total, processed));
+            }
+
+            zos.finish();
+        }
+
+        logger.info("Exportação ZIP concluída com {} documento(s).", written);
+    }
+
+    // ===================================================================================
+    // PIPELINE
+    // ===================================================================================
+
+    private void fillPipeline(Iterator<DocumentSummaryRow> documents, Deque<Pending> inFlight) {
+        while (inFlight.size() < prefetchDepth && documents.hasNext()) {
+            DocumentSummaryRow doc = documents.next();
+            inFlight.addLast(new Pending(doc, ioExecutor.submit(() -> prepare(doc))));
+        }
+    }
+
+    /**
+     * Executado no pool de I/O: lê o PDF já gerado uma única vez, calculando o tamanho e o CRC32 exigidos pelo ZIP
+     * antes de gravar uma entrada STORED.
+     *
+     * @return null se for uma AEP ainda sem PDF (renderizada depois, em {@link #render})
+     */
+    private PreparedEntry prepare(DocumentSummaryRow doc) throws IOException {
+        String key = doc.getPdfPath();
+        boolean stored = key != null && !key.isBlank() && storageService.exists(key);
+        if (!stored) {
+            if ("aep".equals(doc.getDocType())) return null;
+            throw new IOException("Arquivo não encontrado para " + doc.getDocType() + " ID " + doc.getId());
+        }
+
+        long lastModified = storageService.stat(key).lastModified().toEpochMilli();
+        try (InputStream in = storageService.open(key)) {
+            return read(filenameOf(doc), in, lastModified);
+        }
+    }
+
+    /**
+     * AEP sem PDF (nova ou editada): gera uma única vez na fila de lote, sem disputar com quem está gerando um
+     * relatório na tela; o serviço já persiste o arquivo no armazenamento.
+     */
+    private PreparedEntry render(DocumentSummaryRow doc) throws IOException {
+        byte[] pdf;
+        try {
+            pdf = PdfRenderExecutor.inLane(PdfRenderExecutor.Lane.BATCH, () -> aepService.loadOrGenerateAepPdf(doc.getId(), null));
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(pdf);
+        return new PreparedEntry(filenameOf(doc), pdf, null, pdf.length, crc.getValue(), System.currentTimeMillis());
+    }
+
+    /**
+     * Lê o primeiro bloco em memória; se o PDF for maior, o bloco e o restante vão para um temporário, sem acumular
+     * o arquivo em memória. Tamanho e CRC32 são calculados na mesma passada.
+     */
+    private PreparedEntry read(String filename, InputStream in, long lastModified) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] head = new byte[COPY_BUFFER_SIZE];
+        int headLength = in.readNBytes(head, 0, head.length);
+        crc.update(head, 0, headLength);
+        if (headLength < head.length) {
+            return new PreparedEntry(filename, head, null, headLength, crc.getValue(), lastModified);
+        }
+
+        Path spill = Files.createTempFile("zip-export-", ".pdf");
+        long size = headLength;
+        try (OutputStream out = Files.newOutputStream(spill)) {
+            out.write(head, 0, headLength);
+            int read;
+            while ((read = in.read(head)) != -1) {
+                crc.update(head, 0, read);
+                out.write(head, 0, read);
+                size += read;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spill);
+            throw e;
+        }
+        return new PreparedEntry(filename, null, spill, size, crc.getValue(), lastModified);
+    }
+
+    private static String filenameOf(DocumentSummaryRow doc) {
+        return DocumentFilenameBuilder.build(
+                DocumentFilenameBuilder.labelForType(doc.getDocType()), doc.getTitle(), doc.getCompanyName(), doc.getCreationDate());
+    }
+
+    /**
+     * Cancela uma entrada pendente e apaga o temporário dela, se já tiver sido lido.
+     */
+    private void discard(Pending pending) {
+        Future<PreparedEntry> future = pending.future();
+        future.cancel(true);
+        if (future.isDone() && !future.isCancelled()) {
+            try {
+                PreparedEntry entry = future.get();
+                if (entry != null) entry.cleanup();
+            } catch (Exception ignored) {
+                // Entrada com erro: não há temporário
+            }
+        }
+    }
+
+    private void writeStoredEntry(ZipOutputStream zos, PreparedEntry entry, String name, byte[] buffer) throws IOException {
+        ZipEntry zipEntry = new ZipEntry(name);
+        zipEntry.setMethod(ZipEntry.STORED);
+        zipEntry.setSize(entry.size());
+        zipEntry.setCompressedSize(entry.size());
+        zipEntry.setCrc(entry.crc());
+        zipEntry.setTime(entry.lastModified());
+        zos.putNextEntry(zipEntry);
+
+        if (entry.data() != null) {
+            zos.write(entry.data(), 0, (int) entry.size());
+        } else {
+            try (InputStream in = Files.newInputStream(entry.spill())) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    zos.write(buffer, 0, read);
+                }
+            }
+        }
+        zos.closeEntry();
+    }
+
+    // Nomes repetidos derrubariam a entrada inteira (ZipException: duplicate entry)
+    private String uniqueName(String filename, Set<String> usedNames) {
+        if (usedNames.add(filename)) return filename;
+        String base = filename.substring(0, filename.length() - ".pdf".length());
+        int counter = 2;
+        String candidate;
+        do {
+            candidate = base + " (" + counter++ + ").pdf";
+        } while (!usedNames.add(candidate));
+        return candidate;
+    }
+
+    /**
+     * Documento na janela de prefetch: o futuro resolve para null quando o PDF ainda precisa ser renderizado.
+     */
+    private record Pending(DocumentSummaryRow document, Future<PreparedEntry> future) {
+    }
+
+    /**
+     * Conteúdo pronto para o ZIP: em memória ({@code data}, com {@code size} bytes válidos) ou num temporário
+     * ({@code spill}).
+     */
+    private record PreparedEntry(String filename, byte[] data, Path spill, long size, long crc, long lastModified) {
+
+        void cleanup() {
+            if (spill == null) return;
+            try {
+                Files.deleteIfExists(spill);
+            } catch (IOException e) {
+                logger.warn("Falha ao apagar temporário da exportação ZIP {}: {}", spill, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Percorre o índice de documentos em lotes por cursor, mantendo apenas um lote em memória.
+     * Documentos sem data ficam de fora, como na exportação original.
+     */
+    private class IndexBatchIterator implements Iterator<DocumentSummaryRow> {
+
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private Iterator<DocumentSummaryRow> current = List.<DocumentSummaryRow>of().iterator();
+        private LocalDate afterDate = LocalDate.of(9999, 12, 31);
+        private String afterType = "zzzz";
+        private Long afterId = Long.MAX_VALUE;
+        private boolean exhausted = false;
+        private DocumentSummaryRow lookahead;
+
+        IndexBatchIterator(LocalDate startDate, LocalDate endDate) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (lookahead == null) {
+                if (!current.hasNext()) {
+                    if (exhausted) return false;
+                    loadNextBatch();
+                    continue;
+                }
+                DocumentSummaryRow candidate = current.next();
+                if (candidate.getCreationDate() != null) {
+                    lookahead = candidate;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public DocumentSummaryRow next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            DocumentSummaryRow result = lookahead;
+            lookahead = null;
+            return result;
+        }
+
+        private void loadNextBatch() {
+            List<DocumentSummaryRow> batch = documentIndexRepository.searchSummariesAfter(
+                    null, null, null, startDate, endDate,
+                    afterDate, afterType, afterId, PageRequest.of(0, INDEX_BATCH_SIZE));
+
+            if (batch.size() < INDEX_BATCH_SIZE) exhausted = true;
+            if (!batch.isEmpty()) {
+                DocumentSummaryRow last = batch.get(batch.size() - 1);
+                afterDate = last.getSortDate();
+                afterType = last.getDocType();
+                afterId = last.getId();
+            }
+            current = batch.iterator();
+        }
+    }
+}
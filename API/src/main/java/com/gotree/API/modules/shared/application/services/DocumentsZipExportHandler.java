@@ -0,0 +1,53 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.shared.domain.enums.ExportJobType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * ZIP com os PDFs de todos os documentos do período (mesmo conteúdo de GET /documents/export/zip).
+ * Parâmetros opcionais: "startDate" e "endDate" (ISO).
+ */
+@Component
+public class DocumentsZipExportHandler implements ExportJobHandler {
+
+    private final DocumentZipExportService documentZipExportService;
+
+    public DocumentsZipExportHandler(DocumentZipExportService documentZipExportService) {
+        this.documentZipExportService = documentZipExportService;
+    }
+
+    @Override
+    public ExportJobType type() {
+        return ExportJobType.DOCUMENTS_ZIP;
+    }
+
+    @Override
+    public String filename(Map<String, String> parameters) {
+        return "backup_documentos_" + LocalDate.now() + ".zip";
+    }
+
+    @Override
+    public String contentType() {
+        return "application/zip";
+    }
+
+    @Override
+    public String extension() {
+        return "zip";
+    }
+
+    @Override
+    public void write(Map<String, String> parameters, OutputStream out, ExportProgress progress) throws IOException {
+        documentZipExportService.writeZip(parseDate(parameters.get("startDate")), parseDate(parameters.get("endDate")),
+                out, progress);
+    }
+
+    private LocalDate parseDate(String value) {
+        return value == null || value.isBlank() ? null : LocalDate.parse(value);
+    }
+}
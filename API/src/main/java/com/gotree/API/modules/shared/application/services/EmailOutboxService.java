@@ -0,0 +1,154 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.shared.domain.entities.EmailOutboxMessage;
+import com.gotree.API.modules.shared.domain.enums.EmailOutboxStatus;
+import com.gotree.API.modules.shared.infrastructure.repositories.EmailOutboxRepository;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Fila persistente de e-mails (padrão outbox).
+ * Quem precisa enviar apenas enfileira; a entrega é feita pelo EmailOutboxWorker em segundo plano,
+ * com novas tentativas e backoff exponencial em caso de falha.
+ */
+@Service
+public class EmailOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final StorageService storageService;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+
+    public EmailOutboxService(EmailOutboxRepository emailOutboxRepository, StorageService storageService,
+                              @Value("${email.outbox.max-attempts:6}") int maxAttempts,
+                              @Value("${email.outbox.base-backoff-seconds:30}") long baseBackoffSeconds,
+                              @Value("${email.outbox.max-backoff-seconds:3600}") long maxBackoffSeconds) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.storageService = storageService;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = Duration.ofSeconds(baseBackoffSeconds);
+        this.maxBackoff = Duration.ofSeconds(maxBackoffSeconds);
+    }
+
+    /**
+     * Enfileira uma mensagem para cada destinatário: nenhum cliente vê o e-mail dos demais, e uma falha de entrega
+     * só repete o envio para quem não recebeu.
+     *
+     * @param attachmentPath chave do PDF no StorageService (opcional). O arquivo fica reservado até a mensagem
+     *                       ser entregue ou descartada, mesmo que o documento seja regerado ou assinado no meio tempo.
+     */
+    @Transactional
+    public List<EmailOutboxMessage> enqueue(List<String> recipients, String subject, String htmlBody,
+                                            String attachmentPath, String attachmentName) {
+        if (recipients == null || recipients.isEmpty()) {
+            throw new IllegalArgumentException("Nenhum destinatário informado.");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutboxMessage> messages = new ArrayList<>();
+        for (String recipient : new LinkedHashSet<>(recipients)) {
+            EmailOutboxMessage message = new EmailOutboxMessage();
+            message.setRecipients(recipient);
+            message.setSubject(subject);
+            message.setHtmlBody(htmlBody);
+            message.setAttachmentPath(attachmentPath);
+            message.setAttachmentName(attachmentName);
+            message.setStatus(EmailOutboxStatus.PENDING);
+            message.setAttempts(0);
+            message.setNextAttemptAt(now);
+            message.setCreatedAt(now);
+
+            // Uma reserva por mensagem: cada uma libera a sua ao ser entregue ou descartada
+            storageService.retain(attachmentPath);
+            messages.add(message);
+        }
+        return emailOutboxRepository.saveAll(messages);
+    }
+
+    /**
+     * Reserva até {@code limit} mensagens prontas para envio, marcando-as como SENDING.
+     * As entidades retornadas ficam desanexadas (a transação termina aqui).
+     */
+    @Transactional
+    public List<EmailOutboxMessage> claimBatch(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = emailOutboxRepository.lockNextPendingIds(now, limit);
+        if (ids.isEmpty()) return Collections.emptyList();
+
+        emailOutboxRepository.markAs(ids, EmailOutboxStatus.SENDING, now);
+        return emailOutboxRepository.findAllById(ids);
+    }
+
+    @Transactional
+    public void markSent(Collection<Long> ids) {
+        if (ids.isEmpty()) return;
+        LocalDateTime now = LocalDateTime.now();
+        for (EmailOutboxMessage message : emailOutboxRepository.findAllById(ids)) {
+            message.setStatus(EmailOutboxStatus.SENT);
+            message.setAttempts(message.getAttempts() + 1);
+            message.setSentAt(now);
+            message.setLockedAt(null);
+            message.setLastError(null);
+            storageService.release(message.getAttachmentPath());
+        }
+    }
+
+    /**
+     * Registra a falha e agenda nova tentativa (30s, 60s, 120s...) ou desiste após o limite.
+     */
+    @Transactional
+    public void markFailed(Long id, String error) {
+        emailOutboxRepository.findById(id).ifPresent(message -> {
+            int attempts = message.getAttempts() + 1;
+            message.setAttempts(attempts);
+            message.setLockedAt(null);
+            message.setLastError(error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+
+            if (attempts >= maxAttempts) {
+                message.setStatus(EmailOutboxStatus.FAILED);
+                storageService.release(message.getAttachmentPath());
+            } else {
+                message.setStatus(EmailOutboxStatus.PENDING);
+                message.setNextAttemptAt(LocalDateTime.now().plus(backoffFor(attempts)));
+            }
+        });
+    }
+
+    /**
+     * Renova a reserva das mensagens em envio (heartbeat do worker).
+     */
+    @Transactional
+    public void refreshLocks(Collection<Long> ids) {
+        if (ids.isEmpty()) return;
+        emailOutboxRepository.refreshLocks(ids, EmailOutboxStatus.SENDING, LocalDateTime.now());
+    }
+
+    /**
+     * Devolve para a fila as mensagens em SENDING sem heartbeat há mais de {@code olderThan} (a instância que as
+     * reservou caiu). Mensagens de um envio ainda em andamento têm a reserva renovada e nunca são devolvidas.
+     */
+    @Transactional
+    public int releaseStale(Duration olderThan) {
+        return emailOutboxRepository.releaseStale(LocalDateTime.now().minus(olderThan),
+                EmailOutboxStatus.SENDING, EmailOutboxStatus.PENDING);
+    }
+
+    private Duration backoffFor(int attempts) {
+        long factor = 1L << Math.min(attempts - 1, 20);
+        Duration delay = baseBackoff.multipliedBy(factor);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+}
@@ -16,6 +16,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.*;
 
 @Service
@@ -118,10 +119,20 @@ public class ExcelService {
 
     @Transactional(readOnly = true)
     public ByteArrayInputStream exportCompaniesToExcel() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeCompaniesExcel(out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    /**
+     * Escreve a planilha de empresas direto no {@code out}, sem cópia intermediária em memória.
+     * Usada pela exportação em segundo plano, que grava num arquivo temporário.
+     */
+    @Transactional(readOnly = true)
+    public void writeCompaniesExcel(OutputStream out) throws IOException {
         String[] columns = {"Nome Empresa", "CNPJ Empresa", "Nome Unidade", "CNPJ Unidade", "Nome Setor"};
 
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+        try (Workbook workbook = new XSSFWorkbook()) {
 
             Sheet sheet = workbook.createSheet("Empresas");
 
@@ -180,7 +191,6 @@ public class ExcelService {
             }
 
             workbook.write(out);
-            return new ByteArrayInputStream(out.toByteArray());
         }
     }
 
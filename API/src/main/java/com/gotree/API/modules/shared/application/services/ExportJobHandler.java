@@ -0,0 +1,33 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.shared.domain.enums.ExportJobType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Gera o conteúdo de um tipo de exportação em segundo plano.
+ * Cada implementação é um bean do Spring; o {@link ExportJobService} escolhe a correta pelo {@link #type()}.
+ */
+public interface ExportJobHandler {
+
+    ExportJobType type();
+
+    /**
+     * Nome sugerido para o download (Content-Disposition).
+     */
+    String filename(Map<String, String> parameters);
+
+    String contentType();
+
+    /**
+     * Extensão usada ao gravar o resultado no armazenamento (sem ponto).
+     */
+    String extension();
+
+    /**
+     * Escreve o arquivo completo em {@code out}. Roda fora da thread da requisição e sem transação aberta.
+     */
+    void write(Map<String, String> parameters, OutputStream out, ExportProgress progress) throws IOException;
+}
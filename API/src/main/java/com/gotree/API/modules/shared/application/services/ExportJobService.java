@@ -0,0 +1,342 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.shared.domain.entities.ExportJob;
+import com.gotree.API.modules.shared.domain.enums.ExportJobStatus;
+import com.gotree.API.modules.shared.domain.enums.ExportJobType;
+import com.gotree.API.modules.shared.exceptions.ResourceNotFoundException;
+import com.gotree.API.modules.shared.exceptions.ServiceBusyException;
+import com.gotree.API.modules.shared.infrastructure.repositories.ExportJobRepository;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exportações pesadas (ZIP de documentos, Excel de empresas, PDF da agenda) executadas em segundo plano.
+ *
+ * <p>Fluxo: o cliente cria o job (202 + id), acompanha o progresso por polling e, ao concluir, baixa o arquivo
+ * com suporte a Range — uma queda de conexão retoma de onde parou, sem gerar tudo de novo.</p>
+ * <ul>
+ *     <li>No máximo {@code export.jobs.max-concurrent} exportações rodam ao mesmo tempo nesta instância;
+ *     as demais aguardam numa fila limitada. Fila cheia responde 503 com Retry-After.</li>
+ *     <li>O resultado vai para o {@link StorageService}, então qualquer réplica atende o download.</li>
+ *     <li>O progresso é gravado no máximo uma vez por segundo, para não transformar cada item num UPDATE.</li>
+ *     <li>A instância que executa o job atualiza o heartbeat; jobs sem sinal de vida (reinício) viram FAILED.</li>
+ *     <li>Arquivos prontos expiram após {@code export.jobs.retention-hours}.</li>
+ * </ul>
+ */
+@Service
+public class ExportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportJobService.class);
+
+    private static final long PROGRESS_INTERVAL_MS = 1000;
+    private static final int CLEANUP_BATCH_SIZE = 100;
+    private static final int MAX_ERROR_LENGTH = 2000;
+    private static final TypeReference<Map<String, String>> PARAMETERS_TYPE = new TypeReference<>() {
+    };
+
+    private final ExportJobRepository exportJobRepository;
+    private final StorageService storageService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Map<ExportJobType, ExportJobHandler> handlers = new EnumMap<>(ExportJobType.class);
+    private final ThreadPoolExecutor executor;
+    private final Set<String> localJobs = ConcurrentHashMap.newKeySet();
+    private final Duration staleAfter;
+    private final Duration retention;
+    private final long retryAfterSeconds;
+
+    public ExportJobService(ExportJobRepository exportJobRepository,
+                            StorageService storageService,
+                            TransactionTemplate transactionTemplate,
+                            ObjectMapper objectMapper,
+                            List<ExportJobHandler> handlerBeans,
+                            @Value("${export.jobs.max-concurrent:2}") int maxConcurrent,
+                            @Value("${export.jobs.queue-capacity:20}") int queueCapacity,
+                            @Value("${export.jobs.stale-after-minutes:5}") long staleAfterMinutes,
+                            @Value("${export.jobs.retention-hours:24}") long retentionHours,
+                            @Value("${export.jobs.retry-after-seconds:30}") long retryAfterSeconds) {
+        this.exportJobRepository = exportJobRepository;
+        this.storageService = storageService;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.staleAfter = Duration.ofMinutes(staleAfterMinutes);
+        this.retention = Duration.ofHours(retentionHours);
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        for (ExportJobHandler handler : handlerBeans) {
+            if (handlers.put(handler.type(), handler) != null) {
+                throw new IllegalStateException("Mais de um handler de exportação para " + handler.type());
+            }
+        }
+
+        int threads = Math.max(1, maxConcurrent);
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "export-job-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Jobs interrompidos ficam sem heartbeat e são marcados como FAILED pela limpeza
+        executor.shutdownNow();
+    }
+
+    // ===================================================================================
+    // 1. CRIAÇÃO E CONSULTA
+    // ===================================================================================
+
+    /**
+     * Registra o job e o coloca na fila desta instância.
+     *
+     * @throws ServiceBusyException se a fila estiver cheia
+     */
+    public ExportJob submit(ExportJobType type, Map<String, String> parameters, User requester) {
+        ExportJobHandler handler = handlerFor(type);
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw busy();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        ExportJob job = new ExportJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setType(type);
+        job.setStatus(ExportJobStatus.QUEUED);
+        job.setRequestedBy(requester.getId());
+        job.setParameters(writeParameters(parameters));
+        job.setFilename(handler.filename(parameters));
+        job.setContentType(handler.contentType());
+        job.setCreatedAt(now);
+        job.setHeartbeatAt(now);
+        ExportJob saved = exportJobRepository.save(job);
+
+        localJobs.add(saved.getId());
+        try {
+            executor.execute(() -> run(saved.getId()));
+        } catch (RejectedExecutionException e) {
+            // Outra requisição ocupou a última vaga entre a verificação e o envio
+            localJobs.remove(saved.getId());
+            exportJobRepository.deleteById(saved.getId());
+            throw busy();
+        }
+        return saved;
+    }
+
+    /**
+     * Busca um job visível para o usuário: o próprio solicitante ou um administrador.
+     */
+    public ExportJob findForUser(String id, User user) {
+        ExportJob job = exportJobRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Exportação não encontrada: " + id));
+        boolean isAdmin = user.getRole() != null && "ROLE_ADMIN".equals(user.getRole().getRoleName());
+        if (!job.getRequestedBy().equals(user.getId()) && !isAdmin) {
+            throw new AccessDeniedException("Você não tem permissão para acessar esta exportação.");
+        }
+        return job;
+    }
+
+    public List<ExportJob> findRecentForUser(User user, int limit) {
+        return exportJobRepository.findByRequestedByOrderByCreatedAtDesc(user.getId(),
+                PageRequest.of(0, Math.min(Math.max(limit, 1), 50)));
+    }
+
+    // ===================================================================================
+    // 2. EXECUÇÃO
+    // ===================================================================================
+
+    private void run(String jobId) {
+        Path temp = null;
+        try {
+            ExportJob job = exportJobRepository.findById(jobId).orElse(null);
+            // Removido ou já marcado como interrompido enquanto aguardava na fila
+            if (job == null || job.getStatus() != ExportJobStatus.QUEUED) return;
+
+            LocalDateTime startedAt = LocalDateTime.now();
+            job.setStatus(ExportJobStatus.RUNNING);
+            job.setStartedAt(startedAt);
+            job.setHeartbeatAt(startedAt);
+            exportJobRepository.save(job);
+
+            ExportJobHandler handler = handlerFor(job.getType());
+            Map<String, String> parameters = readParameters(job.getParameters());
+
+            temp = Files.createTempFile("export-" + jobId + "-", "." + handler.extension());
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                // Renderizações disparadas pela exportação vão para a fila de lote, atrás das interativas
+                PdfRenderExecutor.inLane(PdfRenderExecutor.Lane.BATCH, () -> {
+                    handler.write(parameters, out, throttledProgress(jobId));
+                    return null;
+                });
+            }
+
+            long size = Files.size(temp);
+            Path result = temp;
+            transactionTemplate.executeWithoutResult(tx -> {
+                String key;
+                try (InputStream in = Files.newInputStream(result)) {
+                    key = storageService.store(in, handler.extension());
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                ExportJob done = exportJobRepository.findById(jobId).orElseThrow();
+                done.setStatus(ExportJobStatus.COMPLETED);
+                done.setStorageKey(key);
+                done.setSizeBytes(size);
+                done.setProgressCurrent(Math.max(done.getProgressCurrent(), done.getProgressTotal()));
+                done.setFinishedAt(LocalDateTime.now());
+                exportJobRepository.save(done);
+            });
+
+            log.info("Exportação {} ({}) concluída: {} bytes em {} ms.", jobId, job.getType(), size,
+                    Duration.between(startedAt, LocalDateTime.now()).toMillis());
+        } catch (Exception e) {
+            log.error("Falha na exportação {}: {}", jobId, e.getMessage(), e);
+            markFailed(jobId, e);
+        } finally {
+            localJobs.remove(jobId);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    log.warn("Falha ao apagar temporário da exportação {}: {}", temp, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Grava o progresso no banco no máximo uma vez por intervalo, e sempre ao chegar no total.
+     * Cada gravação também renova o heartbeat.
+     */
+    private ExportProgress throttledProgress(String jobId) {
+        long[] lastWrite = {0L};
+        return (current, total) -> {
+            long now = System.currentTimeMillis();
+            if (now - lastWrite[0] < PROGRESS_INTERVAL_MS && current < total) return;
+            lastWrite[0] = now;
+            transactionTemplate.executeWithoutResult(tx ->
+                    exportJobRepository.updateProgress(jobId, current, total, LocalDateTime.now()));
+        };
+    }
+
+    private void markFailed(String jobId, Exception cause) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> exportJobRepository.findById(jobId).ifPresent(job -> {
+                String message = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+                job.setStatus(ExportJobStatus.FAILED);
+                job.setErrorMessage(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+                job.setFinishedAt(LocalDateTime.now());
+                exportJobRepository.save(job);
+            }));
+        } catch (Exception e) {
+            log.error("Falha ao registrar erro da exportação {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    // ===================================================================================
+    // 3. MANUTENÇÃO
+    // ===================================================================================
+
+    /**
+     * Mantém vivos os jobs desta instância (inclusive os que ainda aguardam na fila).
+     */
+    @Scheduled(fixedDelayString = "${export.jobs.heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        if (localJobs.isEmpty()) return;
+        transactionTemplate.executeWithoutResult(tx ->
+                exportJobRepository.touch(Set.copyOf(localJobs), LocalDateTime.now()));
+    }
+
+    /**
+     * Marca como FAILED os jobs abandonados e apaga os expirados junto com os arquivos.
+     */
+    @Scheduled(fixedDelayString = "${export.jobs.cleanup-interval-ms:300000}")
+    public void cleanup() {
+        LocalDateTime now = LocalDateTime.now();
+
+        Integer stale = transactionTemplate.execute(tx -> exportJobRepository.failStale(now.minus(staleAfter), now,
+                List.of(ExportJobStatus.QUEUED, ExportJobStatus.RUNNING), ExportJobStatus.FAILED));
+        if (stale != null && stale > 0) {
+            log.warn("{} exportação(ões) interrompida(s) marcada(s) como FAILED.", stale);
+        }
+
+        List<ExportJob> expired = exportJobRepository.findExpired(now.minus(retention),
+                List.of(ExportJobStatus.COMPLETED, ExportJobStatus.FAILED), PageRequest.of(0, CLEANUP_BATCH_SIZE));
+        for (ExportJob job : expired) {
+            try {
+                transactionTemplate.executeWithoutResult(tx -> {
+                    if (exportJobRepository.deleteReturningCount(job.getId()) > 0) {
+                        storageService.release(job.getStorageKey());
+                    }
+                });
+            } catch (Exception e) {
+                log.warn("Falha ao remover exportação expirada {}: {}", job.getId(), e.getMessage());
+            }
+        }
+    }
+
+    // ===================================================================================
+    // 4. AUXILIARES
+    // ===================================================================================
+
+    private ExportJobHandler handlerFor(ExportJobType type) {
+        ExportJobHandler handler = handlers.get(type);
+        if (handler == null) {
+            throw new IllegalArgumentException("Tipo de exportação não suportado: " + type);
+        }
+        return handler;
+    }
+
+    private ServiceBusyException busy() {
+        return new ServiceBusyException("Muitas exportações em andamento. Tente novamente em instantes.", retryAfterSeconds);
+    }
+
+    private String writeParameters(Map<String, String> parameters) {
+        try {
+            return objectMapper.writeValueAsString(parameters);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Parâmetros de exportação inválidos.", e);
+        }
+    }
+
+    private Map<String, String> readParameters(String json) throws JsonProcessingException {
+        return json == null || json.isBlank() ? Map.of() : objectMapper.readValue(json, PARAMETERS_TYPE);
+    }
+}
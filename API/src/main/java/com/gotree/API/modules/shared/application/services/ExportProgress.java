@@ -0,0 +1,18 @@
+package com.gotree.API.modules.shared.application.services;
+
+/**
+ * Recebe o andamento de uma exportação. Pode ser chamado a cada item: quem implementa decide
+ * com que frequência persistir (ver {@link ExportJobService}).
+ */
+@FunctionalInterface
+public interface ExportProgress {
+
+    ExportProgress NONE = (current, total) -> {
+    };
+
+    /**
+     * @param current itens já processados
+     * @param total   total de itens previstos (0 quando desconhecido)
+     */
+    void update(long current, long total);
+}
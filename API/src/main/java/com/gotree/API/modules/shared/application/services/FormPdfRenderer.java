@@ -0,0 +1,63 @@
+package com.gotree.API.modules.shared.application.services;
+
+import java.io.Serial;
+import java.util.Map;
+
+/**
+ * Motor alternativo ao HTML para templates de layout fixo: preenche um formulário PDF pré-montado
+ * (parte estática desenhada uma única vez) em vez de interpretar e diagramar o HTML a cada documento.
+ * <p>
+ * Usado pelo {@link ReportService} apenas para os templates listados em {@code report.render.form-templates};
+ * os demais continuam no OpenHTMLToPDF. Um documento cujo texto não cabe nos campos de tamanho fixo também
+ * segue pelo HTML ({@link LayoutOverflowException}).
+ */
+public interface FormPdfRenderer {
+
+    /**
+     * Template HTML que este motor substitui (mesmo nome usado em {@link ReportService}).
+     */
+    String templateName();
+
+    /**
+     * Extrai do modelo do template os valores dos campos. Roda na thread chamadora, com as entidades
+     * ainda ligadas à sessão; o resultado não deve depender de nada carregado de forma preguiçosa.
+     */
+    FormData prepare(Map<String, Object> data);
+
+    /**
+     * Gera o PDF a partir de valores já extraídos por {@link #prepare}. Seguro para várias threads.
+     *
+     * @throws LayoutOverflowException se algum valor não couber no campo; o documento deve ir para o HTML
+     */
+    byte[] render(FormData formData);
+
+    /**
+     * Modelo de exemplo, com dados realistas, usado no aquecimento e para comparar este motor com o HTML
+     * (benchmarks JMH, módulo {@code benchmarks}).
+     */
+    Map<String, Object> sampleData();
+
+    /**
+     * Valores de um documento.
+     */
+    interface FormData {
+
+        /**
+         * Identifica de forma única o PDF resultante (layout, fonte e valores), para a memoização.
+         */
+        String cacheKey();
+    }
+
+    /**
+     * Um valor não cabe no campo, nem com a fonte mínima: o layout fixo cortaria o texto.
+     */
+    class LayoutOverflowException extends RuntimeException {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        public LayoutOverflowException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.gotree.API.modules.shared.application.services;
+
+/**
+ * Evento publicado quando um documento é salvo com o PDF pendente.
+ * O {@link AsyncPdfGenerationService} só o recebe após o commit, quando o registro já está visível para o worker.
+ */
+public record PdfGenerationRequested(String docType, Long id) {
+}
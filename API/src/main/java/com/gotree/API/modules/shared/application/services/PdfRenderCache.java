@@ -0,0 +1,109 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.shared.domain.entities.PdfRenderCacheEntry;
+import com.gotree.API.modules.shared.infrastructure.repositories.PdfRenderCacheRepository;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Memoização da renderização: hash das entradas do PDF → arquivo já gerado no {@link StorageService}.
+ * <p>
+ * Cada entrada guarda a sua própria referência ao arquivo. Assim, quando um documento é editado e o PDF antigo
+ * é liberado, o arquivo continua disponível: se o usuário salvar de novo os mesmos dados, o PDF volta a ser
+ * usado sem renderizar. Entradas sem uso há {@code report.render.cache.retention-days} são descartadas.
+ */
+@Component
+public class PdfRenderCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfRenderCache.class);
+
+    private static final int EVICTION_BATCH_SIZE = 100;
+    // Evita um UPDATE a cada acerto: o "último uso" só precisa de precisão de horas para a expiração
+    private static final Duration TOUCH_INTERVAL = Duration.ofHours(1);
+
+    private final PdfRenderCacheRepository repository;
+    private final StorageService storageService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+
+    public PdfRenderCache(PdfRenderCacheRepository repository, StorageService storageService,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${report.render.cache.retention-days:30}") long retentionDays) {
+        this.repository = repository;
+        this.storageService = storageService;
+        this.transactionTemplate = transactionTemplate;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    /**
+     * Procura um PDF já renderizado para o hash.
+     *
+     * @return chave no armazenamento, com uma referência já registrada para quem chamou; null se não houver
+     */
+    @Transactional
+    public String lookup(String inputHash) {
+        PdfRenderCacheEntry entry = repository.findById(inputHash).orElse(null);
+        if (entry == null) return null;
+
+        // exists() antes do retain(): uma exceção dentro da transação a deixaria marcada para rollback
+        if (!storageService.exists(entry.getStorageKey())) {
+            log.warn("PDF em cache não encontrado no armazenamento ({}); a entrada será descartada.", entry.getStorageKey());
+            repository.deleteReturningCount(inputHash);
+            return null;
+        }
+
+        storageService.retain(entry.getStorageKey());
+        LocalDateTime now = LocalDateTime.now();
+        if (entry.getLastUsedAt().isBefore(now.minus(TOUCH_INTERVAL))) {
+            repository.touch(inputHash, now);
+        }
+        return entry.getStorageKey();
+    }
+
+    /**
+     * Associa o hash ao PDF recém-gravado. A entrada registra a própria referência ao arquivo.
+     */
+    @Transactional
+    public void remember(String inputHash, String templateName, String storageKey) {
+        if (repository.insertIfAbsent(inputHash, storageKey, templateName) > 0) {
+            storageService.retain(storageKey);
+        }
+    }
+
+    /**
+     * Descarta as entradas sem uso recente e libera a referência delas aos arquivos.
+     */
+    @Scheduled(cron = "${report.render.cache.eviction-cron:0 30 3 * * *}")
+    public void evictUnused() {
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        int evicted = 0;
+        List<PdfRenderCacheEntry> batch;
+        do {
+            batch = repository.findUnusedSince(before, PageRequest.of(0, EVICTION_BATCH_SIZE));
+            for (PdfRenderCacheEntry entry : batch) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    // Só libera quem de fato removeu a linha (outra réplica pode estar limpando junto)
+                    if (repository.deleteReturningCount(entry.getInputHash()) > 0) {
+                        storageService.release(entry.getStorageKey());
+                    }
+                });
+                evicted++;
+            }
+        } while (batch.size() == EVICTION_BATCH_SIZE);
+
+        if (evicted > 0) {
+            log.info("Cache de PDFs: {} entrada(s) sem uso removida(s).", evicted);
+        }
+    }
+}
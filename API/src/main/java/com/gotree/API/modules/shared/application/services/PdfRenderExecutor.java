@@ -0,0 +1,260 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.shared.exceptions.ServiceBusyException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool dedicado à renderização de PDF (OpenHTMLToPDF), separado das threads do Tomcat.
+ *
+ * <ul>
+ *     <li>Número de threads limitado aos núcleos: uma rajada de exportações não consome toda a CPU
+ *     e as chamadas simples (CRUD) continuam respondendo.</li>
+ *     <li>Duas filas limitadas: {@link Lane#INTERACTIVE} (usuário aguardando na tela) sempre tem preferência;
+ *     {@link Lane#BATCH} (exportações, ZIP) nunca ocupa todas as threads.</li>
+ *     <li>Fila interativa cheia falha na hora com {@link ServiceBusyException} (503 + Retry-After), em vez de acumular
+ *     espera. Na fila de lote, quem enfileira aguarda uma vaga: uma exportação não deve perder documentos por isso.</li>
+ *     <li>Métricas: {@code report.render.queue.depth} e {@code report.render.active} (gauges),
+ *     {@code report.render.queue.wait} e {@code report.render.execution} (timers), todos com a tag "lane".</li>
+ * </ul>
+ * A fila escolhida vem da thread chamadora: o padrão é INTERACTIVE; trabalhos em lote usam {@link #inLane}.
+ */
+@Component
+public class PdfRenderExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfRenderExecutor.class);
+
+    private static final ThreadLocal<Lane> CURRENT_LANE = ThreadLocal.withInitial(() -> Lane.INTERACTIVE);
+
+    public enum Lane {
+        INTERACTIVE,
+        BATCH
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Condition batchSpaceAvailable = lock.newCondition();
+    private final Map<Lane, ArrayDeque<RenderTask<?>>> queues = new EnumMap<>(Lane.class);
+    private final Map<Lane, Integer> capacities = new EnumMap<>(Lane.class);
+    private final Map<Lane, AtomicInteger> active = new EnumMap<>(Lane.class);
+    private final Map<Lane, Timer> waitTimers = new EnumMap<>(Lane.class);
+    private final Map<Lane, Timer> executionTimers = new EnumMap<>(Lane.class);
+    private final List<Thread> workers = new ArrayList<>();
+    private final int threads;
+    private final int maxBatchThreads;
+    private final long timeoutSeconds;
+
+    // Média móvel do tempo de renderização, usada para estimar o Retry-After
+    private volatile double averageRenderMillis = 1000;
+    private volatile boolean running = true;
+
+    public PdfRenderExecutor(MeterRegistry meterRegistry,
+                             @Value("${report.render.threads:0}") int configuredThreads,
+                             @Value("${report.render.queue.interactive-capacity:50}") int interactiveCapacity,
+                             @Value("${report.render.queue.batch-capacity:20}") int batchCapacity,
+                             @Value("${report.render.timeout-seconds:120}") long timeoutSeconds) {
+        this.threads = configuredThreads > 0 ? configuredThreads : Runtime.getRuntime().availableProcessors();
+        // Com uma única thread o lote ainda precisa andar; com mais, uma fica sempre livre para o interativo
+        this.maxBatchThreads = Math.max(1, threads - 1);
+        this.timeoutSeconds = timeoutSeconds;
+        capacities.put(Lane.INTERACTIVE, Math.max(1, interactiveCapacity));
+        capacities.put(Lane.BATCH, Math.max(1, batchCapacity));
+
+        for (Lane lane : Lane.values()) {
+            String tag = lane.name().toLowerCase();
+            queues.put(lane, new ArrayDeque<>());
+            active.put(lane, new AtomicInteger());
+            Gauge.builder("report.render.queue.depth", this, executor -> executor.queued(lane))
+                    .description("PDFs aguardando uma thread de renderização")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            Gauge.builder("report.render.active", active.get(lane), AtomicInteger::get)
+                    .description("PDFs em renderização")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            waitTimers.put(lane, Timer.builder("report.render.queue.wait")
+                    .description("Tempo na fila até começar a renderizar")
+                    .tag("lane", tag)
+                    .register(meterRegistry));
+            executionTimers.put(lane, Timer.builder("report.render.execution")
+                    .description("Tempo de renderização do PDF (sem a fila)")
+                    .tag("lane", tag)
+                    .register(meterRegistry));
+        }
+
+        for (int i = 1; i <= threads; i++) {
+            Thread worker = new Thread(this::workLoop, "pdf-render-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        logger.info("Pool de renderização de PDF iniciado com {} thread(s).", threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Executa {@code action} com as renderizações disparadas por esta thread indo para a fila {@code lane}.
+     */
+    public static <T> T inLane(Lane lane, Callable<T> action) throws Exception {
+        Lane previous = CURRENT_LANE.get();
+        CURRENT_LANE.set(lane);
+        try {
+            return action.call();
+        } finally {
+            CURRENT_LANE.set(previous);
+        }
+    }
+
+    /**
+     * Enfileira a renderização na fila da thread atual e aguarda o resultado.
+     *
+     * @throws ServiceBusyException se a fila interativa estiver cheia
+     */
+    public <T> T execute(Callable<T> render) {
+        Lane lane = CURRENT_LANE.get();
+        RenderTask<T> task = new RenderTask<>(lane, render, System.nanoTime());
+
+        try {
+            enqueue(task);
+            return task.future.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new RuntimeException("Erro ao renderizar o PDF.", e.getCause());
+        } catch (TimeoutException e) {
+            task.future.cancel(true);
+            throw new RuntimeException("Tempo limite excedido na geração do PDF.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.future.cancel(true);
+            throw new RuntimeException("Geração do PDF interrompida.", e);
+        }
+    }
+
+    private void enqueue(RenderTask<?> task) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            ArrayDeque<RenderTask<?>> queue = queues.get(task.lane);
+            int capacity = capacities.get(task.lane);
+            if (task.lane == Lane.INTERACTIVE && queue.size() >= capacity) {
+                throw new ServiceBusyException("Muitos PDFs sendo gerados no momento. Tente novamente em instantes.",
+                        estimateRetryAfterSeconds(queue.size()));
+            }
+            while (queue.size() >= capacity) {
+                batchSpaceAvailable.await();
+            }
+            queue.addLast(task);
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void workLoop() {
+        while (running) {
+            RenderTask<?> task;
+            try {
+                task = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                run(task);
+            } finally {
+                if (task.lane == Lane.BATCH) {
+                    // Libera a vaga do lote e acorda quem esperava por ela
+                    lock.lock();
+                    try {
+                        workAvailable.signal();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Próxima tarefa: interativas primeiro; lote apenas se houver vaga para ele.
+     */
+    private RenderTask<?> take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                RenderTask<?> next = queues.get(Lane.INTERACTIVE).pollFirst();
+                if (next == null && active.get(Lane.BATCH).get() < maxBatchThreads) {
+                    next = queues.get(Lane.BATCH).pollFirst();
+                    if (next != null) batchSpaceAvailable.signal();
+                }
+                if (next != null) {
+                    // Conta como ativa ainda sob o lock, para o limite do lote valer entre threads
+                    active.get(next.lane).incrementAndGet();
+                    return next;
+                }
+                workAvailable.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> void run(RenderTask<T> task) {
+        long start = System.nanoTime();
+        try {
+            waitTimers.get(task.lane).record(start - task.enqueuedAt, TimeUnit.NANOSECONDS);
+            if (task.future.isCancelled()) return;
+            task.future.complete(task.render.call());
+        } catch (Throwable e) {
+            task.future.completeExceptionally(e);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            active.get(task.lane).decrementAndGet();
+            executionTimers.get(task.lane).record(elapsed, TimeUnit.NANOSECONDS);
+            averageRenderMillis = averageRenderMillis * 0.8 + (elapsed / 1_000_000.0) * 0.2;
+        }
+    }
+
+    private int queued(Lane lane) {
+        lock.lock();
+        try {
+            return queues.get(lane).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long estimateRetryAfterSeconds(int queued) {
+        return Math.max(1, Math.round(queued * averageRenderMillis / threads / 1000));
+    }
+
+    private record RenderTask<T>(Lane lane, Callable<T> render, long enqueuedAt, CompletableFuture<T> future) {
+
+        RenderTask(Lane lane, Callable<T> render, long enqueuedAt) {
+            this(lane, render, enqueuedAt, new CompletableFuture<>());
+        }
+    }
+}
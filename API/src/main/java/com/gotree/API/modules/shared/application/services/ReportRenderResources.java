@@ -0,0 +1,206 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.administration.domain.entities.SystemInfo;
+import com.gotree.API.modules.administration.infrastructure.repositories.SystemInfoRepository;
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recursos compartilhados por todas as renderizações de PDF, carregados uma única vez:
+ * <ul>
+ *     <li>Fonte Montserrat em memória (antes era aberta do classpath a cada PDF).</li>
+ *     <li>Cache das métricas das fontes já interpretadas pelo PDFBox, reaproveitado entre documentos.</li>
+ *     <li>Base URI dos recursos locais.</li>
+ *     <li>Dados da empresa geradora (nome, CNPJ e logo já em base64), recarregados quando o SystemInfo muda
+ *     ou, no máximo, após {@code report.render.system-info-ttl-minutes} (alterações feitas por outra réplica).</li>
+ * </ul>
+ */
+@Component
+public class ReportRenderResources {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportRenderResources.class);
+
+    public static final String FONT_FAMILY = "Montserrat";
+
+    private final SystemInfoRepository systemInfoRepository;
+    private final BinaryAssetService binaryAssetService;
+    private final Duration systemInfoTtl;
+    private final byte[] fontData;
+    private final String baseUri;
+    private final String rendererFingerprint;
+    private final FSCacheEx<String, FSCacheValue> fontMetricsCache = new ConcurrentCacheStore();
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Branding branding;
+    private volatile long brandingLoadedAt;
+
+    public ReportRenderResources(SystemInfoRepository systemInfoRepository, BinaryAssetService binaryAssetService,
+                                 @Value("${report.render.system-info-ttl-minutes:10}") long systemInfoTtlMinutes) {
+        this.systemInfoRepository = systemInfoRepository;
+        this.binaryAssetService = binaryAssetService;
+        this.systemInfoTtl = Duration.ofMinutes(systemInfoTtlMinutes);
+        this.fontData = loadFont();
+        this.baseUri = new File(".").toURI().toString();
+        this.rendererFingerprint = buildRendererFingerprint(fontData);
+    }
+
+    /**
+     * Aplica ao builder a fonte em memória e o cache de métricas compartilhado.
+     */
+    public void configure(PdfRendererBuilder builder) {
+        builder.useFastMode();
+        builder.useCacheStore(PdfRendererBuilder.CacheStore.PDF_FONT_METRICS, fontMetricsCache);
+        if (fontData != null) {
+            builder.useFont(() -> new ByteArrayInputStream(fontData), FONT_FAMILY);
+        }
+    }
+
+    public String baseUri() {
+        return baseUri;
+    }
+
+    /**
+     * Bytes da fonte (compartilhados: não alterar); null se a fonte não foi encontrada.
+     */
+    public byte[] fontData() {
+        return fontData;
+    }
+
+    /**
+     * Identifica a fonte e a versão do renderizador: entra no hash da memoização, para que uma troca de
+     * fonte ou de versão do OpenHTMLToPDF gere os PDFs de novo mesmo com o HTML igual.
+     */
+    public String rendererFingerprint() {
+        return rendererFingerprint;
+    }
+
+    /**
+     * Dados da empresa geradora para o cabeçalho/rodapé dos relatórios.
+     * Nunca consulta o banco enquanto o cache estiver válido.
+     */
+    public Branding branding() {
+        Branding current = branding;
+        if (current != null && System.nanoTime() - brandingLoadedAt < systemInfoTtl.toNanos()) {
+            return current;
+        }
+        synchronized (this) {
+            current = branding;
+            if (current != null && System.nanoTime() - brandingLoadedAt < systemInfoTtl.toNanos()) {
+                return current;
+            }
+            long loadingGeneration = generation.get();
+            Branding loaded = loadBranding();
+            // Uma invalidação durante a leitura pode ter tornado o resultado obsoleto: usa, mas não guarda
+            if (generation.get() == loadingGeneration) {
+                branding = loaded;
+                brandingLoadedAt = System.nanoTime();
+            }
+            return loaded;
+        }
+    }
+
+    /**
+     * Descarta os dados da empresa em cache. Chamado quando o SystemInfo é alterado.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        branding = null;
+        logger.info("Cache dos dados da empresa para relatórios invalidado.");
+    }
+
+    private Branding loadBranding() {
+        SystemInfo info = systemInfoRepository.findFirst();
+        if (info != null) {
+            String logo = info.getLogoAssetId() != null ? binaryAssetService.loadAsBase64(info.getLogoAssetId()) : null;
+            return new Branding(info.getCompanyName(), info.getCnpj(), logo);
+        }
+
+        // FALLBACK: banco vazio (primeira execução), usa a logo estática
+        logger.warn("SystemInfo não encontrado no banco. Usando logo padrão estática.");
+        return new Branding("Minha Empresa (Padrão)", "00.000.000/0001-00", loadStaticLogo());
+    }
+
+    private String loadStaticLogo() {
+        ClassPathResource resource = new ClassPathResource("static/img/logo.png");
+        if (!resource.exists()) return null;
+        try (InputStream in = resource.getInputStream()) {
+            return Base64.getEncoder().encodeToString(in.readAllBytes());
+        } catch (IOException e) {
+            logger.warn("Logo estática padrão não encontrada.");
+            return null;
+        }
+    }
+
+    private byte[] loadFont() {
+        ClassPathResource fontResource = new ClassPathResource("fonts/" + FONT_FAMILY + ".ttf");
+        if (!fontResource.exists()) {
+            logger.error("Aviso: Fonte {} não encontrada; os PDFs usarão a fonte padrão.", FONT_FAMILY);
+            return null;
+        }
+        try (InputStream in = fontResource.getInputStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            logger.error("Aviso: Fonte {} não carregada.", FONT_FAMILY, e);
+            return null;
+        }
+    }
+
+    private static String buildRendererFingerprint(byte[] fontData) {
+        String font = fontData != null ? DigestUtils.md5DigestAsHex(fontData) : "default";
+        String version = PdfRendererBuilder.class.getPackage().getImplementationVersion();
+        return "font=" + font + ";renderer=" + (version != null ? version : "unknown");
+    }
+
+    /**
+     * Dados da empresa geradora. {@code logoBase64} é null quando não há logo cadastrada.
+     */
+    public record Branding(String companyName, String cnpj, String logoBase64) {
+    }
+
+    /**
+     * Cache de métricas de fonte seguro para renderizações concorrentes.
+     */
+    private static class ConcurrentCacheStore implements FSCacheEx<String, FSCacheValue> {
+
+        private final Map<String, FSCacheValue> store = new ConcurrentHashMap<>();
+
+        @Override
+        public void put(String key, FSCacheValue value) {
+            store.put(key, value);
+        }
+
+        @Override
+        public FSCacheValue get(String key, Callable<? extends FSCacheValue> loader) {
+            return store.computeIfAbsent(key, k -> {
+                try {
+                    return loader.call();
+                } catch (Exception e) {
+                    throw new IllegalStateException("Falha ao carregar métricas da fonte " + k, e);
+                }
+            });
+        }
+
+        @Override
+        public FSCacheValue get(String key) {
+            return store.get(key);
+        }
+    }
+}
@@ -1,73 +1,266 @@
 package com.gotree.API.modules.shared.application.services;
 
-import com.gotree.API.modules.administration.domain.entities.SystemInfo;
-import com.gotree.API.modules.administration.infrastructure.repositories.SystemInfoRepository;
+import com.gotree.API.modules.shared.exceptions.ServiceBusyException;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
 import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
 import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
 public class ReportService {
 
     private static final Logger logger = LoggerFactory.getLogger(ReportService.class);
+
+    /**
+     * Latência por template (tags "template", "engine" e "outcome"), exposta pelo Actuator em /actuator/metrics.
+     */
+    static final String RENDER_TIMER = "report.pdf.render";
+    static final String RENDER_CACHE_COUNTER = "report.pdf.render.cache";
+
+    static final String ENGINE_HTML = "html";
+    static final String ENGINE_FORM = "form";
+
     private final TemplateEngine templateEngine;
-    private final SystemInfoRepository systemInfoRepository;
+    private final ReportRenderResources renderResources;
+    private final PdfRenderExecutor renderExecutor;
+    private final MeterRegistry meterRegistry;
+    private final PdfRenderCache renderCache;
+    private final StorageService storageService;
+    // Motores de formulário ativados em report.render.form-templates, por template
+    private final Map<String, FormPdfRenderer> activeFormRenderers = new HashMap<>();
 
-    public ReportService(TemplateEngine templateEngine, SystemInfoRepository systemInfoRepository) {
+    public ReportService(TemplateEngine templateEngine, ReportRenderResources renderResources,
+                         PdfRenderExecutor renderExecutor, MeterRegistry meterRegistry,
+                         PdfRenderCache renderCache, StorageService storageService,
+                         List<FormPdfRenderer> formRendererBeans,
+                         @Value("${report.render.form-templates:}") Set<String> formTemplates) {
         this.templateEngine = templateEngine;
-        this.systemInfoRepository = systemInfoRepository;
+        this.renderResources = renderResources;
+        this.renderExecutor = renderExecutor;
+        this.meterRegistry = meterRegistry;
+        this.renderCache = renderCache;
+        this.storageService = storageService;
+
+        Map<String, FormPdfRenderer> formRenderers = new HashMap<>();
+        for (FormPdfRenderer renderer : formRendererBeans) {
+            if (formRenderers.put(renderer.templateName(), renderer) != null) {
+                throw new IllegalStateException("Mais de um motor de formulário para o template " + renderer.templateName());
+            }
+        }
+        for (String template : formTemplates) {
+            String name = template.trim();
+            if (name.isEmpty()) continue;
+            FormPdfRenderer renderer = formRenderers.get(name);
+            if (renderer == null) {
+                logger.warn("Template '{}' configurado para o motor de formulário, mas não há motor para ele; segue em HTML.", name);
+                continue;
+            }
+            activeFormRenderers.put(name, renderer);
+        }
+        if (!activeFormRenderers.isEmpty()) {
+            logger.info("Templates gerados pelo motor de formulário: {}", activeFormRenderers.keySet());
+        }
     }
 
+    /**
+     * O HTML é montado na thread chamadora (as entidades ainda estão ligadas à sessão do Hibernate);
+     * só a renderização do PDF, que consome CPU, vai para o {@link PdfRenderExecutor}.
+     * Templates com motor de formulário ativo não passam pelo HTML (ver {@link FormPdfRenderer}), exceto os
+     * documentos cujo texto não cabe no layout fixo.
+     *
+     * @throws ServiceBusyException se a fila de renderização estiver cheia
+     */
     public byte[] generatePdfFromHtml(String templateName, Map<String, Object> data) {
-        // 1. Garante que a logo e dados da empresa estejam no mapa
+        FormPdfRenderer form = activeFormRenderers.get(templateName);
+        if (form != null) {
+            FormPdfRenderer.FormData formData = form.prepare(data);
+            try {
+                return timed(templateName, ENGINE_FORM, () -> renderExecutor.execute(() -> form.render(formData)));
+            } catch (FormPdfRenderer.LayoutOverflowException e) {
+                logger.info("PDF '{}' segue pelo HTML: {}", templateName, e.getMessage());
+            }
+        }
+        return timed(templateName, ENGINE_HTML, () -> {
+            String htmlContent = processHtml(templateName, data);
+            return renderExecutor.execute(() -> renderPdf(htmlContent));
+        });
+    }
+
+    /**
+     * Primeira metade de {@link #generatePdfFromHtml}: apenas o HTML.
+     * Para quem monta o HTML dentro de uma transação e renderiza o PDF depois, já sem conexão aberta.
+     */
+    public String generateHtml(String templateName, Map<String, Object> data) {
+        return processHtml(templateName, data);
+    }
+
+    /**
+     * Segunda metade: renderiza no {@link PdfRenderExecutor} um HTML já montado por {@link #generateHtml}.
+     *
+     * @throws ServiceBusyException se a fila de renderização estiver cheia
+     */
+    public byte[] generatePdfFromProcessedHtml(String templateName, String htmlContent) {
+        return timed(templateName, ENGINE_HTML, () -> renderExecutor.execute(() -> renderPdf(htmlContent)));
+    }
+
+    /**
+     * Gera o PDF já gravado no armazenamento, reaproveitando o arquivo quando as entradas não mudaram.
+     * <p>
+     * A chave da memoização é o SHA-256 do HTML processado (que já contém todos os campos, riscos, dados e logo
+     * da empresa e o próprio template), do nome do template, da fonte e da versão do renderizador.
+     * Montar o HTML custa milissegundos; só uma mudança real de conteúdo chega à renderização.
+     * No motor de formulário, a chave vem dos valores dos campos e da versão do layout.
+     *
+     * @return chave do PDF no {@link StorageService}, com uma referência registrada para quem chamou
+     *         (que deve liberá-la com {@code release} quando deixar de usá-la)
+     * @throws ServiceBusyException se for preciso renderizar e a fila estiver cheia
+     */
+    public String generatePdfToStorage(String templateName, Map<String, Object> data) {
+        FormPdfRenderer form = activeFormRenderers.get(templateName);
+        if (form != null) {
+            FormPdfRenderer.FormData formData = form.prepare(data);
+            try {
+                return storeMemoized(templateName, inputHash(templateName, ENGINE_FORM, formData.cacheKey()),
+                        () -> timed(templateName, ENGINE_FORM, () -> renderExecutor.execute(() -> form.render(formData))));
+            } catch (FormPdfRenderer.LayoutOverflowException e) {
+                logger.info("PDF '{}' segue pelo HTML: {}", templateName, e.getMessage());
+            }
+        }
+        return storePdfFromProcessedHtml(templateName, processHtml(templateName, data));
+    }
+
+    /**
+     * Mesma memoização de {@link #generatePdfToStorage}, para um HTML já montado por {@link #generateHtml}.
+     */
+    public String storePdfFromProcessedHtml(String templateName, String htmlContent) {
+        return storeMemoized(templateName, inputHash(templateName, renderResources.rendererFingerprint(), htmlContent),
+                () -> generatePdfFromProcessedHtml(templateName, htmlContent));
+    }
+
+    private String storeMemoized(String templateName, String inputHash, Supplier<byte[]> generation) {
+        String cachedKey = renderCache.lookup(inputHash);
+        if (cachedKey != null) {
+            cacheCounter(templateName, "hit").increment();
+            logger.info("PDF '{}' reaproveitado: entradas sem alteração.", templateName);
+            return cachedKey;
+        }
+
+        cacheCounter(templateName, "miss").increment();
+        byte[] pdf = generation.get();
+        String storageKey = storageService.store(pdf, "pdf");
+        renderCache.remember(inputHash, templateName, storageKey);
+        return storageKey;
+    }
+
+    /**
+     * Renderização direta na thread atual, usada pelo aquecimento na inicialização: sem fila e sem métricas,
+     * pelo motor configurado para o template.
+     */
+    byte[] render(String templateName, Map<String, Object> data) {
+        FormPdfRenderer form = activeFormRenderers.get(templateName);
+        if (form != null) {
+            try {
+                return form.render(form.prepare(data));
+            } catch (FormPdfRenderer.LayoutOverflowException e) {
+                logger.info("PDF '{}' segue pelo HTML: {}", templateName, e.getMessage());
+            }
+        }
+        return renderPdf(processHtml(templateName, data));
+    }
+
+    private String processHtml(String templateName, Map<String, Object> data) {
+        // Garante que a logo e dados da empresa estejam no mapa (cache, sem ida ao banco)
         enrichDataWithSystemInfo(data);
 
         Context context = new Context();
         context.setVariables(data);
+        return templateEngine.process(templateName, context);
+    }
 
-        logger.info("Gerando HTML para o template: {}", templateName);
-        String htmlContent = templateEngine.process(templateName, context);
+    /**
+     * {@code renderer}: versão do renderizador HTML (fonte + OpenHTMLToPDF) ou {@code "form"}, cujo
+     * {@code content} já traz a versão do layout e da fonte.
+     */
+    private String inputHash(String templateName, String renderer, String content) {
+        MessageDigest digest = newDigest();
+        digest.update((templateName + "\n" + renderer + "\n").getBytes(StandardCharsets.UTF_8));
+        digest.update(content.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
 
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+    private Counter cacheCounter(String templateName, String result) {
+        return Counter.builder(RENDER_CACHE_COUNTER)
+                .description("Gerações de PDF atendidas pela memoização (hit) ou renderizadas (miss)")
+                .tag("template", templateName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
 
-            // Instancia o novo construtor de PDF moderno
-            PdfRendererBuilder builder = new PdfRendererBuilder();
-            builder.useFastMode(); // Otimiza a renderização
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível na JVM.", e);
+        }
+    }
 
-            // Tenta carregar a fonte Montserrat da pasta resources/fonts/
-            try {
-                ClassPathResource fontResource = new ClassPathResource("fonts/Montserrat.ttf");
-                if (fontResource.exists()) {
-                    builder.useFont(() -> {
-                        try {
-                            return fontResource.getInputStream();
-                        } catch (IOException ex) {
-                            return null;
-                        }
-                    }, "Montserrat");
-                }
-            } catch (Exception e) {
-                logger.error("Aviso: Fonte Montserrat não carregada.", e);
-            }
+    private byte[] timed(String templateName, String engine, Supplier<byte[]> generation) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            byte[] pdf = generation.get();
+            outcome = "success";
+            return pdf;
+        } catch (ServiceBusyException e) {
+            outcome = "rejected";
+            throw e;
+        } catch (FormPdfRenderer.LayoutOverflowException e) {
+            outcome = "overflow";
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Timer.builder(RENDER_TIMER)
+                    .description("Tempo de geração de PDF (HTML + renderização)")
+                    .tag("template", templateName)
+                    .tag("engine", engine)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            logger.info("PDF '{}' gerado em {} ms ({}, {}).", templateName, elapsed / 1_000_000, engine, outcome);
+        }
+    }
+
+    private byte[] renderPdf(String htmlContent) {
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
 
-            // BaseURI para recursos locais
-            String baseUri = new File(".").toURI().toString();
+            // Fonte, cache de métricas e modo rápido vêm prontos dos recursos compartilhados
+            PdfRendererBuilder builder = new PdfRendererBuilder();
+            renderResources.configure(builder);
 
             // Passa o HTML e constrói o documento
-            builder.withHtmlContent(htmlContent, baseUri);
+            builder.withHtmlContent(htmlContent, renderResources.baseUri());
             builder.toStream(outputStream);
             builder.run();
 
-            logger.info("PDF gerado com sucesso com OpenHTMLToPDF.");
             return outputStream.toByteArray();
 
         } catch (Exception e) {
@@ -77,56 +270,18 @@ public class ReportService {
     }
 
     /**
-     * Busca os dados da empresa no banco e injeta no mapa se não existirem.
+     * Injeta os dados da empresa no mapa se não existirem.
      */
     private void enrichDataWithSystemInfo(Map<String, Object> data) {
         try {
-            // Tenta pegar do banco
-            SystemInfo info = systemInfoRepository.findFirst();
-
-            if (info != null) {
-                data.putIfAbsent("generatingCompanyName", info.getCompanyName());
-                data.putIfAbsent("generatingCompanyCnpj", info.getCnpj());
-
-                if (info.getLogoBase64() != null && !info.getLogoBase64().isBlank()) {
-                    // Remove prefixo se existir, para padronizar
-                    String cleanBase64 = stripDataUrlPrefix(info.getLogoBase64());
-                    data.put("generatingCompanyLogo", cleanBase64);
-                }
-            } else {
-                // FALLBACK: Se o banco estiver vazio (primeira execução), tenta carregar do arquivo estático
-                logger.warn("SystemInfo não encontrado no banco. Tentando logo padrão estática.");
-                loadStaticLogoFallback(data);
+            ReportRenderResources.Branding branding = renderResources.branding();
+            data.putIfAbsent("generatingCompanyName", branding.companyName());
+            data.putIfAbsent("generatingCompanyCnpj", branding.cnpj());
+            if (branding.logoBase64() != null) {
+                data.put("generatingCompanyLogo", branding.logoBase64());
             }
         } catch (Exception e) {
             logger.error("Erro ao carregar dados do sistema para o relatório", e);
         }
     }
-
-    /**
-     * Fallback: Tenta ler src/main/resources/static/img/logo.png e converter para Base64
-     * Isso garante que funcione mesmo se o banco estiver vazio.
-     */
-    private void loadStaticLogoFallback(Map<String, Object> data) {
-        try {
-            ClassPathResource resource = new ClassPathResource("static/img/logo.png");
-            if (resource.exists()) {
-                byte[] imageBytes = resource.getInputStream().readAllBytes();
-                String base64 = java.util.Base64.getEncoder().encodeToString(imageBytes);
-                data.put("generatingCompanyLogo", base64);
-
-                // Valores padrão se não tiver no banco
-                data.putIfAbsent("generatingCompanyName", "Minha Empresa (Padrão)");
-                data.putIfAbsent("generatingCompanyCnpj", "00.000.000/0001-00");
-            }
-        } catch (IOException e) {
-            logger.warn("Logo estática padrão não encontrada.");
-        }
-    }
-
-    private String stripDataUrlPrefix(String dataUrl) {
-        if (dataUrl == null) return null;
-        int commaIndex = dataUrl.indexOf(',');
-        return commaIndex != -1 ? dataUrl.substring(commaIndex + 1) : dataUrl;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,79 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.operations.domain.entities.AepReport;
+import com.gotree.API.modules.operations.domain.entities.OccupationalRiskReport;
+import com.gotree.API.modules.operations.domain.entities.TechnicalVisit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Aquece a geração de PDF na inicialização: renderiza cada template com dados vazios algumas vezes.
+ * Isso carrega e compila os templates do Thymeleaf, interpreta a fonte, preenche o cache de métricas
+ * e o dos dados da empresa, e dá ao JIT as primeiras execuções do OpenHTMLToPDF/PDFBox.
+ * Sem isso, o primeiro relatório de cada tipo após um deploy demorava bem mais que os seguintes.
+ * <p>
+ * Roda em {@link ApplicationReadyEvent} (depois dos seeders) e antes de a instância aceitar tráfego.
+ */
+@Component
+public class ReportWarmUp {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportWarmUp.class);
+
+    /**
+     * Um modelo mínimo por template, apenas com o que os templates acessam sem checagem de nulo.
+     */
+    private static final Map<String, Supplier<Map<String, Object>>> TEMPLATES = Map.of(
+            "visit-report-template", () -> model("visit", new TechnicalVisit(), "photoUrls", Map.of()),
+            "aep-template", () -> model("aep", new AepReport(), "allRisks", List.of(), "selectedRisks", List.of()),
+            "risk-checklist-template", () -> model("report", new OccupationalRiskReport(), "functionsData", List.of()),
+            "relatorio-agenda", () -> model("itens", List.of(), "periodo", "", "filtroTipo", "TODOS",
+                    "filtroEmpresa", "TODAS", "filtroColaborador", "TODOS")
+    );
+
+    private final ReportService reportService;
+    private final boolean enabled;
+    private final int iterations;
+
+    public ReportWarmUp(ReportService reportService,
+                        @Value("${report.render.warm-up.enabled:true}") boolean enabled,
+                        @Value("${report.render.warm-up.iterations:3}") int iterations) {
+        this.reportService = reportService;
+        this.enabled = enabled;
+        this.iterations = Math.max(1, iterations);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) return;
+
+        long start = System.nanoTime();
+        TEMPLATES.forEach((template, model) -> {
+            try {
+                for (int i = 0; i < iterations; i++) {
+                    reportService.render(template, model.get());
+                }
+            } catch (Exception e) {
+                // Aquecimento é opcional: uma falha aqui não impede a aplicação de subir
+                logger.warn("Aquecimento do template '{}' falhou: {}", template, e.getMessage());
+            }
+        });
+        logger.info("Aquecimento dos templates de PDF concluído em {} ms.", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static Map<String, Object> model(Object... keyValues) {
+        Map<String, Object> model = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            model.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return model;
+    }
+}
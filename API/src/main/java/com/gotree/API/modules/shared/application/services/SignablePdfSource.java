@@ -0,0 +1,36 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.iam.domain.entities.User;
+
+/**
+ * Tipo de documento cujo PDF pode ser assinado com o certificado ICP do técnico responsável.
+ * Cada implementação é um bean do Spring; o {@link BatchSigningService} escolhe a correta pelo {@link #docType()}.
+ * <p>
+ * A assinatura é feita fora de transação: {@link #pdfKeyForSigning} lê o PDF atual e {@link #completeSignature}
+ * só troca o arquivo se o documento ainda apontar para ele (o PDF pode ter sido regerado nesse meio tempo).
+ */
+public interface SignablePdfSource {
+
+    /**
+     * Chave do tipo, a mesma do índice de documentos ("visit", "risk").
+     */
+    String docType();
+
+    /**
+     * Valida se o usuário pode assinar o documento e devolve a chave do PDF atual.
+     *
+     * @throws SecurityException se o usuário não for o técnico responsável
+     * @throws IllegalStateException se o PDF ainda não existir
+     */
+    String pdfKeyForSigning(Long id, User signer);
+
+    /**
+     * Aponta o documento para o PDF assinado e registra a data da assinatura, se ele ainda apontar para
+     * {@code originalPdfKey}.
+     *
+     * @param signedPdfKey chave do PDF assinado, com uma referência já registrada: se o documento não aceitar
+     *                     o resultado (excluído ou com outro PDF), a implementação deve liberá-la
+     * @return false se o documento mudou durante a assinatura
+     */
+    boolean completeSignature(Long id, String originalPdfKey, String signedPdfKey);
+}
@@ -0,0 +1,153 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.iam.application.services.SymmetricCryptoService;
+import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Material de assinatura (chave privada e cadeia do certificado A1) já decifrado e lido, por usuário.
+ * <p>
+ * Sem o cache, cada assinatura decifrava a senha, baixava o .pfx do armazenamento e interpretava o PKCS#12.
+ * A entrada vale pelo tempo configurado e só enquanto o usuário tiver o mesmo arquivo e a mesma senha
+ * cifrada: um certificado trocado em outra instância é relido na próxima assinatura. Nesta instância,
+ * o {@code UserService} descarta a entrada ao enviar ou remover o certificado.
+ * A senha em claro nunca fica guardada.
+ */
+@Component
+public class SigningMaterialCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SigningMaterialCache.class);
+
+    private final SymmetricCryptoService cryptoService;
+    private final StorageService storageService;
+    private final long ttlNanos;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    public SigningMaterialCache(SymmetricCryptoService cryptoService, StorageService storageService,
+                                @Value("${signature.material.ttl-minutes:30}") long ttlMinutes) {
+        this.cryptoService = cryptoService;
+        this.storageService = storageService;
+        this.ttlNanos = Duration.ofMinutes(ttlMinutes).toNanos();
+    }
+
+    /**
+     * @throws IllegalStateException se o usuário não tiver certificado configurado
+     */
+    public SigningMaterial get(User signer) {
+        if (signer.getCertificatePath() == null || signer.getCertificatePassword() == null) {
+            throw new IllegalStateException("Usuário não possui certificado digital configurado.");
+        }
+
+        long now = System.nanoTime();
+        Entry entry = signer.getId() != null ? entries.get(signer.getId()) : null;
+        if (entry != null && entry.matches(signer) && now - entry.loadedAt < ttlNanos) {
+            return entry.material;
+        }
+
+        // Duas assinaturas simultâneas do mesmo usuário podem ler o arquivo duas vezes; o resultado é o mesmo
+        SigningMaterial material = load(signer);
+        if (signer.getId() != null) {
+            entries.values().removeIf(other -> now - other.loadedAt >= ttlNanos);
+            entries.put(signer.getId(), new Entry(signer.getCertificatePath(), signer.getCertificatePassword(), material, now));
+        }
+        return material;
+    }
+
+    /**
+     * Descarta o material do usuário (certificado enviado, trocado ou removido).
+     */
+    public void invalidate(Long userId) {
+        if (userId != null && entries.remove(userId) != null) {
+            logger.debug("Material de assinatura do usuário {} descartado.", userId);
+        }
+    }
+
+    private SigningMaterial load(User signer) {
+        char[] passwordChars = null;
+        try {
+            // Senha isolada em char[] e apagada logo após a leitura (LGPD/Segurança)
+            passwordChars = cryptoService.decrypt(signer.getCertificatePassword()).toCharArray();
+
+            KeyStore ks = KeyStore.getInstance("PKCS12");
+            try (InputStream in = storageService.open(signer.getCertificatePath())) {
+                ks.load(in, passwordChars);
+            }
+
+            Enumeration<String> aliases = ks.aliases();
+            if (!aliases.hasMoreElements()) {
+                throw new IllegalStateException("O certificado digital não contém nenhuma chave.");
+            }
+            String alias = aliases.nextElement();
+            PrivateKey privateKey = (PrivateKey) ks.getKey(alias, passwordChars);
+            Certificate[] chain = ks.getCertificateChain(alias);
+
+            if (chain.length == 1) {
+                logger.warn("O certificado do usuário {} não contém a cadeia completa (Raiz e Intermediária): "
+                        + "a assinatura aparecerá sem validação no Adobe.", signer.getId());
+            }
+            return new SigningMaterial(privateKey, chain.clone(), extractCommonName((X509Certificate) chain[0]));
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Erro ao carregar o certificado digital: " + e.getMessage(), e);
+        } finally {
+            if (passwordChars != null) {
+                Arrays.fill(passwordChars, '0');
+            }
+        }
+    }
+
+    private static String extractCommonName(X509Certificate cert) {
+        try {
+            String dn = cert.getSubjectX500Principal().getName();
+            LdapName ldapDN = new LdapName(dn);
+            for (Rdn rdn : ldapDN.getRdns()) {
+                if (rdn.getType().equalsIgnoreCase("CN")) {
+                    return rdn.getValue().toString();
+                }
+            }
+            return "Desconhecido";
+        } catch (Exception e) {
+            return "Assinatura Digital ICP-Brasil";
+        }
+    }
+
+    /**
+     * Chave privada, cadeia do certificado (o primeiro é o do titular) e nome do titular (CN).
+     */
+    public record SigningMaterial(PrivateKey privateKey, Certificate[] chain, String subjectName) {
+
+        /**
+         * Cópia da cadeia: o array guardado é compartilhado entre as assinaturas e não pode ser alterado.
+         */
+        public Certificate[] chainCopy() {
+            return chain.clone();
+        }
+    }
+
+    private record Entry(String certificatePath, String encryptedPassword, SigningMaterial material, long loadedAt) {
+
+        boolean matches(User signer) {
+            return Objects.equals(certificatePath, signer.getCertificatePath())
+                    && Objects.equals(encryptedPassword, signer.getCertificatePassword());
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Move os arquivos gravados no formato antigo (nomes com UUID, caminhos absolutos no volume local) para o
+ * armazenamento endereçado por conteúdo, no backend configurado (disco ou S3/MinIO).
+ * <p>
+ * Roda em segundo plano, em lotes pequenos, com a aplicação no ar: cada arquivo é copiado para o CAS,
+ * a linha é atualizada numa transação curta (só se o caminho não mudou no meio tempo) e o arquivo antigo
+ * é apagado após o commit. Como o {@link StorageService} lê os dois formatos, não há janela de indisponibilidade.
+ * Pode ser executada de novo a qualquer momento: linhas já migradas são ignoradas.
+ */
+@Service
+public class StorageMigrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageMigrationService.class);
+
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * Colunas que guardam caminhos de arquivos, com a extensão padrão caso o nome antigo não tenha uma.
+     */
+    private static final List<Target> TARGETS = List.of(
+            new Target("tb_technical_visit", "pdf_path", "pdf"),
+            new Target("tb_aep_report", "pdf_path", "pdf"),
+            new Target("tb_occupational_risk_report", "pdf_path", "pdf"),
+            new Target("tb_visit_finding", "photo_path1", "jpg"),
+            new Target("tb_visit_finding", "photo_path2", "jpg"),
+            new Target("tb_user", "certificate_path", "pfx")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StorageService storageService;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "storage-migration");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong migrated = new AtomicLong();
+    private final AtomicLong missing = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String currentTarget;
+
+    public StorageMigrationService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                   StorageService storageService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.storageService = storageService;
+    }
+
+    /**
+     * Dispara a migração em segundo plano.
+     *
+     * @return false se já existe uma migração em andamento
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) return false;
+
+        migrated.set(0);
+        missing.set(0);
+        failed.set(0);
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+
+        executor.submit(() -> {
+            try {
+                for (Target target : TARGETS) {
+                    currentTarget = target.table() + "." + target.column();
+                    migrateTarget(target);
+                }
+                log.info("Migração do armazenamento concluída: {} migrados, {} ausentes, {} falhas.",
+                        migrated.get(), missing.get(), failed.get());
+            } catch (Exception e) {
+                log.error("Migração do armazenamento interrompida: {}", e.getMessage(), e);
+            } finally {
+                currentTarget = null;
+                finishedAt = LocalDateTime.now();
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("currentTarget", currentTarget);
+        status.put("migrated", migrated.get());
+        status.put("missing", missing.get());
+        status.put("failed", failed.get());
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void migrateTarget(Target target) {
+        String select = "SELECT id, " + target.column() + " AS path FROM " + target.table() +
+                " WHERE " + target.column() + " IS NOT NULL AND " + target.column() + " <> ''" +
+                " AND " + target.column() + " NOT LIKE '" + StorageService.CAS_PREFIX + "%'" +
+                " AND id > ? ORDER BY id LIMIT " + BATCH_SIZE;
+
+        long lastId = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(select, lastId);
+            if (rows.isEmpty()) return;
+
+            for (Map<String, Object> row : rows) {
+                long id = ((Number) row.get("id")).longValue();
+                String legacyPath = (String) row.get("path");
+                lastId = id;
+                migrateRow(target, id, legacyPath);
+            }
+        }
+    }
+
+    private void migrateRow(Target target, long id, String legacyPath) {
+        if (!storageService.exists(legacyPath)) {
+            // Arquivo já perdido: a linha fica como está, o fluxo normal regenera quando possível
+            missing.incrementAndGet();
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                String key;
+                try (InputStream in = storageService.open(legacyPath)) {
+                    key = storageService.store(in, StorageService.extensionOf(legacyPath, target.defaultExtension()));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+
+                int updated = jdbcTemplate.update("UPDATE " + target.table() + " SET " + target.column() + " = ?" +
+                        " WHERE id = ? AND " + target.column() + " = ?", key, id, legacyPath);
+
+                if (updated == 1) {
+                    // E-mails ainda na fila apontam para o caminho absoluto antigo: passam a reservar a nova chave
+                    int queued = jdbcTemplate.update("UPDATE tb_email_outbox SET attachment_path = ?" +
+                                    " WHERE attachment_path IN (?, ?) AND status IN ('PENDING', 'SENDING')",
+                            key, legacyPath, storageService.localPath(legacyPath).map(Object::toString).orElse(legacyPath));
+                    for (int i = 0; i < queued; i++) storageService.retain(key);
+
+                    // Apaga o arquivo antigo somente após o commit
+                    storageService.release(legacyPath);
+                    migrated.incrementAndGet();
+                } else {
+                    // O registro mudou durante a cópia (regerado, apagado): descarta a referência criada
+                    storageService.release(key);
+                }
+            });
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.warn("Falha ao migrar {}.{} id={}: {}", target.table(), target.column(), id, e.getMessage());
+        }
+    }
+
+    private record Target(String table, String column, String defaultExtension) {
+    }
+}
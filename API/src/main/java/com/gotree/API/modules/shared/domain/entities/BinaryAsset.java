@@ -0,0 +1,45 @@
+package com.gotree.API.modules.shared.domain.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Arquivo binário pequeno guardado no banco (assinaturas desenhadas, logotipo).
+ * As entidades de negócio guardam apenas o ID; os bytes só são lidos sob demanda,
+ * normalmente na geração de um PDF.
+ *
+ * @see com.gotree.API.modules.shared.application.services.BinaryAssetService
+ */
+@Entity
+@Table(name = "tb_binary_asset")
+@Getter
+@Setter
+public class BinaryAsset {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Tipo MIME do conteúdo (ex: "image/png").
+     */
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "content", nullable = false)
+    private byte[] content;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,91 @@
+package com.gotree.API.modules.shared.domain.entities;
+
+import com.gotree.API.modules.shared.domain.enums.PdfStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Linha somente-leitura da view {@code vw_document_index}, que unifica Visitas Técnicas,
+ * AEPs e Checklists de Risco em um único índice de documentos.
+ * Permite que filtros, ordenação e paginação sejam feitos inteiramente no banco.
+ *
+ * @see DocumentIndexId
+ */
+@Entity
+@Immutable
+@Table(name = "vw_document_index")
+@IdClass(DocumentIndexId.class)
+@Getter
+public class DocumentIndexEntry {
+
+    /**
+     * Chave do tipo do documento: "visit", "aep" ou "risk".
+     */
+    @Id
+    @Column(name = "doc_type")
+    private String docType;
+
+    /**
+     * ID do documento na tabela de origem.
+     */
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    private String title;
+
+    @Column(name = "creation_date")
+    private LocalDate creationDate;
+
+    /**
+     * Data usada na ordenação (documentos sem data recebem 0001-01-01 e ficam no fim).
+     */
+    @Column(name = "sort_date")
+    private LocalDate sortDate;
+
+    @Column(name = "pdf_path")
+    private String pdfPath;
+
+    @Column(name = "company_id")
+    private Long companyId;
+
+    @Column(name = "company_name")
+    private String companyName;
+
+    @Column(name = "technician_id")
+    private Long technicianId;
+
+    @Column(name = "technician_name")
+    private String technicianName;
+
+    @Column(name = "sent_to_client_at")
+    private LocalDateTime sentToClientAt;
+
+    @Column(name = "icp_signed_at")
+    private LocalDateTime icpSignedAt;
+
+    /**
+     * Calculado no SQL: indica se existe imagem de assinatura do técnico.
+     */
+    private boolean signed;
+
+    /**
+     * Situação do PDF. Null quando o documento ainda não tem arquivo (AEP nova, registros antigos).
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "pdf_status")
+    private PdfStatus pdfStatus;
+
+    @Column(name = "pdf_error")
+    private String pdfError;
+}
@@ -0,0 +1,23 @@
+package com.gotree.API.modules.shared.domain.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Chave composta do {@link DocumentIndexEntry}: o ID sozinho não é único entre os três tipos de documento.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentIndexId implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private String docType;
+    private Long id;
+}
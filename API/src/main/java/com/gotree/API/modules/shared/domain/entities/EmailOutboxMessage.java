@@ -0,0 +1,75 @@
+package com.gotree.API.modules.shared.domain.entities;
+
+import com.gotree.API.modules.shared.domain.enums.EmailOutboxStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mensagem aguardando entrega na fila de e-mails (outbox).
+ * Todos os destinatários de um mesmo documento compartilham uma única mensagem.
+ *
+ * @see com.gotree.API.modules.shared.application.services.EmailOutboxService
+ */
+@Entity
+@Table(name = "tb_email_outbox")
+@Getter
+@Setter
+public class EmailOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Destinatário da mensagem (mensagens enfileiradas antes do envio individual podem ter vários, separados por vírgula).
+     */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String recipients;
+
+    @Column(nullable = false, length = 500)
+    private String subject;
+
+    @Column(name = "html_body", nullable = false, columnDefinition = "TEXT")
+    private String htmlBody;
+
+    /**
+     * Caminho absoluto do PDF anexado. O arquivo é lido do disco apenas no momento do envio.
+     */
+    @Column(name = "attachment_path", length = 1000)
+    private String attachmentPath;
+
+    @Column(name = "attachment_name")
+    private String attachmentName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EmailOutboxStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "locked_at")
+    private LocalDateTime lockedAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,83 @@
+package com.gotree.API.modules.shared.domain.entities;
+
+import com.gotree.API.modules.shared.domain.enums.ExportJobStatus;
+import com.gotree.API.modules.shared.domain.enums.ExportJobType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Exportação executada em segundo plano. O resultado fica no armazenamento e é baixado depois,
+ * com suporte a Range (download retomável).
+ *
+ * @see com.gotree.API.modules.shared.application.services.ExportJobService
+ */
+@Entity
+@Table(name = "tb_export_job")
+@Getter
+@Setter
+public class ExportJob {
+
+    /**
+     * UUID: o id vai na URL de acompanhamento e não deve ser sequencial.
+     */
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private ExportJobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ExportJobStatus status;
+
+    @Column(name = "requested_by", nullable = false)
+    private Long requestedBy;
+
+    /**
+     * Filtros da exportação em JSON (ex: período).
+     */
+    @Column(columnDefinition = "TEXT")
+    private String parameters;
+
+    @Column(name = "progress_current", nullable = false)
+    private long progressCurrent;
+
+    @Column(name = "progress_total", nullable = false)
+    private long progressTotal;
+
+    @Column(name = "storage_key", length = 200)
+    private String storageKey;
+
+    private String filename;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
+    @Column(name = "error_message", length = 2000)
+    private String errorMessage;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+}
@@ -0,0 +1,38 @@
+package com.gotree.API.modules.shared.domain.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * PDF já renderizado para um conjunto de entradas (hash do conteúdo que alimenta o template).
+ *
+ * @see com.gotree.API.modules.shared.application.services.PdfRenderCache
+ */
+@Entity
+@Table(name = "tb_pdf_render_cache")
+@Getter
+@Setter
+public class PdfRenderCacheEntry {
+
+    @Id
+    @Column(name = "input_hash", length = 64)
+    private String inputHash;
+
+    @Column(name = "storage_key", nullable = false, length = 200)
+    private String storageKey;
+
+    @Column(name = "template_name", nullable = false, length = 100)
+    private String templateName;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_used_at", nullable = false)
+    private LocalDateTime lastUsedAt;
+}
@@ -0,0 +1,44 @@
+package com.gotree.API.modules.shared.domain.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Contador de referências de um arquivo endereçado por conteúdo.
+ *
+ * @see com.gotree.API.modules.shared.infrastructure.storage.StorageService
+ */
+@Entity
+@Table(name = "tb_stored_blob")
+@Getter
+@Setter
+public class StoredBlob {
+
+    /**
+     * Chave do arquivo no armazenamento (ex: "cas/ab/cd/abcd...ef.pdf").
+     */
+    @Id
+    @Column(name = "storage_key", length = 200)
+    private String storageKey;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Quando as referências chegaram a zero; a limpeza apaga o arquivo depois de um tempo de carência.
+     */
+    @Column(name = "released_at")
+    private LocalDateTime releasedAt;
+}
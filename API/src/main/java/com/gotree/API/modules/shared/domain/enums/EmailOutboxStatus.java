@@ -0,0 +1,11 @@
+package com.gotree.API.modules.shared.domain.enums;
+
+/**
+ * Ciclo de vida de uma mensagem na fila de e-mails.
+ */
+public enum EmailOutboxStatus {
+    PENDING,  // Aguardando envio (ou nova tentativa)
+    SENDING,  // Reservada por um worker
+    SENT,
+    FAILED    // Esgotou as tentativas
+}
@@ -0,0 +1,8 @@
+package com.gotree.API.modules.shared.domain.enums;
+
+public enum ExportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
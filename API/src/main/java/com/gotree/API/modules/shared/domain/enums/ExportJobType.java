@@ -0,0 +1,11 @@
+package com.gotree.API.modules.shared.domain.enums;
+
+/**
+ * Tipos de exportação executados em segundo plano.
+ * Cada tipo tem um {@link com.gotree.API.modules.shared.application.services.ExportJobHandler} correspondente.
+ */
+public enum ExportJobType {
+    DOCUMENTS_ZIP,
+    COMPANIES_EXCEL,
+    AGENDA_PDF
+}
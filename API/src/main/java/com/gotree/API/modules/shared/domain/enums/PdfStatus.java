@@ -0,0 +1,10 @@
+package com.gotree.API.modules.shared.domain.enums;
+
+/**
+ * Situação do PDF de um documento gerado em segundo plano.
+ */
+public enum PdfStatus {
+    PENDING,
+    READY,
+    FAILED
+}
@@ -8,6 +8,7 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -44,6 +45,26 @@ public class ResourceExceptionHandler {
         return ResponseEntity.status(status).body(err);
     }
 
+    // Fila de processamento cheia: o cliente deve tentar novamente depois
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<StandardError> handleServiceBusy(ServiceBusyException e, HttpServletRequest request) {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        StandardError err = new StandardError(Instant.now(), status.value(), "Serviço ocupado", e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(err);
+    }
+
+    // Limite de tentativas do cliente (ex.: login): aguardar o Retry-After
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<StandardError> handleTooManyRequests(TooManyRequestsException e, HttpServletRequest request) {
+        HttpStatus status = HttpStatus.TOO_MANY_REQUESTS;
+        StandardError err = new StandardError(Instant.now(), status.value(), "Muitas tentativas", e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(err);
+    }
+
     // Violação de integridade (Ex.: e-mail duplicado)
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<StandardError> handleDataIntegrity(DataIntegrityViolationException e,
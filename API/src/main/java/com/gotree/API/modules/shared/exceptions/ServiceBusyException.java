@@ -0,0 +1,23 @@
+package com.gotree.API.modules.shared.exceptions;
+
+import java.io.Serial;
+
+/**
+ * Capacidade de processamento esgotada (fila cheia). Vira 503 com o cabeçalho Retry-After.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
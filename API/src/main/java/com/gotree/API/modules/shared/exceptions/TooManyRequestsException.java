@@ -0,0 +1,23 @@
+package com.gotree.API.modules.shared.exceptions;
+
+import java.io.Serial;
+
+/**
+ * Limite de tentativas atingido para o cliente. Vira 429 com o cabeçalho Retry-After.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
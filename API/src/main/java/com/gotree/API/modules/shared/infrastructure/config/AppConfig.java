@@ -1,15 +1,56 @@
 package com.gotree.API.modules.shared.infrastructure.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
 public class AppConfig {
 
+	private static final Logger log = LoggerFactory.getLogger(AppConfig.class);
+
+	// Custo padrão do BCryptPasswordEncoder: os hashes existentes nunca são rebaixados
+	private static final int MIN_BCRYPT_STRENGTH = 10;
+	private static final int MAX_BCRYPT_STRENGTH = 14;
+
+	/**
+	 * BCrypt com custo configurável. Com {@code security.password.bcrypt-strength=0}, o custo é calibrado na
+	 * inicialização para que um hash leve em torno de {@code security.password.bcrypt-target-ms} nesta máquina.
+	 * Hashes com custo menor são regravados no próximo login bem-sucedido (UserService.updatePassword).
+	 */
 	@Bean
-	PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+	PasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength:0}") int strength,
+									@Value("${security.password.bcrypt-target-ms:250}") long targetMillis) {
+		int effective = strength > 0 ? strength : calibrateStrength(targetMillis);
+		log.info("BCrypt configurado com custo {}.", effective);
+		return new BCryptPasswordEncoder(effective);
+	}
+
+	/**
+	 * Mede o custo mínimo e dobra o tempo a cada nível (cada +1 no custo dobra o trabalho) até o alvo.
+	 */
+	private static int calibrateStrength(long targetMillis) {
+		String salt = BCrypt.gensalt(MIN_BCRYPT_STRENGTH);
+		BCrypt.hashpw("aquecimento", salt);
+
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < 3; i++) {
+			long start = System.nanoTime();
+			BCrypt.hashpw("calibracao", salt);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+
+		int strength = MIN_BCRYPT_STRENGTH;
+		double millis = best / 1_000_000.0;
+		while (strength < MAX_BCRYPT_STRENGTH && millis * 2 <= targetMillis) {
+			millis *= 2;
+			strength++;
+		}
+		return strength;
 	}
 }
@@ -0,0 +1,56 @@
+package com.gotree.API.modules.shared.infrastructure.config;
+
+import com.gotree.API.modules.shared.infrastructure.storage.LocalFileSystemStorageBackend;
+import com.gotree.API.modules.shared.infrastructure.storage.S3StorageBackend;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+
+import java.net.URI;
+import java.nio.file.Paths;
+
+/**
+ * Escolhe onde os arquivos ficam, via {@code storage.backend}:
+ * <ul>
+ *     <li>{@code local} (padrão): disco em {@code file.storage.path}.</li>
+ *     <li>{@code s3}: bucket S3 ou MinIO ({@code storage.s3.*}), para rodar várias réplicas.</li>
+ * </ul>
+ */
+@Configuration
+public class StorageConfig {
+
+	@Bean
+	@ConditionalOnProperty(name = "storage.backend", havingValue = "local", matchIfMissing = true)
+	StorageBackend localStorageBackend(@Value("${file.storage.path}") String fileStoragePath) {
+		return new LocalFileSystemStorageBackend(Paths.get(fileStoragePath));
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "storage.backend", havingValue = "s3")
+	StorageBackend s3StorageBackend(@Value("${storage.s3.endpoint:}") String endpoint,
+									@Value("${storage.s3.region:us-east-1}") String region,
+									@Value("${storage.s3.bucket}") String bucket,
+									@Value("${storage.s3.access-key}") String accessKey,
+									@Value("${storage.s3.secret-key}") String secretKey,
+									@Value("${storage.s3.path-style-access:true}") boolean pathStyleAccess,
+									@Value("${storage.s3.part-size-mb:8}") long partSizeMb) {
+		S3ClientBuilder builder = S3Client.builder()
+				.region(Region.of(region))
+				.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+				// MinIO exige path-style (http://host:9000/bucket/chave)
+				.serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(pathStyleAccess).build());
+
+		if (!endpoint.isBlank()) {
+			builder.endpointOverride(URI.create(endpoint));
+		}
+		return new S3StorageBackend(builder.build(), bucket, partSizeMb * 1024 * 1024);
+	}
+}
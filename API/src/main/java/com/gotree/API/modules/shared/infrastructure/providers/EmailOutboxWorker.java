@@ -0,0 +1,205 @@
+package com.gotree.API.modules.shared.infrastructure.providers;
+
+import com.gotree.API.modules.shared.application.services.EmailOutboxService;
+import com.gotree.API.modules.shared.domain.entities.EmailOutboxMessage;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Consome a fila de e-mails em segundo plano.
+ *
+ * <p>A cada ciclo reserva um lote de mensagens e o divide entre os workers. Cada worker
+ * envia a sua parte em uma única conexão SMTP (JavaMailSender.send com várias mensagens),
+ * em vez de abrir uma sessão por destinatário.</p>
+ *
+ * <p>Enquanto o lote está sendo enviado, a reserva das mensagens é renovada periodicamente (heartbeat): um envio
+ * lento nunca é devolvido à fila por {@link #releaseStale()} nem reenviado por outra instância. Só mensagens de uma
+ * instância que caiu ficam sem renovação e voltam para a fila.</p>
+ */
+@Component
+public class EmailOutboxWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxWorker.class);
+
+    private final EmailOutboxService emailOutboxService;
+    private final EmailService emailService;
+    private final StorageService storageService;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService heartbeat;
+    private final int workerCount;
+    private final int batchSize;
+    private final Duration staleAfter;
+
+    public EmailOutboxWorker(EmailOutboxService emailOutboxService, EmailService emailService, StorageService storageService,
+                             @Value("${email.outbox.workers:2}") int workerCount,
+                             @Value("${email.outbox.batch-size:20}") int batchSize,
+                             @Value("${email.outbox.stale-after-minutes:30}") long staleAfterMinutes) {
+        this.emailOutboxService = emailOutboxService;
+        this.emailService = emailService;
+        this.storageService = storageService;
+        this.workerCount = Math.max(1, workerCount);
+        this.batchSize = Math.max(1, batchSize);
+        this.staleAfter = Duration.ofMinutes(Math.max(1, staleAfterMinutes));
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(this.workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "email-outbox-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "email-outbox-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+        heartbeat.shutdownNow();
+    }
+
+    /**
+     * Ciclo de entrega. fixedDelay garante que dois ciclos nunca rodem ao mesmo tempo nesta instância.
+     */
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:5000}")
+    public void deliverPending() {
+        List<EmailOutboxMessage> claimed = emailOutboxService.claimBatch(batchSize * workerCount);
+        if (claimed.isEmpty()) return;
+
+        // Divide o lote entre os workers (cada um usa sua própria conexão SMTP)
+        List<Callable<Void>> tasks = new ArrayList<>();
+        int chunk = (claimed.size() + workerCount - 1) / workerCount;
+        for (int from = 0; from < claimed.size(); from += chunk) {
+            List<EmailOutboxMessage> part = claimed.subList(from, Math.min(from + chunk, claimed.size()));
+            tasks.add(() -> {
+                deliver(part);
+                return null;
+            });
+        }
+
+        // Renova a reserva três vezes por janela, até todo o lote ser marcado como enviado ou com falha
+        List<Long> ids = claimed.stream().map(EmailOutboxMessage::getId).toList();
+        long period = Math.max(1000, staleAfter.toMillis() / 3);
+        ScheduledFuture<?> renewal = heartbeat.scheduleAtFixedRate(() -> refreshLocks(ids), period, period, TimeUnit.MILLISECONDS);
+        try {
+            workers.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            renewal.cancel(false);
+        }
+    }
+
+    private void refreshLocks(List<Long> ids) {
+        try {
+            emailOutboxService.refreshLocks(ids);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao renovar a reserva de {} e-mail(s) em envio: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Mensagens que ficaram em SENDING sem heartbeat (ex: queda da instância) voltam para a fila.
+     */
+    @Scheduled(fixedDelayString = "${email.outbox.stale-check-interval-ms:60000}")
+    public void releaseStale() {
+        int released = emailOutboxService.releaseStale(staleAfter);
+        if (released > 0) {
+            log.warn("{} e-mail(s) presos em envio foram devolvidos para a fila.", released);
+        }
+    }
+
+    private void deliver(List<EmailOutboxMessage> batch) {
+        // Uma MimeMessage por destinatário; várias podem pertencer à mesma mensagem da fila
+        Map<MimeMessage, EmailOutboxMessage> byMime = new IdentityHashMap<>();
+        Map<Long, EmailOutboxMessage> built = new LinkedHashMap<>();
+
+        for (EmailOutboxMessage message : batch) {
+            try {
+                InputStreamSource attachment = null;
+                if (message.getAttachmentPath() != null) {
+                    if (!storageService.exists(message.getAttachmentPath())) {
+                        throw new IllegalStateException("Anexo não encontrado: " + message.getAttachmentPath());
+                    }
+                    attachment = storageService.asInputStreamSource(message.getAttachmentPath());
+                }
+                // Mensagens enfileiradas antes do envio individual ainda podem ter vários destinatários
+                List<MimeMessage> mimes = new ArrayList<>();
+                for (String recipient : message.getRecipients().split(",")) {
+                    mimes.add(emailService.buildReportMessage(recipient.trim(), message.getSubject(),
+                            message.getHtmlBody(), attachment, message.getAttachmentName()));
+                }
+                mimes.forEach(mime -> byMime.put(mime, message));
+                built.put(message.getId(), message);
+            } catch (MessagingException | RuntimeException e) {
+                log.error("Falha ao montar o e-mail {}: {}", message.getId(), e.getMessage());
+                emailOutboxService.markFailed(message.getId(), e.getMessage());
+            }
+        }
+
+        if (byMime.isEmpty()) return;
+
+        // Uma falha em qualquer destinatário devolve a mensagem da fila para nova tentativa
+        Map<Long, String> failures = new LinkedHashMap<>();
+        try {
+            emailService.sendBatch(byMime.keySet().toArray(new MimeMessage[0]));
+
+        } catch (MailSendException e) {
+            // Falha parcial: o Spring informa exatamente quais mensagens não foram aceitas
+            Map<Object, Exception> failed = e.getFailedMessages();
+            byMime.forEach((mime, message) -> {
+                Exception cause = failed.get(mime);
+                if (cause != null) {
+                    failures.putIfAbsent(message.getId(), cause.getMessage());
+                } else if (failed.isEmpty()) {
+                    // Falha sem detalhe por mensagem (ex: conexão recusada): todo o lote volta para a fila
+                    failures.putIfAbsent(message.getId(), e.getMessage());
+                }
+            });
+
+        } catch (MailException e) {
+            log.error("Falha de conexão SMTP ao enviar lote de {} e-mail(s): {}", byMime.size(), e.getMessage());
+            built.keySet().forEach(id -> failures.put(id, e.getMessage()));
+        }
+
+        List<Long> sentIds = new ArrayList<>();
+        for (Long id : built.keySet()) {
+            if (failures.containsKey(id)) {
+                emailOutboxService.markFailed(id, failures.get(id));
+            } else {
+                sentIds.add(id);
+            }
+        }
+
+        emailOutboxService.markSent(sentIds);
+        if (!sentIds.isEmpty()) {
+            log.info("{} e-mail(s) entregues pela fila.", sentIds.size());
+        }
+    }
+}
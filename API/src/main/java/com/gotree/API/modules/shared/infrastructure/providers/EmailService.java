@@ -2,7 +2,7 @@ package com.gotree.API.modules.shared.infrastructure.providers;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
@@ -15,23 +15,32 @@ public class EmailService {
         this.mailSender = mailSender;
     }
 
-    public void sendReportWithAttachment(String to, String subject, String body, byte[] pdfBytes, String filename) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom("apoio@gotreeconsultoria.com.br");
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(body, true); // true = HTML
-
-            // Anexa o PDF (ByteArrayResource é importante aqui)
-            helper.addAttachment(filename, new ByteArrayResource(pdfBytes));
-
-            mailSender.send(message);
-        } catch (MessagingException e) {
-            throw new RuntimeException("Erro ao enviar e-mail: " + e.getMessage());
+    /**
+     * Monta a mensagem de um destinatário (cada cliente recebe a sua; nenhum vê o e-mail dos demais).
+     * O PDF é lido do armazenamento em streaming no momento do envio.
+     */
+    public MimeMessage buildReportMessage(String recipient, String subject, String body,
+                                          InputStreamSource attachment, String filename) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setFrom("apoio@gotreeconsultoria.com.br");
+        helper.setTo(recipient);
+        helper.setSubject(subject);
+        helper.setText(body, true); // true = HTML
+
+        if (attachment != null) {
+            helper.addAttachment(filename, attachment);
         }
+        return message;
+    }
+
+    /**
+     * Envia várias mensagens reaproveitando uma única conexão SMTP.
+     * Em falha parcial, lança MailSendException com as mensagens que falharam.
+     */
+    public void sendBatch(MimeMessage... messages) {
+        mailSender.send(messages);
     }
 
 
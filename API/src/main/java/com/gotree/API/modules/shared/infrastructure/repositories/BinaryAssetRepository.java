@@ -0,0 +1,7 @@
+package com.gotree.API.modules.shared.infrastructure.repositories;
+
+import com.gotree.API.modules.shared.domain.entities.BinaryAsset;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface BinaryAssetRepository extends JpaRepository<BinaryAsset, Long> {
+}
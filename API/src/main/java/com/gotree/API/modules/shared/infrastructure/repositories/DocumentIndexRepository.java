@@ -0,0 +1,138 @@
+package com.gotree.API.modules.shared.infrastructure.repositories;
+
+import com.gotree.API.modules.shared.domain.entities.DocumentIndexEntry;
+import com.gotree.API.modules.shared.domain.entities.DocumentIndexId;
+import com.gotree.API.modules.shared.domain.enums.PdfStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositório somente-leitura sobre a view {@code vw_document_index}.
+ * Todos os filtros são opcionais: parâmetros nulos são ignorados.
+ * A ordenação é sempre (sortDate DESC, docType DESC, id DESC), a mesma usada pela paginação por cursor.
+ */
+public interface DocumentIndexRepository extends JpaRepository<DocumentIndexEntry, DocumentIndexId> {
+
+    String FILTERS = " WHERE (:technicianId IS NULL OR d.technicianId = :technicianId)" +
+            " AND (:docType IS NULL OR d.docType = :docType)" +
+            " AND (:clientPattern IS NULL OR LOWER(d.companyName) LIKE :clientPattern ESCAPE '!')" +
+            " AND (:startDate IS NULL OR d.creationDate >= :startDate)" +
+            " AND (:endDate IS NULL OR d.creationDate <= :endDate)";
+
+    String ORDER = " ORDER BY d.sortDate DESC, d.docType DESC, d.id DESC";
+
+    String KEYSET = " AND (d.sortDate < :afterDate" +
+            "   OR (d.sortDate = :afterDate AND d.docType < :afterType)" +
+            "   OR (d.sortDate = :afterDate AND d.docType = :afterType AND d.id < :afterId))";
+
+    /**
+     * Apenas as colunas usadas pelo DocumentSummaryDTO e pela exportação em ZIP. O texto das assinaturas em base64
+     * nunca sai do banco: "signed" e "pdfGenerated" já vêm calculados.
+     */
+    String SUMMARY_COLUMNS = "SELECT d.docType AS docType, d.id AS id, d.title AS title," +
+            " d.creationDate AS creationDate, d.sortDate AS sortDate," +
+            " d.pdfPath AS pdfPath," +
+            " CASE WHEN d.pdfPath IS NOT NULL AND d.pdfPath <> '' THEN true ELSE false END AS pdfGenerated," +
+            " d.companyId AS companyId, d.companyName AS companyName, d.technicianName AS technicianName," +
+            " d.sentToClientAt AS sentToClientAt, d.icpSignedAt AS icpSignedAt, d.signed AS signed," +
+            " d.pdfStatus AS pdfStatus" +
+            " FROM DocumentIndexEntry d";
+
+    /**
+     * Paginação tradicional (page/size), com contagem total para o front.
+     *
+     * @param clientPattern padrão LIKE já em minúsculas, com '%', '_' e '!' escapados por '!' (ex: "%empresa%")
+     */
+    @Query(value = SUMMARY_COLUMNS + FILTERS + ORDER,
+            countQuery = "SELECT COUNT(d) FROM DocumentIndexEntry d" + FILTERS)
+    Page<DocumentSummaryRow> searchSummaries(@Param("technicianId") Long technicianId,
+                                             @Param("docType") String docType,
+                                             @Param("clientPattern") String clientPattern,
+                                             @Param("startDate") LocalDate startDate,
+                                             @Param("endDate") LocalDate endDate,
+                                             Pageable pageable);
+
+    /**
+     * Paginação por cursor (keyset): retorna os resumos estritamente "depois" da chave informada,
+     * sem OFFSET, mantendo o custo da página 500 igual ao da página 1.
+     * Use apenas o tamanho do Pageable (página sempre 0). Atende a listagem por cursor, os widgets de mais recentes
+     * e a exportação em ZIP.
+     */
+    @Query(SUMMARY_COLUMNS + FILTERS + KEYSET + ORDER)
+    List<DocumentSummaryRow> searchSummariesAfter(@Param("technicianId") Long technicianId,
+                                                  @Param("docType") String docType,
+                                                  @Param("clientPattern") String clientPattern,
+                                                  @Param("startDate") LocalDate startDate,
+                                                  @Param("endDate") LocalDate endDate,
+                                                  @Param("afterDate") LocalDate afterDate,
+                                                  @Param("afterType") String afterType,
+                                                  @Param("afterId") Long afterId,
+                                                  Pageable pageable);
+
+    /**
+     * Total de documentos que a exportação em ZIP vai percorrer (os sem data ficam de fora).
+     * Usado apenas para o progresso da exportação em segundo plano.
+     */
+    @Query("SELECT COUNT(d) FROM DocumentIndexEntry d WHERE d.creationDate IS NOT NULL" +
+            " AND (:startDate IS NULL OR d.creationDate >= :startDate)" +
+            " AND (:endDate IS NULL OR d.creationDate <= :endDate)")
+    long countForExport(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * Quantidade de documentos por empresa de um técnico, da maior para a menor (Top N do dashboard).
+     */
+    @Query("SELECT d.companyName AS companyName, COUNT(d) AS total FROM DocumentIndexEntry d" +
+            " WHERE d.technicianId = :technicianId AND d.companyName IS NOT NULL" +
+            " GROUP BY d.companyName ORDER BY COUNT(d) DESC, d.companyName")
+    List<CompanyDocumentCount> countByCompanyForTechnician(@Param("technicianId") Long technicianId, Pageable pageable);
+
+    /**
+     * Quantidade de documentos por técnico e tipo (KPIs do dashboard), com os filtros opcionais de técnico, tipo e empresa.
+     */
+    @Query("SELECT d.technicianId AS technicianId, d.docType AS docType, COUNT(d) AS total FROM DocumentIndexEntry d" +
+            " WHERE (:technicianId IS NULL OR d.technicianId = :technicianId)" +
+            " AND (:docType IS NULL OR d.docType = :docType)" +
+            " AND (:companyId IS NULL OR d.companyId = :companyId)" +
+            " GROUP BY d.technicianId, d.docType")
+    List<TechnicianDocumentCount> countByTechnicianAndType(@Param("technicianId") Long technicianId,
+                                                           @Param("docType") String docType,
+                                                           @Param("companyId") Long companyId);
+
+    /**
+     * Projeção de leitura para a listagem e a exportação de documentos.
+     */
+    interface DocumentSummaryRow {
+        String getDocType();
+        Long getId();
+        String getTitle();
+        LocalDate getCreationDate();
+        LocalDate getSortDate();
+        String getPdfPath();
+        boolean getPdfGenerated();
+        Long getCompanyId();
+        String getCompanyName();
+        String getTechnicianName();
+        LocalDateTime getSentToClientAt();
+        LocalDateTime getIcpSignedAt();
+        boolean getSigned();
+        PdfStatus getPdfStatus();
+    }
+
+    interface CompanyDocumentCount {
+        String getCompanyName();
+        Long getTotal();
+    }
+
+    interface TechnicianDocumentCount {
+        Long getTechnicianId();
+        String getDocType();
+        Long getTotal();
+    }
+}
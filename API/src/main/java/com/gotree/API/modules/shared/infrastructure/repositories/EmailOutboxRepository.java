@@ -0,0 +1,46 @@
+package com.gotree.API.modules.shared.infrastructure.repositories;
+
+import com.gotree.API.modules.shared.domain.entities.EmailOutboxMessage;
+import com.gotree.API.modules.shared.domain.enums.EmailOutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    /**
+     * IDs prontos para envio. SKIP LOCKED permite que várias instâncias da API
+     * consumam a fila ao mesmo tempo sem pegar a mesma mensagem.
+     */
+    @Query(value = "SELECT id FROM tb_email_outbox" +
+            " WHERE status = 'PENDING' AND next_attempt_at <= :now" +
+            " ORDER BY next_attempt_at, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockNextPendingIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = :status, m.lockedAt = :now WHERE m.id IN :ids")
+    int markAs(@Param("ids") Collection<Long> ids, @Param("status") EmailOutboxStatus status, @Param("now") LocalDateTime now);
+
+    /**
+     * Renova a reserva das mensagens que ainda estão em envio, para não serem tratadas como presas.
+     */
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.lockedAt = :now WHERE m.id IN :ids AND m.status = :sending")
+    int refreshLocks(@Param("ids") Collection<Long> ids, @Param("sending") EmailOutboxStatus sending,
+                     @Param("now") LocalDateTime now);
+
+    /**
+     * Devolve para a fila mensagens presas em SENDING (ex: a instância caiu no meio do envio).
+     */
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = :pending, m.lockedAt = null" +
+            " WHERE m.status = :sending AND m.lockedAt < :before")
+    int releaseStale(@Param("before") LocalDateTime before,
+                     @Param("sending") EmailOutboxStatus sending,
+                     @Param("pending") EmailOutboxStatus pending);
+}
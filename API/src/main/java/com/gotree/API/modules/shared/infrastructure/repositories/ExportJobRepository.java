@@ -0,0 +1,49 @@
+package com.gotree.API.modules.shared.infrastructure.repositories;
+
+import com.gotree.API.modules.shared.domain.entities.ExportJob;
+import com.gotree.API.modules.shared.domain.enums.ExportJobStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ExportJobRepository extends JpaRepository<ExportJob, String> {
+
+    List<ExportJob> findByRequestedByOrderByCreatedAtDesc(Long requestedBy, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE ExportJob j SET j.progressCurrent = :current, j.progressTotal = :total, j.heartbeatAt = :now WHERE j.id = :id")
+    int updateProgress(@Param("id") String id, @Param("current") long current,
+                       @Param("total") long total, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE ExportJob j SET j.heartbeatAt = :now WHERE j.id IN :ids")
+    int touch(@Param("ids") Collection<String> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Jobs cuja instância parou de dar sinal de vida (reinício, queda): não vão terminar.
+     */
+    @Modifying
+    @Query("UPDATE ExportJob j SET j.status = :failed, j.finishedAt = :now," +
+            " j.errorMessage = 'Exportação interrompida (reinício do servidor). Solicite novamente.'" +
+            " WHERE j.status IN :active AND j.heartbeatAt < :before")
+    int failStale(@Param("before") LocalDateTime before, @Param("now") LocalDateTime now,
+                  @Param("active") Collection<ExportJobStatus> active, @Param("failed") ExportJobStatus failed);
+
+    @Query("SELECT j FROM ExportJob j WHERE j.status IN :finished AND j.finishedAt < :before")
+    List<ExportJob> findExpired(@Param("before") LocalDateTime before,
+                                @Param("finished") Collection<ExportJobStatus> finished, Pageable pageable);
+
+    /**
+     * Remove o job só se ele ainda existir: com várias instâncias rodando a limpeza,
+     * apenas quem apagou a linha libera o arquivo.
+     */
+    @Modifying
+    @Query("DELETE FROM ExportJob j WHERE j.id = :id")
+    int deleteReturningCount(@Param("id") String id);
+}
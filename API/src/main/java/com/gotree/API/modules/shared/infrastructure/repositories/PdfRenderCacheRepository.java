@@ -0,0 +1,35 @@
+package com.gotree.API.modules.shared.infrastructure.repositories;
+
+import com.gotree.API.modules.shared.domain.entities.PdfRenderCacheEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PdfRenderCacheRepository extends JpaRepository<PdfRenderCacheEntry, String> {
+
+    /**
+     * Registra o PDF de um hash. Se outra renderização concorrente do mesmo conteúdo chegou antes, nada muda.
+     *
+     * @return 1 se a linha foi criada
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tb_pdf_render_cache (input_hash, storage_key, template_name, created_at, last_used_at)" +
+            " VALUES (:hash, :key, :template, NOW(), NOW()) ON CONFLICT (input_hash) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("hash") String hash, @Param("key") String key, @Param("template") String template);
+
+    @Modifying
+    @Query("UPDATE PdfRenderCacheEntry e SET e.lastUsedAt = :now WHERE e.inputHash = :hash")
+    int touch(@Param("hash") String hash, @Param("now") LocalDateTime now);
+
+    @Query("SELECT e FROM PdfRenderCacheEntry e WHERE e.lastUsedAt < :before ORDER BY e.lastUsedAt")
+    List<PdfRenderCacheEntry> findUnusedSince(@Param("before") LocalDateTime before, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM PdfRenderCacheEntry e WHERE e.inputHash = :hash")
+    int deleteReturningCount(@Param("hash") String hash);
+}
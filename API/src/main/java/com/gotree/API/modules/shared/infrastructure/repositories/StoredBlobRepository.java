@@ -0,0 +1,62 @@
+package com.gotree.API.modules.shared.infrastructure.repositories;
+
+import com.gotree.API.modules.shared.domain.entities.StoredBlob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+
+    /**
+     * Registra mais uma referência ao arquivo (cria o registro na primeira vez).
+     * Atômico no banco, seguro para gravações concorrentes do mesmo conteúdo. O registro fica travado até o fim da
+     * transação: a limpeza ({@link #deleteIfUnreferenced}) espera e não apaga um arquivo que voltou a ser usado.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tb_stored_blob (storage_key, ref_count, size_bytes, created_at)" +
+            " VALUES (:key, 1, :size, NOW())" +
+            " ON CONFLICT (storage_key) DO UPDATE SET ref_count = tb_stored_blob.ref_count + 1, released_at = NULL",
+            nativeQuery = true)
+    void acquire(@Param("key") String key, @Param("size") long size);
+
+    /**
+     * Libera uma referência; ao chegar a zero, marca quando o arquivo ficou sem uso.
+     */
+    @Modifying
+    @Query(value = "UPDATE tb_stored_blob SET ref_count = ref_count - 1," +
+            " released_at = CASE WHEN ref_count <= 1 THEN NOW() ELSE released_at END" +
+            " WHERE storage_key = :key", nativeQuery = true)
+    int decrement(@Param("key") String key);
+
+    /**
+     * Registra um arquivo sem referências (enviado numa transação desfeita), para a limpeza apagá-lo.
+     * Se o registro já existir, nada muda.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tb_stored_blob (storage_key, ref_count, size_bytes, created_at, released_at)" +
+            " VALUES (:key, 0, :size, NOW(), NOW())" +
+            " ON CONFLICT (storage_key) DO NOTHING", nativeQuery = true)
+    int registerOrphan(@Param("key") String key, @Param("size") long size);
+
+    /**
+     * Arquivos sem referências desde antes de {@code before}, candidatos à limpeza.
+     */
+    @Query("SELECT b.storageKey FROM StoredBlob b WHERE b.refCount <= 0 AND b.releasedAt < :before ORDER BY b.releasedAt")
+    List<String> findUnreferencedBefore(@Param("before") LocalDateTime before, Pageable pageable);
+
+    /**
+     * Remove o registro se ele continua sem referências. Espera por um {@link #acquire} concorrente e reavalia
+     * a condição depois dele.
+     *
+     * @return 1 se o arquivo ficou órfão e pode ser apagado (ainda dentro desta transação)
+     */
+    @Modifying
+    @Query(value = "DELETE FROM tb_stored_blob WHERE storage_key = :key AND ref_count <= 0 AND released_at < :before",
+            nativeQuery = true)
+    int deleteIfUnreferenced(@Param("key") String key, @Param("before") LocalDateTime before);
+}
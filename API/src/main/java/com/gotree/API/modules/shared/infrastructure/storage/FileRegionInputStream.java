@@ -0,0 +1,61 @@
+package com.gotree.API.modules.shared.infrastructure.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Stream sobre um trecho de um arquivo local: usado nas leituras com Range e no upload multipart por partes.
+ */
+final class FileRegionInputStream extends FilterInputStream {
+
+    private long remaining;
+
+    private FileRegionInputStream(InputStream in, long length) {
+        super(in);
+        this.remaining = length;
+    }
+
+    static InputStream open(Path file, long start, long length) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            channel.position(start);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new FileRegionInputStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining <= 0) return -1;
+        int value = super.read();
+        if (value != -1) remaining--;
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (remaining <= 0) return -1;
+        int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+        if (read > 0) remaining -= read;
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(Math.min(n, remaining));
+        remaining -= skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(super.available(), remaining);
+    }
+}
@@ -0,0 +1,91 @@
+package com.gotree.API.modules.shared.infrastructure.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+
+/**
+ * Backend em disco local (volume Docker {@code reports_data}). Exige um volume compartilhado
+ * para rodar mais de uma réplica; nesse caso use o {@link S3StorageBackend}.
+ * <p>
+ * Também atende as chaves antigas (caminhos absolutos e nomes soltos), que sempre estão no disco local.
+ */
+public class LocalFileSystemStorageBackend implements StorageBackend {
+
+    private final Path root;
+
+    public LocalFileSystemStorageBackend(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try {
+            // Leitores nunca enxergam um arquivo pela metade
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Conteúdo idêntico já gravado por outra thread
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public ObjectInfo stat(String key) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+        return new ObjectInfo(attributes.size(), attributes.lastModifiedTime().toInstant());
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public InputStream openRange(String key, long start, long end) throws IOException {
+        return FileRegionInputStream.open(resolve(key), start, end - start + 1);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    /**
+     * Caminhos absolutos (registros antigos) são aceitos como estão; chaves relativas
+     * não podem escapar do diretório raiz.
+     */
+    Path resolve(String key) {
+        if (key == null || key.isBlank()) {
+            throw new IllegalArgumentException("Chave de armazenamento vazia.");
+        }
+        Path candidate = Paths.get(key);
+        if (candidate.isAbsolute()) {
+            return candidate.normalize();
+        }
+        Path resolved = root.resolve(candidate).normalize();
+        if (!resolved.startsWith(root)) {
+            throw new SecurityException("Caminho fora do diretório de armazenamento: " + key);
+        }
+        return resolved;
+    }
+}
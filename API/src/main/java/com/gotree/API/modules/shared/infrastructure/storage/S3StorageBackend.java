@@ -0,0 +1,179 @@
+package com.gotree.API.modules.shared.infrastructure.storage;
+
+import com.gotree.API.modules.shared.utils.ImageFormat;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Backend em object storage compatível com S3 (AWS S3, MinIO).
+ * Permite várias réplicas da API sem volume POSIX compartilhado.
+ * <p>
+ * Uploads acima de {@code partSize} usam multipart: cada parte é lida do arquivo temporário em streaming
+ * e um upload interrompido é abortado, sem deixar partes órfãs no bucket.
+ * Leituras com Range viram GET com cabeçalho Range, trazendo apenas os bytes pedidos.
+ */
+public class S3StorageBackend implements StorageBackend, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(S3StorageBackend.class);
+
+    // Menor parte aceita pelo S3 (exceto a última)
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private final S3Client client;
+    private final String bucket;
+    private final long partSize;
+
+    public S3StorageBackend(S3Client client, String bucket, long partSize) {
+        this.client = client;
+        this.bucket = bucket;
+        this.partSize = Math.max(MIN_PART_SIZE, partSize);
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        long size = Files.size(source);
+        String contentType = contentTypeFor(key);
+        try {
+            if (size <= partSize) {
+                client.putObject(PutObjectRequest.builder()
+                                .bucket(bucket).key(key).contentType(contentType).contentLength(size).build(),
+                        RequestBody.fromFile(source));
+            } else {
+                putMultipart(key, source, size, contentType);
+            }
+        } catch (SdkException e) {
+            throw new IOException("Falha ao enviar " + key + " para o bucket " + bucket + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        try {
+            head(key);
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public ObjectInfo stat(String key) throws IOException {
+        HeadObjectResponse head = head(key);
+        return new ObjectInfo(head.contentLength(), head.lastModified());
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return get(GetObjectRequest.builder().bucket(bucket).key(key).build(), key);
+    }
+
+    @Override
+    public InputStream openRange(String key, long start, long end) throws IOException {
+        return get(GetObjectRequest.builder().bucket(bucket).key(key).range("bytes=" + start + "-" + end).build(), key);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+        } catch (SdkException e) {
+            throw new IOException("Falha ao apagar " + key + " do bucket " + bucket + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+
+    private void putMultipart(String key, Path source, long size, String contentType) throws IOException {
+        String uploadId = client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket).key(key).contentType(contentType).build()).uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            int partNumber = 1;
+            for (long offset = 0; offset < size; offset += partSize, partNumber++) {
+                long length = Math.min(partSize, size - offset);
+                long partOffset = offset;
+                String eTag = client.uploadPart(UploadPartRequest.builder()
+                                .bucket(bucket).key(key).uploadId(uploadId).partNumber(partNumber).contentLength(length).build(),
+                        RequestBody.fromContentProvider(() -> openPart(source, partOffset, length), length, contentType)).eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+            }
+            client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build()).build());
+        } catch (RuntimeException e) {
+            try {
+                client.abortMultipartUpload(AbortMultipartUploadRequest.builder().bucket(bucket).key(key).uploadId(uploadId).build());
+            } catch (SdkException abortError) {
+                log.warn("Falha ao abortar upload multipart de {}: {}", key, abortError.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    private static InputStream openPart(Path source, long offset, long length) {
+        try {
+            return FileRegionInputStream.open(source, offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HeadObjectResponse head(String key) throws IOException {
+        try {
+            return client.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build());
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) throw new NoSuchFileException(key);
+            throw new IOException("Falha ao consultar " + key + " no bucket " + bucket + ": " + e.getMessage(), e);
+        } catch (SdkException e) {
+            throw new IOException("Falha ao consultar " + key + " no bucket " + bucket + ": " + e.getMessage(), e);
+        }
+    }
+
+    private InputStream get(GetObjectRequest request, String key) throws IOException {
+        try {
+            return client.getObject(request);
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) throw new NoSuchFileException(key);
+            throw new IOException("Falha ao ler " + key + " do bucket " + bucket + ": " + e.getMessage(), e);
+        } catch (SdkException e) {
+            throw new IOException("Falha ao ler " + key + " do bucket " + bucket + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static String contentTypeFor(String key) {
+        String extension = StorageService.extensionOf(key, "");
+        return switch (extension) {
+            case "pdf" -> "application/pdf";
+            case "pfx", "p12" -> "application/x-pkcs12";
+            default -> ImageFormat.fromExtension(extension).map(ImageFormat::contentType).orElse("application/octet-stream");
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package com.gotree.API.modules.shared.infrastructure.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Onde os arquivos ficam fisicamente (disco local ou object storage compatível com S3).
+ * <p>
+ * Os serviços não usam esta interface diretamente: passam pelo {@link StorageService},
+ * que cuida do endereçamento por conteúdo, da contagem de referências e das chaves antigas.
+ * Todas as operações são em streaming; nenhuma implementação carrega o arquivo inteiro em memória.
+ */
+public interface StorageBackend {
+
+    /**
+     * Envia um arquivo local já completo para a chave informada.
+     * A implementação pode mover o arquivo de origem em vez de copiá-lo.
+     */
+    void put(String key, Path source) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    /**
+     * @throws java.nio.file.NoSuchFileException se a chave não existir
+     */
+    ObjectInfo stat(String key) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    /**
+     * Lê apenas o intervalo [start, end] (inclusivo), como um Range HTTP.
+     */
+    InputStream openRange(String key, long start, long end) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /**
+     * Caminho no disco local, quando existir. Permite envio zero-copy (sendfile) e leitura direta pelo
+     * renderizador de PDF; backends remotos retornam vazio e o conteúdo é lido via stream.
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    record ObjectInfo(long size, Instant lastModified) {
+    }
+}
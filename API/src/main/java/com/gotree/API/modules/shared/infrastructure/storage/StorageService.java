@@ -0,0 +1,429 @@
+package com.gotree.API.modules.shared.infrastructure.storage;
+
+import com.gotree.API.modules.shared.infrastructure.repositories.StoredBlobRepository;
+import com.gotree.API.modules.shared.utils.ImageFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Armazenamento de arquivos (PDFs, fotos, certificados) endereçado por conteúdo.
+ * <p>
+ * Cada arquivo recebe a chave {@code cas/ab/cd/<sha256>.<ext>}: conteúdos idênticos viram o mesmo arquivo,
+ * e os dois níveis de diretório evitam milhares de entradas numa única pasta. A chave devolvida é o que deve ir
+ * para o banco. Onde os bytes ficam (disco local ou bucket S3/MinIO) é decidido pelo {@link StorageBackend}
+ * configurado em {@code storage.backend}.
+ * <p>
+ * Registros antigos ainda guardam caminhos absolutos ou nomes relativos soltos. Essas chaves sempre são lidas
+ * do disco local em {@code file.storage.path}, de modo que a migração ({@code StorageMigrationService})
+ * pode rodar com a aplicação no ar.
+ * <p>
+ * Arquivos sem referências não são apagados na hora: a limpeza periódica ({@link #collectGarbage()}) os remove
+ * depois de {@code storage.gc.grace-minutes}, apagando o arquivo com o registro travado. A gravação registra a
+ * referência antes de conferir se o arquivo existe, então ou ela mantém o registro, ou espera a limpeza terminar
+ * e envia o arquivo de novo.
+ */
+@Service
+public class StorageService {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageService.class);
+
+    public static final String CAS_PREFIX = "cas/";
+    private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{1,8}");
+    private static final int GC_BATCH_SIZE = 500;
+
+    private final StorageBackend backend;
+    private final LocalFileSystemStorageBackend legacyBackend;
+    private final Path tempDir;
+    private final StoredBlobRepository storedBlobRepository;
+    // Transação própria: limpeza e registro de órfãos após um rollback (fora da transação de quem chamou)
+    private final TransactionTemplate separateTransaction;
+    private final Duration gcGrace;
+
+    public StorageService(StorageBackend backend, @Value("${file.storage.path}") String fileStoragePath,
+                          StoredBlobRepository storedBlobRepository, PlatformTransactionManager transactionManager,
+                          @Value("${storage.gc.grace-minutes:60}") long gcGraceMinutes) {
+        Path root = Paths.get(fileStoragePath).toAbsolutePath().normalize();
+        this.backend = backend;
+        this.legacyBackend = new LocalFileSystemStorageBackend(root);
+        // Mesmo volume da raiz: no backend local, o envio vira um rename atômico
+        this.tempDir = root.resolve(".tmp");
+        this.storedBlobRepository = storedBlobRepository;
+        this.separateTransaction = new TransactionTemplate(transactionManager);
+        this.separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.gcGrace = Duration.ofMinutes(gcGraceMinutes);
+    }
+
+    // ===================================================================================
+    // 1. GRAVAÇÃO E REMOÇÃO
+    // ===================================================================================
+
+    /**
+     * Grava o conteúdo e registra uma nova referência a ele.
+     * Se o mesmo conteúdo já existir, nada é enviado.
+     *
+     * @param extension extensão sem ponto (ex: "pdf", "jpg")
+     * @return chave a ser persistida na entidade
+     */
+    @Transactional
+    public String store(byte[] content, String extension) {
+        String key = buildKey(sha256(content), extension);
+        // A referência antes da conferência: veja a documentação da classe
+        storedBlobRepository.acquire(key, content.length);
+        try {
+            if (!backend.exists(key)) {
+                Path temp = newTempFile();
+                try {
+                    Files.write(temp, content);
+                    backend.put(key, temp);
+                    collectOnRollback(key, content.length);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Falha ao gravar arquivo no armazenamento: " + e.getMessage(), e);
+        }
+        return key;
+    }
+
+    /**
+     * Versão em streaming: o conteúdo vai para um arquivo temporário enquanto o hash é calculado,
+     * sem carregar o arquivo inteiro em memória, e de lá segue para o backend. O stream não é fechado aqui.
+     */
+    @Transactional
+    public String store(InputStream content, String extension) {
+        try {
+            Path temp = newTempFile();
+            try {
+                MessageDigest digest = newDigest();
+                long size;
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    size = new DigestInputStream(content, digest).transferTo(out);
+                }
+                String key = buildKey(HexFormat.of().formatHex(digest.digest()), extension);
+                putIfMissing(key, temp, size);
+                return key;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Falha ao gravar arquivo no armazenamento: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gera um novo arquivo a partir de um já armazenado sem passar o conteúdo pela memória: a origem é lida
+     * direto do disco (ou baixada para um temporário, se o backend for remoto), {@code transform} grava o
+     * resultado num temporário do mesmo volume e ele entra no armazenamento sob uma nova chave (no backend
+     * local, com um rename atômico). A chave de origem não é alterada nem liberada.
+     *
+     * @return chave do arquivo gerado, com uma referência registrada
+     */
+    @Transactional
+    public String storeTransformed(String sourceKey, String extension, FileTransform transform) {
+        Path download = null;
+        Path result = null;
+        try {
+            Path source = localPath(sourceKey).orElse(null);
+            if (source == null) {
+                download = newTempFile();
+                try (InputStream in = open(sourceKey)) {
+                    Files.copy(in, download, StandardCopyOption.REPLACE_EXISTING);
+                }
+                source = download;
+            }
+
+            result = newTempFile();
+            transform.apply(source, result);
+
+            MessageDigest digest = newDigest();
+            try (InputStream in = new DigestInputStream(Files.newInputStream(result), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            long size = Files.size(result);
+            String key = buildKey(HexFormat.of().formatHex(digest.digest()), extension);
+            putIfMissing(key, result, size);
+            return key;
+        } catch (IOException e) {
+            throw new RuntimeException("Falha ao gravar arquivo no armazenamento: " + e.getMessage(), e);
+        } finally {
+            deleteQuietly(download);
+            deleteQuietly(result);
+        }
+    }
+
+    /**
+     * Registra mais uma referência a um arquivo já gravado (ex: anexo enfileirado no outbox),
+     * garantindo que ele não seja apagado até o {@link #release(String)} correspondente.
+     * Chaves antigas não são contadas e ficam inalteradas.
+     */
+    @Transactional
+    public void retain(String key) {
+        if (!isContentAddressed(key)) return;
+        try {
+            storedBlobRepository.acquire(key, backend.stat(key).size());
+        } catch (IOException e) {
+            throw new RuntimeException("Arquivo não encontrado no armazenamento: " + key, e);
+        }
+    }
+
+    /**
+     * Libera uma referência. O arquivo sem referências é apagado depois, pela limpeza periódica
+     * (um rollback mantém a referência e o arquivo intactos).
+     * Chaves antigas (fora do formato "cas/") são apagadas diretamente após o commit, como antes.
+     */
+    @Transactional
+    public void release(String key) {
+        if (key == null || key.isBlank()) return;
+
+        if (!isContentAddressed(key)) {
+            deleteAfterCommit(key);
+            return;
+        }
+        storedBlobRepository.decrement(key);
+    }
+
+    /**
+     * Apaga os arquivos sem referências há mais que o tempo de carência. Cada arquivo é apagado na mesma transação
+     * que remove o seu registro, com o registro travado: uma gravação concorrente do mesmo conteúdo espera o fim
+     * e, sem o arquivo, o envia de novo. Se a remoção do arquivo falhar, o registro fica para a próxima execução.
+     */
+    @Scheduled(fixedDelayString = "${storage.gc.interval-ms:600000}", initialDelayString = "${storage.gc.interval-ms:600000}")
+    public void collectGarbage() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(gcGrace);
+        List<String> candidates = storedBlobRepository.findUnreferencedBefore(cutoff, PageRequest.of(0, GC_BATCH_SIZE));
+
+        int deleted = 0;
+        for (String key : candidates) {
+            try {
+                Boolean removed = separateTransaction.execute(tx -> {
+                    if (storedBlobRepository.deleteIfUnreferenced(key, cutoff) == 0) return false;
+                    try {
+                        backend.delete(key);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return true;
+                });
+                if (Boolean.TRUE.equals(removed)) deleted++;
+            } catch (Exception e) {
+                log.warn("Falha ao apagar arquivo do armazenamento {}: {}", key, e.getMessage());
+            }
+        }
+        if (deleted > 0) {
+            log.info("Arquivos sem referências removidos do armazenamento: {}.", deleted);
+        }
+    }
+
+    // ===================================================================================
+    // 2. LEITURA
+    // ===================================================================================
+
+    /**
+     * Aceita chaves novas ("cas/ab/cd/..."), nomes relativos antigos ("technical_visit_1_uuid.pdf")
+     * e caminhos absolutos antigos.
+     */
+    public boolean exists(String key) {
+        if (key == null || key.isBlank()) return false;
+        try {
+            return backendFor(key).exists(key);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public StorageBackend.ObjectInfo stat(String key) throws IOException {
+        return backendFor(key).stat(key);
+    }
+
+    public InputStream open(String key) throws IOException {
+        return backendFor(key).open(key);
+    }
+
+    /**
+     * Lê apenas o intervalo [start, end] (inclusivo).
+     */
+    public InputStream openRange(String key, long start, long end) throws IOException {
+        return backendFor(key).openRange(key, start, end);
+    }
+
+    public byte[] readAllBytes(String key) throws IOException {
+        try (InputStream in = open(key)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Caminho no disco, quando o arquivo está em disco local (envio zero-copy, leitura direta).
+     */
+    public Optional<Path> localPath(String key) {
+        return backendFor(key).localPath(key);
+    }
+
+    /**
+     * URI usada pelo renderizador de PDF para carregar uma imagem: "file://" quando está no disco,
+     * senão "data:" com o conteúdo embutido (backend remoto).
+     */
+    public String toRenderUri(String key) throws IOException {
+        Optional<Path> local = localPath(key);
+        if (local.isPresent()) {
+            return local.get().toUri().toString();
+        }
+        String mediaType = ImageFormat.fromExtension(extensionOf(key, "")).map(ImageFormat::contentType).orElse("image/jpeg");
+        return "data:" + mediaType + ";base64," + Base64.getEncoder().encodeToString(readAllBytes(key));
+    }
+
+    /**
+     * Fonte reabrível para anexos de e-mail: o conteúdo é lido do backend a cada envio, sem cópia em memória.
+     */
+    public InputStreamSource asInputStreamSource(String key) {
+        return () -> open(key);
+    }
+
+    public static boolean isContentAddressed(String key) {
+        return key != null && key.startsWith(CAS_PREFIX);
+    }
+
+    /**
+     * Extensão do arquivo original (sem ponto), usada pela migração para manter o tipo ao mover para o CAS.
+     */
+    public static String extensionOf(String key, String fallback) {
+        if (key == null) return fallback;
+        String name = Paths.get(key).getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && dot < name.length() - 1 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : fallback;
+    }
+
+    // ===================================================================================
+    // 3. AUXILIARES
+    // ===================================================================================
+
+    private StorageBackend backendFor(String key) {
+        return isContentAddressed(key) ? backend : legacyBackend;
+    }
+
+    private String buildKey(String hash, String extension) {
+        String ext = extension == null ? "" : extension.toLowerCase(Locale.ROOT).replace(".", "");
+        if (!EXTENSION.matcher(ext).matches()) {
+            throw new IllegalArgumentException("Extensão de arquivo inválida: " + extension);
+        }
+        return CAS_PREFIX + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + "." + ext;
+    }
+
+    private Path newTempFile() throws IOException {
+        Files.createDirectories(tempDir);
+        return Files.createTempFile(tempDir, "upload-", ".part");
+    }
+
+    private static void deleteQuietly(Path temp) {
+        if (temp == null) return;
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            log.warn("Falha ao apagar arquivo temporário {}: {}", temp, e.getMessage());
+        }
+    }
+
+    /**
+     * Registra a referência e envia o arquivo se ele ainda não estiver no armazenamento.
+     * A referência vem antes da conferência: veja a documentação da classe.
+     */
+    private void putIfMissing(String key, Path content, long size) throws IOException {
+        storedBlobRepository.acquire(key, size);
+        if (!backend.exists(key)) {
+            backend.put(key, content);
+            collectOnRollback(key, size);
+        }
+    }
+
+    /**
+     * Arquivo enviado nesta transação: se ela for desfeita, a referência some e o arquivo ficaria perdido no
+     * armazenamento. Ele é registrado sem referências (em outra transação) para a limpeza apagá-lo.
+     */
+    private void collectOnRollback(String key, long size) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) return;
+                try {
+                    separateTransaction.executeWithoutResult(tx -> storedBlobRepository.registerOrphan(key, size));
+                } catch (Exception e) {
+                    log.warn("Falha ao registrar arquivo sem referências {}: {}", key, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void deleteAfterCommit(String key) {
+        Runnable delete = () -> {
+            try {
+                backendFor(key).delete(key);
+            } catch (Exception e) {
+                log.warn("Falha ao apagar arquivo do armazenamento {}: {}", key, e.getMessage());
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    delete.run();
+                }
+            });
+        } else {
+            delete.run();
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        return HexFormat.of().formatHex(newDigest().digest(content));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível na JVM.", e);
+        }
+    }
+
+    /**
+     * Gera {@code target} a partir de {@code source}; os dois são arquivos locais.
+     */
+    @FunctionalInterface
+    public interface FileTransform {
+        void apply(Path source, Path target) throws IOException;
+    }
+}
@@ -0,0 +1,195 @@
+package com.gotree.API.modules.shared.infrastructure.web;
+
+import com.gotree.API.modules.shared.infrastructure.storage.StorageBackend;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Envia um arquivo do armazenamento para a resposta HTTP sem carregá-lo em memória.
+ *
+ * <ul>
+ *     <li>Validadores fortes (ETag + Last-Modified) e GET condicional (304).</li>
+ *     <li>Requisições com Range (206), usadas pelos visualizadores de PDF para carregar páginas aos poucos.</li>
+ *     <li>Disco local: zero-copy com o sendfile do Tomcat quando disponível; senão, FileChannel.transferTo.</li>
+ *     <li>Backend remoto (S3/MinIO): apenas o intervalo pedido é baixado e repassado em streaming.</li>
+ * </ul>
+ */
+@Component
+public class RangeFileResponder {
+
+    // Atributos do Tomcat para envio via sendfile (mesmo mecanismo do DefaultServlet)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final StorageService storageService;
+
+    public RangeFileResponder(StorageService storageService) {
+        this.storageService = storageService;
+    }
+
+    /**
+     * Escreve o arquivo na resposta, tratando If-None-Match, If-Modified-Since, Range e If-Range.
+     *
+     * @param eTag ETag forte já entre aspas (ex: "\"abc\"")
+     */
+    public void write(String storageKey, String filename, String contentType, String eTag,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        StorageBackend.ObjectInfo info = storageService.stat(storageKey);
+        long length = info.size();
+        // HTTP trabalha com segundos; arredonda para a comparação com If-Modified-Since funcionar
+        long lastModified = info.lastModified().toEpochMilli() / 1000 * 1000;
+
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Documento autenticado: só o navegador guarda, e sempre revalida (o 304 evita o download)
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+
+        // 1. GET condicional
+        if (isNotModified(request, eTag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        // 2. Range (apenas um intervalo; múltiplos intervalos recebem o arquivo inteiro, o que a RFC permite)
+        long start = 0;
+        long end = length - 1;
+        boolean partial = false;
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && isIfRangeSatisfied(request, eTag, lastModified)) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    partial = true;
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+        }
+
+        long contentLength = end - start + 1;
+
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(filename, StandardCharsets.UTF_8).build().toString());
+        response.setContentLengthLong(contentLength);
+
+        if (partial) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || contentLength == 0) {
+            return;
+        }
+
+        // 3. Corpo
+        Optional<Path> localFile = storageService.localPath(storageKey);
+        if (localFile.isEmpty()) {
+            try (InputStream in = storageService.openRange(storageKey, start, end)) {
+                in.transferTo(response.getOutputStream());
+            }
+            return;
+        }
+
+        Path file = localFile.get();
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // O Tomcat envia direto do cache de páginas do SO para o socket, depois que o servlet retorna
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = contentLength;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) break;
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * ETag forte derivado do arquivo armazenado e de uma variante informada pelo chamador,
+     * ex: "risk-12-u" (não assinado) ou "risk-12-s1718000000" (assinado).
+     * Chaves endereçadas por conteúdo já trazem o hash; as antigas usam tamanho + data de modificação.
+     */
+    public String buildETag(String storageKey, String variant) throws IOException {
+        if (StorageService.isContentAddressed(storageKey)) {
+            String name = Path.of(storageKey).getFileName().toString();
+            return "\"" + variant + "-" + name.substring(0, Math.min(32, name.length())) + "\"";
+        }
+        StorageBackend.ObjectInfo info = storageService.stat(storageKey);
+        return "\"" + variant + "-" + Long.toHexString(info.size()) + "-" + Long.toHexString(info.lastModified().toEpochMilli()) + "\"";
+    }
+
+    private boolean isNotModified(HttpServletRequest request, String eTag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // Quando há If-None-Match, If-Modified-Since deve ser ignorado (RFC 9110)
+            return matchesAny(ifNoneMatch, eTag, true);
+        }
+        long ifModifiedSince = parseDateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+    }
+
+    private boolean isIfRangeSatisfied(HttpServletRequest request, String eTag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range exige comparação forte
+            return matchesAny(ifRange, eTag, false);
+        }
+        long date = parseDateHeader(request, HttpHeaders.IF_RANGE);
+        return date != -1 && lastModified == date;
+    }
+
+    private boolean matchesAny(String headerValue, String eTag, boolean weakComparison) {
+        for (String candidate : headerValue.split(",")) {
+            String value = candidate.trim();
+            if ("*".equals(value)) return true;
+            if (weakComparison && value.startsWith("W/")) value = value.substring(2);
+            if (value.equals(eTag)) return true;
+        }
+        return false;
+    }
+
+    private long parseDateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
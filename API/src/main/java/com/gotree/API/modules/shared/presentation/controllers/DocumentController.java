@@ -1,19 +1,26 @@
 package com.gotree.API.modules.shared.presentation.controllers;
 
 import com.gotree.API.modules.iam.infrastructure.security.CustomUserDetails;
+import com.gotree.API.modules.shared.presentation.dto.BatchSignRequestDTO;
+import com.gotree.API.modules.shared.presentation.dto.BatchSignResultDTO;
+import com.gotree.API.modules.shared.presentation.dto.DocumentCursorPageDTO;
 import com.gotree.API.modules.shared.presentation.dto.DocumentSummaryDTO;
-import com.gotree.API.modules.shared.presentation.dto.FileDownloadDTO;
+import com.gotree.API.modules.shared.presentation.dto.DocumentFileDTO;
+import com.gotree.API.modules.shared.presentation.dto.DocumentPdfStatusDTO;
+import com.gotree.API.modules.shared.infrastructure.web.RangeFileResponder;
 import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.shared.application.services.BatchSigningService;
 import com.gotree.API.modules.shared.application.services.DocumentAggregationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -22,13 +29,17 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.io.IOException;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador REST responsável por gerenciar documentos.
@@ -41,10 +52,15 @@ import java.util.List;
 public class DocumentController {
 
     private final DocumentAggregationService documentAggregationService;
+    private final BatchSigningService batchSigningService;
+    private final RangeFileResponder rangeFileResponder;
     private static final Logger logger = LoggerFactory.getLogger(DocumentController.class);
 
-    public DocumentController(DocumentAggregationService documentAggregationService) {
+    public DocumentController(DocumentAggregationService documentAggregationService, BatchSigningService batchSigningService,
+                              RangeFileResponder rangeFileResponder) {
         this.documentAggregationService = documentAggregationService;
+        this.batchSigningService = batchSigningService;
+        this.rangeFileResponder = rangeFileResponder;
     }
 
     /**
@@ -80,6 +96,44 @@ public class DocumentController {
         return ResponseEntity.ok(documentsPage);
     }
 
+    /**
+     * Lista os documentos do usuário autenticado usando paginação por cursor (keyset).
+     * Indicado para rolagem infinita: o custo de cada página não cresce com a profundidade.
+     *
+     * @param authentication Objeto de autenticação
+     * @param type Filtro por Tipo (visit, aep, risk)
+     * @param clientName Filtro por nome do Cliente
+     * @param startDate Filtro de data inicial (formato AAAA-MM-DD)
+     * @param endDate Filtro de data final (formato AAAA-MM-DD)
+     * @param cursor Valor de nextCursor retornado pela página anterior (vazio na primeira página)
+     * @param size Quantidade de itens por página (máximo 200)
+     * @return ResponseEntity com DocumentCursorPageDTO ou 400 se o cursor for inválido
+     */
+    @Operation(summary = "Lista documentos por cursor", description = "Lista os documentos do usuário autenticado com paginação por cursor (keyset).")
+    @GetMapping("/cursor")
+    @PreAuthorize("hasAuthority('VIEW_REPORTS') or hasRole('ADMIN')")
+    public ResponseEntity<?> getMyDocumentsByCursor(
+            Authentication authentication,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String clientName,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        User technician = userDetails.user();
+
+        try {
+            DocumentCursorPageDTO page = documentAggregationService.findDocumentsForUserAfter(
+                    technician, type, clientName, startDate, endDate, cursor, size
+            );
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Retorna os documentos mais recentes do usuário autenticado.
      * Este endpoint é utilizado no dashboard para exibir um histórico resumido
@@ -103,34 +157,79 @@ public class DocumentController {
     /**
      * Permite o download ou visualização de um documento PDF específico.
      * O documento é identificado pelo seu tipo (ex: visita, inspeção) e ID.
-     * Verifica se o usuário tem permissão para acessar o documento solicitado.
-     * Agora utiliza FileDownloadDTO para garantir o nome correto do arquivo.
+     * O arquivo é enviado em streaming direto do disco, com suporte a Range (206)
+     * e GET condicional (ETag/Last-Modified → 304). A versão assinada digitalmente
+     * recebe um ETag diferente da não assinada.
      * @param type Tipo do documento (ex: "visit", "inspection")
      * @param id ID do documento
      * @param authentication Objeto de autenticação do Spring Security
-     * @return ResponseEntity contendo o arquivo PDF ou status de erro apropriado
+     * @param request Requisição HTTP (cabeçalhos Range, If-None-Match, If-Modified-Since)
+     * @param response Resposta HTTP onde o PDF é escrito
      */
-    @Operation(summary = "Download ou visualização do documento", description = "Permite o download ou visualização de um documento PDF específico.")
+    @Operation(summary = "Download ou visualização do documento", description = "Permite o download ou visualização de um documento PDF específico, com suporte a Range e cache HTTP.")
     @GetMapping("/{type}/{id}/pdf")
     @PreAuthorize("hasAuthority('VIEW_REPORTS') or hasRole('ADMIN')")
-    public ResponseEntity<byte[]> downloadDocumentPdf(@PathVariable String type, @PathVariable Long id, Authentication authentication) {
+    public void downloadDocumentPdf(@PathVariable String type, @PathVariable Long id, Authentication authentication,
+                                    HttpServletRequest request, HttpServletResponse response) throws IOException {
 
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        User currentUser = userDetails.user();
+
+        DocumentFileDTO file;
         try {
-            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-            User currentUser = userDetails.user();
+            // 1. Localiza o arquivo (sem carregar o conteúdo) e o nome amigável
+            file = documentAggregationService.resolveDocumentFile(type, id, currentUser);
+        } catch (IOException e) {
+            logger.error("Falha ao localizar o arquivo PDF no disco. Tipo: {}, ID: {}. Erro: {}", type, id, e.getMessage());
+            response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            return;
+        }
 
-            // 1. Chama o novo metodo que retorna o DTO (Nome + Bytes)
-            FileDownloadDTO fileDto = documentAggregationService.downloadDocument(type, id, currentUser);
+        // 2. Validador: muda quando o arquivo muda e separa explicitamente assinado de não assinado
+        String signatureVariant = file.getIcpSignedAt() != null
+                ? "s" + file.getIcpSignedAt().toEpochSecond(ZoneOffset.UTC)
+                : "u";
+        String eTag = rangeFileResponder.buildETag(file.getStorageKey(), type.toLowerCase() + "-" + id + "-" + signatureVariant);
 
-            // 2. Retorna com o cabeçalho Content-Disposition configurado com o nome correto
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileDto.getFilename() + "\"")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(fileDto.getData());
+        // 3. Envia (200, 206 ou 304)
+        rangeFileResponder.write(file.getStorageKey(), file.getFilename(), MediaType.APPLICATION_PDF_VALUE, eTag, request, response);
+    }
 
-        } catch (IOException e) {
-            logger.error("Falha ao ler o arquivo PDF do disco. Tipo: {}, ID: {}. Erro: {}", type, id, e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    /**
+     * Situação da geração do PDF (PENDING, READY ou FAILED), para o cliente acompanhar a criação assíncrona.
+     *
+     * @param type Tipo do documento ("visit", "aep", "risk")
+     * @param id ID do documento
+     * @return status, mensagem de erro (se FAILED) e o link do PDF (se READY)
+     */
+    @Operation(summary = "Status do PDF", description = "Consulte periodicamente após criar um documento com async=true, até o status ser READY ou FAILED.")
+    @GetMapping("/{type}/{id}/pdf-status")
+    @PreAuthorize("hasAuthority('VIEW_REPORTS') or hasRole('ADMIN')")
+    public ResponseEntity<DocumentPdfStatusDTO> getPdfStatus(@PathVariable String type, @PathVariable Long id) {
+        return ResponseEntity.ok(documentAggregationService.getPdfStatus(type, id));
+    }
+
+    /**
+     * Assina digitalmente (ICP-Brasil) vários documentos do usuário autenticado de uma vez.
+     * O certificado é carregado uma única vez e os documentos são assinados em paralelo.
+     * Cada documento tem seu próprio resultado: uma falha não impede a assinatura dos demais.
+     *
+     * @param dto Lista de documentos (tipo "visit" ou "risk" e ID)
+     * @param authentication Objeto de autenticação do Spring Security
+     * @return ResponseEntity com o total de assinados e falhas e o resultado de cada documento
+     */
+    @Operation(summary = "Assinatura digital em lote", description = "Assina vários documentos com o certificado do usuário e retorna o resultado de cada um.")
+    @PostMapping("/sign")
+    @PreAuthorize("hasAuthority('CREATE_REPORTS') or hasRole('ADMIN')")
+    public ResponseEntity<?> signDocuments(@RequestBody @Valid BatchSignRequestDTO dto, Authentication authentication) {
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        User signer = userDetails.user();
+
+        try {
+            BatchSignResultDTO result = batchSigningService.sign(dto.getDocuments(), signer);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 
@@ -203,6 +302,38 @@ public class DocumentController {
         return ResponseEntity.ok(documentsPage);
     }
 
+    /**
+     * Lista todos os documentos do sistema com paginação por cursor (Acesso Administrativo).
+     *
+     * @param type Filtro opcional por tipo de documento (visit, aep, risk)
+     * @param clientName Filtro opcional por nome do cliente
+     * @param startDate Filtro opcional de data inicial (formato AAAA-MM-DD)
+     * @param endDate Filtro opcional de data final (formato AAAA-MM-DD)
+     * @param cursor Valor de nextCursor retornado pela página anterior (vazio na primeira página)
+     * @param size Quantidade de itens por página (máximo 200)
+     * @return ResponseEntity com DocumentCursorPageDTO ou 400 se o cursor for inválido
+     */
+    @Operation(summary = "Lista todos os documentos por cursor", description = "Lista todos os documentos do sistema com paginação por cursor (Acesso Administrativo).")
+    @GetMapping("/admin/all/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getAllDocumentsAdminByCursor(
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String clientName,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        try {
+            DocumentCursorPageDTO page = documentAggregationService.findDocumentsGlobalAfter(
+                    type, clientName, startDate, endDate, cursor, size
+            );
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Exporta todos os documentos do sistema em um arquivo ZIP.
      */
@@ -49,7 +49,7 @@ public class DocumentEmailController {
      * @return ResponseEntity com mensagem de sucesso e lista de e-mails se o envio for concluído com sucesso,
      * ou mensagem de erro se uma exceção ocorrer durante o processo
      */
-    @Operation(summary = "Envia um documento por e-mail", description = "Envia um documento PDF para os clientes vinculados.")
+    @Operation(summary = "Envia um documento por e-mail", description = "Enfileira o envio do documento PDF para os clientes vinculados. A entrega acontece em segundo plano.")
     @PostMapping("/{type}/{id}")
     @PreAuthorize("hasAuthority('CREATE_REPORTS') or hasRole('ADMIN')")
     public ResponseEntity<?> sendDocumentToClient(@PathVariable String type, @PathVariable Long id, Authentication auth) {
@@ -60,7 +60,7 @@ public class DocumentEmailController {
 
             String allEmails = String.join(", ", validEmails);
             return ResponseEntity.ok().body(Map.of(
-                    "message", "Documento enviado com sucesso.",
+                    "message", "Documento enviado para a fila de e-mails com sucesso.",
                     "emails_enviados", allEmails
             ));
 
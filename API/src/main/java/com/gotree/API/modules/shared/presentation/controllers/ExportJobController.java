@@ -0,0 +1,136 @@
+package com.gotree.API.modules.shared.presentation.controllers;
+
+import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.iam.infrastructure.security.CustomUserDetails;
+import com.gotree.API.modules.shared.application.services.ExportJobService;
+import com.gotree.API.modules.shared.domain.entities.ExportJob;
+import com.gotree.API.modules.shared.domain.enums.ExportJobStatus;
+import com.gotree.API.modules.shared.domain.enums.ExportJobType;
+import com.gotree.API.modules.shared.infrastructure.web.RangeFileResponder;
+import com.gotree.API.modules.shared.presentation.dto.ExportJobDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exportações em segundo plano: cria o job (202), acompanha o progresso e baixa o resultado com suporte a Range.
+ * Os endpoints síncronos antigos continuam disponíveis.
+ */
+@Tag(name = "Exportações", description = "Exportações em segundo plano com acompanhamento de progresso")
+@RestController
+@RequestMapping("/exports")
+public class ExportJobController {
+
+    private final ExportJobService exportJobService;
+    private final RangeFileResponder rangeFileResponder;
+
+    public ExportJobController(ExportJobService exportJobService, RangeFileResponder rangeFileResponder) {
+        this.exportJobService = exportJobService;
+        this.rangeFileResponder = rangeFileResponder;
+    }
+
+    @Operation(summary = "Exporta documentos (ZIP) em segundo plano", description = "Cria um job que gera o ZIP com os PDFs do período.")
+    @PostMapping("/documents-zip")
+    @PreAuthorize("hasAuthority('VIEW_REPORTS') or hasRole('ADMIN')")
+    public ResponseEntity<ExportJobDTO> exportDocumentsZip(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            Authentication authentication) {
+
+        Map<String, String> parameters = new HashMap<>();
+        putIfPresent(parameters, "startDate", startDate);
+        putIfPresent(parameters, "endDate", endDate);
+        return accepted(exportJobService.submit(ExportJobType.DOCUMENTS_ZIP, parameters, currentUser(authentication)));
+    }
+
+    @Operation(summary = "Exporta empresas (Excel) em segundo plano")
+    @PostMapping("/companies-excel")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ExportJobDTO> exportCompaniesExcel(Authentication authentication) {
+        return accepted(exportJobService.submit(ExportJobType.COMPANIES_EXCEL, Map.of(), currentUser(authentication)));
+    }
+
+    @Operation(summary = "Exporta a agenda (PDF) em segundo plano")
+    @PostMapping("/agenda-pdf")
+    @PreAuthorize("hasAuthority('VIEW_AGENDA') or hasRole('ADMIN')")
+    public ResponseEntity<ExportJobDTO> exportAgendaPdf(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String eventType,
+            @RequestParam(required = false) String companyName,
+            Authentication authentication) {
+
+        Map<String, String> parameters = new HashMap<>();
+        putIfPresent(parameters, "startDate", startDate);
+        putIfPresent(parameters, "endDate", endDate);
+        putIfPresent(parameters, "userId", userId);
+        putIfPresent(parameters, "eventType", eventType);
+        putIfPresent(parameters, "companyName", companyName);
+        return accepted(exportJobService.submit(ExportJobType.AGENDA_PDF, parameters, currentUser(authentication)));
+    }
+
+    @Operation(summary = "Lista as exportações recentes do usuário")
+    @GetMapping
+    public ResponseEntity<List<ExportJobDTO>> listMyExports(@RequestParam(defaultValue = "20") int limit,
+                                                            Authentication authentication) {
+        return ResponseEntity.ok(exportJobService.findRecentForUser(currentUser(authentication), limit)
+                .stream().map(ExportJobDTO::from).toList());
+    }
+
+    @Operation(summary = "Status de uma exportação", description = "Consulte periodicamente até o status ser COMPLETED ou FAILED.")
+    @GetMapping("/{id}")
+    public ResponseEntity<ExportJobDTO> getExport(@PathVariable String id, Authentication authentication) {
+        return ResponseEntity.ok(ExportJobDTO.from(exportJobService.findForUser(id, currentUser(authentication))));
+    }
+
+    @Operation(summary = "Download do arquivo exportado", description = "Suporta Range (download retomável) e GET condicional.")
+    @GetMapping("/{id}/download")
+    public void downloadExport(@PathVariable String id, Authentication authentication,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        ExportJob job = exportJobService.findForUser(id, currentUser(authentication));
+        if (job.getStatus() != ExportJobStatus.COMPLETED) {
+            response.sendError(HttpStatus.CONFLICT.value(), "Exportação ainda não concluída: " + job.getStatus());
+            return;
+        }
+
+        String eTag = rangeFileResponder.buildETag(job.getStorageKey(), "export-" + job.getId());
+        rangeFileResponder.write(job.getStorageKey(), job.getFilename(), job.getContentType(), eTag, request, response);
+    }
+
+    private ResponseEntity<ExportJobDTO> accepted(ExportJob job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/exports/" + job.getId()))
+                .body(ExportJobDTO.from(job));
+    }
+
+    private User currentUser(Authentication authentication) {
+        return ((CustomUserDetails) authentication.getPrincipal()).user();
+    }
+
+    private void putIfPresent(Map<String, String> parameters, String name, Object value) {
+        if (value != null && !value.toString().isBlank()) {
+            parameters.put(name, value.toString());
+        }
+    }
+}
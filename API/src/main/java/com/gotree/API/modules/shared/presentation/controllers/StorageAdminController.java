@@ -0,0 +1,46 @@
+package com.gotree.API.modules.shared.presentation.controllers;
+
+import com.gotree.API.modules.shared.application.services.StorageMigrationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Operações administrativas sobre o armazenamento de arquivos.
+ * O acesso é restrito a usuários com papel ADMIN.
+ */
+@Tag(name = "Armazenamento", description = "Migração dos arquivos para o armazenamento endereçado por conteúdo")
+@RestController
+@RequestMapping("/admin/storage")
+@PreAuthorize("hasRole('ADMIN')")
+public class StorageAdminController {
+
+    private final StorageMigrationService storageMigrationService;
+
+    public StorageAdminController(StorageMigrationService storageMigrationService) {
+        this.storageMigrationService = storageMigrationService;
+    }
+
+    @Operation(summary = "Inicia a migração dos arquivos antigos", description = "Executa em segundo plano; acompanhe pelo endpoint de status.")
+    @PostMapping("/migrate")
+    public ResponseEntity<Map<String, Object>> startMigration() {
+        if (!storageMigrationService.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(storageMigrationService.status());
+        }
+        return ResponseEntity.accepted().body(storageMigrationService.status());
+    }
+
+    @Operation(summary = "Status da migração dos arquivos")
+    @GetMapping("/migrate/status")
+    public ResponseEntity<Map<String, Object>> migrationStatus() {
+        return ResponseEntity.ok(storageMigrationService.status());
+    }
+}
@@ -0,0 +1,32 @@
+package com.gotree.API.modules.shared.presentation.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "DTO para assinatura digital de vários documentos de uma vez")
+public class BatchSignRequestDTO {
+
+    @NotEmpty(message = "Informe ao menos um documento.")
+    @Valid
+    @Schema(description = "Documentos a assinar")
+    private List<Item> documents;
+
+    @Data
+    public static class Item {
+
+        @NotBlank
+        @Schema(description = "Tipo do documento (visit, risk)", example = "visit")
+        private String type;
+
+        @NotNull
+        @Schema(description = "ID do documento", example = "45")
+        private Long id;
+    }
+}
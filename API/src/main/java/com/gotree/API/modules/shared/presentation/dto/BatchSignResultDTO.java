@@ -0,0 +1,30 @@
+package com.gotree.API.modules.shared.presentation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Resultado da assinatura em lote: um item por documento, na ordem do pedido.
+ * Uma falha em um documento não interrompe os demais.
+ */
+@Data
+@AllArgsConstructor
+public class BatchSignResultDTO {
+
+    private int signed;
+    private int failed;
+    private List<Item> results;
+
+    @Data
+    @AllArgsConstructor
+    public static class Item {
+
+        private String type;
+        private Long id;
+        private boolean signed;
+        // Preenchido só quando o documento não foi assinado
+        private String error;
+    }
+}
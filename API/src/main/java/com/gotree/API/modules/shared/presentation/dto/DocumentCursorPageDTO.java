@@ -0,0 +1,22 @@
+package com.gotree.API.modules.shared.presentation.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Schema(description = "Página de documentos navegada por cursor (keyset)")
+public class DocumentCursorPageDTO {
+
+    @Schema(description = "Documentos da página atual")
+    private List<DocumentSummaryDTO> content;
+
+    @Schema(description = "Cursor a ser enviado para buscar a próxima página (nulo quando não houver mais)", example = "MjAyNC0wMy0yNnx2aXNpdHw0NQ")
+    private String nextCursor;
+
+    @Schema(description = "Indica se existe uma próxima página")
+    private boolean hasNext;
+}
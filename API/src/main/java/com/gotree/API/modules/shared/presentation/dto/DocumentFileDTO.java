@@ -0,0 +1,28 @@
+package com.gotree.API.modules.shared.presentation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Referência ao PDF de um documento no armazenamento, com o nome amigável para download.
+ * O conteúdo não é carregado em memória.
+ */
+@Data
+@AllArgsConstructor
+public class DocumentFileDTO {
+
+    private String filename;
+
+    /**
+     * Chave do arquivo no StorageService.
+     */
+    private String storageKey;
+
+    /**
+     * Data da assinatura ICP-Brasil (null se o PDF não foi assinado digitalmente).
+     * Entra no ETag para que a versão assinada nunca seja confundida com a não assinada.
+     */
+    private LocalDateTime icpSignedAt;
+}
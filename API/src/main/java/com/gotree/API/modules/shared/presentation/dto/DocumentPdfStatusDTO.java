@@ -0,0 +1,28 @@
+package com.gotree.API.modules.shared.presentation.dto;
+
+import com.gotree.API.modules.shared.domain.entities.DocumentIndexEntry;
+import com.gotree.API.modules.shared.domain.enums.PdfStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Situação do PDF de um documento, consultada por polling após a criação assíncrona.
+ * {@code pdfUrl} só é preenchido quando o arquivo está pronto.
+ */
+@Data
+@AllArgsConstructor
+public class DocumentPdfStatusDTO {
+
+    private String type;
+    private Long id;
+    private PdfStatus status;
+    private String error;
+    private String pdfUrl;
+
+    public static DocumentPdfStatusDTO from(DocumentIndexEntry entry) {
+        String pdfUrl = entry.getPdfStatus() == PdfStatus.READY
+                ? "/documents/" + entry.getDocType() + "/" + entry.getId() + "/pdf"
+                : null;
+        return new DocumentPdfStatusDTO(entry.getDocType(), entry.getId(), entry.getPdfStatus(), entry.getPdfError(), pdfUrl);
+    }
+}
@@ -1,5 +1,6 @@
 package com.gotree.API.modules.shared.presentation.dto; // Crie este novo pacote
 
+import com.gotree.API.modules.shared.domain.enums.PdfStatus;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 import java.time.LocalDate;
@@ -33,6 +34,9 @@ public class DocumentSummaryDTO {
     @Schema(description = "Indica se o arquivo PDF foi gerado")
     private boolean pdfGenerated;
 
+    @Schema(description = "Situação da geração do PDF (PENDING, READY ou FAILED); null se ainda não gerado", example = "READY")
+    private PdfStatus pdfStatus;
+
     @Schema(description = "Data e hora da assinatura ICP-Brasil")
     private LocalDateTime icpSignedAt;
 
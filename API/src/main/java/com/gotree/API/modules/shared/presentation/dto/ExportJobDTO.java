@@ -0,0 +1,53 @@
+package com.gotree.API.modules.shared.presentation.dto;
+
+import com.gotree.API.modules.shared.domain.entities.ExportJob;
+import com.gotree.API.modules.shared.domain.enums.ExportJobStatus;
+import com.gotree.API.modules.shared.domain.enums.ExportJobType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estado de uma exportação em segundo plano, consultado por polling.
+ * {@code downloadUrl} só é preenchido quando o arquivo está pronto.
+ */
+@Data
+@AllArgsConstructor
+public class ExportJobDTO {
+
+    private String id;
+    private ExportJobType type;
+    private ExportJobStatus status;
+    private long progressCurrent;
+    private long progressTotal;
+
+    /**
+     * Percentual concluído (0-100), ou null enquanto o total não é conhecido.
+     */
+    private Integer percent;
+
+    private String filename;
+    private Long sizeBytes;
+    private String errorMessage;
+    private String downloadUrl;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    public static ExportJobDTO from(ExportJob job) {
+        Integer percent;
+        if (job.getStatus() == ExportJobStatus.COMPLETED) {
+            percent = 100;
+        } else if (job.getProgressTotal() > 0) {
+            percent = (int) Math.min(100, job.getProgressCurrent() * 100 / job.getProgressTotal());
+        } else {
+            percent = null;
+        }
+        String downloadUrl = job.getStatus() == ExportJobStatus.COMPLETED ? "/exports/" + job.getId() + "/download" : null;
+
+        return new ExportJobDTO(job.getId(), job.getType(), job.getStatus(), job.getProgressCurrent(),
+                job.getProgressTotal(), percent, job.getFilename(), job.getSizeBytes(), job.getErrorMessage(),
+                downloadUrl, job.getCreatedAt(), job.getStartedAt(), job.getFinishedAt());
+    }
+}
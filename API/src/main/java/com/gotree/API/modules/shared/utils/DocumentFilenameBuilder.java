@@ -0,0 +1,35 @@
+package com.gotree.API.modules.shared.utils;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Monta o nome amigável dos PDFs baixados/exportados.
+ * Formato: TIPO - TITULO - EMPRESA - DD-MM-YYYY.pdf
+ */
+public class DocumentFilenameBuilder {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    public static String build(String docTypeLabel, String title, String companyName, LocalDate date) {
+        return String.format("%s - %s - %s - %s.pdf",
+                docTypeLabel, sanitize(title), sanitize(companyName), date.format(DATE_FORMAT));
+    }
+
+    // Remove caracteres especiais que quebram o download
+    public static String sanitize(String input) {
+        if (input == null) return "SemNome";
+        // Mantém apenas letras, números, espaços, traços e underscores
+        return input.replaceAll("[^a-zA-Z0-9 \\-_.]", "").trim();
+    }
+
+    /**
+     * Rótulo curto usado no nome do arquivo a partir da chave interna (visit, aep, risk).
+     */
+    public static String labelForType(String typeKey) {
+        if ("visit".equalsIgnoreCase(typeKey)) return "Visita Tecnica";
+        if ("aep".equalsIgnoreCase(typeKey)) return "AEP";
+        if ("risk".equalsIgnoreCase(typeKey)) return "Checklist Risco";
+        return "";
+    }
+}
@@ -0,0 +1,77 @@
+package com.gotree.API.modules.shared.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Formatos de imagem reconhecidos pela assinatura dos primeiros bytes ("magic bytes"), com a extensão usada nas
+ * chaves do armazenamento e o tipo MIME correspondente. O conteúdo decide o formato, não o nome nem o prefixo
+ * data URL enviado pelo cliente.
+ */
+public enum ImageFormat {
+
+    JPEG("jpg", "image/jpeg"),
+    PNG("png", "image/png"),
+    GIF("gif", "image/gif"),
+    WEBP("webp", "image/webp"),
+    HEIC("heic", "image/heic"),
+    TIFF("tif", "image/tiff"),
+    BMP("bmp", "image/bmp");
+
+    // Marcas ISO-BMFF ("ftyp") das fotos HEIF/HEIC de celular
+    private static final Set<String> HEIF_BRANDS = Set.of("heic", "heix", "hevc", "hevx", "heim", "heis", "mif1", "msf1");
+
+    private final String extension;
+    private final String contentType;
+
+    ImageFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    /**
+     * Formato pelo conteúdo; vazio se não for nenhum dos formatos conhecidos.
+     */
+    public static Optional<ImageFormat> detect(byte[] content) {
+        if (content == null) return Optional.empty();
+        if (startsWith(content, 0, 0xFF, 0xD8, 0xFF)) return Optional.of(JPEG);
+        if (startsWith(content, 0, 0x89, 'P', 'N', 'G')) return Optional.of(PNG);
+        if (startsWith(content, 0, 'G', 'I', 'F', '8')) return Optional.of(GIF);
+        if (startsWith(content, 0, 'R', 'I', 'F', 'F') && startsWith(content, 8, 'W', 'E', 'B', 'P')) return Optional.of(WEBP);
+        if (startsWith(content, 4, 'f', 't', 'y', 'p') && content.length >= 12
+                && HEIF_BRANDS.contains(new String(content, 8, 4, StandardCharsets.US_ASCII))) return Optional.of(HEIC);
+        if (startsWith(content, 0, 'I', 'I', 0x2A, 0x00) || startsWith(content, 0, 'M', 'M', 0x00, 0x2A)) return Optional.of(TIFF);
+        if (startsWith(content, 0, 'B', 'M')) return Optional.of(BMP);
+        return Optional.empty();
+    }
+
+    /**
+     * Formato pela extensão de uma chave do armazenamento (sem ponto, minúscula).
+     */
+    public static Optional<ImageFormat> fromExtension(String extension) {
+        String normalized = switch (extension == null ? "" : extension) {
+            case "jpeg" -> "jpg";
+            case "tiff" -> "tif";
+            default -> extension;
+        };
+        return Arrays.stream(values()).filter(format -> format.extension.equals(normalized)).findFirst();
+    }
+
+    private static boolean startsWith(byte[] content, int offset, int... signature) {
+        if (content.length < offset + signature.length) return false;
+        for (int i = 0; i < signature.length; i++) {
+            if ((content[offset + i] & 0xFF) != signature[i]) return false;
+        }
+        return true;
+    }
+}
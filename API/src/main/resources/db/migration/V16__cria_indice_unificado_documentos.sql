@@ -0,0 +1,88 @@
+-- ==============================================================================
+-- 1. COLUNAS QUE EXISTEM NAS ENTIDADES MAS NUNCA FORAM VERSIONADAS
+-- ==============================================================================
+-- Usamos IF NOT EXISTS pois em produção essas colunas já existem
+ALTER TABLE tb_technical_visit ADD COLUMN IF NOT EXISTS icp_signed_at TIMESTAMP(6);
+ALTER TABLE tb_occupational_risk_report ADD COLUMN IF NOT EXISTS icp_signed_at TIMESTAMP(6);
+
+
+-- ==============================================================================
+-- 2. ÍNDICES PARA ORDENAÇÃO/PAGINAÇÃO POR (data, id)
+-- ==============================================================================
+-- A expressão COALESCE precisa ser idêntica à usada na view para o planner aproveitar o índice
+CREATE INDEX IF NOT EXISTS idx_technical_visit_sort
+    ON tb_technical_visit ((COALESCE(visit_date, DATE '0001-01-01')) DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_technical_visit_technician_sort
+    ON tb_technical_visit (technician_id, (COALESCE(visit_date, DATE '0001-01-01')) DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_aep_report_sort
+    ON tb_aep_report ((COALESCE(evaluation_date, DATE '0001-01-01')) DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_aep_report_evaluator_sort
+    ON tb_aep_report (evaluator_user_id, (COALESCE(evaluation_date, DATE '0001-01-01')) DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_risk_report_sort
+    ON tb_occupational_risk_report ((COALESCE(inspection_date, DATE '0001-01-01')) DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_risk_report_technician_sort
+    ON tb_occupational_risk_report (technician_id, (COALESCE(inspection_date, DATE '0001-01-01')) DESC, id DESC);
+
+
+-- ==============================================================================
+-- 3. VIEW UNIFICADA DE DOCUMENTOS (Visitas + AEPs + Checklists de Risco)
+-- ==============================================================================
+-- doc_type usa as mesmas chaves das rotas (visit, aep, risk)
+-- sort_date joga documentos sem data para o fim da listagem (ordem decrescente)
+CREATE OR REPLACE VIEW vw_document_index AS
+SELECT CAST('visit' AS VARCHAR(10))                           AS doc_type,
+       v.id                                                   AS id,
+       v.title                                                AS title,
+       v.visit_date                                           AS creation_date,
+       COALESCE(v.visit_date, DATE '0001-01-01')              AS sort_date,
+       v.pdf_path                                             AS pdf_path,
+       v.client_company_id                                    AS company_id,
+       c.name                                                 AS company_name,
+       v.technician_id                                        AS technician_id,
+       u.name                                                 AS technician_name,
+       v.sent_to_client_at                                    AS sent_to_client_at,
+       v.icp_signed_at                                        AS icp_signed_at,
+       (COALESCE(BTRIM(v.technician_signature_image_base64), '') <> '') AS signed
+FROM tb_technical_visit v
+         LEFT JOIN tb_company c ON c.id = v.client_company_id
+         LEFT JOIN tb_user u ON u.id = v.technician_id
+
+UNION ALL
+
+SELECT CAST('aep' AS VARCHAR(10)),
+       a.id,
+       a.evaluated_function,
+       a.evaluation_date,
+       COALESCE(a.evaluation_date, DATE '0001-01-01'),
+       a.pdf_path,
+       a.company_id,
+       c.name,
+       a.evaluator_user_id,
+       u.name,
+       a.sent_to_client_at,
+       CAST(NULL AS TIMESTAMP(6)),
+       FALSE
+FROM tb_aep_report a
+         LEFT JOIN tb_company c ON c.id = a.company_id
+         LEFT JOIN tb_user u ON u.id = a.evaluator_user_id
+
+UNION ALL
+
+SELECT CAST('risk' AS VARCHAR(10)),
+       r.id,
+       r.title,
+       r.inspection_date,
+       COALESCE(r.inspection_date, DATE '0001-01-01'),
+       r.pdf_path,
+       r.company_id,
+       c.name,
+       r.technician_id,
+       u.name,
+       r.sent_to_client_at,
+       r.icp_signed_at,
+       (COALESCE(BTRIM(r.technician_signature_image_base64), '') <> '')
+FROM tb_occupational_risk_report r
+         LEFT JOIN tb_company c ON c.id = r.company_id
+         LEFT JOIN tb_user u ON u.id = r.technician_id;
@@ -0,0 +1,139 @@
+-- ==============================================================================
+-- 1. TABELA DE ARQUIVOS BINÁRIOS (assinaturas, logo)
+-- ==============================================================================
+-- Guarda os bytes da imagem (bytea), sem o acréscimo de ~33% do base64.
+-- As entidades apenas referenciam o id; o conteúdo só é lido quando um PDF é gerado.
+CREATE TABLE tb_binary_asset (
+    id           BIGSERIAL PRIMARY KEY,
+    content_type VARCHAR(100) NOT NULL,
+    size_bytes   BIGINT       NOT NULL,
+    content      BYTEA        NOT NULL,
+    created_at   TIMESTAMP(6) NOT NULL DEFAULT NOW()
+);
+
+ALTER TABLE tb_technical_visit ADD COLUMN technician_signature_asset_id BIGINT REFERENCES tb_binary_asset (id);
+ALTER TABLE tb_technical_visit ADD COLUMN client_signature_asset_id BIGINT REFERENCES tb_binary_asset (id);
+ALTER TABLE tb_occupational_risk_report ADD COLUMN technician_signature_asset_id BIGINT REFERENCES tb_binary_asset (id);
+ALTER TABLE tb_system_info ADD COLUMN logo_asset_id BIGINT REFERENCES tb_binary_asset (id);
+
+
+-- ==============================================================================
+-- 2. CONVERSÃO DOS REGISTROS EXISTENTES
+-- ==============================================================================
+-- Remove o prefixo "data:image/...;base64," caso algum registro antigo ainda o tenha.
+-- O tipo vem dos primeiros bytes (JPEG: FF D8 FF, PNG: 89 50 4E 47); outro formato fica como application/octet-stream.
+-- As colunas antigas são apagadas logo abaixo, então um base64 que não decodifica aborta a migração inteira
+-- (a transação é desfeita e nenhuma imagem se perde). O erro indica a tabela, a coluna e o id para correção manual.
+CREATE OR REPLACE FUNCTION fn_tmp_base64_to_asset(b64 TEXT, origem TEXT) RETURNS BIGINT AS $$
+DECLARE
+    raw_bytes BYTEA;
+    mime_type VARCHAR(100);
+    new_id    BIGINT;
+BEGIN
+    IF COALESCE(BTRIM(b64), '') = '' THEN
+        RETURN NULL;
+    END IF;
+
+    raw_bytes := decode(regexp_replace(regexp_replace(b64, '^data:[^,]*,', ''), '\s', '', 'g'), 'base64');
+
+    mime_type := CASE
+                     WHEN substring(raw_bytes FROM 1 FOR 3) = decode('FFD8FF', 'hex') THEN 'image/jpeg'
+                     WHEN substring(raw_bytes FROM 1 FOR 4) = decode('89504E47', 'hex') THEN 'image/png'
+                     ELSE 'application/octet-stream'
+        END;
+
+    INSERT INTO tb_binary_asset (content_type, size_bytes, content)
+    VALUES (mime_type, octet_length(raw_bytes), raw_bytes)
+    RETURNING id INTO new_id;
+
+    RETURN new_id;
+EXCEPTION
+    WHEN OTHERS THEN
+        RAISE EXCEPTION 'Base64 inválido em %: %', origem, SQLERRM;
+END;
+$$ LANGUAGE plpgsql;
+
+UPDATE tb_technical_visit
+SET technician_signature_asset_id = fn_tmp_base64_to_asset(technician_signature_image_base64, 'tb_technical_visit.technician_signature_image_base64 id=' || id)
+WHERE COALESCE(BTRIM(technician_signature_image_base64), '') <> '';
+
+UPDATE tb_technical_visit
+SET client_signature_asset_id = fn_tmp_base64_to_asset(client_signature_image_base64, 'tb_technical_visit.client_signature_image_base64 id=' || id)
+WHERE COALESCE(BTRIM(client_signature_image_base64), '') <> '';
+
+UPDATE tb_occupational_risk_report
+SET technician_signature_asset_id = fn_tmp_base64_to_asset(technician_signature_image_base64, 'tb_occupational_risk_report.technician_signature_image_base64 id=' || id)
+WHERE COALESCE(BTRIM(technician_signature_image_base64), '') <> '';
+
+UPDATE tb_system_info
+SET logo_asset_id = fn_tmp_base64_to_asset(logo_base64, 'tb_system_info.logo_base64 id=' || id)
+WHERE COALESCE(BTRIM(logo_base64), '') <> '';
+
+DROP FUNCTION fn_tmp_base64_to_asset(TEXT, TEXT);
+
+
+-- ==============================================================================
+-- 3. VIEW UNIFICADA PASSA A USAR A REFERÊNCIA (a view depende das colunas antigas)
+-- ==============================================================================
+DROP VIEW IF EXISTS vw_document_index;
+
+ALTER TABLE tb_technical_visit DROP COLUMN technician_signature_image_base64;
+ALTER TABLE tb_technical_visit DROP COLUMN client_signature_image_base64;
+ALTER TABLE tb_occupational_risk_report DROP COLUMN technician_signature_image_base64;
+ALTER TABLE tb_system_info DROP COLUMN logo_base64;
+
+CREATE VIEW vw_document_index AS
+SELECT CAST('visit' AS VARCHAR(10))                           AS doc_type,
+       v.id                                                   AS id,
+       v.title                                                AS title,
+       v.visit_date                                           AS creation_date,
+       COALESCE(v.visit_date, DATE '0001-01-01')              AS sort_date,
+       v.pdf_path                                             AS pdf_path,
+       v.client_company_id                                    AS company_id,
+       c.name                                                 AS company_name,
+       v.technician_id                                        AS technician_id,
+       u.name                                                 AS technician_name,
+       v.sent_to_client_at                                    AS sent_to_client_at,
+       v.icp_signed_at                                        AS icp_signed_at,
+       (v.technician_signature_asset_id IS NOT NULL)          AS signed
+FROM tb_technical_visit v
+         LEFT JOIN tb_company c ON c.id = v.client_company_id
+         LEFT JOIN tb_user u ON u.id = v.technician_id
+
+UNION ALL
+
+SELECT CAST('aep' AS VARCHAR(10)),
+       a.id,
+       a.evaluated_function,
+       a.evaluation_date,
+       COALESCE(a.evaluation_date, DATE '0001-01-01'),
+       a.pdf_path,
+       a.company_id,
+       c.name,
+       a.evaluator_user_id,
+       u.name,
+       a.sent_to_client_at,
+       CAST(NULL AS TIMESTAMP(6)),
+       FALSE
+FROM tb_aep_report a
+         LEFT JOIN tb_company c ON c.id = a.company_id
+         LEFT JOIN tb_user u ON u.id = a.evaluator_user_id
+
+UNION ALL
+
+SELECT CAST('risk' AS VARCHAR(10)),
+       r.id,
+       r.title,
+       r.inspection_date,
+       COALESCE(r.inspection_date, DATE '0001-01-01'),
+       r.pdf_path,
+       r.company_id,
+       c.name,
+       r.technician_id,
+       u.name,
+       r.sent_to_client_at,
+       r.icp_signed_at,
+       (r.technician_signature_asset_id IS NOT NULL)
+FROM tb_occupational_risk_report r
+         LEFT JOIN tb_company c ON c.id = r.company_id
+         LEFT JOIN tb_user u ON u.id = r.technician_id;
@@ -0,0 +1,22 @@
+-- ==============================================================================
+-- FILA DE E-MAILS (OUTBOX)
+-- ==============================================================================
+-- A requisição HTTP apenas grava a mensagem aqui; um worker entrega em lotes.
+-- O anexo é referenciado pelo caminho do PDF no disco (não duplicamos os bytes).
+CREATE TABLE tb_email_outbox (
+    id              BIGSERIAL PRIMARY KEY,
+    recipients      TEXT          NOT NULL,
+    subject         VARCHAR(500)  NOT NULL,
+    html_body       TEXT          NOT NULL,
+    attachment_path VARCHAR(1000),
+    attachment_name VARCHAR(255),
+    status          VARCHAR(20)   NOT NULL,
+    attempts        INTEGER       NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP(6)  NOT NULL,
+    locked_at       TIMESTAMP(6),
+    last_error      TEXT,
+    created_at      TIMESTAMP(6)  NOT NULL,
+    sent_at         TIMESTAMP(6)
+);
+
+CREATE INDEX idx_email_outbox_pending ON tb_email_outbox (next_attempt_at, id) WHERE status = 'PENDING';
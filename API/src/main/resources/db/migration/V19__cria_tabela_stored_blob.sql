@@ -0,0 +1,11 @@
+-- ==============================================================================
+-- CONTROLE DOS ARQUIVOS ENDEREÇADOS POR CONTEÚDO (SHA-256)
+-- ==============================================================================
+-- Arquivos idênticos são gravados uma única vez; ref_count indica quantos registros
+-- (PDFs, fotos) apontam para o mesmo arquivo. Ele só é apagado do disco ao chegar a zero.
+CREATE TABLE tb_stored_blob (
+    storage_key VARCHAR(200) PRIMARY KEY,
+    ref_count   INTEGER      NOT NULL,
+    size_bytes  BIGINT       NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL DEFAULT NOW()
+);
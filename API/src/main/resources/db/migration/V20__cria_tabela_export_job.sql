@@ -0,0 +1,26 @@
+-- ==============================================================================
+-- EXPORTAÇÕES EM SEGUNDO PLANO (ZIP de documentos, Excel de empresas, PDF da agenda)
+-- ==============================================================================
+-- O arquivo gerado fica no StorageService (storage_key); qualquer réplica da API atende o download.
+-- heartbeat_at é atualizado pela instância que executa o job; sem atualização, o job é dado como interrompido.
+CREATE TABLE tb_export_job (
+    id               VARCHAR(36)   PRIMARY KEY,
+    type             VARCHAR(30)   NOT NULL,
+    status           VARCHAR(20)   NOT NULL,
+    requested_by     BIGINT        NOT NULL REFERENCES tb_user (id) ON DELETE CASCADE,
+    parameters       TEXT,
+    progress_current BIGINT        NOT NULL DEFAULT 0,
+    progress_total   BIGINT        NOT NULL DEFAULT 0,
+    storage_key      VARCHAR(200),
+    filename         VARCHAR(255),
+    content_type     VARCHAR(100),
+    size_bytes       BIGINT,
+    error_message    VARCHAR(2000),
+    created_at       TIMESTAMP(6)  NOT NULL,
+    started_at       TIMESTAMP(6),
+    finished_at      TIMESTAMP(6),
+    heartbeat_at     TIMESTAMP(6)  NOT NULL
+);
+
+CREATE INDEX idx_export_job_requested_by ON tb_export_job (requested_by, created_at DESC);
+CREATE INDEX idx_export_job_status ON tb_export_job (status, heartbeat_at);
@@ -0,0 +1,96 @@
+-- ==============================================================================
+-- 1. STATUS DA GERAÇÃO DO PDF (visitas e checklists de risco)
+-- ==============================================================================
+-- Na geração assíncrona o registro é salvo como PENDING e o PDF é montado depois por um worker.
+-- pdf_claimed_at marca qual execução está renderizando (evita duas réplicas gerando o mesmo documento).
+ALTER TABLE tb_technical_visit ADD COLUMN pdf_status VARCHAR(20);
+ALTER TABLE tb_technical_visit ADD COLUMN pdf_error VARCHAR(1000);
+ALTER TABLE tb_technical_visit ADD COLUMN pdf_requested_at TIMESTAMP(6);
+ALTER TABLE tb_technical_visit ADD COLUMN pdf_claimed_at TIMESTAMP(6);
+
+ALTER TABLE tb_occupational_risk_report ADD COLUMN pdf_status VARCHAR(20);
+ALTER TABLE tb_occupational_risk_report ADD COLUMN pdf_error VARCHAR(1000);
+ALTER TABLE tb_occupational_risk_report ADD COLUMN pdf_requested_at TIMESTAMP(6);
+ALTER TABLE tb_occupational_risk_report ADD COLUMN pdf_claimed_at TIMESTAMP(6);
+
+-- O worker monta o PDF sem o request original: a próxima visita (que vai no PDF) passa a ser gravada
+ALTER TABLE tb_technical_visit ADD COLUMN next_visit_date DATE;
+ALTER TABLE tb_technical_visit ADD COLUMN next_visit_shift VARCHAR(20);
+
+UPDATE tb_technical_visit SET pdf_status = 'READY' WHERE pdf_path IS NOT NULL;
+UPDATE tb_occupational_risk_report SET pdf_status = 'READY' WHERE pdf_path IS NOT NULL;
+
+-- Varredura dos pendentes (recuperação após queda da instância)
+CREATE INDEX idx_technical_visit_pdf_pending ON tb_technical_visit (pdf_requested_at) WHERE pdf_status = 'PENDING';
+CREATE INDEX idx_risk_report_pdf_pending ON tb_occupational_risk_report (pdf_requested_at) WHERE pdf_status = 'PENDING';
+
+
+-- ==============================================================================
+-- 2. VIEW UNIFICADA PASSA A EXPOR O STATUS DO PDF
+-- ==============================================================================
+-- AEP continua sendo gerada sob demanda: READY quando já existe arquivo.
+DROP VIEW IF EXISTS vw_document_index;
+
+CREATE VIEW vw_document_index AS
+SELECT CAST('visit' AS VARCHAR(10))                           AS doc_type,
+       v.id                                                   AS id,
+       v.title                                                AS title,
+       v.visit_date                                           AS creation_date,
+       COALESCE(v.visit_date, DATE '0001-01-01')              AS sort_date,
+       v.pdf_path                                             AS pdf_path,
+       v.client_company_id                                    AS company_id,
+       c.name                                                 AS company_name,
+       v.technician_id                                        AS technician_id,
+       u.name                                                 AS technician_name,
+       v.sent_to_client_at                                    AS sent_to_client_at,
+       v.icp_signed_at                                        AS icp_signed_at,
+       (v.technician_signature_asset_id IS NOT NULL)          AS signed,
+       CAST(COALESCE(v.pdf_status,
+                     CASE WHEN v.pdf_path IS NOT NULL THEN 'READY' END) AS VARCHAR(20)) AS pdf_status,
+       v.pdf_error                                            AS pdf_error
+FROM tb_technical_visit v
+         LEFT JOIN tb_company c ON c.id = v.client_company_id
+         LEFT JOIN tb_user u ON u.id = v.technician_id
+
+UNION ALL
+
+SELECT CAST('aep' AS VARCHAR(10)),
+       a.id,
+       a.evaluated_function,
+       a.evaluation_date,
+       COALESCE(a.evaluation_date, DATE '0001-01-01'),
+       a.pdf_path,
+       a.company_id,
+       c.name,
+       a.evaluator_user_id,
+       u.name,
+       a.sent_to_client_at,
+       CAST(NULL AS TIMESTAMP(6)),
+       FALSE,
+       CAST(CASE WHEN a.pdf_path IS NOT NULL THEN 'READY' END AS VARCHAR(20)),
+       CAST(NULL AS VARCHAR(1000))
+FROM tb_aep_report a
+         LEFT JOIN tb_company c ON c.id = a.company_id
+         LEFT JOIN tb_user u ON u.id = a.evaluator_user_id
+
+UNION ALL
+
+SELECT CAST('risk' AS VARCHAR(10)),
+       r.id,
+       r.title,
+       r.inspection_date,
+       COALESCE(r.inspection_date, DATE '0001-01-01'),
+       r.pdf_path,
+       r.company_id,
+       c.name,
+       r.technician_id,
+       u.name,
+       r.sent_to_client_at,
+       r.icp_signed_at,
+       (r.technician_signature_asset_id IS NOT NULL),
+       CAST(COALESCE(r.pdf_status,
+                     CASE WHEN r.pdf_path IS NOT NULL THEN 'READY' END) AS VARCHAR(20)),
+       r.pdf_error
+FROM tb_occupational_risk_report r
+         LEFT JOIN tb_company c ON c.id = r.company_id
+         LEFT JOIN tb_user u ON u.id = r.technician_id;
@@ -0,0 +1,15 @@
+-- ==============================================================================
+-- MEMOIZAÇÃO DA RENDERIZAÇÃO DE PDF
+-- ==============================================================================
+-- input_hash: SHA-256 de tudo o que entra no PDF (HTML já processado, com dados, riscos, logo e versão
+-- do template, mais a fonte e a versão do renderizador). Entradas iguais apontam para o mesmo arquivo e
+-- dispensam a renderização. Cada linha mantém uma referência no tb_stored_blob, liberada na expiração.
+CREATE TABLE tb_pdf_render_cache (
+    input_hash    VARCHAR(64)  PRIMARY KEY,
+    storage_key   VARCHAR(200) NOT NULL,
+    template_name VARCHAR(100) NOT NULL,
+    created_at    TIMESTAMP(6) NOT NULL DEFAULT NOW(),
+    last_used_at  TIMESTAMP(6) NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_pdf_render_cache_last_used ON tb_pdf_render_cache (last_used_at);
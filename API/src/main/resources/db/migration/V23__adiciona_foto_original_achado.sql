@@ -0,0 +1,8 @@
+-- ==============================================================================
+-- FOTOS ORIGINAIS DOS ACHADOS
+-- ==============================================================================
+-- photo_path1/photo_path2 passam a apontar para a versão normalizada (JPEG reduzido para a resolução
+-- de impressão, sem EXIF). Quando visit.photos.keep-original=true, o arquivo enviado pelo celular
+-- é guardado também, nestas colunas; caso contrário ficam nulas.
+ALTER TABLE tb_visit_finding ADD COLUMN photo_original_path1 VARCHAR(255);
+ALTER TABLE tb_visit_finding ADD COLUMN photo_original_path2 VARCHAR(255);
@@ -0,0 +1,7 @@
+-- ==============================================================================
+-- VERSÃO DOS TOKENS DO USUÁRIO
+-- ==============================================================================
+-- Vai no token JWT (claim "ver") e é incrementada quando a senha ou o e-mail mudam:
+-- tokens emitidos antes da alteração deixam de ser aceitos. Também compõe a chave
+-- do cache de usuários autenticados.
+ALTER TABLE tb_user ADD COLUMN token_version INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,7 @@
+-- ==============================================================================
+-- VERSÃO DAS PERMISSÕES DO PERFIL DE ACESSO
+-- ==============================================================================
+-- O token JWT leva as permissões do usuário como máscara de bits (claim "perm") e a versão do
+-- perfil de onde vieram (claim "pv"). Alterar as permissões incrementa a versão e os tokens
+-- antigos deixam de ser aceitos, obrigando a emissão de um novo com as permissões atuais.
+ALTER TABLE access_profiles ADD COLUMN permissions_version INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,32 @@
+-- ==============================================================================
+-- REFRESH TOKENS E REVOGAÇÃO DE TOKENS DE ACESSO
+-- ==============================================================================
+-- tb_refresh_token: só o SHA-256 do token é guardado. Cada uso gera um token novo na mesma
+-- família (rotação); reutilizar um token já trocado revoga a família inteira.
+-- access_jti: último token de acesso emitido pela família, revogado junto com ela.
+CREATE TABLE tb_refresh_token (
+    id             BIGSERIAL    PRIMARY KEY,
+    token_hash     VARCHAR(64)  NOT NULL UNIQUE,
+    family_id      VARCHAR(36)  NOT NULL,
+    subject        VARCHAR(255) NOT NULL,
+    token_version  INTEGER      NOT NULL DEFAULT 0,
+    access_jti     VARCHAR(36),
+    created_at     TIMESTAMP(6) NOT NULL DEFAULT NOW(),
+    expires_at     TIMESTAMP(6) NOT NULL,
+    used_at        TIMESTAMP(6),
+    revoked_at     TIMESTAMP(6)
+);
+
+CREATE INDEX idx_refresh_token_family ON tb_refresh_token (family_id);
+CREATE INDEX idx_refresh_token_expires ON tb_refresh_token (expires_at);
+CREATE INDEX idx_refresh_token_access_jti ON tb_refresh_token (access_jti);
+
+-- tb_revoked_token: tokens de acesso revogados antes de expirar (logout, reuso de refresh token).
+-- Carregada em memória na inicialização; a linha pode ser apagada quando o token expira.
+CREATE TABLE tb_revoked_token (
+    jti         VARCHAR(36)  PRIMARY KEY,
+    expires_at  TIMESTAMP(6) NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_revoked_token_expires ON tb_revoked_token (expires_at);
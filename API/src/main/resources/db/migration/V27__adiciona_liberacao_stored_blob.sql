@@ -0,0 +1,9 @@
+-- ==============================================================================
+-- LIMPEZA ADIADA DOS ARQUIVOS SEM REFERÊNCIAS
+-- ==============================================================================
+-- O registro não é mais apagado quando ref_count chega a zero: released_at guarda o momento,
+-- e uma limpeza periódica apaga o arquivo e o registro depois de um tempo de carência,
+-- com o registro travado (um upload concorrente do mesmo conteúdo espera ou o mantém).
+ALTER TABLE tb_stored_blob ADD COLUMN released_at TIMESTAMP(6);
+
+CREATE INDEX idx_stored_blob_released ON tb_stored_blob (released_at) WHERE ref_count <= 0;
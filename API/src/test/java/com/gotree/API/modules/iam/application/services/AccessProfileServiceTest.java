@@ -0,0 +1,78 @@
+package com.gotree.API.modules.iam.application.services;
+
+import com.gotree.API.modules.iam.domain.entities.AccessProfile;
+import com.gotree.API.modules.iam.domain.enums.SystemPermission;
+import com.gotree.API.modules.iam.infrastructure.repositories.AccessProfileRepository;
+import com.gotree.API.modules.iam.infrastructure.repositories.UserRepository;
+import com.gotree.API.modules.iam.infrastructure.security.AuthenticatedPrincipalCache;
+import com.gotree.API.modules.iam.presentation.dto.AccessProfileRequestDTO;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccessProfileServiceTest {
+
+    private final AccessProfileRepository profileRepository = mock(AccessProfileRepository.class);
+    private final AuthenticatedPrincipalCache principalCache = mock(AuthenticatedPrincipalCache.class);
+    private final AccessProfileService service =
+            new AccessProfileService(profileRepository, mock(UserRepository.class), principalCache);
+
+    @Test
+    void newProfileStartsAtPermissionsVersionZero() {
+        when(profileRepository.save(any(AccessProfile.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.createProfile(request("Segurança", SystemPermission.VIEW_REPORTS));
+
+        ArgumentCaptor<AccessProfile> saved = ArgumentCaptor.forClass(AccessProfile.class);
+        verify(profileRepository).save(saved.capture());
+        assertThat(saved.getValue().getPermissionsVersion()).isZero();
+        assertThat(saved.getValue().getPermissions()).containsExactly(SystemPermission.VIEW_REPORTS);
+    }
+
+    @Test
+    void changingPermissionsBumpsTheVersion() {
+        AccessProfile existing = profile(SystemPermission.VIEW_REPORTS);
+        when(profileRepository.findById(10L)).thenReturn(Optional.of(existing));
+        when(profileRepository.save(any(AccessProfile.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.updateProfile(10L, request("Segurança", SystemPermission.VIEW_REPORTS, SystemPermission.CREATE_REPORTS));
+
+        assertThat(existing.getPermissionsVersion()).isEqualTo(1);
+        verify(principalCache).invalidateProfile(10L);
+    }
+
+    @Test
+    void renamingWithTheSamePermissionsKeepsTheVersion() {
+        AccessProfile existing = profile(SystemPermission.VIEW_REPORTS);
+        when(profileRepository.findById(10L)).thenReturn(Optional.of(existing));
+        when(profileRepository.save(any(AccessProfile.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.updateProfile(10L, request("Segurança do Trabalho", SystemPermission.VIEW_REPORTS));
+
+        assertThat(existing.getPermissionsVersion()).isZero();
+    }
+
+    private static AccessProfile profile(SystemPermission... permissions) {
+        AccessProfile profile = new AccessProfile();
+        profile.setId(10L);
+        profile.setName("Segurança");
+        profile.setPermissions(new HashSet<>(Set.of(permissions)));
+        return profile;
+    }
+
+    private static AccessProfileRequestDTO request(String name, SystemPermission... permissions) {
+        AccessProfileRequestDTO dto = new AccessProfileRequestDTO();
+        dto.setName(name);
+        dto.setPermissions(new HashSet<>(Set.of(permissions)));
+        return dto;
+    }
+}
@@ -0,0 +1,79 @@
+package com.gotree.API.modules.iam.application.services;
+
+import com.gotree.API.modules.iam.infrastructure.repositories.UserRepository;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.security.KeyStore;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CertificatePasswordReencryptionJobTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SymmetricCryptoService cryptoService = mock(SymmetricCryptoService.class);
+    private final StorageService storageService = mock(StorageService.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final CertificatePasswordReencryptionJob job =
+            new CertificatePasswordReencryptionJob(userRepository, cryptoService, storageService, transactionTemplate, 200);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rewritesLegacyPasswordThatOpensTheCertificate() throws Exception {
+        givenLegacyRow("valor-antigo", "senha-certa");
+        when(cryptoService.encrypt("senha-certa")).thenReturn("v2:kid:novo");
+        when(transactionTemplate.execute(any(TransactionCallback.class)))
+                .thenAnswer(invocation -> ((TransactionCallback<Integer>) invocation.getArgument(0)).doInTransaction(null));
+
+        job.reencryptPending();
+
+        verify(userRepository).replaceCertificatePassword(1L, "valor-antigo", "v2:kid:novo");
+    }
+
+    @Test
+    void keepsLegacyPasswordWhenTheDecryptedValueDoesNotOpenTheCertificate() throws Exception {
+        // Chave errada com padding válido: o resultado é lixo e não pode ser regravado
+        givenLegacyRow("valor-antigo", "lixo-decifrado");
+
+        job.reencryptPending();
+
+        verify(cryptoService, never()).encrypt(anyString());
+        verify(userRepository, never()).replaceCertificatePassword(anyLong(), anyString(), anyString());
+    }
+
+    private void givenLegacyRow(String encrypted, String decrypted) throws Exception {
+        UserRepository.EncryptedCertificatePassword row = mock(UserRepository.EncryptedCertificatePassword.class);
+        when(row.getId()).thenReturn(1L);
+        when(row.getCertificatePassword()).thenReturn(encrypted);
+        when(row.getCertificatePath()).thenReturn("certificates/1.pfx");
+        when(userRepository.findCertificatePasswordsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(row));
+
+        when(cryptoService.needsReencryption(encrypted)).thenReturn(true);
+        when(cryptoService.isLegacyFormat(encrypted)).thenReturn(true);
+        when(cryptoService.decrypt(encrypted)).thenReturn(decrypted);
+
+        byte[] pkcs12 = emptyKeyStore("senha-certa");
+        when(storageService.open("certificates/1.pfx")).thenAnswer(invocation -> new ByteArrayInputStream(pkcs12));
+    }
+
+    private static byte[] emptyKeyStore(String password) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        keyStore.store(out, password.toCharArray());
+        return out.toByteArray();
+    }
+}
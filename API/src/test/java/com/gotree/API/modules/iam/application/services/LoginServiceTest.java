@@ -0,0 +1,128 @@
+package com.gotree.API.modules.iam.application.services;
+
+import com.gotree.API.modules.iam.infrastructure.security.LoginThrottle;
+import com.gotree.API.modules.shared.exceptions.ServiceBusyException;
+import com.gotree.API.modules.shared.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LoginServiceTest {
+
+    private final AuthenticationManager authenticationManager = mock(AuthenticationManager.class);
+    private final LoginThrottle loginThrottle = mock(LoginThrottle.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private LoginService service;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void fullQueueFailsFastWithServiceBusy() throws Exception {
+        // 1 thread e 1 lugar na fila: o terceiro login simultâneo é recusado na hora
+        service = new LoginService(authenticationManager, loginThrottle, meterRegistry, 1, 1, 10_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(authenticationManager.authenticate(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return authenticated(invocation.getArgument(0));
+        });
+
+        Future<Authentication> running = callers.submit(() -> service.authenticate("a@gotree.com", "senha", "10.0.0.1"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<Authentication> queued = callers.submit(() -> service.authenticate("b@gotree.com", "senha", "10.0.0.2"));
+        awaitQueued();
+
+        assertThatThrownBy(() -> service.authenticate("c@gotree.com", "senha", "10.0.0.3"))
+                .isInstanceOf(ServiceBusyException.class)
+                .extracting(e -> ((ServiceBusyException) e).getRetryAfterSeconds()).isEqualTo(1L);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS).isAuthenticated()).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS).isAuthenticated()).isTrue();
+        verify(loginThrottle, never()).reset("c@gotree.com");
+    }
+
+    @Test
+    void slowVerificationTimesOutWithServiceBusy() {
+        service = new LoginService(authenticationManager, loginThrottle, meterRegistry, 1, 1, 50);
+        when(authenticationManager.authenticate(any())).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return authenticated(invocation.getArgument(0));
+        });
+
+        assertThatThrownBy(() -> service.authenticate("a@gotree.com", "senha", "10.0.0.1"))
+                .isInstanceOf(ServiceBusyException.class);
+    }
+
+    @Test
+    void throttledLoginNeverReachesTheHash() {
+        service = new LoginService(authenticationManager, loginThrottle, meterRegistry, 1, 1, 10_000);
+        when(loginThrottle.tryAcquire(anyString(), anyString())).thenReturn(12L);
+
+        assertThatThrownBy(() -> service.authenticate("a@gotree.com", "senha", "10.0.0.1"))
+                .isInstanceOf(TooManyRequestsException.class);
+        verify(authenticationManager, never()).authenticate(any());
+    }
+
+    @Test
+    void wrongPasswordPropagatesAndKeepsTheBucket() {
+        service = new LoginService(authenticationManager, loginThrottle, meterRegistry, 1, 1, 10_000);
+        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("Credenciais inválidas"));
+
+        assertThatThrownBy(() -> service.authenticate("a@gotree.com", "errada", "10.0.0.1"))
+                .isInstanceOf(BadCredentialsException.class);
+        verify(loginThrottle, never()).reset(anyString());
+    }
+
+    @Test
+    void successfulLoginResetsTheEmailBucket() {
+        service = new LoginService(authenticationManager, loginThrottle, meterRegistry, 1, 1, 10_000);
+        when(authenticationManager.authenticate(any())).thenAnswer(invocation -> authenticated(invocation.getArgument(0)));
+
+        service.authenticate("a@gotree.com", "senha", "10.0.0.1");
+
+        verify(loginThrottle).reset("a@gotree.com");
+    }
+
+    private void awaitQueued() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("security.login.queue.depth").gauge().value() < 1) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("O segundo login não chegou à fila");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static Authentication authenticated(Authentication credentials) {
+        return UsernamePasswordAuthenticationToken.authenticated(credentials.getPrincipal(), null, List.of());
+    }
+}
@@ -0,0 +1,195 @@
+package com.gotree.API.modules.iam.application.services;
+
+import com.gotree.API.modules.iam.application.services.RefreshTokenService.TokenPair;
+import com.gotree.API.modules.iam.domain.entities.RefreshToken;
+import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.iam.infrastructure.repositories.RefreshTokenRepository;
+import com.gotree.API.modules.iam.infrastructure.security.CustomUserDetails;
+import com.gotree.API.modules.iam.infrastructure.security.jwt.TokenRevocationList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RefreshTokenServiceTest {
+
+    private final List<RefreshToken> table = new ArrayList<>();
+    private final Map<String, User> users = new HashMap<>();
+    private final RefreshTokenRepository repository = mock(RefreshTokenRepository.class);
+    private final TokenRevocationList revocationList = mock(TokenRevocationList.class);
+    private final JwtService jwtService = mock(JwtService.class);
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    private final AtomicInteger accessTokens = new AtomicInteger();
+    private RefreshTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        // Tabela em memória com o mesmo comportamento das consultas do repositório
+        when(repository.save(any(RefreshToken.class))).thenAnswer(invocation -> {
+            RefreshToken token = invocation.getArgument(0);
+            token.setId((long) table.size() + 1);
+            table.add(token);
+            return token;
+        });
+        when(repository.findByTokenHash(anyString())).thenAnswer(invocation -> table.stream()
+                .filter(token -> token.getTokenHash().equals(invocation.getArgument(0))).findFirst());
+        when(repository.findFirstByAccessJti(anyString())).thenAnswer(invocation -> table.stream()
+                .filter(token -> Objects.equals(token.getAccessJti(), invocation.getArgument(0))).findFirst());
+        when(repository.markUsed(anyLong(), any())).thenAnswer(invocation -> {
+            RefreshToken token = table.get(invocation.<Long>getArgument(0).intValue() - 1);
+            if (token.getUsedAt() != null || token.getRevokedAt() != null) return 0;
+            token.setUsedAt(invocation.getArgument(1));
+            return 1;
+        });
+        when(repository.findAccessJtis(anyString(), any())).thenAnswer(invocation -> table.stream()
+                .filter(token -> token.getFamilyId().equals(invocation.getArgument(0)))
+                .map(RefreshToken::getAccessJti).toList());
+        when(repository.revokeFamily(anyString(), any())).thenAnswer(invocation -> {
+            int revoked = 0;
+            for (RefreshToken token : table) {
+                if (token.getFamilyId().equals(invocation.getArgument(0)) && token.getRevokedAt() == null) {
+                    token.setRevokedAt(invocation.getArgument(1));
+                    revoked++;
+                }
+            }
+            return revoked;
+        });
+
+        when(jwtService.accessTokenTtlSeconds()).thenReturn(900L);
+        when(jwtService.issueAccessToken(any())).thenAnswer(invocation -> {
+            String jti = "jti-" + accessTokens.incrementAndGet();
+            return new JwtService.AccessToken("access-" + jti, jti, new Date());
+        });
+        when(userDetailsService.loadUserByUsername(anyString()))
+                .thenAnswer(invocation -> new CustomUserDetails(users.get(invocation.<String>getArgument(0))));
+
+        users.put("ana@gotree.com", user(1L, "ana@gotree.com"));
+        users.put("bia@gotree.com", user(2L, "bia@gotree.com"));
+        service = new RefreshTokenService(repository, revocationList, jwtService, userDetailsService, 7);
+    }
+
+    @Test
+    void refreshRotatesWithinTheSameFamily() {
+        TokenPair login = service.issue(details("ana@gotree.com"));
+
+        TokenPair first = service.refresh(login.refreshToken());
+        TokenPair second = service.refresh(first.refreshToken());
+
+        assertThat(List.of(login.refreshToken(), first.refreshToken(), second.refreshToken())).doesNotHaveDuplicates();
+        assertThat(table).extracting(RefreshToken::getFamilyId).containsOnly(table.get(0).getFamilyId());
+        assertThat(table.get(0).getUsedAt()).isNotNull();
+        assertThat(table.get(1).getUsedAt()).isNotNull();
+        assertThat(table.get(2).getUsedAt()).isNull();
+        // O valor entregue ao cliente nunca fica no banco
+        assertThat(table).extracting(RefreshToken::getTokenHash).doesNotContain(login.refreshToken());
+        verify(revocationList, never()).revoke(anyString(), any());
+    }
+
+    @Test
+    void reusingARotatedTokenRevokesTheWholeFamily() {
+        TokenPair login = service.issue(details("ana@gotree.com"));
+        TokenPair rotated = service.refresh(login.refreshToken());
+        TokenPair otherSession = service.issue(details("ana@gotree.com"));
+
+        assertThatThrownBy(() -> service.refresh(login.refreshToken()))
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage("Refresh token já utilizado. Faça login novamente.");
+
+        // O token legítimo mais recente também deixa de valer, e os acessos emitidos pela família são revogados
+        assertThatThrownBy(() -> service.refresh(rotated.refreshToken())).isInstanceOf(BadCredentialsException.class);
+        verify(revocationList).revoke(eq("jti-1"), any());
+        verify(revocationList).revoke(eq("jti-2"), any());
+        verify(revocationList, never()).revoke(eq("jti-3"), any());
+        // Outra sessão do mesmo usuário continua
+        assertThat(service.refresh(otherSession.refreshToken()).accessToken()).isNotBlank();
+    }
+
+    @Test
+    void expiredTokenIsRejectedWithoutBeingUsed() {
+        TokenPair login = service.issue(details("ana@gotree.com"));
+        table.get(0).setExpiresAt(LocalDateTime.now().minusSeconds(1));
+
+        assertThatThrownBy(() -> service.refresh(login.refreshToken()))
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage("Refresh token expirado ou revogado.");
+        verify(repository, never()).markUsed(anyLong(), any());
+    }
+
+    @Test
+    void unknownTokenIsRejected() {
+        assertThatThrownBy(() -> service.refresh("inexistente"))
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage("Refresh token inválido.");
+    }
+
+    @Test
+    void changedCredentialsRevokeTheFamily() {
+        TokenPair login = service.issue(details("ana@gotree.com"));
+        users.get("ana@gotree.com").setTokenVersion(1);
+
+        assertThatThrownBy(() -> service.refresh(login.refreshToken()))
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage("Credenciais alteradas. Faça login novamente.");
+        assertThat(table.get(0).getRevokedAt()).isNotNull();
+    }
+
+    @Test
+    void logoutRevokesTheCallersAccessTokenAndFamily() {
+        TokenPair login = service.issue(details("ana@gotree.com"));
+        Date expiresAt = new Date(System.currentTimeMillis() + 60_000);
+
+        service.logout("ana@gotree.com", "jti-1", expiresAt, login.refreshToken());
+
+        verify(revocationList, atLeastOnce()).revoke(eq("jti-1"), any());
+        assertThat(table.get(0).getRevokedAt()).isNotNull();
+        assertThatThrownBy(() -> service.refresh(login.refreshToken())).isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void logoutIgnoresARefreshTokenOfAnotherUser() {
+        TokenPair victim = service.issue(details("ana@gotree.com"));
+        service.issue(details("bia@gotree.com"));
+        Date expiresAt = new Date(System.currentTimeMillis() + 60_000);
+
+        service.logout("bia@gotree.com", "jti-2", expiresAt, victim.refreshToken());
+
+        // A sessão de quem chamou é encerrada (pelo jti do acesso); a da outra pessoa, não
+        assertThat(table.get(1).getRevokedAt()).isNotNull();
+        assertThat(table.get(0).getRevokedAt()).isNull();
+        verify(revocationList, never()).revoke(eq("jti-1"), any());
+        assertThat(service.refresh(victim.refreshToken()).accessToken()).isNotBlank();
+    }
+
+    private CustomUserDetails details(String email) {
+        return new CustomUserDetails(users.get(email));
+    }
+
+    private static User user(Long id, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setTokenVersion(0);
+        return user;
+    }
+}
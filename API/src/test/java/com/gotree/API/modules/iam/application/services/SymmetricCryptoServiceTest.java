@@ -0,0 +1,83 @@
+package com.gotree.API.modules.iam.application.services;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SymmetricCryptoServiceTest {
+
+    private static final String ACTIVE_KEY = "chave-nova-12345";
+    private static final String OLD_KEY = "chave-antiga-123";
+
+    @Test
+    void decryptsCurrentFormatWithPreviousKey() {
+        String encrypted = new SymmetricCryptoService(OLD_KEY, "", "").encrypt("senha-do-pfx");
+
+        SymmetricCryptoService rotated = new SymmetricCryptoService(ACTIVE_KEY, OLD_KEY, "");
+
+        assertThat(rotated.decrypt(encrypted)).isEqualTo("senha-do-pfx");
+        assertThat(rotated.needsReencryption(encrypted)).isTrue();
+        assertThat(rotated.isLegacyFormat(encrypted)).isFalse();
+    }
+
+    @Test
+    void legacyValueUsesOnlyTheConfiguredLegacyKey() throws Exception {
+        String legacy = legacyEncrypt(OLD_KEY, "senha-do-pfx");
+
+        assertThat(new SymmetricCryptoService(ACTIVE_KEY, OLD_KEY, OLD_KEY).decrypt(legacy)).isEqualTo("senha-do-pfx");
+        // Com a chave antiga configurada errada, nenhuma outra chave é tentada
+        assertThatThrownBy(() -> new SymmetricCryptoService(OLD_KEY, "", ACTIVE_KEY).decrypt(legacy))
+                .isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    void wrongKeyWithValidPaddingDoesNotReturnGarbage() throws Exception {
+        // Procura um valor antigo que a chave ativa (errada) "decifra" com padding válido, mas gerando lixo
+        String legacy = null;
+        for (int i = 0; legacy == null; i++) {
+            String candidate = legacyEncrypt(OLD_KEY, "senha-" + i);
+            byte[] garbage = tryLegacyDecrypt(ACTIVE_KEY, candidate);
+            if (garbage != null && !isUtf8(garbage)) {
+                legacy = candidate;
+            }
+        }
+
+        SymmetricCryptoService service = new SymmetricCryptoService(ACTIVE_KEY, OLD_KEY, "");
+
+        assertThat(service.decrypt(legacy)).startsWith("senha-");
+        assertThat(service.isLegacyFormat(legacy)).isTrue();
+    }
+
+    private static String legacyEncrypt(String key, String plain) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "AES"));
+        return Base64.getEncoder().encodeToString(cipher.doFinal(plain.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static byte[] tryLegacyDecrypt(String key, String encrypted) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "AES"));
+        try {
+            return cipher.doFinal(Base64.getDecoder().decode(encrypted));
+        } catch (javax.crypto.BadPaddingException e) {
+            return null;
+        }
+    }
+
+    private static boolean isUtf8(byte[] bytes) {
+        try {
+            StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes));
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.gotree.API.modules.iam.application.services;
+
+import com.gotree.API.modules.customer.infrastructure.repositories.ClientRepository;
+import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.iam.infrastructure.repositories.AccessProfileRepository;
+import com.gotree.API.modules.iam.infrastructure.repositories.UserRepository;
+import com.gotree.API.modules.iam.infrastructure.security.AuthenticatedPrincipalCache;
+import com.gotree.API.modules.iam.presentation.mappers.UserMapper;
+import com.gotree.API.modules.operations.infrastructure.repositories.AepReportRepository;
+import com.gotree.API.modules.operations.infrastructure.repositories.OccupationalRiskReportRepository;
+import com.gotree.API.modules.operations.infrastructure.repositories.TechnicalVisitRepository;
+import com.gotree.API.modules.shared.application.services.SigningMaterialCache;
+import com.gotree.API.modules.shared.infrastructure.providers.EmailService;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceTest {
+
+    private final User user = new User();
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private AuthenticatedPrincipalCache principalCache;
+    private UserService service;
+
+    @BeforeEach
+    void setUp() {
+        user.setId(1L);
+        user.setEmail("ana@gotree.com");
+        user.setPassword("hash-antigo");
+        user.setTokenVersion(0);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findByEmail("ana@gotree.com")).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> "hash-" + invocation.getArgument(0));
+        when(passwordEncoder.matches("atual", "hash-antigo")).thenReturn(true);
+
+        principalCache = new AuthenticatedPrincipalCache(userRepository, new SimpleMeterRegistry(), 100, 60);
+        service = new UserService(userRepository, passwordEncoder, mock(UserMapper.class),
+                mock(AepReportRepository.class), mock(OccupationalRiskReportRepository.class),
+                mock(TechnicalVisitRepository.class), mock(ClientRepository.class),
+                mock(SymmetricCryptoService.class), mock(AccessProfileRepository.class),
+                mock(CpfValidatorService.class), mock(EmailService.class), mock(StorageService.class),
+                mock(SigningMaterialCache.class), principalCache);
+    }
+
+    @Test
+    void resetPasswordRevokesTokensAlreadyInTheCache() {
+        assertThat(principalCache.resolve("ana@gotree.com", 0)).isPresent();
+
+        service.resetPassword(1L);
+
+        assertThat(user.getTokenVersion()).isEqualTo(1);
+        assertThat(principalCache.resolve("ana@gotree.com", 0)).isEmpty();
+        assertThat(principalCache.resolve("ana@gotree.com", 1)).get()
+                .extracting(details -> details.user().getPasswordResetRequired()).isEqualTo(true);
+    }
+
+    @Test
+    void changePasswordRevokesTokensAlreadyInTheCache() {
+        assertThat(principalCache.resolve("ana@gotree.com", 0)).isPresent();
+
+        service.changePassword("ana@gotree.com", "nova", "atual");
+
+        assertThat(principalCache.resolve("ana@gotree.com", 0)).isEmpty();
+        assertThat(principalCache.resolve("ana@gotree.com", 1)).get()
+                .extracting(details -> details.user().getPassword()).isEqualTo("hash-nova");
+    }
+
+    @Test
+    void loginRehashesOnlyHashesWithALowerCost() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(10);
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(encoder);
+        provider.setUserDetailsService(service);
+        provider.setUserDetailsPasswordService(service);
+        when(userRepository.upgradePassword(eq(1L), anyString(), anyString())).thenReturn(1);
+
+        // Hash antigo (custo 4): regravado com o custo atual
+        String weak = new BCryptPasswordEncoder(4).encode("senha");
+        user.setPassword(weak);
+        provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("ana@gotree.com", "senha"));
+
+        ArgumentCaptor<String> upgraded = ArgumentCaptor.forClass(String.class);
+        verify(userRepository).upgradePassword(eq(1L), eq(weak), upgraded.capture());
+        assertThat(upgraded.getValue()).startsWith("$2a$10$");
+        assertThat(encoder.matches("senha", upgraded.getValue())).isTrue();
+        assertThat(user.getPassword()).isEqualTo(upgraded.getValue());
+
+        // Hash já com o custo atual: nada é regravado
+        clearInvocations(userRepository);
+        provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("ana@gotree.com", "senha"));
+        verify(userRepository, never()).upgradePassword(any(), any(), any());
+    }
+}
@@ -0,0 +1,185 @@
+package com.gotree.API.modules.iam.infrastructure.security;
+
+import com.gotree.API.modules.iam.domain.entities.AccessProfile;
+import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.iam.domain.enums.SystemPermission;
+import com.gotree.API.modules.iam.infrastructure.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthenticatedPrincipalCacheTest {
+
+    private final Map<String, User> database = new HashMap<>();
+    private UserRepository userRepository;
+    private AuthenticatedPrincipalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(database.get(invocation.<String>getArgument(0))));
+        cache = new AuthenticatedPrincipalCache(userRepository, new SimpleMeterRegistry(), 10000, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void servesRepeatedLookupsFromMemory() {
+        save(user(1L, "ana@gotree.com", 0, null));
+
+        assertThat(cache.resolve("ana@gotree.com", 0)).isPresent();
+        assertThat(cache.resolve("ana@gotree.com", 0)).isPresent();
+
+        verify(userRepository, times(1)).findByEmail("ana@gotree.com");
+    }
+
+    @Test
+    void tokenVersionBumpRejectsOldTokensAndReloadsNewOnes() {
+        save(user(1L, "ana@gotree.com", 0, null));
+        assertThat(cache.resolve("ana@gotree.com", 0)).isPresent();
+
+        // Senha trocada: versão 1 no banco, como o UserService.revokeIssuedTokens faz
+        save(user(1L, "ana@gotree.com", 1, null));
+        cache.invalidateUser(1L);
+
+        assertThat(cache.resolve("ana@gotree.com", 0)).isEmpty();
+        assertThat(cache.resolve("ana@gotree.com", 1)).get()
+                .extracting(details -> details.user().getTokenVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void tokenOfAnOlderVersionIsRejectedEvenBeforeInvalidation() {
+        save(user(1L, "ana@gotree.com", 2, null));
+
+        assertThat(cache.resolve("ana@gotree.com", 1)).isEmpty();
+        assertThat(cache.resolve("ana@gotree.com", 2)).isPresent();
+    }
+
+    @Test
+    void invalidateUserDropsOnlyThatUser() {
+        save(user(1L, "ana@gotree.com", 0, null));
+        save(user(2L, "bia@gotree.com", 0, null));
+        cache.resolve("ana@gotree.com", 0);
+        cache.resolve("bia@gotree.com", 0);
+
+        cache.invalidateUser(1L);
+        cache.resolve("ana@gotree.com", 0);
+        cache.resolve("bia@gotree.com", 0);
+
+        verify(userRepository, times(2)).findByEmail("ana@gotree.com");
+        verify(userRepository, times(1)).findByEmail("bia@gotree.com");
+    }
+
+    @Test
+    void invalidateProfileDropsItsUsers() {
+        AccessProfile profile = profile(10L, SystemPermission.VIEW_REPORTS);
+        save(user(1L, "ana@gotree.com", 0, profile));
+        cache.resolve("ana@gotree.com", 0);
+
+        save(user(1L, "ana@gotree.com", 0, profile(10L, SystemPermission.CREATE_REPORTS)));
+        cache.invalidateProfile(10L);
+
+        assertThat(cache.resolve("ana@gotree.com", 0)).get()
+                .extracting(details -> details.getAuthorities().stream().map(Object::toString).toList())
+                .asInstanceOf(InstanceOfAssertFactories.LIST)
+                .contains("CREATE_REPORTS")
+                .doesNotContain("VIEW_REPORTS");
+    }
+
+    @Test
+    void evictsAgainAfterCommitWhatWasCachedDuringTheTransaction() {
+        save(user(1L, "ana@gotree.com", 0, null));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Alteração dentro da transação; antes do commit, outra requisição ainda lê (e guarda) o estado antigo
+        cache.invalidateUser(1L);
+        cache.resolve("ana@gotree.com", 0);
+        cache.resolve("ana@gotree.com", 0);
+        verify(userRepository, times(1)).findByEmail("ana@gotree.com");
+
+        save(user(1L, "ana@gotree.com", 0, profile(10L, SystemPermission.CREATE_REPORTS)));
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+
+        assertThat(cache.resolve("ana@gotree.com", 0)).get()
+                .extracting(details -> details.user().getProfile()).isNotNull();
+        verify(userRepository, times(2)).findByEmail("ana@gotree.com");
+    }
+
+    @Test
+    void returnsIndependentCopies() {
+        save(user(1L, "ana@gotree.com", 0, profile(10L, SystemPermission.VIEW_REPORTS)));
+
+        CustomUserDetails first = cache.resolve("ana@gotree.com", 0).orElseThrow();
+        first.user().setName("Alterado");
+        first.user().getProfile().getPermissions().clear();
+
+        CustomUserDetails second = cache.resolve("ana@gotree.com", 0).orElseThrow();
+        assertThat(second.user().getName()).isEqualTo("ana@gotree.com");
+        assertThat(second.user().getProfile().getPermissions()).containsExactly(SystemPermission.VIEW_REPORTS);
+    }
+
+    @Test
+    void staysWithinTheEntryLimitDroppingTheLeastRecentlyUsed() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        cache = new AuthenticatedPrincipalCache(userRepository, meterRegistry, 160, 60);
+        save(user(1L, "u1@gotree.com", 0, null));
+        for (long id = 2; id <= 2000; id++) {
+            save(user(id, "u" + id + "@gotree.com", 0, null));
+            cache.resolve("u" + id + "@gotree.com", 0);
+            // u1 continua sendo usado: nunca é o menos usado da sua faixa
+            cache.resolve("u1@gotree.com", 0);
+        }
+
+        assertThat(meterRegistry.get("security.principal.cache.size").gauge().value()).isLessThanOrEqualTo(160);
+        verify(userRepository, times(1)).findByEmail("u1@gotree.com");
+        cache.resolve("u2@gotree.com", 0);
+        verify(userRepository, times(2)).findByEmail("u2@gotree.com");
+    }
+
+    private void save(User user) {
+        database.put(user.getEmail(), user);
+    }
+
+    private static User user(Long id, String email, int tokenVersion, AccessProfile profile) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setName(email);
+        user.setTokenVersion(tokenVersion);
+        user.setProfile(profile);
+        return user;
+    }
+
+    private static AccessProfile profile(Long id, SystemPermission... permissions) {
+        AccessProfile profile = new AccessProfile();
+        profile.setId(id);
+        profile.setName("Perfil " + id);
+        profile.setPermissions(new HashSet<>(Set.of(permissions)));
+        return profile;
+    }
+}
@@ -0,0 +1,117 @@
+package com.gotree.API.modules.iam.infrastructure.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoginThrottleTest {
+
+    private static final long START = 1_000_000_000L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void emailBucketEmptiesAndRefillsOverTime() {
+        // 3 tentativas, recompõe 6 por minuto (uma a cada 10 s)
+        LoginThrottle throttle = new LoginThrottle(meterRegistry, 3, 6, 100, 100, 4, 1000);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(throttle.tryAcquire("ana@gotree.com", "10.0.0.1", START)).isZero();
+        }
+        assertThat(throttle.tryAcquire("ana@gotree.com", "10.0.0.1", START)).isEqualTo(10);
+        assertThat(throttle.tryAcquire("ana@gotree.com", "10.0.0.1", START + seconds(4))).isEqualTo(6);
+
+        assertThat(throttle.tryAcquire("ana@gotree.com", "10.0.0.1", START + seconds(10))).isZero();
+        assertThat(throttle.tryAcquire("ana@gotree.com", "10.0.0.1", START + seconds(10))).isPositive();
+        assertThat(meterRegistry.get("security.login.throttled").tag("key", "email").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void refillNeverGoesAboveCapacity() {
+        LoginThrottle throttle = new LoginThrottle(meterRegistry, 2, 60, 100, 100, 4, 1000);
+        throttle.tryAcquire("ana@gotree.com", "10.0.0.1", START);
+
+        long later = START + TimeUnit.HOURS.toNanos(1);
+        assertThat(throttle.tryAcquire("ana@gotree.com", "10.0.0.1", later)).isZero();
+        assertThat(throttle.tryAcquire("ana@gotree.com", "10.0.0.1", later)).isZero();
+        assertThat(throttle.tryAcquire("ana@gotree.com", "10.0.0.1", later)).isPositive();
+    }
+
+    @Test
+    void emailBucketIsSharedAcrossAddressesAndIgnoresCase() {
+        LoginThrottle throttle = new LoginThrottle(meterRegistry, 2, 1, 100, 100, 4, 1000);
+
+        assertThat(throttle.tryAcquire("ana@gotree.com", "10.0.0.1", START)).isZero();
+        assertThat(throttle.tryAcquire(" ANA@gotree.com ", "10.0.0.2", START)).isZero();
+        assertThat(throttle.tryAcquire("Ana@GoTree.com", "10.0.0.3", START)).isPositive();
+        // Outra conta segue liberada
+        assertThat(throttle.tryAcquire("bia@gotree.com", "10.0.0.3", START)).isZero();
+    }
+
+    @Test
+    void addressBucketLimitsOneOriginAcrossManyEmails() {
+        LoginThrottle throttle = new LoginThrottle(meterRegistry, 100, 100, 3, 1, 4, 1000);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(throttle.tryAcquire("u" + i + "@gotree.com", "10.0.0.1", START)).isZero();
+        }
+        assertThat(throttle.tryAcquire("u9@gotree.com", "10.0.0.1", START)).isPositive();
+        assertThat(throttle.tryAcquire("u9@gotree.com", "10.0.0.2", START)).isZero();
+        assertThat(meterRegistry.get("security.login.throttled").tag("key", "ip").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void refusedAddressDoesNotSpendTheEmailBucket() {
+        LoginThrottle throttle = new LoginThrottle(meterRegistry, 1, 1, 1, 1, 4, 1000);
+
+        assertThat(throttle.tryAcquire("outro@gotree.com", "10.0.0.1", START)).isZero();
+        assertThat(throttle.tryAcquire("ana@gotree.com", "10.0.0.1", START)).isPositive();
+        assertThat(throttle.tryAcquire("ana@gotree.com", "10.0.0.2", START)).isZero();
+    }
+
+    @Test
+    void successfulLoginRefillsTheEmailBucket() {
+        LoginThrottle throttle = new LoginThrottle(meterRegistry, 2, 1, 100, 100, 4, 1000);
+        throttle.tryAcquire("ana@gotree.com", "10.0.0.1", START);
+        throttle.tryAcquire("ana@gotree.com", "10.0.0.1", START);
+        assertThat(throttle.tryAcquire("ana@gotree.com", "10.0.0.1", START)).isPositive();
+
+        throttle.reset("ANA@gotree.com");
+
+        assertThat(throttle.tryAcquire("ana@gotree.com", "10.0.0.1", START)).isZero();
+    }
+
+    @Test
+    void leastRecentlyUsedKeysAreEvictedWhenTheTableIsFull() {
+        // Uma faixa com 4 entradas por tabela
+        LoginThrottle throttle = new LoginThrottle(meterRegistry, 1, 1, 1000, 1, 1, 4);
+        assertThat(throttle.tryAcquire("ana@gotree.com", "10.0.0.1", START)).isZero();
+        assertThat(throttle.tryAcquire("ana@gotree.com", "10.0.0.1", START)).isPositive();
+
+        for (int i = 0; i < 4; i++) {
+            throttle.tryAcquire("u" + i + "@gotree.com", "10.0.0.1", START);
+        }
+
+        // O balde esgotado saiu da tabela: a conta volta com o balde cheio
+        assertThat(throttle.tryAcquire("ana@gotree.com", "10.0.0.1", START)).isZero();
+    }
+
+    @Test
+    void recentlyUsedKeyStaysWhileOthersAreEvicted() {
+        LoginThrottle throttle = new LoginThrottle(meterRegistry, 1, 1, 1000, 1, 1, 4);
+        throttle.tryAcquire("ana@gotree.com", "10.0.0.1", START);
+
+        for (int i = 0; i < 20; i++) {
+            throttle.tryAcquire("u" + i + "@gotree.com", "10.0.0.1", START);
+            // Continua tentando: permanece entre as mais usadas e segue bloqueada
+            assertThat(throttle.tryAcquire("ana@gotree.com", "10.0.0.1", START)).isPositive();
+        }
+    }
+
+    private static long seconds(long value) {
+        return TimeUnit.SECONDS.toNanos(value);
+    }
+}
@@ -0,0 +1,172 @@
+package com.gotree.API.modules.iam.infrastructure.security;
+
+import com.gotree.API.modules.iam.domain.entities.AccessProfile;
+import com.gotree.API.modules.iam.domain.entities.User;
+import com.gotree.API.modules.iam.domain.enums.SystemPermission;
+import com.gotree.API.modules.iam.domain.enums.UserRole;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PermissionAuthorizationManagerTest {
+
+    private final StaticApplicationContext context = new StaticApplicationContext();
+    private final PermissionAuthorizationManager manager;
+    private final PreAuthorizeAuthorizationManager spel = new PreAuthorizeAuthorizationManager();
+    private final Controller controller = new Controller();
+
+    PermissionAuthorizationManagerTest() {
+        context.refresh();
+        manager = new PermissionAuthorizationManager(context);
+        spel.setApplicationContext(context);
+    }
+
+    @Test
+    void fastPathDecidesLikeSpelForEveryExpressionShapeUsedByTheControllers() {
+        Map<String, User> users = new LinkedHashMap<>();
+        users.put("admin", user(UserRole.ADMIN));
+        users.put("admin com perfil", user(UserRole.ADMIN, SystemPermission.VIEW_AGENDA));
+        users.put("sem role", user(null, SystemPermission.VIEW_REPORTS));
+        users.put("só VIEW_REPORTS", user(UserRole.USER, SystemPermission.VIEW_REPORTS));
+        users.put("só CREATE_REPORTS", user(UserRole.USER, SystemPermission.CREATE_REPORTS));
+        users.put("sem permissões", user(UserRole.USER));
+
+        List<String> checked = new ArrayList<>();
+        for (Method method : Controller.class.getDeclaredMethods()) {
+            for (Map.Entry<String, User> entry : users.entrySet()) {
+                User user = entry.getValue();
+                CustomUserDetails details = new CustomUserDetails(user);
+                Authentication withMask = new PermissionAuthenticationToken(details, details.getAuthorities(),
+                        PermissionMask.of(user));
+                Authentication withoutMask = UsernamePasswordAuthenticationToken.authenticated(details, null,
+                        details.getAuthorities());
+
+                boolean expected = decide(spel.check(() -> withoutMask, invocation(method)));
+                assertThat(decide(manager.check(() -> withMask, invocation(method))))
+                        .as("%s / %s", method.getName(), entry.getKey())
+                        .isEqualTo(expected);
+                // Sem máscara (ex: sessão de outra origem), também igual ao SpEL
+                assertThat(decide(manager.check(() -> withoutMask, invocation(method))))
+                        .as("%s / %s sem máscara", method.getName(), entry.getKey())
+                        .isEqualTo(expected);
+                checked.add(method.getName());
+            }
+        }
+        assertThat(checked).hasSize(Controller.class.getDeclaredMethods().length * users.size());
+    }
+
+    @Test
+    void anonymousDecidesLikeSpel() {
+        Authentication anonymous = new AnonymousAuthenticationToken("chave", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+        for (Method method : Controller.class.getDeclaredMethods()) {
+            assertThat(decide(manager.check(() -> anonymous, invocation(method))))
+                    .as(method.getName())
+                    .isEqualTo(decide(spel.check(() -> anonymous, invocation(method))));
+        }
+    }
+
+    @Test
+    void permissionOutsideTheEnumOnlyLetsAdminThrough() throws Exception {
+        Method method = Controller.class.getDeclaredMethod("unknownPermission");
+        User viewer = user(UserRole.USER, SystemPermission.values());
+        User admin = user(UserRole.ADMIN);
+
+        assertThat(decide(manager.check(() -> token(viewer), invocation(method)))).isFalse();
+        assertThat(decide(manager.check(() -> token(admin), invocation(method)))).isTrue();
+    }
+
+    private MethodInvocation invocation(Method method) {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getMethod()).thenReturn(method);
+        when(invocation.getThis()).thenReturn(controller);
+        when(invocation.getArguments()).thenReturn(new Object[0]);
+        return invocation;
+    }
+
+    private static Authentication token(User user) {
+        CustomUserDetails details = new CustomUserDetails(user);
+        return new PermissionAuthenticationToken(details, details.getAuthorities(), PermissionMask.of(user));
+    }
+
+    private static boolean decide(AuthorizationDecision decision) {
+        return decision != null && decision.isGranted();
+    }
+
+    private static User user(UserRole role, SystemPermission... permissions) {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("ana@gotree.com");
+        user.setRole(role);
+        if (permissions.length > 0) {
+            AccessProfile profile = new AccessProfile();
+            profile.setId(10L);
+            profile.setPermissions(new HashSet<>(Set.of(permissions)));
+            user.setProfile(profile);
+        }
+        return user;
+    }
+
+    /**
+     * Uma anotação de cada formato usado nos controllers.
+     */
+    static class Controller {
+
+        @PreAuthorize("permitAll()")
+        public void open() {
+        }
+
+        @PreAuthorize("isAuthenticated()")
+        public void authenticated() {
+        }
+
+        @PreAuthorize("hasRole('ADMIN')")
+        public void adminOnly() {
+        }
+
+        @PreAuthorize("hasAuthority('VIEW_REPORTS') or hasRole('ADMIN')")
+        public void viewReports() {
+        }
+
+        @PreAuthorize("hasAuthority('CREATE_REPORTS') or hasRole('ADMIN')")
+        public void createReports() {
+        }
+
+        // Permissões citadas nos controllers que não existem no SystemPermission
+        @PreAuthorize("hasAuthority('EMIT_REPORTS') or hasRole('ADMIN')")
+        public void unknownPermission() {
+        }
+
+        @PreAuthorize("hasAuthority('CREATE_CLIENT') or hasRole('ADMIN')")
+        public void createClient() {
+        }
+
+        // Formato sem regra rápida: sempre pelo SpEL
+        @PreAuthorize("hasAnyAuthority('VIEW_REPORTS', 'CREATE_REPORTS')")
+        public void otherExpression() {
+        }
+
+        public void withoutAnnotation() {
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.gotree.API.modules.iam.infrastructure.security.jwt;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtKeyRingTest {
+
+    private static final byte[] KEY_A = bytes(64, 1);
+    private static final byte[] KEY_B = bytes(48, 2);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void singleSecretInlineProperty() {
+        JwtKeyRing ring = new JwtKeyRing(base64(KEY_A));
+
+        assertThat(ring.signingKey().key().getEncoded()).isEqualTo(KEY_A);
+        assertThat(ring.verificationKey(null).getEncoded()).isEqualTo(KEY_A);
+    }
+
+    @Test
+    void singleSecretWrappedOverSeveralLinesIsOneKey() throws Exception {
+        // Como o openssl rand -base64 64: quebra a cada 64 caracteres e termina com nova linha
+        String wrapped = base64(KEY_A).replaceAll("(.{64})", "$1\n") + "\n";
+        assertThat(wrapped.lines().count()).isGreaterThan(1);
+
+        JwtKeyRing ring = new JwtKeyRing(write("jwt.key", wrapped));
+
+        assertThat(ring.signingKey().key().getEncoded()).isEqualTo(KEY_A);
+        assertThat(ring.signingKey().kid()).isEqualTo(new JwtKeyRing(base64(KEY_A)).signingKey().kid());
+    }
+
+    @Test
+    void keyRingFormatSignsWithTheFirstKeyAndVerifiesWithAll() throws Exception {
+        String content = "# chave nova no topo\n"
+                + "2025-06: " + base64(KEY_B) + "\n"
+                + "\n"
+                + "2025-01:" + base64(KEY_A) + "\n";
+
+        JwtKeyRing ring = new JwtKeyRing(write("jwt.keys", content));
+
+        assertThat(ring.signingKey().kid()).isEqualTo("2025-06");
+        assertThat(ring.signingKey().key().getEncoded()).isEqualTo(KEY_B);
+        assertThat(ring.verificationKey("2025-01").getEncoded()).isEqualTo(KEY_A);
+        assertThat(ring.verificationKey(null).getEncoded()).isEqualTo(KEY_B);
+        assertThat(ring.verificationKey("desconhecido")).isNull();
+    }
+
+    @Test
+    void keyRingRejectsLinesWithoutKid() throws Exception {
+        String content = "2025-06:" + base64(KEY_B) + "\n" + base64(KEY_A) + "\n";
+        String path = write("jwt.keys", content);
+
+        assertThatThrownBy(() -> new JwtKeyRing(path)).hasMessageContaining("kid:");
+    }
+
+    @Test
+    void keyRingRejectsRepeatedKid() throws Exception {
+        String content = "k1:" + base64(KEY_B) + "\nk1:" + base64(KEY_A) + "\n";
+        String path = write("jwt.keys", content);
+
+        assertThatThrownBy(() -> new JwtKeyRing(path)).hasMessageContaining("repetido");
+    }
+
+    @Test
+    void rejectsShortSecret() {
+        assertThatThrownBy(() -> new JwtKeyRing(base64(bytes(16, 3)))).hasMessageContaining("256 bits");
+    }
+
+    @Test
+    void reloadPicksUpRotatedFileAndKeepsKeysOnInvalidContent() throws Exception {
+        String path = write("jwt.keys", "k1:" + base64(KEY_A) + "\n");
+        JwtKeyRing ring = new JwtKeyRing(path);
+
+        Files.writeString(Path.of(path), "k2:" + base64(KEY_B) + "\nk1:" + base64(KEY_A) + "\n");
+        Files.setLastModifiedTime(Path.of(path), FileTime.from(Instant.now().plusSeconds(10)));
+        ring.reloadIfChanged();
+        assertThat(ring.signingKey().kid()).isEqualTo("k2");
+
+        Files.writeString(Path.of(path), "k3:curta\n");
+        Files.setLastModifiedTime(Path.of(path), FileTime.from(Instant.now().plusSeconds(20)));
+        ring.reloadIfChanged();
+        assertThat(ring.signingKey().kid()).isEqualTo("k2");
+        assertThat(ring.verificationKey("k1").getEncoded()).isEqualTo(KEY_A);
+    }
+
+    private String write(String name, String content) throws Exception {
+        Path file = dir.resolve(name);
+        Files.writeString(file, content);
+        return file.toAbsolutePath().toString();
+    }
+
+    private static String base64(byte[] bytes) {
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 7 + seed);
+        }
+        return bytes;
+    }
+}
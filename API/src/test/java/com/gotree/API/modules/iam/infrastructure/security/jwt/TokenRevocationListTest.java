@@ -0,0 +1,112 @@
+package com.gotree.API.modules.iam.infrastructure.security.jwt;
+
+import com.gotree.API.modules.iam.domain.entities.RevokedToken;
+import com.gotree.API.modules.iam.infrastructure.repositories.RevokedTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationListTest {
+
+    private final RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void loadsActiveRevocationsOnStartup() {
+        when(repository.findActive(any())).thenReturn(List.of(revoked("a"), revoked("b")));
+
+        TokenRevocationList list = newList(100);
+
+        assertThat(list.isRevoked("a")).isTrue();
+        assertThat(list.isRevoked("b")).isTrue();
+        assertThat(list.isRevoked("c")).isFalse();
+        assertThat(list.isRevoked(null)).isFalse();
+        assertThat(meterRegistry.get("security.token.revoked.size").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void bloomFalsePositivesAreSettledByTheExactSet() {
+        when(repository.findActive(any())).thenReturn(List.of());
+        // Filtro mínimo (64 bits) com 500 entradas: praticamente todo jti passa pelo filtro
+        TokenRevocationList list = newList(1);
+        for (int i = 0; i < 500; i++) {
+            list.revoke("revogado-" + i, LocalDateTime.now().plusMinutes(15));
+        }
+
+        for (int i = 0; i < 500; i++) {
+            assertThat(list.isRevoked("revogado-" + i)).isTrue();
+        }
+        for (int i = 0; i < 5000; i++) {
+            assertThat(list.isRevoked("valido-" + i)).isFalse();
+        }
+    }
+
+    @Test
+    void revokeWritesThroughAndIgnoresExpiredTokens() {
+        when(repository.findActive(any())).thenReturn(List.of());
+        TokenRevocationList list = newList(100);
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(15);
+
+        list.revoke("a", expiresAt);
+        list.revoke("expirado", LocalDateTime.now().minusSeconds(1));
+
+        verify(repository).insertIfAbsent("a", expiresAt);
+        verify(repository, never()).insertIfAbsent(eq("expirado"), any());
+        assertThat(list.isRevoked("a")).isTrue();
+        assertThat(list.isRevoked("expirado")).isFalse();
+    }
+
+    @Test
+    void reloadBringsOtherInstancesRevocationsAndKeepsLocalOnes() throws InterruptedException {
+        when(repository.findActive(any())).thenReturn(List.of(revoked("expirando", LocalDateTime.now().plusNanos(200_000_000))));
+        TokenRevocationList list = newList(100);
+        list.revoke("local", LocalDateTime.now().plusMinutes(15));
+        assertThat(list.isRevoked("expirando")).isTrue();
+
+        // Outra instância revogou "remoto"; "expirando" venceu; "local" ainda não foi lido do banco
+        Thread.sleep(300);
+        when(repository.findActive(any())).thenReturn(List.of(revoked("remoto")));
+        list.reload();
+
+        assertThat(list.isRevoked("remoto")).isTrue();
+        assertThat(list.isRevoked("local")).isTrue();
+        assertThat(list.isRevoked("expirando")).isFalse();
+    }
+
+    @Test
+    void failedReloadKeepsTheCurrentList() {
+        when(repository.findActive(any())).thenReturn(List.of(revoked("a")));
+        TokenRevocationList list = newList(100);
+
+        when(repository.findActive(any())).thenThrow(new IllegalStateException("banco indisponível"));
+        list.reload();
+
+        assertThat(list.isRevoked("a")).isTrue();
+    }
+
+    private TokenRevocationList newList(int expectedEntries) {
+        return new TokenRevocationList(repository, mock(TransactionTemplate.class), meterRegistry, expectedEntries);
+    }
+
+    private static RevokedToken revoked(String jti) {
+        return revoked(jti, LocalDateTime.now().plusMinutes(15));
+    }
+
+    private static RevokedToken revoked(String jti, LocalDateTime expiresAt) {
+        RevokedToken token = new RevokedToken();
+        token.setJti(jti);
+        token.setExpiresAt(expiresAt);
+        return token;
+    }
+}
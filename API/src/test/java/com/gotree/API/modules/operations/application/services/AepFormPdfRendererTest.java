@@ -0,0 +1,47 @@
+package com.gotree.API.modules.operations.application.services;
+
+import com.gotree.API.modules.operations.domain.entities.AepReport;
+import com.gotree.API.modules.shared.application.services.FormPdfRenderer.LayoutOverflowException;
+import com.gotree.API.modules.shared.application.services.ReportRenderResources;
+import com.gotree.API.modules.administration.infrastructure.repositories.SystemInfoRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class AepFormPdfRendererTest {
+
+    private final AepFormPdfRenderer renderer =
+            new AepFormPdfRenderer(new ReportRenderResources(mock(SystemInfoRepository.class), null, 10));
+
+    @Test
+    void rendersSampleDocument() {
+        byte[] pdf = renderer.render(renderer.prepare(renderer.sampleData()));
+
+        assertThat(new String(pdf, 0, 5)).isEqualTo("%PDF-");
+    }
+
+    @Test
+    void textLongerThanTheFieldIsNotTruncated() {
+        Map<String, Object> data = renderer.sampleData();
+        ((AepReport) data.get("aep")).setEvaluatedFunction(
+                "Operador de máquinas e equipamentos de produção ".repeat(4).trim());
+
+        // Sem reticências: o documento precisa seguir pelo HTML
+        assertThatThrownBy(() -> renderer.render(renderer.prepare(data)))
+                .isInstanceOf(LayoutOverflowException.class)
+                .hasMessageContaining("evaluation.function");
+    }
+
+    @Test
+    void singleWordWiderThanTheFieldOverflows() {
+        Map<String, Object> data = renderer.sampleData();
+        ((AepReport) data.get("aep")).setEvaluatedFunction("Operador" + "x".repeat(60));
+
+        assertThatThrownBy(() -> renderer.render(renderer.prepare(data)))
+                .isInstanceOf(LayoutOverflowException.class);
+    }
+}
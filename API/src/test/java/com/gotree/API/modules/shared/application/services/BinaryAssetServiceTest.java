@@ -0,0 +1,58 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.shared.domain.entities.BinaryAsset;
+import com.gotree.API.modules.shared.infrastructure.repositories.BinaryAssetRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BinaryAssetServiceTest {
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 16};
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private final BinaryAssetRepository repository = mock(BinaryAssetRepository.class);
+    private final BinaryAssetService service = new BinaryAssetService(repository);
+
+    BinaryAssetServiceTest() {
+        when(repository.save(any())).thenAnswer(invocation -> {
+            BinaryAsset asset = invocation.getArgument(0);
+            asset.setId(1L);
+            return asset;
+        });
+    }
+
+    @Test
+    void contentTypeComesFromTheBytesNotFromTheDefault() {
+        assertThat(storedType(Base64.getEncoder().encodeToString(JPEG))).isEqualTo("image/jpeg");
+        assertThat(storedType(Base64.getEncoder().encodeToString(PNG))).isEqualTo("image/png");
+    }
+
+    @Test
+    void bytesWinOverAWrongDataUrlPrefix() {
+        assertThat(storedType("data:image/png;base64," + Base64.getEncoder().encodeToString(JPEG))).isEqualTo("image/jpeg");
+    }
+
+    @Test
+    void unknownFormatKeepsTheDeclaredTypeOrFallsBackToOctetStream() {
+        String svg = Base64.getEncoder().encodeToString("<svg xmlns=\"http://www.w3.org/2000/svg\"/>".getBytes());
+
+        assertThat(storedType("data:image/svg+xml;base64," + svg)).isEqualTo("image/svg+xml");
+        assertThat(storedType(svg)).isEqualTo("application/octet-stream");
+    }
+
+    private String storedType(String base64) {
+        ArgumentCaptor<BinaryAsset> saved = ArgumentCaptor.forClass(BinaryAsset.class);
+        service.storeBase64Image(base64);
+        verify(repository, atLeastOnce()).save(saved.capture());
+        return saved.getValue().getContentType();
+    }
+}
@@ -0,0 +1,179 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.customer.infrastructure.repositories.ClientRepository;
+import com.gotree.API.modules.operations.application.services.AepService;
+import com.gotree.API.modules.operations.application.services.RiskChecklistService;
+import com.gotree.API.modules.operations.application.services.TechnicalVisitService;
+import com.gotree.API.modules.operations.infrastructure.repositories.AepReportRepository;
+import com.gotree.API.modules.operations.infrastructure.repositories.OccupationalRiskReportRepository;
+import com.gotree.API.modules.operations.infrastructure.repositories.TechnicalVisitRepository;
+import com.gotree.API.modules.shared.domain.enums.PdfStatus;
+import com.gotree.API.modules.shared.infrastructure.repositories.DocumentIndexRepository;
+import com.gotree.API.modules.shared.infrastructure.repositories.DocumentIndexRepository.DocumentSummaryRow;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import com.gotree.API.modules.shared.presentation.dto.DocumentCursorPageDTO;
+import com.gotree.API.modules.shared.presentation.dto.DocumentSummaryDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DocumentAggregationServiceTest {
+
+    private static final LocalDate SAME_DAY = LocalDate.of(2024, 3, 26);
+
+    private DocumentIndexRepository documentIndexRepository;
+    private DocumentAggregationService service;
+    private final List<Row> index = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        documentIndexRepository = mock(DocumentIndexRepository.class);
+        ClientRepository clientRepository = mock(ClientRepository.class);
+        service = new DocumentAggregationService(mock(TechnicalVisitRepository.class), mock(TechnicalVisitService.class),
+                mock(AepService.class), mock(EmailOutboxService.class), mock(AepReportRepository.class),
+                mock(RiskChecklistService.class), mock(OccupationalRiskReportRepository.class),
+                documentIndexRepository, clientRepository,
+                mock(DocumentZipExportService.class), mock(StorageService.class), "");
+
+        // Mesmo predicado e ordenação do KEYSET/ORDER da consulta
+        when(documentIndexRepository.searchSummariesAfter(any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    LocalDate afterDate = invocation.getArgument(5);
+                    String afterType = invocation.getArgument(6);
+                    Long afterId = invocation.getArgument(7);
+                    Pageable pageable = invocation.getArgument(8);
+                    return index.stream()
+                            .filter(row -> row.sortDate.isBefore(afterDate)
+                                    || (row.sortDate.equals(afterDate) && row.docType.compareTo(afterType) < 0)
+                                    || (row.sortDate.equals(afterDate) && row.docType.equals(afterType) && row.id < afterId))
+                            .sorted(Row.ORDER)
+                            .limit(pageable.getPageSize())
+                            .map(DocumentSummaryRow.class::cast)
+                            .toList();
+                });
+    }
+
+    @Test
+    void cursorPagesThroughDocumentsSharingTheSameDateWithoutGapsOrRepeats() {
+        index.add(new Row("visit", 45L, SAME_DAY));
+        index.add(new Row("visit", 12L, SAME_DAY));
+        index.add(new Row("risk", 90L, SAME_DAY));
+        index.add(new Row("aep", 45L, SAME_DAY));
+        index.add(new Row("aep", 7L, SAME_DAY));
+        index.add(new Row("visit", 99L, SAME_DAY.minusDays(1)));
+        index.add(new Row("aep", 100L, SAME_DAY.plusDays(1)));
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            DocumentCursorPageDTO page = service.findDocumentsGlobalAfter(null, null, null, null, cursor, 2);
+            page.getContent().forEach(dto -> seen.add(dto.getDocumentType() + "#" + dto.getId()));
+            assertThat(page.isHasNext()).isEqualTo(page.getNextCursor() != null);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(4);
+        assertThat(seen).containsExactly(
+                "Avaliação Ergonômica Preliminar#100",
+                "Relatório de Visita#45",
+                "Relatório de Visita#12",
+                "Checklist de Riscos#90",
+                "Avaliação Ergonômica Preliminar#45",
+                "Avaliação Ergonômica Preliminar#7",
+                "Relatório de Visita#99");
+    }
+
+    @Test
+    void cursorPointsAtTheLastRowOfThePage() {
+        index.add(new Row("visit", 45L, SAME_DAY));
+        index.add(new Row("visit", 12L, SAME_DAY));
+        index.add(new Row("risk", 90L, SAME_DAY));
+
+        DocumentCursorPageDTO first = service.findDocumentsGlobalAfter(null, null, null, null, null, 2);
+
+        String raw = new String(Base64.getUrlDecoder().decode(first.getNextCursor()), StandardCharsets.UTF_8);
+        assertThat(raw).isEqualTo("2024-03-26|visit|12");
+
+        DocumentCursorPageDTO last = service.findDocumentsGlobalAfter(null, null, null, null, first.getNextCursor(), 2);
+        assertThat(last.getContent()).extracting(DocumentSummaryDTO::getId).containsExactly(90L);
+        assertThat(last.isHasNext()).isFalse();
+        assertThat(last.getNextCursor()).isNull();
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        String cursor = Base64.getUrlEncoder().encodeToString("2024-03-26|visit".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> service.findDocumentsGlobalAfter(null, null, null, null, cursor, 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor de paginação inválido.");
+    }
+
+    @Test
+    void clientFilterEscapesLikeWildcards() {
+        when(documentIndexRepository.searchSummaries(any(), any(), anyString(), any(), any(), any()))
+                .thenReturn(Page.empty());
+
+        service.findAllDocumentsGlobal(null, "  50%_Off!  ", null, null, PageRequest.of(0, 10));
+
+        verify(documentIndexRepository).searchSummaries(isNull(), isNull(), eq("%50!%!_off!!%"), isNull(), isNull(),
+                any(Pageable.class));
+    }
+
+    @Test
+    void blankClientFilterIsIgnored() {
+        when(documentIndexRepository.searchSummaries(any(), any(), any(), any(), any(), any()))
+                .thenReturn(new PageImpl<>(List.of()));
+
+        service.findAllDocumentsGlobal(null, "   ", null, null, PageRequest.of(0, 10));
+
+        verify(documentIndexRepository).searchSummaries(isNull(), isNull(), isNull(), isNull(), isNull(),
+                any(Pageable.class));
+    }
+
+    private record Row(String docType, Long id, LocalDate sortDate) implements DocumentSummaryRow {
+
+        static final Comparator<Row> ORDER = Comparator.comparing(Row::sortDate)
+                .thenComparing(Row::docType)
+                .thenComparing(Row::id)
+                .reversed();
+
+        @Override public String getDocType() { return docType; }
+        @Override public Long getId() { return id; }
+        @Override public String getTitle() { return docType + " " + id; }
+        @Override public LocalDate getCreationDate() { return sortDate; }
+        @Override public LocalDate getSortDate() { return sortDate; }
+        @Override public String getPdfPath() { return null; }
+        @Override public boolean getPdfGenerated() { return false; }
+        @Override public Long getCompanyId() { return null; }
+        @Override public String getCompanyName() { return null; }
+        @Override public String getTechnicianName() { return null; }
+        @Override public LocalDateTime getSentToClientAt() { return null; }
+        @Override public LocalDateTime getIcpSignedAt() { return null; }
+        @Override public boolean getSigned() { return false; }
+        @Override public PdfStatus getPdfStatus() { return PdfStatus.READY; }
+    }
+}
@@ -0,0 +1,151 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.operations.application.services.AepService;
+import com.gotree.API.modules.shared.infrastructure.repositories.DocumentIndexRepository;
+import com.gotree.API.modules.shared.infrastructure.repositories.DocumentIndexRepository.DocumentSummaryRow;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageBackend;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DocumentZipExportServiceTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 26);
+
+    private final DocumentIndexRepository documentIndexRepository = mock(DocumentIndexRepository.class);
+    private final AepService aepService = mock(AepService.class);
+    private final StorageService storageService = mock(StorageService.class);
+    private final DocumentZipExportService service =
+            new DocumentZipExportService(documentIndexRepository, aepService, storageService, 2, 4);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void readsEachStoredPdfOnceAndWritesMatchingEntries() throws Exception {
+        byte[] small = pdf(300, 1);
+        // Maior que o bloco em memória (64 KB): passa por um temporário
+        byte[] large = pdf(200 * 1024 + 17, 2);
+        stored("visits/a.pdf", small);
+        stored("risks/b.pdf", large);
+        index(document("visit", 1L, "Visita A", "visits/a.pdf"), document("risk", 2L, "Checklist B", "risks/b.pdf"));
+
+        Map<String, byte[]> zip = export();
+
+        assertThat(zip.values()).containsExactly(small, large);
+        verify(storageService, times(1)).open("visits/a.pdf");
+        verify(storageService, times(1)).open("risks/b.pdf");
+        verify(aepService, never()).loadOrGenerateAepPdf(any(), any());
+    }
+
+    @Test
+    void writesPdfsAroundTheInMemoryChunkBoundary() throws Exception {
+        byte[] exact = pdf(64 * 1024, 5);
+        byte[] oneMore = pdf(64 * 1024 + 1, 6);
+        stored("visits/exact.pdf", exact);
+        stored("visits/one-more.pdf", oneMore);
+        index(document("visit", 1L, "Exato", "visits/exact.pdf"), document("visit", 2L, "Um a mais", "visits/one-more.pdf"));
+
+        Map<String, byte[]> zip = export();
+
+        assertThat(zip.values()).containsExactly(exact, oneMore);
+    }
+
+    @Test
+    void rendersAepWithoutPdfOutsideTheIoPool() throws Exception {
+        byte[] rendered = pdf(800, 3);
+        AtomicReference<String> renderThread = new AtomicReference<>();
+        when(aepService.loadOrGenerateAepPdf(eq(7L), any())).thenAnswer(invocation -> {
+            renderThread.set(Thread.currentThread().getName());
+            return rendered;
+        });
+        index(document("aep", 7L, "AEP Nova", null));
+
+        Map<String, byte[]> zip = export();
+
+        assertThat(zip.values()).containsExactly(rendered);
+        assertThat(renderThread.get()).doesNotStartWith("zip-export-io-");
+        verify(storageService, never()).open(any());
+    }
+
+    @Test
+    void skipsMissingFilesAndKeepsTheRest() throws Exception {
+        byte[] content = pdf(100, 4);
+        stored("visits/ok.pdf", content);
+        index(document("visit", 1L, "Sem arquivo", "visits/missing.pdf"), document("visit", 2L, "Com arquivo", "visits/ok.pdf"));
+
+        Map<String, byte[]> zip = export();
+
+        assertThat(zip.values()).containsExactly(content);
+    }
+
+    private Map<String, byte[]> export() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.writeZip(null, null, output);
+
+        // ZipInputStream confere o tamanho e o CRC32 de cada entrada STORED
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                assertThat(entry.getMethod()).isEqualTo(ZipEntry.STORED);
+                entries.put(entry.getName(), zip.readAllBytes());
+            }
+        }
+        return entries;
+    }
+
+    private void stored(String key, byte[] content) throws IOException {
+        when(storageService.exists(key)).thenReturn(true);
+        when(storageService.stat(key)).thenReturn(new StorageBackend.ObjectInfo(content.length, Instant.parse("2024-03-26T10:00:00Z")));
+        when(storageService.open(key)).thenAnswer(invocation -> new ByteArrayInputStream(content));
+    }
+
+    private void index(DocumentSummaryRow... documents) {
+        when(documentIndexRepository.searchSummariesAfter(any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(documents));
+    }
+
+    private static DocumentSummaryRow document(String type, Long id, String title, String pdfPath) {
+        DocumentSummaryRow entry = mock(DocumentSummaryRow.class);
+        when(entry.getDocType()).thenReturn(type);
+        when(entry.getId()).thenReturn(id);
+        when(entry.getTitle()).thenReturn(title);
+        when(entry.getCompanyName()).thenReturn("Empresa");
+        when(entry.getCreationDate()).thenReturn(DATE);
+        when(entry.getSortDate()).thenReturn(DATE);
+        when(entry.getPdfPath()).thenReturn(pdfPath);
+        return entry;
+    }
+
+    private static byte[] pdf(int size, int seed) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31 + seed);
+        }
+        return content;
+    }
+}
@@ -0,0 +1,43 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.shared.domain.entities.EmailOutboxMessage;
+import com.gotree.API.modules.shared.domain.enums.EmailOutboxStatus;
+import com.gotree.API.modules.shared.infrastructure.repositories.EmailOutboxRepository;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmailOutboxServiceTest {
+
+    private final EmailOutboxRepository repository = mock(EmailOutboxRepository.class);
+    private final StorageService storageService = mock(StorageService.class);
+    private final EmailOutboxService service = new EmailOutboxService(repository, storageService, 6, 30, 3600);
+
+    @Test
+    void enqueuesOneMessagePerRecipient() {
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<EmailOutboxMessage> messages = service.enqueue(
+                List.of("a@empresa.com", "b@empresa.com", "a@empresa.com"), "Relatório", "<p>Olá</p>", "cas/aa/bb/x.pdf", "x.pdf");
+
+        assertThat(messages).extracting(EmailOutboxMessage::getRecipients).containsExactly("a@empresa.com", "b@empresa.com");
+        assertThat(messages).extracting(EmailOutboxMessage::getStatus).containsOnly(EmailOutboxStatus.PENDING);
+        // Cada mensagem libera a sua reserva do anexo
+        verify(storageService, times(2)).retain("cas/aa/bb/x.pdf");
+    }
+
+    @Test
+    void rejectsEmptyRecipients() {
+        assertThatThrownBy(() -> service.enqueue(List.of(), "Relatório", "<p>Olá</p>", null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,60 @@
+package com.gotree.API.modules.shared.application.services;
+
+import com.gotree.API.modules.administration.infrastructure.repositories.SystemInfoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.IContext;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReportServiceTest {
+
+    private final TemplateEngine templateEngine = mock(TemplateEngine.class);
+    private final PdfRenderExecutor renderExecutor = mock(PdfRenderExecutor.class);
+    private final FormPdfRenderer form = mock(FormPdfRenderer.class);
+    private final ReportService reportService;
+
+    ReportServiceTest() throws Exception {
+        when(form.templateName()).thenReturn("aep-template");
+        when(renderExecutor.execute(any())).thenAnswer(invocation -> ((Callable<?>) invocation.getArgument(0)).call());
+        reportService = new ReportService(templateEngine,
+                new ReportRenderResources(mock(SystemInfoRepository.class), null, 10), renderExecutor,
+                new SimpleMeterRegistry(), null, null, List.of(form), Set.of("aep-template"));
+    }
+
+    @Test
+    void usesTheFormEngineWhenTheDocumentFits() {
+        FormPdfRenderer.FormData formData = () -> "chave";
+        when(form.prepare(any())).thenReturn(formData);
+        when(form.render(formData)).thenReturn(new byte[]{1, 2, 3});
+
+        assertThat(reportService.generatePdfFromHtml("aep-template", new HashMap<>())).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void fallsBackToHtmlWhenTextDoesNotFitTheForm() {
+        FormPdfRenderer.FormData formData = () -> "chave";
+        when(form.prepare(any())).thenReturn(formData);
+        when(form.render(formData)).thenThrow(new FormPdfRenderer.LayoutOverflowException("não cabe"));
+        when(templateEngine.process(eq("aep-template"), any(IContext.class)))
+                .thenReturn("<html><body><p>Função avaliada completa</p></body></html>");
+
+        Map<String, Object> data = new HashMap<>();
+        byte[] pdf = reportService.generatePdfFromHtml("aep-template", data);
+
+        assertThat(new String(pdf, 0, 5)).isEqualTo("%PDF-");
+        verify(templateEngine).process(eq("aep-template"), any(IContext.class));
+    }
+}
@@ -0,0 +1,78 @@
+package com.gotree.API.modules.shared.infrastructure.providers;
+
+import com.gotree.API.modules.shared.application.services.EmailOutboxService;
+import com.gotree.API.modules.shared.domain.entities.EmailOutboxMessage;
+import com.gotree.API.modules.shared.infrastructure.storage.StorageService;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.MailSendException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmailOutboxWorkerTest {
+
+    private final EmailOutboxService outboxService = mock(EmailOutboxService.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private final EmailOutboxWorker worker =
+            new EmailOutboxWorker(outboxService, emailService, mock(StorageService.class), 1, 20, 30);
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdown();
+    }
+
+    @Test
+    void sendsOneMimeMessagePerRecipientAndRetriesOnlyTheFailedQueueEntry() throws Exception {
+        MimeMessage toA = mime("a@empresa.com");
+        MimeMessage toB = mime("b@empresa.com");
+        MimeMessage toC = mime("c@empresa.com");
+        // Mensagem antiga da fila, com dois destinatários, e uma nova, com um
+        when(outboxService.claimBatch(anyInt())).thenReturn(List.of(queued(1L, "a@empresa.com,b@empresa.com"),
+                queued(2L, "c@empresa.com")));
+
+        Map<Object, Exception> failed = new HashMap<>();
+        failed.put(toB, new IllegalStateException("caixa cheia"));
+        doThrow(new MailSendException(failed)).when(emailService).sendBatch(any(MimeMessage[].class));
+
+        worker.deliverPending();
+
+        verify(emailService).buildReportMessage(eq("a@empresa.com"), any(), any(), isNull(), any());
+        verify(emailService).buildReportMessage(eq("b@empresa.com"), any(), any(), isNull(), any());
+        verify(outboxService).markFailed(1L, "caixa cheia");
+        verify(outboxService, never()).markFailed(eq(2L), any());
+        verify(outboxService).markSent(List.of(2L));
+        ArgumentCaptor<MimeMessage[]> sent = ArgumentCaptor.forClass(MimeMessage[].class);
+        verify(emailService).sendBatch(sent.capture());
+        assertThat(sent.getValue()).containsExactlyInAnyOrder(toA, toB, toC);
+    }
+
+    private MimeMessage mime(String recipient) throws Exception {
+        MimeMessage mime = mock(MimeMessage.class);
+        when(emailService.buildReportMessage(eq(recipient), any(), any(), any(), any())).thenReturn(mime);
+        return mime;
+    }
+
+    private static EmailOutboxMessage queued(Long id, String recipients) {
+        EmailOutboxMessage message = new EmailOutboxMessage();
+        message.setId(id);
+        message.setRecipients(recipients);
+        message.setSubject("Relatório");
+        message.setHtmlBody("<p>Olá</p>");
+        return message;
+    }
+}
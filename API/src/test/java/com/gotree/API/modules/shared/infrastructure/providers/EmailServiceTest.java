@@ -0,0 +1,31 @@
+package com.gotree.API.modules.shared.infrastructure.providers;
+
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailServiceTest {
+
+    @Test
+    void reportMessageIsAddressedOnlyToItsRecipient() throws Exception {
+        EmailService emailService = new EmailService(new JavaMailSenderImpl());
+
+        MimeMessage message = emailService.buildReportMessage("cliente1@empresa.com", "Relatório", "<p>Olá</p>", null, null);
+
+        assertThat(Arrays.stream(message.getAllRecipients()).map(EmailServiceTest::address))
+                .containsExactly("cliente1@empresa.com");
+        assertThat(message.getRecipients(Message.RecipientType.CC)).isNull();
+        assertThat(message.getRecipients(Message.RecipientType.BCC)).isNull();
+    }
+
+    private static String address(Address address) {
+        return ((InternetAddress) address).getAddress();
+    }
+}
@@ -0,0 +1,163 @@
+package com.gotree.API.modules.shared.infrastructure.storage;
+
+import com.gotree.API.modules.shared.infrastructure.repositories.StoredBlobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StorageServiceTest {
+
+    private static final byte[] CONTENT = "conteúdo do relatório".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path root;
+
+    private final StoredBlobRepository storedBlobRepository = mock(StoredBlobRepository.class);
+    private StorageBackend backend;
+    private StorageService service;
+
+    @BeforeEach
+    void setUp() {
+        backend = spy(new LocalFileSystemStorageBackend(root));
+        service = new StorageService(backend, root.toString(), storedBlobRepository,
+                mock(PlatformTransactionManager.class), 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void storeAcquiresTheReferenceBeforeCheckingTheFile() throws IOException {
+        String key = service.store(CONTENT, "pdf");
+
+        InOrder order = inOrder(storedBlobRepository, backend);
+        order.verify(storedBlobRepository).acquire(key, CONTENT.length);
+        order.verify(backend).exists(key);
+        order.verify(backend).put(eq(key), any());
+        assertThat(service.readAllBytes(key)).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void storeUploadsAgainWhenTheFileWasCollected() throws IOException {
+        String key = service.store(CONTENT, "pdf");
+        // A limpeza apagou o arquivo entre as duas gravações do mesmo conteúdo
+        backend.delete(key);
+
+        String again = service.store(new ByteArrayInputStream(CONTENT), "pdf");
+
+        assertThat(again).isEqualTo(key);
+        assertThat(service.readAllBytes(key)).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void storeTransformedAcquiresBeforeCheckingTheFile() throws IOException {
+        String source = service.store(CONTENT, "pdf");
+        byte[] signed = "conteúdo assinado".getBytes(StandardCharsets.UTF_8);
+
+        String key = service.storeTransformed(source, "pdf", (in, out) -> Files.write(out, signed));
+
+        InOrder order = inOrder(storedBlobRepository, backend);
+        order.verify(storedBlobRepository).acquire(key, signed.length);
+        order.verify(backend).exists(key);
+        order.verify(backend).put(eq(key), any());
+        assertThat(service.readAllBytes(key)).isEqualTo(signed);
+    }
+
+    @Test
+    void releaseOnlyDecrementsAndKeepsTheFile() {
+        String key = service.store(CONTENT, "pdf");
+
+        service.release(key);
+
+        verify(storedBlobRepository).decrement(key);
+        assertThat(service.exists(key)).isTrue();
+    }
+
+    @Test
+    void collectGarbageDeletesOnlyWhatIsStillUnreferenced() {
+        String orphan = service.store(CONTENT, "pdf");
+        String reacquired = service.store("outro".getBytes(StandardCharsets.UTF_8), "pdf");
+        when(storedBlobRepository.findUnreferencedBefore(any(), any())).thenReturn(List.of(orphan, reacquired));
+        when(storedBlobRepository.deleteIfUnreferenced(eq(orphan), any())).thenReturn(1);
+        // Uma gravação concorrente voltou a referenciar o arquivo antes da limpeza travar o registro
+        when(storedBlobRepository.deleteIfUnreferenced(eq(reacquired), any())).thenReturn(0);
+
+        service.collectGarbage();
+
+        assertThat(service.exists(orphan)).isFalse();
+        assertThat(service.exists(reacquired)).isTrue();
+    }
+
+    @Test
+    void failedDeletionIsRetriedLaterAndDoesNotStopTheOthers() throws IOException {
+        String first = service.store(CONTENT, "pdf");
+        String second = service.store("outro".getBytes(StandardCharsets.UTF_8), "pdf");
+        when(storedBlobRepository.findUnreferencedBefore(any(), any())).thenReturn(List.of(first, second));
+        when(storedBlobRepository.deleteIfUnreferenced(anyString(), any())).thenReturn(1);
+        doThrow(new IOException("disco indisponível")).when(backend).delete(first);
+
+        service.collectGarbage();
+
+        assertThat(service.exists(first)).isTrue();
+        assertThat(service.exists(second)).isFalse();
+    }
+
+    @Test
+    void uploadFromARolledBackTransactionIsLeftForCollection() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        String key = service.store(CONTENT, "pdf");
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        verify(storedBlobRepository).registerOrphan(key, CONTENT.length);
+    }
+
+    @Test
+    void committedOrAlreadyStoredUploadsAreNotOrphaned() {
+        TransactionSynchronizationManager.initSynchronization();
+        service.store(CONTENT, "pdf");
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        TransactionSynchronizationManager.initSynchronization();
+        // Mesmo conteúdo, arquivo já presente: nada foi enviado por esta transação
+        service.store(CONTENT, "pdf");
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        verify(storedBlobRepository, never()).registerOrphan(anyString(), anyLong());
+    }
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
@@ -0,0 +1,48 @@
+package com.gotree.API.modules.shared.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageFormatTest {
+
+    @Test
+    void detectsFormatsFromMagicBytes() {
+        assertThat(ImageFormat.detect(bytes(0xFF, 0xD8, 0xFF, 0xE1))).contains(ImageFormat.JPEG);
+        assertThat(ImageFormat.detect(bytes(0x89, 'P', 'N', 'G', '\r', '\n'))).contains(ImageFormat.PNG);
+        assertThat(ImageFormat.detect(ascii("GIF89a"))).contains(ImageFormat.GIF);
+        assertThat(ImageFormat.detect(ascii("RIFF\0\0\0\0WEBPVP8 "))).contains(ImageFormat.WEBP);
+        assertThat(ImageFormat.detect(ascii("\0\0\0\u0018ftypheic\0\0\0\0"))).contains(ImageFormat.HEIC);
+        assertThat(ImageFormat.detect(bytes('I', 'I', 0x2A, 0x00))).contains(ImageFormat.TIFF);
+    }
+
+    @Test
+    void unknownOrTruncatedContentIsNotAnImage() {
+        assertThat(ImageFormat.detect(ascii("%PDF-1.7"))).isEmpty();
+        // MP4 também é ISO-BMFF, mas com outra marca
+        assertThat(ImageFormat.detect(ascii("\0\0\0\u0018ftypisom\0\0\0\0"))).isEmpty();
+        assertThat(ImageFormat.detect(bytes(0xFF, 0xD8))).isEmpty();
+        assertThat(ImageFormat.detect(new byte[0])).isEmpty();
+    }
+
+    @Test
+    void resolvesStorageExtensions() {
+        assertThat(ImageFormat.fromExtension("jpeg")).contains(ImageFormat.JPEG);
+        assertThat(ImageFormat.fromExtension("heic").map(ImageFormat::contentType)).contains("image/heic");
+        assertThat(ImageFormat.fromExtension("pdf")).isEmpty();
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) values[i];
+        }
+        return result;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}